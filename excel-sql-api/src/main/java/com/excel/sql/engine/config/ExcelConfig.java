@@ -1,9 +1,13 @@
 package com.excel.sql.engine.config;
 
+import com.excel.sql.engine.model.excel.ExcelSheet;
+import com.excel.sql.engine.service.reader.CsvRecordReader;
 import lombok.Data;
 import org.springframework.boot.context.properties.ConfigurationProperties;
 import org.springframework.context.annotation.Configuration;
 
+import javax.annotation.PostConstruct;
+
 /**
  * Excel配置类
  */
@@ -32,6 +36,26 @@ public class ExcelConfig {
      */
     private Query query = new Query();
     
+    /**
+     * 文件读取配置
+     */
+    private Reader reader = new Reader();
+    
+    /**
+     * 数据修改写回配置
+     */
+    private Write write = new Write();
+    
+    /**
+     * 将读取配置应用到工作表的流式加载，将区块统计配置应用到工作表数据加载
+     */
+    @PostConstruct
+    public void applyReaderSettings() {
+        ExcelSheet.configureStreaming(reader.getRowCacheSize(), reader.getBufferSize());
+        ExcelSheet.configureZoneMaps(index.getZoneBlockRows());
+        CsvRecordReader.configure(reader.getCsvChunkSize(), reader.getCsvParallelism());
+    }
+    
     /**
      * 文件存储配置
      */
@@ -62,6 +86,11 @@ public class ExcelConfig {
          * L2缓存过期时间（秒）
          */
         private int l2Ttl = 3600;
+        
+        /**
+         * 工作簿元数据目录大小
+         */
+        private int catalogSize = 100;
     }
     
     /**
@@ -78,6 +107,26 @@ public class ExcelConfig {
          * 重建索引阈值
          */
         private int rebuildThreshold = 1000;
+        
+        /**
+         * 进程内缓存的已加载工作表数据（及其索引）的总行数上限
+         */
+        private long maxCachedRows = 5000000;
+        
+        /**
+         * 区块统计（每个区块每列的最小值、最大值和空值数量）中每个区块的行数
+         */
+        private int zoneBlockRows = 1024;
+        
+        /**
+         * 是否为不同值较多的整数列和字符串列构建区块布隆过滤器
+         */
+        private boolean bloomFilters = true;
+        
+        /**
+         * 区块布隆过滤器中每个不同值分配的位数，10位时误判率约为1%
+         */
+        private int bloomBitsPerKey = 10;
     }
     
     /**
@@ -105,6 +154,37 @@ public class ExcelConfig {
          */
         private int pageSize = 1000;
         
+        /**
+         * 排序时内存中缓存的最大行数，超过后溢写到临时目录做外部归并排序
+         */
+        private int sortBufferRows = 100000;
+        
+        /**
+         * 并行扫描的线程数，小于等于0时使用CPU核数
+         */
+        private int parallelism = 0;
+        
+        /**
+         * 已加载工作表达到该行数时按行区间分区并行过滤、聚合；逐页读取文件时有WHERE条件的扫描
+         * 把连续的页合并为该行数的批次并行过滤。小于等于0时不并行
+         */
+        private int parallelThreshold = 50000;
+        
+        /**
+         * 异步查询结束后保留状态和结果的时间（秒）
+         */
+        private long asyncResultTtlSeconds = 600;
+        
+        /**
+         * 同时执行的异步查询数，异步查询使用单独的线程池，不占用同步查询的线程
+         */
+        private int asyncThreads = 2;
+        
+        /**
+         * 等待执行的异步查询数上限，超过后提交失败
+         */
+        private int asyncQueueCapacity = 50;
+        
         /**
          * 是否使用缓存
          */
@@ -115,4 +195,56 @@ public class ExcelConfig {
          */
         private int cacheTtl = 300;
     }
-} 
\ No newline at end of file
+    
+    /**
+     * 文件读取配置
+     */
+    @Data
+    public static class Reader {
+        /**
+         * XLSX流式读取时内存中缓存的行数
+         */
+        private int rowCacheSize = 100;
+        
+        /**
+         * XLSX流式读取的输入缓冲区大小（字节）
+         */
+        private int bufferSize = 4096;
+        
+        /**
+         * CSV并行解析时每个块的字节数
+         */
+        private int csvChunkSize = 8 * 1024 * 1024;
+        
+        /**
+         * CSV同时解析的块数，小于等于0时使用CPU核数
+         */
+        private int csvParallelism = 0;
+        
+        /**
+         * CSV列类型推断的样本行数
+         */
+        private int csvSampleRows = 1000;
+    }
+    
+    /**
+     * 数据修改写回配置
+     */
+    @Data
+    public static class Write {
+        /**
+         * 是否合并多条INSERT、UPDATE、DELETE语句的修改后一次写回工作簿文件，关闭时每条语句执行后立即写回
+         */
+        private boolean bufferEnabled = true;
+        
+        /**
+         * 工作簿待写回的变更行数达到该值时立即写回
+         */
+        private int maxPendingRows = 5000;
+        
+        /**
+         * 修改在内存中保留的最长时间（毫秒），超过后在后台写回
+         */
+        private long flushIntervalMs = 1000;
+    }
+}
@@ -4,6 +4,7 @@ import com.excel.sql.engine.model.dto.FileUploadRequest;
 import com.excel.sql.engine.model.excel.ExcelWorkbook;
 import com.excel.sql.engine.service.ExcelFileService;
 import com.excel.sql.engine.service.cache.QueryCacheService;
+import com.excel.sql.engine.service.write.WorkbookWriteBuffer;
 import io.swagger.v3.oas.annotations.Operation;
 import io.swagger.v3.oas.annotations.Parameter;
 import io.swagger.v3.oas.annotations.media.Content;
@@ -34,6 +35,7 @@ public class FileController {
     
     private final ExcelFileService excelFileService;
     private final QueryCacheService queryCacheService;
+    private final WorkbookWriteBuffer workbookWriteBuffer;
     
     /**
      * 上传Excel文件
@@ -84,6 +86,7 @@ public class FileController {
                     .createIndex(createIndex)
                     .build();
             
+            flushPendingWrites();
             ExcelWorkbook workbook = excelFileService.uploadFile(file, request);
             
             Map<String, Object> response = new HashMap<>();
@@ -151,6 +154,7 @@ public class FileController {
     public ResponseEntity<ExcelWorkbook> getWorkbook(
             @Parameter(description = "工作簿名称", required = true)
             @PathVariable String workbookName) {
+        flushPendingWrites();
         ExcelWorkbook workbook = excelFileService.loadWorkbook(workbookName);
         
         if (workbook != null) {
@@ -180,6 +184,7 @@ public class FileController {
     public ResponseEntity<Map<String, Object>> deleteWorkbook(
             @Parameter(description = "工作簿名称", required = true)
             @PathVariable String workbookName) {
+        flushPendingWrites();
         boolean success = excelFileService.deleteWorkbook(workbookName);
         
         // 清除缓存
@@ -230,4 +235,15 @@ public class FileController {
         
         return ResponseEntity.ok(response);
     }
-} 
\ No newline at end of file
+    
+    /**
+     * 读取、覆盖或删除工作簿文件前写回待写回的修改，避免之后写回时覆盖或重新创建文件
+     */
+    private void flushPendingWrites() {
+        try {
+            workbookWriteBuffer.flushAll();
+        } catch (IllegalStateException e) {
+            log.error("写回工作簿失败: {}", e.getMessage());
+        }
+    }
+}
@@ -1,8 +1,12 @@
 package com.excel.sql.engine.controller;
 
+import com.excel.sql.engine.model.dto.AsyncQueryStatus;
 import com.excel.sql.engine.model.dto.SqlQueryRequest;
 import com.excel.sql.engine.model.dto.SqlQueryResult;
 import com.excel.sql.engine.service.executor.SqlExecutor;
+import com.excel.sql.engine.service.executor.stream.NdjsonResultWriter;
+import com.excel.sql.engine.service.executor.stream.StreamingQuery;
+import com.fasterxml.jackson.databind.ObjectMapper;
 import io.swagger.v3.oas.annotations.Operation;
 import io.swagger.v3.oas.annotations.Parameter;
 import io.swagger.v3.oas.annotations.media.Content;
@@ -11,9 +15,12 @@ import io.swagger.v3.oas.annotations.responses.ApiResponse;
 import io.swagger.v3.oas.annotations.tags.Tag;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.validation.annotation.Validated;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
 /**
  * SQL查询控制器
@@ -27,6 +34,12 @@ import org.springframework.web.bind.annotation.*;
 public class SqlQueryController {
     
     private final SqlExecutor sqlExecutor;
+    private final ObjectMapper objectMapper;
+    
+    /**
+     * NDJSON媒体类型
+     */
+    private static final MediaType APPLICATION_NDJSON = MediaType.parseMediaType("application/x-ndjson");
     
     /**
      * 执行SQL查询
@@ -108,4 +121,145 @@ public class SqlQueryController {
             return ResponseEntity.badRequest().body(result);
         }
     }
-} 
\ No newline at end of file
+    
+    /**
+     * 以NDJSON流的方式执行SQL查询
+     * 第一行为列定义，之后每行一个结果行，最后一行为执行摘要（成功标志、行数或错误信息）
+     *
+     * @param request SQL查询请求
+     * @return 结果流
+     */
+    @PostMapping(value = "/query/stream", produces = "application/x-ndjson")
+    @Operation(
+        summary = "流式执行SQL查询",
+        description = "结果行边产生边写出，不在服务端缓存完整结果，适用于大结果集；只支持SELECT语句",
+        responses = {
+            @ApiResponse(
+                responseCode = "200",
+                description = "结果流，错误信息在最后一行中返回"
+            )
+        }
+    )
+    public ResponseEntity<StreamingResponseBody> streamQuery(
+            @RequestBody @Validated SqlQueryRequest request) {
+        log.info("流式执行SQL查询: {}", request.getSql());
+        // 响应体在异步线程中写出，解析SQL和读取会话中的当前工作簿在请求线程中完成
+        StreamingQuery query = sqlExecutor.prepareStream(request);
+        
+        StreamingResponseBody body = outputStream -> {
+            NdjsonResultWriter writer = new NdjsonResultWriter(outputStream, objectMapper);
+            writer.finish(query.execute(writer));
+        };
+        return ResponseEntity.ok().contentType(APPLICATION_NDJSON).body(body);
+    }
+    
+    /**
+     * 提交异步SQL查询
+     *
+     * @param request SQL查询请求
+     * @return 查询状态，包含查询ID
+     */
+    @PostMapping("/query/async")
+    @Operation(
+        summary = "提交异步SQL查询",
+        description = "提交查询后立即返回查询ID，查询在后台线程池中执行，通过查询ID获取进度和结果",
+        responses = {
+            @ApiResponse(
+                responseCode = "202",
+                description = "已提交",
+                content = @Content(schema = @Schema(implementation = AsyncQueryStatus.class))
+            ),
+            @ApiResponse(
+                responseCode = "400",
+                description = "提交失败",
+                content = @Content(schema = @Schema(implementation = AsyncQueryStatus.class))
+            )
+        }
+    )
+    public ResponseEntity<AsyncQueryStatus> submitQuery(
+            @RequestBody @Validated SqlQueryRequest request) {
+        log.info("提交异步SQL查询: {}", request.getSql());
+        AsyncQueryStatus status = sqlExecutor.submit(request);
+        
+        if (status.getQueryId() != null) {
+            return ResponseEntity.status(HttpStatus.ACCEPTED).body(status);
+        } else {
+            return ResponseEntity.badRequest().body(status);
+        }
+    }
+    
+    /**
+     * 获取异步查询的状态和结果
+     *
+     * @param queryId 查询ID
+     * @param offset 结果页的起始行
+     * @param limit 结果页的最大行数
+     * @return 查询状态，查询完成时包含结果的一页
+     */
+    @GetMapping("/query/{queryId}")
+    @Operation(
+        summary = "获取异步查询状态",
+        description = "返回查询的状态和进度（已扫描行数/总行数），查询完成时返回从offset开始的一页结果",
+        responses = {
+            @ApiResponse(
+                responseCode = "200",
+                description = "查询存在",
+                content = @Content(schema = @Schema(implementation = AsyncQueryStatus.class))
+            ),
+            @ApiResponse(
+                responseCode = "404",
+                description = "查询不存在或已过期"
+            )
+        }
+    )
+    public ResponseEntity<AsyncQueryStatus> getQuery(
+            @Parameter(description = "查询ID", required = true)
+            @PathVariable String queryId,
+            @Parameter(description = "结果页的起始行", required = false)
+            @RequestParam(defaultValue = "0") int offset,
+            @Parameter(description = "结果页的最大行数", required = false)
+            @RequestParam(defaultValue = "1000") int limit) {
+        AsyncQueryStatus status = sqlExecutor.getAsyncQuery(queryId, offset, limit);
+        
+        if (status != null) {
+            return ResponseEntity.ok(status);
+        } else {
+            return ResponseEntity.notFound().build();
+        }
+    }
+    
+    /**
+     * 取消异步查询
+     *
+     * @param queryId 查询ID
+     * @return 取消后的查询状态
+     */
+    @DeleteMapping("/query/{queryId}")
+    @Operation(
+        summary = "取消异步查询",
+        description = "排队中的查询直接取消，执行中的查询在下一个检查点停止",
+        responses = {
+            @ApiResponse(
+                responseCode = "200",
+                description = "已取消",
+                content = @Content(schema = @Schema(implementation = AsyncQueryStatus.class))
+            ),
+            @ApiResponse(
+                responseCode = "404",
+                description = "查询不存在或已过期"
+            )
+        }
+    )
+    public ResponseEntity<AsyncQueryStatus> cancelQuery(
+            @Parameter(description = "查询ID", required = true)
+            @PathVariable String queryId) {
+        log.info("取消异步SQL查询: {}", queryId);
+        AsyncQueryStatus status = sqlExecutor.cancel(queryId);
+        
+        if (status != null) {
+            return ResponseEntity.ok(status);
+        } else {
+            return ResponseEntity.notFound().build();
+        }
+    }
+}
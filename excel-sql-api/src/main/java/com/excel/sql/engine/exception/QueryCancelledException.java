@@ -0,0 +1,31 @@
+package com.excel.sql.engine.exception;
+
+/**
+ * 查询取消异常
+ * 查询超时或被取消时由执行中的查询抛出，查询处理器不应把它当作普通错误吞掉
+ */
+public class QueryCancelledException extends SqlExecutionException {
+
+    private QueryCancelledException(String message, String errorCode) {
+        super(message, errorCode);
+    }
+
+    /**
+     * 查询超时
+     *
+     * @param timeoutSeconds 超时秒数
+     * @return 查询取消异常
+     */
+    public static QueryCancelledException timeout(int timeoutSeconds) {
+        return new QueryCancelledException("查询超时: " + timeoutSeconds + "秒", "QUERY_TIMEOUT");
+    }
+
+    /**
+     * 查询被取消
+     *
+     * @return 查询取消异常
+     */
+    public static QueryCancelledException cancelled() {
+        return new QueryCancelledException("查询已取消", "QUERY_CANCELLED");
+    }
+}
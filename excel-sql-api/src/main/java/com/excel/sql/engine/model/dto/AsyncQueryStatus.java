@@ -0,0 +1,105 @@
+package com.excel.sql.engine.model.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * 异步查询状态DTO
+ */
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class AsyncQueryStatus {
+
+    /**
+     * 查询ID
+     */
+    private String queryId;
+
+    /**
+     * SQL查询语句
+     */
+    private String sql;
+
+    /**
+     * 执行状态
+     */
+    private Status status;
+
+    /**
+     * 已扫描的行数
+     */
+    private Long rowsScanned;
+
+    /**
+     * 需要扫描的总行数，未知时为null
+     */
+    private Long totalRows;
+
+    /**
+     * 已执行时间（毫秒），结束后为总执行时间
+     */
+    private Long elapsedTime;
+
+    /**
+     * 结果总行数，查询完成后返回
+     */
+    private Integer resultRows;
+
+    /**
+     * 本次返回的结果页在结果中的起始位置
+     */
+    private Integer offset;
+
+    /**
+     * 查询结果（当前页），查询完成后返回
+     */
+    private SqlQueryResult result;
+
+    /**
+     * 错误信息
+     */
+    private String errorMessage;
+
+    /**
+     * 异步查询状态枚举
+     */
+    public enum Status {
+        /**
+         * 排队等待执行
+         */
+        PENDING,
+        /**
+         * 执行中
+         */
+        RUNNING,
+        /**
+         * 执行成功
+         */
+        SUCCEEDED,
+        /**
+         * 执行失败
+         */
+        FAILED,
+        /**
+         * 已取消
+         */
+        CANCELLED,
+        /**
+         * 执行超时
+         */
+        TIMEOUT;
+
+        /**
+         * 是否已结束
+         *
+         * @return 是否已结束
+         */
+        public boolean isFinished() {
+            return this != PENDING && this != RUNNING;
+        }
+    }
+}
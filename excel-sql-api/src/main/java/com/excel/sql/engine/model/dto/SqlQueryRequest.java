@@ -45,4 +45,10 @@ public class SqlQueryRequest {
      */
     @Builder.Default
     private Integer maxRows = 10000;
+    
+    /**
+     * 结果格式：ROWS（默认，每行一个对象）、COMPACT（按行的值数组）、COLUMNAR（按列的值数组）
+     */
+    @Builder.Default
+    private SqlQueryResult.ResultFormat resultFormat = SqlQueryResult.ResultFormat.ROWS;
 } 
\ No newline at end of file
@@ -1,11 +1,15 @@
 package com.excel.sql.engine.model.dto;
 
 import com.excel.sql.engine.model.excel.ExcelDataType;
+import com.fasterxml.jackson.annotation.JsonIgnore;
+import com.fasterxml.jackson.annotation.JsonInclude;
 import lombok.Data;
 import lombok.Builder;
 import lombok.NoArgsConstructor;
 import lombok.AllArgsConstructor;
 
+import java.util.ArrayList;
+import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
 
@@ -13,7 +17,7 @@ import java.util.Map;
  * SQL查询结果DTO
  */
 @Data
-@Builder
+@Builder(toBuilder = true)
 @NoArgsConstructor
 @AllArgsConstructor
 public class SqlQueryResult {
@@ -28,6 +32,19 @@ public class SqlQueryResult {
      */
     private List<Map<String, Object>> rows;
     
+    /**
+     * 紧凑格式的结果数据，值的顺序与columns一致，不重复列名
+     * COMPACT格式下每个元素是一行的值数组；COLUMNAR格式下每个元素是一列的值数组
+     */
+    @JsonInclude(JsonInclude.Include.NON_NULL)
+    private List<Object> data;
+    
+    /**
+     * 结果格式，为null时表示ROWS
+     */
+    @JsonInclude(JsonInclude.Include.NON_NULL)
+    private ResultFormat format;
+    
     /**
      * 影响的行数（用于INSERT/UPDATE/DELETE）
      */
@@ -99,9 +116,176 @@ public class SqlQueryResult {
         DROP_WORKBOOK,
         DROP_SHEET,
         USE_WORKBOOK,
+        CREATE_INDEX,
+        DROP_INDEX,
+        SHOW_INDEXES,
+        FLUSH,
         UNKNOWN
     }
     
+    /**
+     * 结果格式枚举
+     */
+    public enum ResultFormat {
+        /**
+         * 每行一个列名到值的映射（rows）
+         */
+        ROWS,
+        /**
+         * 按行的值数组（data），列名只在columns中出现一次
+         */
+        COMPACT,
+        /**
+         * 按列的值数组（data），整列都是整数或数值时使用long[]、double[]
+         */
+        COLUMNAR
+    }
+    
+    /**
+     * 转换为指定的结果格式，返回新的结果对象，当前对象不变
+     * 没有行数据的结果（DML、DDL、错误）原样返回
+     *
+     * @param target 目标格式，为null时表示ROWS
+     * @return 指定格式的结果
+     */
+    public SqlQueryResult toFormat(ResultFormat target) {
+        ResultFormat current = format != null ? format : ResultFormat.ROWS;
+        ResultFormat wanted = target != null ? target : ResultFormat.ROWS;
+        if (current == wanted || columns == null || (rows == null && data == null)) {
+            return this;
+        }
+        
+        List<String> labels = new ArrayList<>(columns.size());
+        for (ColumnDefinition column : columns) {
+            labels.add(column.getLabel() != null ? column.getLabel() : column.getName());
+        }
+        int rowCount = getRowCount();
+        SqlQueryResult converted = toBuilder().rows(null).data(null).format(wanted == ResultFormat.ROWS ? null : wanted).build();
+        
+        if (wanted == ResultFormat.ROWS) {
+            List<Map<String, Object>> expanded = new ArrayList<>(rowCount);
+            for (int r = 0; r < rowCount; r++) {
+                Map<String, Object> row = new HashMap<>();
+                for (int c = 0; c < labels.size(); c++) {
+                    row.put(labels.get(c), valueAt(r, c));
+                }
+                expanded.add(row);
+            }
+            converted.setRows(expanded);
+        } else if (wanted == ResultFormat.COMPACT) {
+            List<Object> rowData = new ArrayList<>(rowCount);
+            for (int r = 0; r < rowCount; r++) {
+                Object[] values = new Object[labels.size()];
+                for (int c = 0; c < values.length; c++) {
+                    values[c] = valueAt(r, c);
+                }
+                rowData.add(values);
+            }
+            converted.setData(rowData);
+        } else {
+            List<Object> columnData = new ArrayList<>(labels.size());
+            for (int c = 0; c < labels.size(); c++) {
+                Object[] values = new Object[rowCount];
+                for (int r = 0; r < rowCount; r++) {
+                    values[r] = valueAt(r, c);
+                }
+                columnData.add(toTypedArray(values));
+            }
+            converted.setData(columnData);
+        }
+        return converted;
+    }
+    
+    /**
+     * 获取结果行数
+     *
+     * @return 结果行数
+     */
+    @JsonIgnore
+    public int getRowCount() {
+        if (rows != null) {
+            return rows.size();
+        }
+        if (data == null || data.isEmpty()) {
+            return 0;
+        }
+        return format == ResultFormat.COLUMNAR ? arrayLength(data.get(0)) : data.size();
+    }
+    
+    /**
+     * 读取第row行第column列的值，兼容内存中的数组和从JSON反序列化得到的列表
+     */
+    private Object valueAt(int row, int column) {
+        if (rows != null) {
+            ColumnDefinition definition = columns.get(column);
+            return rows.get(row).get(definition.getLabel() != null ? definition.getLabel() : definition.getName());
+        }
+        if (format == ResultFormat.COLUMNAR) {
+            return arrayElement(data.get(column), row);
+        }
+        return arrayElement(data.get(row), column);
+    }
+    
+    private static Object arrayElement(Object array, int index) {
+        if (array instanceof Object[]) {
+            return ((Object[]) array)[index];
+        }
+        if (array instanceof long[]) {
+            return ((long[]) array)[index];
+        }
+        if (array instanceof double[]) {
+            return ((double[]) array)[index];
+        }
+        return ((List<?>) array).get(index);
+    }
+    
+    private static int arrayLength(Object array) {
+        if (array instanceof Object[]) {
+            return ((Object[]) array).length;
+        }
+        if (array instanceof long[]) {
+            return ((long[]) array).length;
+        }
+        if (array instanceof double[]) {
+            return ((double[]) array).length;
+        }
+        return ((List<?>) array).size();
+    }
+    
+    /**
+     * 整列都是非空整数时转换为long[]，都是非空浮点数时转换为double[]，否则保持Object[]
+     */
+    private static Object toTypedArray(Object[] values) {
+        boolean allLong = values.length > 0;
+        boolean allDouble = values.length > 0;
+        for (Object value : values) {
+            if (!(value instanceof Long || value instanceof Integer || value instanceof Short || value instanceof Byte)) {
+                allLong = false;
+            }
+            if (!(value instanceof Double || value instanceof Float)) {
+                allDouble = false;
+            }
+            if (!allLong && !allDouble) {
+                break;
+            }
+        }
+        if (allLong) {
+            long[] longs = new long[values.length];
+            for (int i = 0; i < values.length; i++) {
+                longs[i] = ((Number) values[i]).longValue();
+            }
+            return longs;
+        }
+        if (allDouble) {
+            double[] doubles = new double[values.length];
+            for (int i = 0; i < values.length; i++) {
+                doubles[i] = ((Number) values[i]).doubleValue();
+            }
+            return doubles;
+        }
+        return values;
+    }
+    
     /**
      * 创建成功的查询结果
      *
@@ -74,6 +74,25 @@ public class ExcelColumn {
                 .toLowerCase();
     }
     
+    /**
+     * 复制列定义
+     *
+     * @return 列定义副本
+     */
+    public ExcelColumn copy() {
+        return ExcelColumn.builder()
+                .id(id)
+                .index(index)
+                .sheetId(sheetId)
+                .name(name)
+                .columnIndex(columnIndex)
+                .dataType(dataType)
+                .nullable(nullable)
+                .indexed(indexed)
+                .formatPattern(formatPattern)
+                .build();
+    }
+    
     /**
      * 根据字符串值解析为对应的数据类型
      *
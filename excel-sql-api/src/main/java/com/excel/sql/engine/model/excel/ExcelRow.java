@@ -1,24 +1,28 @@
 package com.excel.sql.engine.model.excel;
 
+import com.excel.sql.engine.model.excel.columnar.ColumnarTable;
 import lombok.Data;
 import lombok.Builder;
 import lombok.NoArgsConstructor;
 import lombok.AllArgsConstructor;
 import lombok.ToString;
 
+import java.util.ArrayList;
 import java.util.HashMap;
+import java.util.LinkedHashMap;
 import java.util.Map;
 import java.util.List;
 
 /**
  * Excel行模型
  * 对应数据库中的Row概念
+ * 从列式存储加载的行只是指向某个行位置的视图，读写都直接作用于列向量
  */
 @Data
 @Builder
 @NoArgsConstructor
 @AllArgsConstructor
-@ToString(exclude = {"sheet"})
+@ToString(exclude = {"sheet", "table"})
 public class ExcelRow {
     
     /**
@@ -41,6 +45,16 @@ public class ExcelRow {
      */
     private transient Map<Integer, String> rawCells;
     
+    /**
+     * 列式存储，为null时行数据保存在cells中
+     */
+    private transient ColumnarTable table;
+    
+    /**
+     * 在列式存储中的行位置
+     */
+    private transient int position;
+    
     /**
      * 构造函数
      *
@@ -51,7 +65,52 @@ public class ExcelRow {
         this.rowNum = rowNum;
         this.sheet = sheet;
         this.cells = new HashMap<>();
-        this.rawCells = new HashMap<>();
+    }
+    
+    /**
+     * 创建列式存储的行视图
+     *
+     * @param table 列式存储
+     * @param position 行位置
+     * @param sheet 工作表
+     */
+    public ExcelRow(ColumnarTable table, int position, ExcelSheet sheet) {
+        this.table = table;
+        this.position = position;
+        this.sheet = sheet;
+    }
+    
+    /**
+     * 获取行号
+     *
+     * @return 行号
+     */
+    public Integer getRowNum() {
+        return table != null ? table.getRowNum(position) : rowNum;
+    }
+    
+    /**
+     * 获取单元格数据，行视图会按列生成一份副本
+     *
+     * @return 单元格数据，key为列名
+     */
+    public Map<String, Object> getCells() {
+        if (table == null) {
+            return cells;
+        }
+        
+        Map<String, Object> values = new LinkedHashMap<>();
+        List<String> columnNames = table.getColumnNames();
+        for (int i = 0; i < columnNames.size(); i++) {
+            Object value = table.get(i, position);
+            if (value != null) {
+                values.put(columnNames.get(i), value);
+            }
+        }
+        if (cells != null) {
+            values.putAll(cells);
+        }
+        return values;
     }
     
     /**
@@ -61,6 +120,13 @@ public class ExcelRow {
      * @param value 值
      */
     public void setCellValue(String columnName, Object value) {
+        if (table != null) {
+            int ordinal = table.ordinal(columnName);
+            if (ordinal >= 0) {
+                table.set(ordinal, position, value);
+                return;
+            }
+        }
         if (cells == null) {
             cells = new HashMap<>();
         }
@@ -87,6 +153,26 @@ public class ExcelRow {
      * @return 单元格值
      */
     public Object getCellValue(String columnName) {
+        if (table != null) {
+            int ordinal = table.ordinal(columnName);
+            if (ordinal >= 0) {
+                return table.get(ordinal, position);
+            }
+        }
+        return cells != null ? cells.get(columnName) : null;
+    }
+    
+    /**
+     * 按列序号获取单元格值，行视图直接读取列向量
+     *
+     * @param ordinal 列序号，即列在工作表列定义中的下标，未知时为-1
+     * @param columnName 列名
+     * @return 单元格值
+     */
+    public Object getCellValue(int ordinal, String columnName) {
+        if (table != null && ordinal >= 0 && ordinal < table.getColumnNames().size()) {
+            return table.get(ordinal, position);
+        }
         return cells != null ? cells.get(columnName) : null;
     }
     
@@ -122,6 +208,9 @@ public class ExcelRow {
      * @return 列名集合
      */
     public Iterable<String> getColumnNames() {
+        if (table != null) {
+            return new ArrayList<>(getCells().keySet());
+        }
         return cells != null ? cells.keySet() : List.of();
     }
     
@@ -132,6 +221,9 @@ public class ExcelRow {
      * @return 是否包含
      */
     public boolean hasColumn(String columnName) {
+        if (table != null && table.ordinal(columnName) >= 0) {
+            return table.get(table.ordinal(columnName), position) != null;
+        }
         return cells != null && cells.containsKey(columnName);
     }
 } 
\ No newline at end of file
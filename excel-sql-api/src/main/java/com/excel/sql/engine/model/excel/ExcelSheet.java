@@ -6,6 +6,14 @@ import lombok.NoArgsConstructor;
 import lombok.AllArgsConstructor;
 import lombok.ToString;
 
+import com.excel.sql.engine.model.excel.columnar.ColumnarTable;
+import com.excel.sql.engine.model.excel.index.BlockBloomFilter;
+import com.excel.sql.engine.model.excel.index.HashIndex;
+import com.excel.sql.engine.model.excel.index.NgramIndex;
+import com.excel.sql.engine.model.excel.index.RowDelta;
+import com.excel.sql.engine.model.excel.index.SortedIndex;
+import com.excel.sql.engine.model.excel.index.ZoneMap;
+
 import java.util.List;
 import java.util.Map;
 import java.util.concurrent.ConcurrentHashMap;
@@ -18,7 +26,8 @@ import java.util.concurrent.ConcurrentHashMap;
 @Builder
 @NoArgsConstructor
 @AllArgsConstructor
-@ToString(exclude = {"rows", "primaryIndex", "secondaryIndexes"})
+@ToString(exclude = {"rows", "columnarTable", "primaryIndex", "secondaryIndexes", "sortedIndexes", "zoneMap", "bloomFilters",
+        "ngramIndexes"})
 public class ExcelSheet {
     
     /**
@@ -67,15 +76,43 @@ public class ExcelSheet {
     private transient List<ExcelRow> rows;
     
     /**
-     * 主索引，基于行号的快速访问
+     * 数据行的列式存储，rows中的行是它的行视图
+     */
+    private transient ColumnarTable columnarTable;
+    
+    /**
+     * 主索引，基于行号的快速访问（首次访问时由rows构建）
      */
     private transient Map<Integer, ExcelRow> primaryIndex;
     
     /**
-     * 辅助索引，基于列值的快速查找
-     * 格式：columnName -> columnValue -> List<ExcelRow>
+     * 辅助索引，基于列值的快速查找（首次按列查找时由列式存储构建，或由索引文件加载）
+     * 格式：columnName -> 哈希索引，多列索引的键为逗号连接的列名
+     */
+    private transient Map<String, HashIndex> secondaryIndexes;
+    
+    /**
+     * 有序索引，用于范围查找和按列排序（首次按列范围查找或排序时由列式存储构建）
+     * 格式：columnName -> 有序索引
+     */
+    private transient Map<String, SortedIndex> sortedIndexes;
+    
+    /**
+     * 区块统计，加载数据时由列式存储构建，用于过滤时跳过不可能满足条件的区块
      */
-    private transient Map<String, Map<Object, List<ExcelRow>>> secondaryIndexes;
+    private transient ZoneMap zoneMap;
+    
+    /**
+     * 区块布隆过滤器，与区块统计的区块划分一致，由索引文件加载或在加载数据后构建
+     * 格式：columnName -> 区块布隆过滤器
+     */
+    private transient Map<String, BlockBloomFilter> bloomFilters;
+    
+    /**
+     * 三元组索引，只由CREATE INDEX ... USING NGRAM创建，用于LIKE子串匹配
+     * 格式：columnName -> 三元组索引
+     */
+    private transient Map<String, NgramIndex> ngramIndexes;
     
     /**
      * 是否已加载数据
@@ -87,17 +124,31 @@ public class ExcelSheet {
      */
     private transient boolean indexed;
     
+    /**
+     * XLSX流式读取时内存中缓存的行数
+     */
+    private static volatile int streamingRowCacheSize = 100;
+    
+    /**
+     * XLSX流式读取的输入缓冲区大小（字节）
+     */
+    private static volatile int streamingBufferSize = 4096;
+    
+    /**
+     * 区块统计中每个区块的行数
+     */
+    private static volatile int zoneBlockRows = ZoneMap.DEFAULT_BLOCK_ROWS;
+    
     /**
      * 初始化索引
      */
     public void initializeIndexes() {
-        if (primaryIndex == null) {
-            primaryIndex = new ConcurrentHashMap<>();
-        }
-        
         if (secondaryIndexes == null) {
             secondaryIndexes = new ConcurrentHashMap<>();
         }
+        if (sortedIndexes == null) {
+            sortedIndexes = new ConcurrentHashMap<>();
+        }
         
         indexed = true;
     }
@@ -108,11 +159,14 @@ public class ExcelSheet {
      * @param row 行
      */
     public void addToPrimaryIndex(ExcelRow row) {
-        if (primaryIndex == null) {
+        if (secondaryIndexes == null) {
             initializeIndexes();
         }
         
-        primaryIndex.put(row.getRowNum(), row);
+        // 主索引尚未构建时无需维护，首次访问时会包含该行
+        if (primaryIndex != null) {
+            primaryIndex.put(row.getRowNum(), row);
+        }
         
         // 如果rows为null，初始化它
         if (rows == null) {
@@ -123,6 +177,319 @@ public class ExcelSheet {
         rows.add(row);
     }
     
+    /**
+     * 获取主索引，首次访问时由已加载的行构建
+     *
+     * @return 主索引
+     */
+    public Map<Integer, ExcelRow> getPrimaryIndex() {
+        if (primaryIndex == null) {
+            Map<Integer, ExcelRow> index = new ConcurrentHashMap<>();
+            if (rows != null) {
+                for (ExcelRow row : rows) {
+                    index.put(row.getRowNum(), row);
+                }
+            }
+            primaryIndex = index;
+        }
+        return primaryIndex;
+    }
+    
+    /**
+     * 获取列的哈希索引，首次访问时由已加载的列式存储构建
+     * 同一列的并发访问只构建一次
+     *
+     * @param columnName 列名
+     * @return 哈希索引，数据未加载或列不存在时返回null
+     */
+    public HashIndex getSecondaryIndex(String columnName) {
+        ColumnarTable table = columnarTable;
+        if (!dataLoaded || table == null) {
+            return null;
+        }
+        int ordinal = table.ordinal(columnName);
+        if (ordinal < 0) {
+            return null;
+        }
+        
+        Map<String, HashIndex> indexes;
+        synchronized (this) {
+            if (secondaryIndexes == null) {
+                initializeIndexes();
+            }
+            indexes = secondaryIndexes;
+        }
+        return indexes.computeIfAbsent(columnName, name -> HashIndex.build(table, ordinal));
+    }
+    
+    /**
+     * 放入已构建或从索引文件加载的哈希索引，替换同一列（或同一组列）上的索引
+     *
+     * @param index 哈希索引
+     */
+    public synchronized void putSecondaryIndex(HashIndex index) {
+        if (secondaryIndexes == null) {
+            initializeIndexes();
+        }
+        secondaryIndexes.put(String.join(",", index.getColumnNames()), index);
+    }
+    
+    /**
+     * 放入已构建或从索引文件加载的有序索引，替换同一列上的索引
+     *
+     * @param index 有序索引
+     */
+    public synchronized void putSortedIndex(SortedIndex index) {
+        if (sortedIndexes == null) {
+            initializeIndexes();
+        }
+        sortedIndexes.put(index.getColumnName(), index);
+    }
+    
+    /**
+     * 放入已构建或从文件加载的区块布隆过滤器，替换同一列上的过滤器
+     *
+     * @param filter 区块布隆过滤器
+     */
+    public synchronized void putBloomFilter(BlockBloomFilter filter) {
+        if (bloomFilters == null) {
+            bloomFilters = new ConcurrentHashMap<>();
+        }
+        bloomFilters.put(filter.getColumnName(), filter);
+    }
+    
+    /**
+     * 放入已构建或从索引文件加载的三元组索引，替换同一列上的索引
+     *
+     * @param index 三元组索引
+     */
+    public synchronized void putNgramIndex(NgramIndex index) {
+        if (ngramIndexes == null) {
+            ngramIndexes = new ConcurrentHashMap<>();
+        }
+        ngramIndexes.put(index.getColumnName(), index);
+    }
+    
+    /**
+     * 获取列的有序索引，首次访问时由已加载的列式存储构建
+     * 同一列的并发访问只构建一次
+     *
+     * @param columnName 列名
+     * @return 有序索引，数据未加载、列不存在或列既不是数值列也不是字符串列时返回null
+     */
+    public SortedIndex getSortedIndex(String columnName) {
+        ColumnarTable table = columnarTable;
+        if (!dataLoaded || table == null) {
+            return null;
+        }
+        int ordinal = table.ordinal(columnName);
+        if (ordinal < 0) {
+            return null;
+        }
+        
+        Map<String, SortedIndex> indexes;
+        synchronized (this) {
+            if (sortedIndexes == null) {
+                initializeIndexes();
+            }
+            indexes = sortedIndexes;
+        }
+        return indexes.computeIfAbsent(columnName, name -> SortedIndex.build(table, ordinal));
+    }
+    
+    /**
+     * 复制工作表元数据（不包含行数据和索引）
+     *
+     * @return 工作表元数据副本
+     */
+    public ExcelSheet copyMetadata() {
+        List<ExcelColumn> copiedColumns = null;
+        if (columns != null) {
+            copiedColumns = new java.util.ArrayList<>(columns.size());
+            for (ExcelColumn column : columns) {
+                copiedColumns.add(column.copy());
+            }
+        }
+        
+        return ExcelSheet.builder()
+                .id(id)
+                .workbookId(workbookId)
+                .name(name)
+                .sheetIndex(sheetIndex)
+                .headerRowIndex(headerRowIndex)
+                .dataStartRowIndex(dataStartRowIndex)
+                .totalRows(totalRows)
+                .columns(copiedColumns)
+                .build();
+    }
+    
+    /**
+     * 在已加载的数据上应用行变更，得到新的已加载工作表
+     * 复制列式存储后应用变更，已有的哈希索引、有序索引、三元组索引、区块统计和区块布隆过滤器按变更增量维护，
+     * 不重新读取文件；当前工作表保持不变，正在执行的查询不受影响。
+     * 列类型变化后无法维护的有序索引重新构建，无法维护的区块布隆过滤器丢弃
+     *
+     * @param changes 行变更
+     * @return 应用变更后的工作表，数据未加载、插入的行不在末尾或行删除后又写入时返回null，需要重新加载
+     */
+    public ExcelSheet applyChanges(SheetChanges changes) {
+        ColumnarTable oldTable = columnarTable;
+        if (!dataLoaded || oldTable == null) {
+            return null;
+        }
+        int oldSize = oldTable.size();
+        
+        // 删除的行不复制，之后的行位置前移
+        int[] remap = null;
+        if (!changes.getDeletes().isEmpty()) {
+            remap = new int[oldSize];
+            boolean deleted = false;
+            for (int rowNum : changes.getDeletes()) {
+                int position = findPosition(oldTable, rowNum);
+                if (position >= 0) {
+                    remap[position] = -1;
+                    deleted = true;
+                }
+            }
+            if (deleted) {
+                int next = 0;
+                for (int position = 0; position < oldSize; position++) {
+                    if (remap[position] == 0) {
+                        remap[position] = next++;
+                    }
+                }
+            } else {
+                remap = null;
+            }
+        }
+        
+        ColumnarTable table = new ColumnarTable(oldTable.getColumnNames());
+        int columnCount = oldTable.getColumnNames().size();
+        for (int position = 0; position < oldSize; position++) {
+            if (remap != null && remap[position] < 0) {
+                continue;
+            }
+            int newPosition = table.appendRow(oldTable.getRowNum(position));
+            for (int ordinal = 0; ordinal < columnCount; ordinal++) {
+                Object value = oldTable.get(ordinal, position);
+                if (value != null) {
+                    table.set(ordinal, newPosition, value);
+                }
+            }
+        }
+        
+        // 按行号顺序写入，新行的行号必须大于已有的行，行位置才与文件中的顺序一致
+        int lastRowNum = oldSize > 0 ? oldTable.getRowNum(oldSize - 1) : -1;
+        int[] changed = new int[changes.getWrites().size()];
+        int[] changedFrom = new int[changed.length];
+        int count = 0;
+        for (Map.Entry<Integer, Map<String, Object>> write : new java.util.TreeMap<>(changes.getWrites()).entrySet()) {
+            int rowNum = write.getKey();
+            if (changes.getDeletes().contains(rowNum)) {
+                return null;
+            }
+            int oldPosition = findPosition(oldTable, rowNum);
+            int newPosition;
+            if (oldPosition >= 0) {
+                newPosition = remap != null ? remap[oldPosition] : oldPosition;
+            } else if (rowNum > lastRowNum) {
+                newPosition = table.appendRow(rowNum);
+                lastRowNum = rowNum;
+            } else {
+                return null;
+            }
+            for (Map.Entry<String, Object> cell : write.getValue().entrySet()) {
+                int ordinal = table.ordinal(cell.getKey());
+                if (ordinal >= 0) {
+                    table.set(ordinal, newPosition, cell.getValue());
+                }
+            }
+            changed[count] = newPosition;
+            changedFrom[count++] = oldPosition;
+        }
+        table.trim();
+        
+        RowDelta delta = new RowDelta(oldTable, table, remap, changed, changedFrom);
+        ExcelSheet updated = copyMetadata();
+        List<ExcelRow> updatedRows = new java.util.ArrayList<>(table.size());
+        for (int position = 0; position < table.size(); position++) {
+            updatedRows.add(new ExcelRow(table, position, updated));
+        }
+        updated.columnarTable = table;
+        updated.rows = updatedRows;
+        updated.zoneMap = zoneMap != null ? zoneMap.apply(delta) : ZoneMap.build(table, zoneBlockRows);
+        updated.initializeIndexes();
+        if (secondaryIndexes != null) {
+            for (Map.Entry<String, HashIndex> entry : secondaryIndexes.entrySet()) {
+                HashIndex index = entry.getValue().apply(delta);
+                if (index != null) {
+                    updated.secondaryIndexes.put(entry.getKey(), index);
+                }
+            }
+        }
+        if (sortedIndexes != null) {
+            for (SortedIndex sortedIndex : sortedIndexes.values()) {
+                SortedIndex index = sortedIndex.apply(delta);
+                if (index == null && table.ordinal(sortedIndex.getColumnName()) >= 0) {
+                    index = SortedIndex.build(table, table.ordinal(sortedIndex.getColumnName()));
+                }
+                if (index != null) {
+                    updated.sortedIndexes.put(index.getColumnName(), index);
+                }
+            }
+        }
+        if (ngramIndexes != null) {
+            for (NgramIndex ngramIndex : ngramIndexes.values()) {
+                NgramIndex index = ngramIndex.apply(delta);
+                if (index != null) {
+                    updated.putNgramIndex(index);
+                }
+            }
+        }
+        if (bloomFilters != null) {
+            for (BlockBloomFilter bloomFilter : bloomFilters.values()) {
+                BlockBloomFilter filter = bloomFilter.apply(delta);
+                if (filter != null) {
+                    updated.putBloomFilter(filter);
+                }
+            }
+        }
+        updated.dataLoaded = true;
+        return updated;
+    }
+    
+    /**
+     * 按Excel行号查找已加载行的行位置
+     *
+     * @param rowNum Excel行号
+     * @return 行位置，数据未加载或行不存在时返回-1
+     */
+    public int getRowPosition(int rowNum) {
+        return columnarTable != null ? findPosition(columnarTable, rowNum) : -1;
+    }
+    
+    /**
+     * 按Excel行号二分查找行位置，行位置按行号升序排列
+     *
+     * @return 行位置，不存在时返回-1
+     */
+    private static int findPosition(ColumnarTable table, int rowNum) {
+        int low = 0;
+        int high = table.size() - 1;
+        while (low <= high) {
+            int mid = (low + high) >>> 1;
+            int midRowNum = table.getRowNum(mid);
+            if (midRowNum < rowNum) {
+                low = mid + 1;
+            } else if (midRowNum > rowNum) {
+                high = mid - 1;
+            } else {
+                return mid;
+            }
+        }
+        return -1;
+    }
+    
     /**
      * 获取列定义
      *
@@ -192,95 +559,69 @@ public class ExcelSheet {
             return false;
         }
         
-        try {
-            // 初始化行列表和索引
-            if (rows == null) {
-                rows = new java.util.ArrayList<>();
-            } else {
-                rows.clear();
-            }
-            
-            if (primaryIndex == null) {
-                initializeIndexes();
-            } else {
-                primaryIndex.clear();
+        // 确定数据开始行和结束行
+        int dataStart = dataStartRowIndex != null ? dataStartRowIndex : 1;
+        int actualStartRow = dataStart + startRow;
+        long endRow = (long) actualStartRow + maxRows - 1;
+        
+        // 行数据写入列式存储，行列表中只保存行视图
+        ColumnarTable table = new ColumnarTable(getColumnNames());
+        List<ExcelRow> loadedRows = new java.util.ArrayList<>();
+        try (SheetCursor cursor = openCursor(filePath, actualStartRow, endRow, table)) {
+            ExcelRow row;
+            while ((row = cursor.next()) != null) {
+                loadedRows.add(row);
             }
-            
-            // 确定数据开始行
-            int dataStart = dataStartRowIndex != null ? dataStartRowIndex : 1;
-            int actualStartRow = dataStart + startRow;
-            
-            if (filePath.toLowerCase().endsWith(".xlsx")) {
-                // 对于XLSX文件，使用更简单可靠的方法
-                try (java.io.FileInputStream fis = new java.io.FileInputStream(file);
-                     org.apache.poi.xssf.usermodel.XSSFWorkbook workbook = new org.apache.poi.xssf.usermodel.XSSFWorkbook(fis)) {
-                    
-                    // 获取工作表
-                    org.apache.poi.ss.usermodel.Sheet poiSheet = null;
-                    if (sheetIndex != null) {
-                        if (sheetIndex < workbook.getNumberOfSheets()) {
-                            poiSheet = workbook.getSheetAt(sheetIndex);
-                        }
-                    } else if (name != null) {
-                        poiSheet = workbook.getSheet(name);
-                    }
-                    
-                    if (poiSheet == null) {
-                        return false;
-                    }
-                    
-                    // 计算结束行
-                    int endRow = Math.min(poiSheet.getLastRowNum(), actualStartRow + maxRows - 1);
-                    
-                    // 遍历指定范围的行
-                    for (int rowIndex = actualStartRow; rowIndex <= endRow; rowIndex++) {
-                        org.apache.poi.ss.usermodel.Row poiRow = poiSheet.getRow(rowIndex);
-                        if (poiRow == null) {
-                            continue;
-                        }
-                        
-                        processRow(poiRow, rowIndex);
-                    }
-                }
-            } else if (filePath.toLowerCase().endsWith(".xls")) {
-                // 对于XLS文件，使用标准API
-                try (java.io.FileInputStream fis = new java.io.FileInputStream(file);
-                     org.apache.poi.hssf.usermodel.HSSFWorkbook workbook = new org.apache.poi.hssf.usermodel.HSSFWorkbook(fis)) {
-                    
-                    // 获取工作表
-                    org.apache.poi.ss.usermodel.Sheet poiSheet = null;
-                    if (sheetIndex != null) {
-                        if (sheetIndex < workbook.getNumberOfSheets()) {
-                            poiSheet = workbook.getSheetAt(sheetIndex);
-                        }
-                    } else if (name != null) {
-                        poiSheet = workbook.getSheet(name);
-                    }
-                    
-                    if (poiSheet == null) {
-                        return false;
-                    }
-                    
-                    // 计算结束行
-                    int endRow = Math.min(poiSheet.getLastRowNum(), actualStartRow + maxRows - 1);
-                    
-                    // 遍历指定范围的行
-                    for (int rowIndex = actualStartRow; rowIndex <= endRow; rowIndex++) {
-                        org.apache.poi.ss.usermodel.Row poiRow = poiSheet.getRow(rowIndex);
-                        if (poiRow == null) {
-                            continue;
-                        }
-                        
-                        processRow(poiRow, rowIndex);
-                    }
-                }
-            } else {
-                return false; // 不支持的文件类型
+        } catch (Exception e) {
+            // 记录异常但不抛出，返回加载失败
+            System.err.println("加载Excel行数据失败: " + e.getMessage());
+            e.printStackTrace();
+            return false;
+        }
+        table.trim();
+        
+        columnarTable = table;
+        rows = loadedRows;
+        zoneMap = ZoneMap.build(table, zoneBlockRows);
+        bloomFilters = null;
+        ngramIndexes = null;
+        primaryIndex = null;
+        if (secondaryIndexes != null) {
+            secondaryIndexes.clear();
+        }
+        if (sortedIndexes != null) {
+            sortedIndexes.clear();
+        }
+        dataLoaded = true;
+        return true;
+    }
+    
+    /**
+     * 逐行扫描Excel文件中的行数据，不在工作表中保留行
+     * XLSX文件使用流式读取，内存占用只与行缓存大小有关，与工作表行数无关
+     * 
+     * @param filePath Excel文件路径
+     * @param startRow 起始行（相对于dataStartRowIndex）
+     * @param maxRows 最大扫描行数
+     * @param consumer 行处理器
+     * @return 是否扫描成功
+     */
+    public boolean scanRows(String filePath, int startRow, int maxRows, java.util.function.Consumer<ExcelRow> consumer) {
+        if (!new java.io.File(filePath).exists()) {
+            return false;
+        }
+        
+        // 确定数据开始行和结束行
+        int dataStart = dataStartRowIndex != null ? dataStartRowIndex : 1;
+        int actualStartRow = dataStart + startRow;
+        long endRow = (long) actualStartRow + maxRows - 1;
+        
+        try (SheetCursor cursor = openCursor(filePath, actualStartRow, endRow, null)) {
+            ExcelRow row;
+            while ((row = cursor.next()) != null) {
+                consumer.accept(row);
             }
-            
-            dataLoaded = true;
             return true;
-            
         } catch (Exception e) {
             // 记录异常但不抛出，返回加载失败
             System.err.println("加载Excel行数据失败: " + e.getMessage());
@@ -289,16 +630,255 @@ public class ExcelSheet {
         }
     }
     
+    /**
+     * 打开工作表游标，从数据开始行顺序读取
+     * 
+     * @param filePath Excel文件路径
+     * @return 工作表游标
+     * @throws java.io.IOException 文件不存在、类型不支持或工作表不存在
+     */
+    public SheetCursor openCursor(String filePath) throws java.io.IOException {
+        return openCursor(filePath, dataStartRowIndex != null ? dataStartRowIndex : 1, Long.MAX_VALUE, null);
+    }
+    
+    /**
+     * 打开工作表游标，读取指定行索引范围内的行
+     * 
+     * @param filePath Excel文件路径
+     * @param fromRowIndex 起始行索引（从0开始）
+     * @param toRowIndex 结束行索引（包含）
+     * @param target 列式存储，不为null时读取的行写入其中并返回行视图
+     * @return 工作表游标
+     * @throws java.io.IOException 文件不存在、类型不支持或工作表不存在
+     */
+    private SheetCursor openCursor(String filePath, int fromRowIndex, long toRowIndex, ColumnarTable target)
+            throws java.io.IOException {
+        java.io.File file = new java.io.File(filePath);
+        if (!file.exists()) {
+            throw new java.io.FileNotFoundException("工作簿文件不存在: " + filePath);
+        }
+        
+        org.apache.poi.ss.usermodel.Workbook workbook;
+        String lowerPath = filePath.toLowerCase();
+        if (lowerPath.endsWith(".csv")) {
+            // CSV文件只有一个工作表，跳过表头等物理行后并行分块解析
+            return new CsvSheetCursor(new com.excel.sql.engine.service.reader.CsvRecordReader(file, fromRowIndex),
+                    fromRowIndex, toRowIndex, target);
+        } else if (lowerPath.endsWith(".xlsx")) {
+            // 对于XLSX文件，使用流式读取，不构建整个工作簿的DOM
+            workbook = com.github.pjfanning.xlsx.StreamingReader.builder()
+                    .rowCacheSize(streamingRowCacheSize)
+                    .bufferSize(streamingBufferSize)
+                    .open(file);
+        } else if (lowerPath.endsWith(".xls")) {
+            // 对于XLS文件，使用标准API
+            try (java.io.FileInputStream fis = new java.io.FileInputStream(file)) {
+                workbook = new org.apache.poi.hssf.usermodel.HSSFWorkbook(fis);
+            }
+        } else {
+            throw new java.io.IOException("不支持的文件类型: " + filePath);
+        }
+        
+        org.apache.poi.ss.usermodel.Sheet poiSheet = findPoiSheet(workbook);
+        if (poiSheet == null) {
+            workbook.close();
+            throw new java.io.IOException("工作表不存在: " + name);
+        }
+        
+        return new PoiSheetCursor(workbook, poiSheet.iterator(), fromRowIndex, toRowIndex, target);
+    }
+    
+    /**
+     * 工作表游标基类，负责创建行对象和按页读取
+     */
+    private abstract class AbstractSheetCursor implements SheetCursor {
+        protected final int fromRowIndex;
+        protected final long toRowIndex;
+        private final ColumnarTable target;
+        
+        AbstractSheetCursor(int fromRowIndex, long toRowIndex, ColumnarTable target) {
+            this.fromRowIndex = fromRowIndex;
+            this.toRowIndex = toRowIndex;
+            this.target = target;
+        }
+        
+        /**
+         * 创建行对象，有列式存储时追加一行并返回行视图
+         */
+        protected ExcelRow newRow(int rowIndex) {
+            if (target != null) {
+                return new ExcelRow(target, target.appendRow(rowIndex), ExcelSheet.this);
+            }
+            return new ExcelRow(rowIndex, ExcelSheet.this);
+        }
+        
+        @Override
+        public List<ExcelRow> nextPage(int pageSize) {
+            List<ExcelRow> page = new java.util.ArrayList<>(Math.min(pageSize, 1024));
+            ExcelRow row;
+            while (page.size() < pageSize && (row = next()) != null) {
+                page.add(row);
+            }
+            return page;
+        }
+    }
+    
+    /**
+     * 基于CSV记录读取器的工作表游标
+     */
+    private class CsvSheetCursor extends AbstractSheetCursor {
+        private final com.excel.sql.engine.service.reader.CsvRecordReader reader;
+        private int nextRowIndex;
+        
+        CsvSheetCursor(com.excel.sql.engine.service.reader.CsvRecordReader reader,
+                       int fromRowIndex, long toRowIndex, ColumnarTable target) {
+            super(fromRowIndex, toRowIndex, target);
+            this.reader = reader;
+            this.nextRowIndex = fromRowIndex;
+        }
+        
+        @Override
+        public ExcelRow next() {
+            if (nextRowIndex > toRowIndex) {
+                return null;
+            }
+            String[] record = readRecord();
+            if (record == null) {
+                return null;
+            }
+            ExcelRow row = newRow(nextRowIndex++);
+            processCsvRecord(record, row);
+            return row;
+        }
+        
+        @Override
+        public int skip(int rows) {
+            int skipped = 0;
+            while (skipped < rows && nextRowIndex <= toRowIndex && readRecord() != null) {
+                skipped++;
+                nextRowIndex++;
+            }
+            return skipped;
+        }
+        
+        @Override
+        public void close() {
+            reader.close();
+        }
+        
+        private String[] readRecord() {
+            try {
+                return reader.next();
+            } catch (java.io.IOException e) {
+                throw new java.io.UncheckedIOException(e);
+            }
+        }
+    }
+    
+    /**
+     * 基于POI行迭代器的工作表游标
+     * 流式读取只能顺序遍历行，跳过的行不会转换为ExcelRow
+     */
+    private class PoiSheetCursor extends AbstractSheetCursor {
+        private final org.apache.poi.ss.usermodel.Workbook workbook;
+        private final java.util.Iterator<org.apache.poi.ss.usermodel.Row> iterator;
+        private boolean closed;
+        
+        PoiSheetCursor(org.apache.poi.ss.usermodel.Workbook workbook,
+                       java.util.Iterator<org.apache.poi.ss.usermodel.Row> iterator,
+                       int fromRowIndex, long toRowIndex, ColumnarTable target) {
+            super(fromRowIndex, toRowIndex, target);
+            this.workbook = workbook;
+            this.iterator = iterator;
+        }
+        
+        @Override
+        public ExcelRow next() {
+            while (!closed && iterator.hasNext()) {
+                org.apache.poi.ss.usermodel.Row poiRow = iterator.next();
+                int rowIndex = poiRow.getRowNum();
+                if (rowIndex > toRowIndex) {
+                    closed = true;
+                    break;
+                }
+                if (rowIndex >= fromRowIndex) {
+                    ExcelRow row = newRow(rowIndex);
+                    processRow(poiRow, row);
+                    return row;
+                }
+            }
+            return null;
+        }
+        
+        @Override
+        public int skip(int rows) {
+            int skipped = 0;
+            while (!closed && skipped < rows && iterator.hasNext()) {
+                int rowIndex = iterator.next().getRowNum();
+                if (rowIndex > toRowIndex) {
+                    closed = true;
+                    break;
+                }
+                if (rowIndex >= fromRowIndex) {
+                    skipped++;
+                }
+            }
+            return skipped;
+        }
+        
+        @Override
+        public void close() {
+            try {
+                workbook.close();
+            } catch (java.io.IOException e) {
+                System.err.println("关闭工作簿失败: " + e.getMessage());
+            }
+            closed = true;
+        }
+    }
+    
+    /**
+     * 设置XLSX流式读取参数
+     *
+     * @param rowCacheSize 内存中缓存的行数
+     * @param bufferSize 输入缓冲区大小（字节）
+     */
+    public static void configureStreaming(int rowCacheSize, int bufferSize) {
+        streamingRowCacheSize = Math.max(1, rowCacheSize);
+        streamingBufferSize = Math.max(1024, bufferSize);
+    }
+    
+    /**
+     * 设置区块统计中每个区块的行数，之后加载的数据按新的行数划分区块
+     *
+     * @param blockRows 每个区块的行数
+     */
+    public static void configureZoneMaps(int blockRows) {
+        zoneBlockRows = Math.max(1, blockRows);
+    }
+    
+    /**
+     * 在POI工作簿中查找当前工作表，优先按索引查找
+     *
+     * @param workbook POI工作簿
+     * @return POI工作表，如果不存在则返回null
+     */
+    private org.apache.poi.ss.usermodel.Sheet findPoiSheet(org.apache.poi.ss.usermodel.Workbook workbook) {
+        if (sheetIndex != null) {
+            return sheetIndex < workbook.getNumberOfSheets() ? workbook.getSheetAt(sheetIndex) : null;
+        } else if (name != null) {
+            return workbook.getSheet(name);
+        }
+        return null;
+    }
+    
     /**
      * 处理单个Excel行
      * 
      * @param poiRow POI行对象
-     * @param rowIndex 行索引
+     * @param excelRow 要填充的Excel行
      */
-    private void processRow(org.apache.poi.ss.usermodel.Row poiRow, int rowIndex) {
-        // 创建行对象
-        ExcelRow excelRow = new ExcelRow(rowIndex, this);
-        
+    private void processRow(org.apache.poi.ss.usermodel.Row poiRow, ExcelRow excelRow) {
         // 处理每个单元格
         for (ExcelColumn column : columns) {
             if (column.getIndex() == null) {
@@ -314,18 +894,66 @@ public class ExcelSheet {
             Object cellValue = getCellValue(cell);
             excelRow.setCellValue(column.getName(), cellValue);
         }
+    }
+    
+    /**
+     * 处理单条CSV记录，按列的推断类型转换值
+     * 
+     * @param record CSV记录
+     * @param excelRow 要填充的Excel行
+     */
+    private void processCsvRecord(String[] record, ExcelRow excelRow) {
+        for (ExcelColumn column : columns) {
+            Integer index = column.getIndex();
+            if (index == null || index >= record.length || record[index].isEmpty()) {
+                continue;
+            }
+            
+            excelRow.setCellValue(column.getName(), convertCsvValue(record[index], column.getDataType()));
+        }
+    }
+    
+    /**
+     * 将CSV文本值转换为列类型对应的值，转换失败时保留原始文本
+     * 
+     * @param value 文本值
+     * @param dataType 列类型
+     * @return 转换后的值
+     */
+    private Object convertCsvValue(String value, ExcelDataType dataType) {
+        if (dataType == null) {
+            return value;
+        }
         
-        // 添加行到索引和列表
-        addToPrimaryIndex(excelRow);
+        try {
+            switch (dataType) {
+                case INTEGER:
+                    return Long.parseLong(value.trim());
+                case DECIMAL:
+                case NUMBER:
+                    double number = Double.parseDouble(value.trim());
+                    if (number == Math.floor(number) && !Double.isInfinite(number)) {
+                        return (long) number;
+                    }
+                    return number;
+                case BOOLEAN:
+                    return Boolean.parseBoolean(value.trim());
+                default:
+                    return value;
+            }
+        } catch (NumberFormatException e) {
+            return value;
+        }
     }
     
     /**
      * 从POI单元格获取值
+     * 修改数据时也用它读取写入后的单元格，得到与重新加载文件相同的值
      * 
      * @param cell POI单元格
      * @return 单元格值
      */
-    private Object getCellValue(org.apache.poi.ss.usermodel.Cell cell) {
+    public static Object getCellValue(org.apache.poi.ss.usermodel.Cell cell) {
         if (cell == null) {
             return null;
         }
@@ -89,6 +89,32 @@ public class ExcelWorkbook {
         return sheets != null ? sheets.get(sheetName) : null;
     }
     
+    /**
+     * 复制工作簿元数据（工作表只复制元数据，不包含行数据）
+     *
+     * @return 工作簿元数据副本
+     */
+    public ExcelWorkbook copyMetadata() {
+        Map<String, ExcelSheet> copiedSheets = new java.util.LinkedHashMap<>();
+        if (sheets != null) {
+            for (Map.Entry<String, ExcelSheet> entry : sheets.entrySet()) {
+                copiedSheets.put(entry.getKey(), entry.getValue().copyMetadata());
+            }
+        }
+        
+        return ExcelWorkbook.builder()
+                .id(id)
+                .name(name)
+                .filePath(filePath)
+                .fileType(fileType)
+                .fileSize(fileSize)
+                .lastModified(lastModified)
+                .sheets(copiedSheets)
+                .file(file)
+                .loaded(loaded)
+                .build();
+    }
+    
     /**
      * 检查工作簿是否需要重新加载
      *
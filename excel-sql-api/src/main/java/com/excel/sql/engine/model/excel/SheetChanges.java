@@ -0,0 +1,102 @@
+package com.excel.sql.engine.model.excel;
+
+import lombok.Getter;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeSet;
+
+/**
+ * 一次写回对一个工作表的行变更
+ * 由INSERT、UPDATE、DELETE处理器在修改工作簿时记录，写回前多条语句的变更累计在一起；值为写入单元格后
+ * 按读取方式得到的值，与重新加载文件得到的值一致。已加载的工作表据此增量维护行数据和索引，不必重新加载文件。
+ */
+@Getter
+public class SheetChanges {
+
+    /**
+     * 工作表名称
+     */
+    private final String sheetName;
+
+    /**
+     * 修改前工作簿文件的大小
+     */
+    private final long fileSize;
+
+    /**
+     * 修改前工作簿文件的最后修改时间
+     */
+    private final long lastModified;
+
+    /**
+     * 写入的单元格，key为Excel行号，value为列名到值的映射；不存在的行为插入的行，
+     * 先删除再写入的行同时出现在deletes中
+     */
+    private final Map<Integer, Map<String, Object>> writes = new LinkedHashMap<>();
+
+    /**
+     * 删除的Excel行号
+     */
+    private final Set<Integer> deletes = new TreeSet<>();
+
+    public SheetChanges(String sheetName, long fileSize, long lastModified) {
+        this.sheetName = sheetName;
+        this.fileSize = fileSize;
+        this.lastModified = lastModified;
+    }
+
+    /**
+     * 记录写入的单元格
+     *
+     * @param rowNum Excel行号
+     * @param columnName 列名
+     * @param value 单元格的值，空单元格为null
+     */
+    public void write(int rowNum, String columnName, Object value) {
+        writes.computeIfAbsent(rowNum, k -> new LinkedHashMap<>()).put(columnName, value);
+    }
+
+    /**
+     * 记录删除的行
+     *
+     * @param rowNum Excel行号
+     */
+    public void delete(int rowNum) {
+        writes.remove(rowNum);
+        deletes.add(rowNum);
+    }
+
+    /**
+     * 复制当前累计的变更
+     *
+     * @return 与当前变更相同的副本
+     */
+    public SheetChanges copy() {
+        SheetChanges copy = new SheetChanges(sheetName, fileSize, lastModified);
+        for (Map.Entry<Integer, Map<String, Object>> entry : writes.entrySet()) {
+            copy.writes.put(entry.getKey(), new LinkedHashMap<>(entry.getValue()));
+        }
+        copy.deletes.addAll(deletes);
+        return copy;
+    }
+
+    /**
+     * 获取变更的行数
+     *
+     * @return 写入和删除的行数
+     */
+    public int size() {
+        return writes.size() + deletes.size();
+    }
+
+    /**
+     * 是否没有变更
+     *
+     * @return 没有写入和删除的行时返回true
+     */
+    public boolean isEmpty() {
+        return writes.isEmpty() && deletes.isEmpty();
+    }
+}
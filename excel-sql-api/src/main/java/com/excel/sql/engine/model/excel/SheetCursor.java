@@ -0,0 +1,39 @@
+package com.excel.sql.engine.model.excel;
+
+import java.util.List;
+
+/**
+ * 工作表游标
+ * 只向前读取的行数据源，文件在打开游标时只打开一次，使用完毕后必须关闭
+ */
+public interface SheetCursor extends AutoCloseable {
+
+    /**
+     * 读取下一行
+     *
+     * @return 下一行，如果没有更多数据则返回null
+     */
+    ExcelRow next();
+
+    /**
+     * 读取下一页
+     *
+     * @param pageSize 页大小
+     * @return 最多pageSize行，如果没有更多数据则返回空列表
+     */
+    List<ExcelRow> nextPage(int pageSize);
+
+    /**
+     * 跳过若干行，被跳过的行不做单元格转换
+     *
+     * @param rows 要跳过的行数
+     * @return 实际跳过的行数
+     */
+    int skip(int rows);
+
+    /**
+     * 关闭游标并释放底层文件
+     */
+    @Override
+    void close();
+}
@@ -0,0 +1,43 @@
+package com.excel.sql.engine.model.excel.columnar;
+
+import com.excel.sql.engine.model.excel.ExcelDataType;
+
+import java.util.BitSet;
+
+/**
+ * 布尔列向量，基于位图存储
+ */
+public class BooleanColumnVector extends ColumnVector {
+
+    private final BitSet values = new BitSet();
+
+    @Override
+    public boolean accepts(Object value) {
+        return value instanceof Boolean;
+    }
+
+    @Override
+    public ExcelDataType getType() {
+        return ExcelDataType.BOOLEAN;
+    }
+
+    @Override
+    public void trim() {
+        // 位图按需增长，无需收缩
+    }
+
+    @Override
+    protected Object getValue(int row) {
+        return values.get(row);
+    }
+
+    @Override
+    protected void setValue(int row, Object value) {
+        values.set(row, (Boolean) value);
+    }
+
+    @Override
+    protected void ensureCapacity(int capacity) {
+        // 位图按需增长
+    }
+}
@@ -0,0 +1,185 @@
+package com.excel.sql.engine.model.excel.columnar;
+
+import com.excel.sql.engine.model.excel.ExcelDataType;
+
+import java.util.BitSet;
+import java.util.Date;
+
+/**
+ * 列向量
+ * 按行位置存储一列的值，空值记录在位图中
+ */
+public abstract class ColumnVector {
+
+    /**
+     * 初始容量
+     */
+    protected static final int INITIAL_CAPACITY = 16;
+
+    /**
+     * 空值位图
+     */
+    protected final BitSet nulls = new BitSet();
+
+    /**
+     * 已存储的行数
+     */
+    protected int size;
+
+    /**
+     * 根据第一个非空值创建合适类型的列向量
+     *
+     * @param value 第一个非空值
+     * @return 列向量
+     */
+    public static ColumnVector forValue(Object value) {
+        if (value instanceof Long || value instanceof Integer || value instanceof Short || value instanceof Byte) {
+            return new LongColumnVector();
+        }
+        if (value instanceof Number) {
+            return new DoubleColumnVector();
+        }
+        if (value instanceof String) {
+            return new StringColumnVector();
+        }
+        if (value instanceof Boolean) {
+            return new BooleanColumnVector();
+        }
+        if (value instanceof Date) {
+            return new DateColumnVector();
+        }
+        return new ObjectColumnVector();
+    }
+
+    /**
+     * 获取行数
+     *
+     * @return 行数
+     */
+    public int size() {
+        return size;
+    }
+
+    /**
+     * 判断指定位置是否为空
+     *
+     * @param row 行位置
+     * @return 是否为空
+     */
+    public boolean isNull(int row) {
+        return row >= size || nulls.get(row);
+    }
+
+    /**
+     * 获取指定位置的值
+     *
+     * @param row 行位置
+     * @return 值，空值返回null
+     */
+    public Object get(int row) {
+        return isNull(row) ? null : getValue(row);
+    }
+
+    /**
+     * 设置指定位置的值，位置超出当前行数时中间补空值
+     * 调用前需通过{@link #accepts(Object)}确认类型
+     *
+     * @param row 行位置
+     * @param value 值
+     */
+    public void set(int row, Object value) {
+        if (row >= size) {
+            ensureCapacity(row + 1);
+            nulls.set(size, row);
+            size = row + 1;
+        }
+        if (value == null) {
+            nulls.set(row);
+        } else {
+            nulls.clear(row);
+            setValue(row, value);
+        }
+    }
+
+    /**
+     * 是否为数值列
+     *
+     * @return 是否为数值列
+     */
+    public boolean isNumeric() {
+        return false;
+    }
+
+    /**
+     * 以double读取数值，非数值列由子类决定转换方式
+     *
+     * @param row 行位置
+     * @return 数值
+     */
+    public double getDouble(int row) {
+        Object value = get(row);
+        if (value instanceof Number) {
+            return ((Number) value).doubleValue();
+        }
+        return value != null ? Double.parseDouble(value.toString()) : 0;
+    }
+
+    /**
+     * 释放多余的容量
+     */
+    public abstract void trim();
+
+    /**
+     * 判断能否直接存储该值
+     *
+     * @param value 非空值
+     * @return 是否可以直接存储
+     */
+    public abstract boolean accepts(Object value);
+
+    /**
+     * 提升为能同时存储现有值和新值的列向量
+     *
+     * @param value 当前列向量无法存储的值
+     * @return 包含现有值的新列向量
+     */
+    public ColumnVector promote(Object value) {
+        ObjectColumnVector promoted = new ObjectColumnVector();
+        copyTo(promoted);
+        return promoted;
+    }
+
+    /**
+     * 获取列向量的数据类型
+     *
+     * @return 数据类型
+     */
+    public abstract ExcelDataType getType();
+
+    protected abstract Object getValue(int row);
+
+    protected abstract void setValue(int row, Object value);
+
+    protected abstract void ensureCapacity(int capacity);
+
+    /**
+     * 将现有值逐个复制到目标列向量
+     */
+    protected void copyTo(ColumnVector target) {
+        target.ensureCapacity(size);
+        for (int i = 0; i < size; i++) {
+            target.set(i, get(i));
+        }
+    }
+
+    /**
+     * 计算扩容后的容量
+     */
+    protected static int grow(int current, int required) {
+        int capacity = Math.max(current, INITIAL_CAPACITY);
+        while (capacity < required) {
+            capacity = capacity + (capacity >> 1);
+        }
+        return capacity;
+    }
+}
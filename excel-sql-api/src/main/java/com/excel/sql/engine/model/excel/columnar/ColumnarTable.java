@@ -0,0 +1,144 @@
+package com.excel.sql.engine.model.excel.columnar;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * 列式存储的工作表数据
+ * 每列一个列向量，按列序号访问；列向量在出现第一个非空值时按值的类型创建，
+ * 之后遇到无法存储的值时自动提升类型
+ */
+public class ColumnarTable {
+
+    private final List<String> columnNames;
+    private final Map<String, Integer> ordinals;
+    private final ColumnVector[] vectors;
+
+    /**
+     * 每个行位置对应的Excel行号
+     */
+    private int[] rowNums = new int[16];
+
+    private int size;
+
+    public ColumnarTable(List<String> columnNames) {
+        this.columnNames = Collections.unmodifiableList(columnNames);
+        this.ordinals = new HashMap<>(columnNames.size() * 2);
+        for (int i = 0; i < columnNames.size(); i++) {
+            ordinals.putIfAbsent(columnNames.get(i), i);
+        }
+        this.vectors = new ColumnVector[columnNames.size()];
+    }
+
+    /**
+     * 追加一行，各列初始为空值
+     *
+     * @param rowNum Excel行号
+     * @return 行位置
+     */
+    public int appendRow(int rowNum) {
+        if (size == rowNums.length) {
+            rowNums = Arrays.copyOf(rowNums, Math.max(16, rowNums.length + (rowNums.length >> 1)));
+        }
+        rowNums[size] = rowNum;
+        return size++;
+    }
+
+    /**
+     * 获取列序号
+     *
+     * @param columnName 列名
+     * @return 列序号，不存在时返回-1
+     */
+    public int ordinal(String columnName) {
+        Integer ordinal = ordinals.get(columnName);
+        return ordinal != null ? ordinal : -1;
+    }
+
+    /**
+     * 获取值
+     *
+     * @param ordinal 列序号
+     * @param position 行位置
+     * @return 值，空值返回null
+     */
+    public Object get(int ordinal, int position) {
+        ColumnVector vector = vectors[ordinal];
+        return vector != null ? vector.get(position) : null;
+    }
+
+    /**
+     * 设置值，必要时创建或提升列向量
+     *
+     * @param ordinal 列序号
+     * @param position 行位置
+     * @param value 值
+     */
+    public void set(int ordinal, int position, Object value) {
+        ColumnVector vector = vectors[ordinal];
+        if (vector == null) {
+            if (value == null) {
+                return;
+            }
+            vector = ColumnVector.forValue(value);
+            vectors[ordinal] = vector;
+        } else if (value != null && !vector.accepts(value)) {
+            vector = vector.promote(value);
+            vectors[ordinal] = vector;
+        }
+        vector.set(position, value);
+    }
+
+    /**
+     * 获取列向量
+     *
+     * @param ordinal 列序号
+     * @return 列向量，整列为空时返回null
+     */
+    public ColumnVector getVector(int ordinal) {
+        return vectors[ordinal];
+    }
+
+    /**
+     * 获取行位置对应的Excel行号
+     *
+     * @param position 行位置
+     * @return Excel行号
+     */
+    public int getRowNum(int position) {
+        return rowNums[position];
+    }
+
+    /**
+     * 获取行数
+     *
+     * @return 行数
+     */
+    public int size() {
+        return size;
+    }
+
+    /**
+     * 获取列名列表，下标即列序号
+     *
+     * @return 列名列表
+     */
+    public List<String> getColumnNames() {
+        return columnNames;
+    }
+
+    /**
+     * 加载完成后释放多余的容量
+     */
+    public void trim() {
+        rowNums = Arrays.copyOf(rowNums, size);
+        for (ColumnVector vector : vectors) {
+            if (vector != null) {
+                vector.trim();
+            }
+        }
+    }
+}
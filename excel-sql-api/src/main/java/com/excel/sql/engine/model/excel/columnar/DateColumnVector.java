@@ -0,0 +1,65 @@
+package com.excel.sql.engine.model.excel.columnar;
+
+import com.excel.sql.engine.model.excel.ExcelDataType;
+
+import java.util.Arrays;
+import java.util.Date;
+
+/**
+ * 日期列向量，基于long[]按毫秒时间戳存储
+ * 与单元格读取保持一致，值以Date返回；有序索引和区块统计按时间戳比较，与Date的顺序一致
+ */
+public class DateColumnVector extends ColumnVector {
+
+    private long[] values = new long[INITIAL_CAPACITY];
+
+    /**
+     * 读取毫秒时间戳，调用前需确认不为空
+     *
+     * @param row 行位置
+     * @return 毫秒时间戳
+     */
+    public long getMillis(int row) {
+        return values[row];
+    }
+
+    /**
+     * 以double读取毫秒时间戳，在有效的日期范围内没有精度损失
+     */
+    @Override
+    public double getDouble(int row) {
+        return values[row];
+    }
+
+    @Override
+    public boolean accepts(Object value) {
+        return value instanceof Date;
+    }
+
+    @Override
+    public ExcelDataType getType() {
+        return ExcelDataType.DATE;
+    }
+
+    @Override
+    public void trim() {
+        values = Arrays.copyOf(values, size);
+    }
+
+    @Override
+    protected Object getValue(int row) {
+        return new Date(values[row]);
+    }
+
+    @Override
+    protected void setValue(int row, Object value) {
+        values[row] = ((Date) value).getTime();
+    }
+
+    @Override
+    protected void ensureCapacity(int capacity) {
+        if (values.length < capacity) {
+            values = Arrays.copyOf(values, grow(values.length, capacity));
+        }
+    }
+}
@@ -0,0 +1,65 @@
+package com.excel.sql.engine.model.excel.columnar;
+
+import com.excel.sql.engine.model.excel.ExcelDataType;
+
+import java.util.Arrays;
+
+/**
+ * 浮点列向量，基于double[]存储
+ * 与单元格读取保持一致，整数值以Long返回
+ */
+public class DoubleColumnVector extends ColumnVector {
+
+    /**
+     * double能精确表示的最大整数
+     */
+    private static final double MAX_EXACT_LONG = 9007199254740992d;
+
+    private double[] values = new double[INITIAL_CAPACITY];
+
+    @Override
+    public boolean isNumeric() {
+        return true;
+    }
+
+    @Override
+    public double getDouble(int row) {
+        return values[row];
+    }
+
+    @Override
+    public boolean accepts(Object value) {
+        return value instanceof Number;
+    }
+
+    @Override
+    public ExcelDataType getType() {
+        return ExcelDataType.DECIMAL;
+    }
+
+    @Override
+    public void trim() {
+        values = Arrays.copyOf(values, size);
+    }
+
+    @Override
+    protected Object getValue(int row) {
+        double value = values[row];
+        if (value == Math.floor(value) && Math.abs(value) <= MAX_EXACT_LONG) {
+            return (long) value;
+        }
+        return value;
+    }
+
+    @Override
+    protected void setValue(int row, Object value) {
+        values[row] = ((Number) value).doubleValue();
+    }
+
+    @Override
+    protected void ensureCapacity(int capacity) {
+        if (values.length < capacity) {
+            values = Arrays.copyOf(values, grow(values.length, capacity));
+        }
+    }
+}
@@ -0,0 +1,76 @@
+package com.excel.sql.engine.model.excel.columnar;
+
+import com.excel.sql.engine.model.excel.ExcelDataType;
+
+import java.util.Arrays;
+
+/**
+ * 整数列向量，基于long[]存储
+ */
+public class LongColumnVector extends ColumnVector {
+
+    private long[] values = new long[INITIAL_CAPACITY];
+
+    /**
+     * 读取整数值，调用前需确认不为空
+     *
+     * @param row 行位置
+     * @return 整数值
+     */
+    public long getLong(int row) {
+        return values[row];
+    }
+
+    @Override
+    public boolean isNumeric() {
+        return true;
+    }
+
+    @Override
+    public double getDouble(int row) {
+        return values[row];
+    }
+
+    @Override
+    public boolean accepts(Object value) {
+        return value instanceof Long || value instanceof Integer || value instanceof Short || value instanceof Byte;
+    }
+
+    @Override
+    public ColumnVector promote(Object value) {
+        if (value instanceof Number) {
+            // 整数列出现小数时提升为浮点列
+            DoubleColumnVector promoted = new DoubleColumnVector();
+            copyTo(promoted);
+            return promoted;
+        }
+        return super.promote(value);
+    }
+
+    @Override
+    public ExcelDataType getType() {
+        return ExcelDataType.INTEGER;
+    }
+
+    @Override
+    public void trim() {
+        values = Arrays.copyOf(values, size);
+    }
+
+    @Override
+    protected Object getValue(int row) {
+        return values[row];
+    }
+
+    @Override
+    protected void setValue(int row, Object value) {
+        values[row] = ((Number) value).longValue();
+    }
+
+    @Override
+    protected void ensureCapacity(int capacity) {
+        if (values.length < capacity) {
+            values = Arrays.copyOf(values, grow(values.length, capacity));
+        }
+    }
+}
@@ -0,0 +1,50 @@
+package com.excel.sql.engine.model.excel.columnar;
+
+import com.excel.sql.engine.model.excel.ExcelDataType;
+
+import java.util.Arrays;
+
+/**
+ * 通用列向量，用于混合类型的列
+ */
+public class ObjectColumnVector extends ColumnVector {
+
+    private Object[] values = new Object[INITIAL_CAPACITY];
+
+    @Override
+    public boolean accepts(Object value) {
+        return true;
+    }
+
+    @Override
+    public ColumnVector promote(Object value) {
+        return this;
+    }
+
+    @Override
+    public ExcelDataType getType() {
+        return ExcelDataType.AUTO;
+    }
+
+    @Override
+    public void trim() {
+        values = Arrays.copyOf(values, size);
+    }
+
+    @Override
+    protected Object getValue(int row) {
+        return values[row];
+    }
+
+    @Override
+    protected void setValue(int row, Object value) {
+        values[row] = value;
+    }
+
+    @Override
+    protected void ensureCapacity(int capacity) {
+        if (values.length < capacity) {
+            values = Arrays.copyOf(values, grow(values.length, capacity));
+        }
+    }
+}
@@ -0,0 +1,132 @@
+package com.excel.sql.engine.model.excel.columnar;
+
+import com.excel.sql.engine.model.excel.ExcelDataType;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * 字符串列向量，使用字典编码存储
+ * 每行只保存字典编码，重复的字符串只保存一份。
+ * 不同值过多（超过字典上限且超过行数一半）时放弃字典，直接保存字符串。
+ */
+public class StringColumnVector extends ColumnVector {
+
+    /**
+     * 字典大小上限
+     */
+    private static final int MAX_DICTIONARY_SIZE = 1 << 16;
+
+    private int[] codes = new int[INITIAL_CAPACITY];
+    private List<String> dictionary = new ArrayList<>();
+    private Map<String, Integer> lookup = new HashMap<>();
+
+    /**
+     * 放弃字典后的直接存储
+     */
+    private String[] plain;
+
+    /**
+     * 是否使用字典编码
+     *
+     * @return 是否使用字典编码
+     */
+    public boolean isDictionaryEncoded() {
+        return plain == null;
+    }
+
+    /**
+     * 获取字典编码，调用前需确认使用字典编码且不为空
+     *
+     * @param row 行位置
+     * @return 字典编码
+     */
+    public int getCode(int row) {
+        return codes[row];
+    }
+
+    /**
+     * 获取字典
+     *
+     * @return 字典，编码即下标
+     */
+    public List<String> getDictionary() {
+        return dictionary;
+    }
+
+    @Override
+    public boolean accepts(Object value) {
+        return value instanceof String;
+    }
+
+    @Override
+    public ExcelDataType getType() {
+        return ExcelDataType.STRING;
+    }
+
+    @Override
+    public void trim() {
+        if (plain != null) {
+            plain = Arrays.copyOf(plain, size);
+        } else {
+            codes = Arrays.copyOf(codes, size);
+        }
+    }
+
+    @Override
+    protected Object getValue(int row) {
+        return plain != null ? plain[row] : dictionary.get(codes[row]);
+    }
+
+    @Override
+    protected void setValue(int row, Object value) {
+        String text = (String) value;
+        if (plain != null) {
+            plain[row] = text;
+            return;
+        }
+
+        Integer code = lookup.get(text);
+        if (code == null) {
+            if (dictionary.size() >= MAX_DICTIONARY_SIZE && dictionary.size() > size / 2) {
+                dropDictionary();
+                plain[row] = text;
+                return;
+            }
+            code = dictionary.size();
+            dictionary.add(text);
+            lookup.put(text, code);
+        }
+        codes[row] = code;
+    }
+
+    @Override
+    protected void ensureCapacity(int capacity) {
+        if (plain != null) {
+            if (plain.length < capacity) {
+                plain = Arrays.copyOf(plain, grow(plain.length, capacity));
+            }
+        } else if (codes.length < capacity) {
+            codes = Arrays.copyOf(codes, grow(codes.length, capacity));
+        }
+    }
+
+    /**
+     * 将字典编码展开为字符串数组
+     */
+    private void dropDictionary() {
+        String[] expanded = new String[codes.length];
+        for (int i = 0; i < size; i++) {
+            if (!nulls.get(i)) {
+                expanded[i] = dictionary.get(codes[i]);
+            }
+        }
+        plain = expanded;
+        codes = null;
+        dictionary = null;
+        lookup = null;
+    }
+}
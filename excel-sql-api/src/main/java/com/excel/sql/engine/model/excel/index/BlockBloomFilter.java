@@ -0,0 +1,297 @@
+package com.excel.sql.engine.model.excel.index;
+
+import com.excel.sql.engine.model.excel.columnar.ColumnVector;
+import com.excel.sql.engine.model.excel.columnar.ColumnarTable;
+import com.excel.sql.engine.model.excel.columnar.LongColumnVector;
+import com.excel.sql.engine.model.excel.columnar.StringColumnVector;
+
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.io.IOException;
+import java.util.HashSet;
+import java.util.Set;
+
+/**
+ * 按区块划分的布隆过滤器
+ * 与区块统计使用相同的区块划分，每个区块一个位图，位数按区块中不同值的数量分配。
+ * 整数列按数值（double）计算哈希，与WHERE中数值列的比较方式一致；字符串列按文本计算哈希。
+ * 判断为不包含的区块一定没有该值，判断为可能包含的区块需要扫描确认。
+ */
+public class BlockBloomFilter {
+
+    /**
+     * 区块中不同值的数量与非空值数量之比的最小平均值，低于该值的列不构建过滤器：
+     * 不同值很少时几乎每个区块都包含每个值，过滤器无法排除区块
+     */
+    private static final double MIN_DISTINCT_RATIO = 0.25;
+
+    private final String columnName;
+    private final boolean numeric;
+    private final int blockRows;
+    private final int hashCount;
+
+    /**
+     * 每个区块的位图，区块内全为空值时为null
+     */
+    private final long[][] bits;
+
+    private BlockBloomFilter(String columnName, boolean numeric, int blockRows, int hashCount, long[][] bits) {
+        this.columnName = columnName;
+        this.numeric = numeric;
+        this.blockRows = blockRows;
+        this.hashCount = hashCount;
+        this.bits = bits;
+    }
+
+    /**
+     * 由列式存储中的一列构建过滤器
+     *
+     * @param table 列式存储
+     * @param ordinal 列序号
+     * @param blockRows 每个区块的行数，与区块统计一致
+     * @param bitsPerKey 每个不同值分配的位数
+     * @return 布隆过滤器，列不是整数列或字符串列、或不同值过少时返回null
+     */
+    public static BlockBloomFilter build(ColumnarTable table, int ordinal, int blockRows, int bitsPerKey) {
+        ColumnVector vector = table.getVector(ordinal);
+        if (!(vector instanceof LongColumnVector || vector instanceof StringColumnVector)) {
+            return null;
+        }
+        boolean numeric = vector instanceof LongColumnVector;
+        int size = table.size();
+        int blockCount = (size + blockRows - 1) / blockRows;
+        int hashCount = Math.max(1, Math.min(16, (int) Math.round(bitsPerKey * Math.log(2))));
+
+        long[][] bits = new long[blockCount][];
+        long values = 0;
+        long distinct = 0;
+        Set<Long> hashes = new HashSet<>();
+        for (int block = 0; block < blockCount; block++) {
+            values += collectHashes(vector, numeric, block * blockRows, Math.min(size, (block + 1) * blockRows), hashes);
+            distinct += hashes.size();
+            bits[block] = blockBits(hashes, bitsPerKey, hashCount);
+        }
+        if (values == 0 || (double) distinct / values < MIN_DISTINCT_RATIO) {
+            return null;
+        }
+        return new BlockBloomFilter(table.getColumnNames().get(ordinal), numeric, blockRows, hashCount, bits);
+    }
+
+    /**
+     * 由数据修改前的过滤器得到修改后的过滤器，只重新构建内容发生变化的区块，其余区块的位图与修改前共享
+     * 每个值的位数由哈希函数数量推算，与构建时的配置一致
+     *
+     * @param delta 修改前后的行位置对应关系
+     * @return 修改后的布隆过滤器，列不存在或列的类型变化时返回null
+     */
+    public BlockBloomFilter apply(RowDelta delta) {
+        ColumnarTable table = delta.getNewTable();
+        int ordinal = table.ordinal(columnName);
+        ColumnVector vector = ordinal >= 0 ? table.getVector(ordinal) : null;
+        if (!(numeric ? vector instanceof LongColumnVector : vector instanceof StringColumnVector)) {
+            return null;
+        }
+
+        int size = table.size();
+        int bitsPerKey = (int) Math.round(hashCount / Math.log(2));
+        boolean[] dirty = delta.dirtyBlocks(blockRows);
+        long[][] result = new long[dirty.length][];
+        Set<Long> hashes = new HashSet<>();
+        for (int block = 0; block < dirty.length; block++) {
+            if (!dirty[block]) {
+                result[block] = bits[block];
+                continue;
+            }
+            collectHashes(vector, numeric, block * blockRows, Math.min(size, (block + 1) * blockRows), hashes);
+            result[block] = blockBits(hashes, bitsPerKey, hashCount);
+        }
+        return new BlockBloomFilter(columnName, numeric, blockRows, hashCount, result);
+    }
+
+    /**
+     * 收集 [start, end) 中非空值的哈希
+     *
+     * @return 非空值的数量
+     */
+    private static int collectHashes(ColumnVector vector, boolean numeric, int start, int end, Set<Long> hashes) {
+        hashes.clear();
+        int values = 0;
+        for (int position = start; position < end; position++) {
+            if (!vector.isNull(position)) {
+                values++;
+                hashes.add(numeric ? hashNumber(vector.getDouble(position)) : hashText((String) vector.get(position)));
+            }
+        }
+        return values;
+    }
+
+    /**
+     * 构建一个区块的位图，位数按不同值的数量分配
+     *
+     * @return 位图，区块内全为空值时返回null
+     */
+    private static long[] blockBits(Set<Long> hashes, int bitsPerKey, int hashCount) {
+        if (hashes.isEmpty()) {
+            return null;
+        }
+        long[] blockBits = new long[Math.max(1, (hashes.size() * bitsPerKey + 63) / 64)];
+        for (long hash : hashes) {
+            add(blockBits, hashCount, hash);
+        }
+        return blockBits;
+    }
+
+    /**
+     * 计算数值的哈希
+     *
+     * @param value 数值
+     * @return 哈希
+     */
+    public static long hashNumber(double value) {
+        return mix(Double.doubleToLongBits(value));
+    }
+
+    /**
+     * 计算文本的哈希
+     *
+     * @param value 文本
+     * @return 哈希
+     */
+    public static long hashText(String value) {
+        // FNV-1a
+        long hash = 0xcbf29ce484222325L;
+        for (int i = 0; i < value.length(); i++) {
+            hash ^= value.charAt(i);
+            hash *= 0x100000001b3L;
+        }
+        return mix(hash);
+    }
+
+    /**
+     * 判断区块中是否可能包含哈希对应的值
+     *
+     * @param block 区块
+     * @param hash 由 {@link #hashNumber(double)} 或 {@link #hashText(String)} 计算的哈希
+     * @return 一定不包含时返回false
+     */
+    public boolean mightContain(int block, long hash) {
+        if (block >= bits.length) {
+            return true;
+        }
+        long[] blockBits = bits[block];
+        if (blockBits == null) {
+            return false;
+        }
+        long bitCount = (long) blockBits.length * 64;
+        int h1 = (int) hash;
+        int h2 = (int) (hash >>> 32);
+        for (int i = 1; i <= hashCount; i++) {
+            int combined = h1 + i * h2;
+            long bit = (combined & Integer.MAX_VALUE) % bitCount;
+            if ((blockBits[(int) (bit >>> 6)] & (1L << bit)) == 0) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * 写入过滤器文件
+     *
+     * @param out 输出
+     * @throws IOException 写入失败
+     */
+    public void write(DataOutput out) throws IOException {
+        out.writeUTF(columnName);
+        out.writeBoolean(numeric);
+        out.writeInt(blockRows);
+        out.writeInt(hashCount);
+        out.writeInt(bits.length);
+        for (long[] blockBits : bits) {
+            out.writeInt(blockBits != null ? blockBits.length : -1);
+            if (blockBits != null) {
+                for (long word : blockBits) {
+                    out.writeLong(word);
+                }
+            }
+        }
+    }
+
+    /**
+     * 从过滤器文件读取
+     *
+     * @param in 输入
+     * @return 布隆过滤器
+     * @throws IOException 读取失败
+     */
+    public static BlockBloomFilter read(DataInput in) throws IOException {
+        String columnName = in.readUTF();
+        boolean numeric = in.readBoolean();
+        int blockRows = in.readInt();
+        int hashCount = in.readInt();
+        long[][] bits = new long[in.readInt()][];
+        for (int block = 0; block < bits.length; block++) {
+            int length = in.readInt();
+            if (length >= 0) {
+                bits[block] = new long[length];
+                for (int i = 0; i < length; i++) {
+                    bits[block][i] = in.readLong();
+                }
+            }
+        }
+        return new BlockBloomFilter(columnName, numeric, blockRows, hashCount, bits);
+    }
+
+    public String getColumnName() {
+        return columnName;
+    }
+
+    /**
+     * 是否为整数列的过滤器
+     *
+     * @return 整数列返回true，字符串列返回false
+     */
+    public boolean isNumeric() {
+        return numeric;
+    }
+
+    public int getBlockRows() {
+        return blockRows;
+    }
+
+    /**
+     * 获取位图占用的字节数
+     *
+     * @return 字节数
+     */
+    public long getSizeInBytes() {
+        long words = 0;
+        for (long[] blockBits : bits) {
+            words += blockBits != null ? blockBits.length : 0;
+        }
+        return words * 8;
+    }
+
+    private static void add(long[] blockBits, int hashCount, long hash) {
+        long bitCount = (long) blockBits.length * 64;
+        int h1 = (int) hash;
+        int h2 = (int) (hash >>> 32);
+        for (int i = 1; i <= hashCount; i++) {
+            int combined = h1 + i * h2;
+            long bit = (combined & Integer.MAX_VALUE) % bitCount;
+            blockBits[(int) (bit >>> 6)] |= 1L << bit;
+        }
+    }
+
+    /**
+     * 64位哈希的混合步骤（MurmurHash3 fmix64）
+     */
+    private static long mix(long hash) {
+        hash ^= hash >>> 33;
+        hash *= 0xff51afd7ed558ccdL;
+        hash ^= hash >>> 33;
+        hash *= 0xc4ceb3f53e1fc3a7L;
+        hash ^= hash >>> 33;
+        return hash;
+    }
+}
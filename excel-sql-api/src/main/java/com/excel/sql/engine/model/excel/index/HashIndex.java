@@ -0,0 +1,507 @@
+package com.excel.sql.engine.model.excel.index;
+
+import com.excel.sql.engine.model.excel.ExcelRow;
+import com.excel.sql.engine.model.excel.columnar.ColumnarTable;
+
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Date;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * 哈希索引
+ * 列值映射到该值所在的行位置（升序），行位置即列式存储中的行位置，也是已加载行列表中的下标。
+ * 多列索引的键是各列索引键组成的列表。空值不进入索引，多列索引中任一列为空的行也不进入索引。
+ */
+public class HashIndex {
+
+    /**
+     * double能精确表示的最大整数
+     */
+    private static final double MAX_EXACT_LONG = 9007199254740992d;
+
+    private static final byte TAG_LONG = 'L';
+    private static final byte TAG_DOUBLE = 'D';
+    private static final byte TAG_STRING = 'S';
+    private static final byte TAG_BOOLEAN = 'B';
+    private static final byte TAG_DATE = 'T';
+    private static final byte TAG_COMPOSITE = 'C';
+
+    private final List<String> columnNames;
+    private final Map<Object, int[]> positions;
+
+    /**
+     * 索引中是否只有字符串、数值和布尔值
+     * 日期等其他类型的单元格与字面量按字符串比较，无法用字面量直接查找
+     */
+    private final boolean literalComparable;
+
+    private HashIndex(List<String> columnNames, Map<Object, int[]> positions, boolean literalComparable) {
+        this.columnNames = columnNames;
+        this.positions = positions;
+        this.literalComparable = literalComparable;
+    }
+
+    /**
+     * 由列式存储中的一列构建索引
+     *
+     * @param table 列式存储
+     * @param ordinal 列序号
+     * @return 哈希索引
+     */
+    public static HashIndex build(ColumnarTable table, int ordinal) {
+        return build(table, new int[] {ordinal});
+    }
+
+    /**
+     * 由列式存储中的一列或多列构建索引
+     * 先统计每个键的行数，再按行位置顺序填充，每个键只分配一个数组
+     *
+     * @param table 列式存储
+     * @param ordinals 列序号
+     * @return 哈希索引
+     */
+    public static HashIndex build(ColumnarTable table, int[] ordinals) {
+        int size = table.size();
+        Object[] keys = new Object[size];
+        Map<Object, int[]> counts = new HashMap<>();
+        boolean literalComparable = true;
+        for (int position = 0; position < size; position++) {
+            Object key = rowKey(table, ordinals, position);
+            literalComparable &= key == null || isLiteralComparableKey(key);
+            if (key != null) {
+                keys[position] = key;
+                counts.computeIfAbsent(key, k -> new int[1])[0]++;
+            }
+        }
+
+        Map<Object, int[]> positions = new HashMap<>(counts.size() * 4 / 3 + 1);
+        for (Map.Entry<Object, int[]> entry : counts.entrySet()) {
+            positions.put(entry.getKey(), new int[entry.getValue()[0]]);
+            // 计数数组改为记录填充位置
+            entry.getValue()[0] = 0;
+        }
+        for (int position = 0; position < size; position++) {
+            Object key = keys[position];
+            if (key != null) {
+                positions.get(key)[counts.get(key)[0]++] = position;
+            }
+        }
+
+        List<String> columnNames = new ArrayList<>(ordinals.length);
+        for (int ordinal : ordinals) {
+            columnNames.add(table.getColumnNames().get(ordinal));
+        }
+        return new HashIndex(Collections.unmodifiableList(columnNames), positions, literalComparable);
+    }
+
+    /**
+     * 由数据修改前的索引得到修改后的索引：未变更的行换成新的行位置，变更行按新值重新放入，
+     * 只有受影响的键会复制位置数组，其余键与修改前的索引共享
+     *
+     * @param delta 修改前后的行位置对应关系
+     * @return 修改后的哈希索引，索引列不存在时返回null
+     */
+    public HashIndex apply(RowDelta delta) {
+        int[] oldOrdinals = ordinals(delta.getOldTable());
+        int[] newOrdinals = ordinals(delta.getNewTable());
+        if (oldOrdinals == null || newOrdinals == null) {
+            return null;
+        }
+
+        Map<Object, int[]> result;
+        if (delta.hasDeletes()) {
+            result = new HashMap<>(positions.size() * 4 / 3 + 1);
+            for (Map.Entry<Object, int[]> entry : positions.entrySet()) {
+                int[] matched = remap(entry.getValue(), delta);
+                if (matched.length > 0) {
+                    result.put(entry.getKey(), matched);
+                }
+            }
+        } else {
+            result = new HashMap<>(positions);
+        }
+
+        // 变更行先从旧键移除，再加入新键；同一个键的修改合并后只复制一次
+        Map<Object, List<Integer>> removed = new HashMap<>();
+        Map<Object, List<Integer>> added = new HashMap<>();
+        boolean comparable = literalComparable;
+        int[] changed = delta.getChanged();
+        int[] changedFrom = delta.getChangedFrom();
+        for (int i = 0; i < changed.length; i++) {
+            if (changedFrom[i] >= 0) {
+                Object oldKey = rowKey(delta.getOldTable(), oldOrdinals, changedFrom[i]);
+                if (oldKey != null) {
+                    removed.computeIfAbsent(oldKey, k -> new ArrayList<>()).add(changed[i]);
+                }
+            }
+            Object newKey = rowKey(delta.getNewTable(), newOrdinals, changed[i]);
+            if (newKey != null) {
+                comparable &= isLiteralComparableKey(newKey);
+                added.computeIfAbsent(newKey, k -> new ArrayList<>()).add(changed[i]);
+            }
+        }
+        for (Map.Entry<Object, List<Integer>> entry : removed.entrySet()) {
+            int[] matched = result.get(entry.getKey());
+            if (matched == null) {
+                continue;
+            }
+            int[] remaining = without(matched, entry.getValue());
+            if (remaining.length > 0) {
+                result.put(entry.getKey(), remaining);
+            } else {
+                result.remove(entry.getKey());
+            }
+        }
+        for (Map.Entry<Object, List<Integer>> entry : added.entrySet()) {
+            result.put(entry.getKey(), with(result.get(entry.getKey()), entry.getValue()));
+        }
+        return new HashIndex(columnNames, result, comparable);
+    }
+
+    /**
+     * 计算一行的索引键，多列索引中任一列为空时返回null
+     */
+    private static Object rowKey(ColumnarTable table, int[] ordinals, int position) {
+        if (ordinals.length == 1) {
+            return key(table.get(ordinals[0], position));
+        }
+        Object[] values = new Object[ordinals.length];
+        for (int i = 0; i < ordinals.length; i++) {
+            Object value = table.get(ordinals[i], position);
+            if (value == null) {
+                return null;
+            }
+            values[i] = key(value);
+        }
+        return Arrays.asList(values);
+    }
+
+    private int[] ordinals(ColumnarTable table) {
+        int[] ordinals = new int[columnNames.size()];
+        for (int i = 0; i < ordinals.length; i++) {
+            ordinals[i] = table.ordinal(columnNames.get(i));
+            if (ordinals[i] < 0) {
+                return null;
+            }
+        }
+        return ordinals;
+    }
+
+    /**
+     * 换成新的行位置并去掉已删除的行，映射保持顺序，结果仍为升序
+     */
+    private static int[] remap(int[] matched, RowDelta delta) {
+        int[] result = new int[matched.length];
+        int count = 0;
+        for (int position : matched) {
+            int newPosition = delta.newPosition(position);
+            if (newPosition >= 0) {
+                result[count++] = newPosition;
+            }
+        }
+        return count == result.length ? result : Arrays.copyOf(result, count);
+    }
+
+    /**
+     * 从升序的行位置中去掉升序的指定行位置
+     */
+    private static int[] without(int[] matched, List<Integer> removed) {
+        int[] result = new int[matched.length];
+        int count = 0;
+        int j = 0;
+        for (int position : matched) {
+            while (j < removed.size() && removed.get(j) < position) {
+                j++;
+            }
+            if (j == removed.size() || removed.get(j) != position) {
+                result[count++] = position;
+            }
+        }
+        return Arrays.copyOf(result, count);
+    }
+
+    /**
+     * 把升序的新行位置合并到升序的行位置中
+     */
+    private static int[] with(int[] matched, List<Integer> added) {
+        int oldLength = matched != null ? matched.length : 0;
+        int[] result = new int[oldLength + added.size()];
+        int i = 0;
+        int j = 0;
+        int count = 0;
+        while (i < oldLength || j < added.size()) {
+            if (j == added.size() || (i < oldLength && matched[i] < added.get(j))) {
+                result[count++] = matched[i++];
+            } else {
+                result[count++] = added.get(j++);
+            }
+        }
+        return result;
+    }
+
+    /**
+     * 计算索引键：数值统一为Long或Double，使 1 与 1.0 能匹配，其余值保持不变
+     *
+     * @param value 单元格值
+     * @return 索引键，空值返回null
+     */
+    public static Object key(Object value) {
+        if (value instanceof Number && !(value instanceof Long)) {
+            double number = ((Number) value).doubleValue();
+            if (number == Math.floor(number) && Math.abs(number) <= MAX_EXACT_LONG) {
+                return (long) number;
+            }
+            return number;
+        }
+        return value;
+    }
+
+    /**
+     * 查找键所在的行位置
+     *
+     * @param key 索引键，由 {@link #key(Object)} 计算；多列索引为各列索引键组成的列表
+     * @return 升序的行位置，不存在时返回null
+     */
+    public int[] positions(Object key) {
+        return key != null ? positions.get(key) : null;
+    }
+
+    /**
+     * 查找多个键所在的行，按行位置顺序返回，与顺序扫描的输出顺序一致
+     *
+     * @param keys 索引键
+     * @param rows 已加载的行，下标即行位置
+     * @return 匹配的行
+     */
+    public List<ExcelRow> lookup(Collection<Object> keys, List<ExcelRow> rows) {
+        if (keys.size() == 1) {
+            int[] matched = positions(keys.iterator().next());
+            if (matched == null) {
+                return Collections.emptyList();
+            }
+            List<ExcelRow> result = new ArrayList<>(matched.length);
+            for (int position : matched) {
+                result.add(rows.get(position));
+            }
+            return result;
+        }
+
+        int total = 0;
+        List<int[]> parts = new ArrayList<>(keys.size());
+        for (Object key : keys) {
+            int[] matched = positions(key);
+            if (matched != null) {
+                parts.add(matched);
+                total += matched.length;
+            }
+        }
+        int[] merged = new int[total];
+        int offset = 0;
+        for (int[] part : parts) {
+            System.arraycopy(part, 0, merged, offset, part.length);
+            offset += part.length;
+        }
+        // 不同的键不会指向同一行，排序后不需要去重
+        Arrays.sort(merged);
+        List<ExcelRow> result = new ArrayList<>(merged.length);
+        for (int position : merged) {
+            result.add(rows.get(position));
+        }
+        return result;
+    }
+
+    /**
+     * 是否有键对应多行
+     *
+     * @return 存在重复键时返回true
+     */
+    public boolean hasDuplicates() {
+        for (int[] matched : positions.values()) {
+            if (matched.length > 1) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * 是否所有键都可以写入索引文件
+     *
+     * @return 键只包含字符串、数值、布尔值和日期时返回true
+     */
+    public boolean isPersistable() {
+        for (Object key : positions.keySet()) {
+            if (!isPersistableKey(key)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * 写入索引文件，调用前需通过 {@link #isPersistable()} 确认
+     *
+     * @param out 输出
+     * @throws IOException 写入失败
+     */
+    public void write(DataOutput out) throws IOException {
+        out.writeInt(columnNames.size());
+        for (String columnName : columnNames) {
+            out.writeUTF(columnName);
+        }
+        out.writeBoolean(literalComparable);
+        out.writeInt(positions.size());
+        for (Map.Entry<Object, int[]> entry : positions.entrySet()) {
+            writeKey(out, entry.getKey());
+            int[] matched = entry.getValue();
+            out.writeInt(matched.length);
+            for (int position : matched) {
+                out.writeInt(position);
+            }
+        }
+    }
+
+    /**
+     * 从索引文件读取
+     *
+     * @param in 输入
+     * @return 哈希索引
+     * @throws IOException 读取失败或格式错误
+     */
+    public static HashIndex read(DataInput in) throws IOException {
+        int columnCount = in.readInt();
+        List<String> columnNames = new ArrayList<>(columnCount);
+        for (int i = 0; i < columnCount; i++) {
+            columnNames.add(in.readUTF());
+        }
+        boolean literalComparable = in.readBoolean();
+        int keyCount = in.readInt();
+        Map<Object, int[]> positions = new HashMap<>(keyCount * 4 / 3 + 1);
+        for (int i = 0; i < keyCount; i++) {
+            Object key = readKey(in);
+            int[] matched = new int[in.readInt()];
+            for (int j = 0; j < matched.length; j++) {
+                matched[j] = in.readInt();
+            }
+            positions.put(key, matched);
+        }
+        return new HashIndex(Collections.unmodifiableList(columnNames), positions, literalComparable);
+    }
+
+    /**
+     * 获取索引列名
+     *
+     * @return 索引列名，单列索引只有一个元素
+     */
+    public List<String> getColumnNames() {
+        return columnNames;
+    }
+
+    /**
+     * 获取不同键的数量
+     *
+     * @return 不同键的数量
+     */
+    public int getKeyCount() {
+        return positions.size();
+    }
+
+    public boolean isLiteralComparable() {
+        return literalComparable;
+    }
+
+    private static boolean isLiteralComparable(Object value) {
+        return value instanceof String || value instanceof Number || value instanceof Boolean;
+    }
+
+    private static boolean isLiteralComparableKey(Object key) {
+        if (key instanceof List) {
+            for (Object part : (List<?>) key) {
+                if (!isLiteralComparable(part)) {
+                    return false;
+                }
+            }
+            return true;
+        }
+        return isLiteralComparable(key);
+    }
+
+    private static boolean isPersistableKey(Object key) {
+        if (key instanceof List) {
+            for (Object part : (List<?>) key) {
+                if (!isPersistableKey(part)) {
+                    return false;
+                }
+            }
+            return true;
+        }
+        return key instanceof Long || key instanceof Double || key instanceof String || key instanceof Boolean
+                || key instanceof Date;
+    }
+
+    private static void writeKey(DataOutput out, Object key) throws IOException {
+        if (key instanceof List) {
+            List<?> parts = (List<?>) key;
+            out.writeByte(TAG_COMPOSITE);
+            out.writeInt(parts.size());
+            for (Object part : parts) {
+                writeKey(out, part);
+            }
+        } else if (key instanceof Long) {
+            out.writeByte(TAG_LONG);
+            out.writeLong((Long) key);
+        } else if (key instanceof Double) {
+            out.writeByte(TAG_DOUBLE);
+            out.writeDouble((Double) key);
+        } else if (key instanceof String) {
+            // 单元格文本可能超过writeUTF的64KB限制
+            byte[] bytes = ((String) key).getBytes(StandardCharsets.UTF_8);
+            out.writeByte(TAG_STRING);
+            out.writeInt(bytes.length);
+            out.write(bytes);
+        } else if (key instanceof Boolean) {
+            out.writeByte(TAG_BOOLEAN);
+            out.writeBoolean((Boolean) key);
+        } else if (key instanceof Date) {
+            out.writeByte(TAG_DATE);
+            out.writeLong(((Date) key).getTime());
+        } else {
+            throw new IOException("不支持写入索引文件的值类型: " + key.getClass().getName());
+        }
+    }
+
+    private static Object readKey(DataInput in) throws IOException {
+        byte tag = in.readByte();
+        switch (tag) {
+            case TAG_COMPOSITE:
+                Object[] parts = new Object[in.readInt()];
+                for (int i = 0; i < parts.length; i++) {
+                    parts[i] = readKey(in);
+                }
+                return Arrays.asList(parts);
+            case TAG_LONG:
+                return in.readLong();
+            case TAG_DOUBLE:
+                return in.readDouble();
+            case TAG_STRING:
+                byte[] bytes = new byte[in.readInt()];
+                in.readFully(bytes);
+                return new String(bytes, StandardCharsets.UTF_8);
+            case TAG_BOOLEAN:
+                return in.readBoolean();
+            case TAG_DATE:
+                return new Date(in.readLong());
+            default:
+                throw new IOException("索引文件格式错误，未知的值类型: " + tag);
+        }
+    }
+}
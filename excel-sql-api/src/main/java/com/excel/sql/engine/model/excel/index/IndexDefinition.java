@@ -0,0 +1,84 @@
+package com.excel.sql.engine.model.excel.index;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+/**
+ * 通过CREATE INDEX创建的索引定义
+ * 保存在工作簿旁的索引文件头部，记录生成索引数据时工作簿文件的大小和最后修改时间
+ */
+@Data
+@Builder(toBuilder = true)
+@NoArgsConstructor
+@AllArgsConstructor
+public class IndexDefinition {
+
+    /**
+     * 单列索引
+     */
+    public static final String TYPE_SECONDARY = "SECONDARY";
+
+    /**
+     * 多列索引
+     */
+    public static final String TYPE_COMPOSITE = "COMPOSITE";
+
+    /**
+     * 单列三元组索引（CREATE INDEX ... USING NGRAM），用于LIKE子串匹配
+     */
+    public static final String TYPE_NGRAM = "NGRAM";
+
+    /**
+     * 所属工作表名称
+     */
+    private String sheetName;
+
+    /**
+     * 索引名称
+     */
+    private String name;
+
+    /**
+     * 索引类型（SECONDARY, COMPOSITE, NGRAM）
+     */
+    private String indexType;
+
+    /**
+     * 索引列
+     */
+    private List<String> columns;
+
+    /**
+     * 是否唯一索引
+     */
+    private boolean unique;
+
+    /**
+     * 生成索引数据时工作簿文件的大小
+     */
+    private long workbookSize;
+
+    /**
+     * 生成索引数据时工作簿文件的最后修改时间
+     */
+    private long workbookModified;
+
+    /**
+     * 不同键的数量
+     */
+    private int keyCount;
+
+    /**
+     * 创建时间（毫秒）
+     */
+    private long createTime;
+
+    /**
+     * 索引文件路径
+     */
+    private transient String filePath;
+}
@@ -0,0 +1,354 @@
+package com.excel.sql.engine.model.excel.index;
+
+import com.excel.sql.engine.model.excel.columnar.ColumnarTable;
+
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * 单列三元组（trigram）倒排索引
+ * 把每个非空单元格的文本（与LIKE条件相同，取值的字符串形式）拆分为连续三个字符的片段，
+ * 记录每个片段出现的行位置（升序）。字符按忽略大小写的比较方式折叠，与LIKE的匹配方式一致。
+ * LIKE模式中每段长度不小于3的常量文本的所有片段都必须出现，取各片段行位置的交集得到候选行，
+ * 候选行仍需满足完整的WHERE条件。
+ */
+public class NgramIndex {
+
+    /**
+     * 片段长度
+     */
+    public static final int GRAM_LENGTH = 3;
+
+    private final String columnName;
+
+    /**
+     * 片段（三个字符按16位依次拼接），升序
+     */
+    private final long[] grams;
+
+    /**
+     * 片段的行位置在positions中的起始下标，长度为片段数量+1
+     */
+    private final int[] offsets;
+
+    /**
+     * 按片段分组的行位置，每组内升序
+     */
+    private final int[] positions;
+
+    private NgramIndex(String columnName, long[] grams, int[] offsets, int[] positions) {
+        this.columnName = columnName;
+        this.grams = grams;
+        this.offsets = offsets;
+        this.positions = positions;
+    }
+
+    /**
+     * 由列式存储中的一列构建索引
+     *
+     * @param table 列式存储
+     * @param ordinal 列序号
+     * @return 三元组索引
+     */
+    public static NgramIndex build(ColumnarTable table, int ordinal) {
+        int size = table.size();
+
+        // 第一遍统计每个片段出现的行数，同一行中重复的片段只计一次
+        Map<Long, int[]> counts = new HashMap<>();
+        long[][] rowGrams = new long[size][];
+        for (int position = 0; position < size; position++) {
+            Object value = table.get(ordinal, position);
+            if (value == null) {
+                continue;
+            }
+            long[] distinct = distinctGrams(value.toString());
+            rowGrams[position] = distinct;
+            for (long gram : distinct) {
+                counts.computeIfAbsent(gram, k -> new int[1])[0]++;
+            }
+        }
+
+        long[] grams = new long[counts.size()];
+        int index = 0;
+        for (Long gram : counts.keySet()) {
+            grams[index++] = gram;
+        }
+        Arrays.sort(grams);
+        int[] offsets = new int[grams.length + 1];
+        for (int i = 0; i < grams.length; i++) {
+            offsets[i + 1] = offsets[i] + counts.get(grams[i])[0];
+        }
+
+        // 第二遍按行位置顺序填入，每组内自然升序
+        int[] next = Arrays.copyOf(offsets, grams.length);
+        int[] positions = new int[offsets[grams.length]];
+        for (int position = 0; position < size; position++) {
+            if (rowGrams[position] == null) {
+                continue;
+            }
+            for (long gram : rowGrams[position]) {
+                positions[next[Arrays.binarySearch(grams, gram)]++] = position;
+            }
+        }
+        return new NgramIndex(table.getColumnNames().get(ordinal), grams, offsets, positions);
+    }
+
+    /**
+     * 由数据修改前的索引得到修改后的索引：未变更的行换成新的行位置，变更行重新拆分片段后归并
+     *
+     * @param delta 修改前后的行位置对应关系
+     * @return 修改后的三元组索引，列不存在时返回null
+     */
+    public NgramIndex apply(RowDelta delta) {
+        ColumnarTable table = delta.getNewTable();
+        int ordinal = table.ordinal(columnName);
+        if (ordinal < 0) {
+            return null;
+        }
+
+        // 变更行的片段，行位置按升序加入
+        Map<Long, List<Integer>> added = new HashMap<>();
+        for (int position : delta.getChanged()) {
+            Object value = table.get(ordinal, position);
+            if (value != null) {
+                for (long gram : distinctGrams(value.toString())) {
+                    added.computeIfAbsent(gram, k -> new ArrayList<>()).add(position);
+                }
+            }
+        }
+        long[] addedGrams = new long[added.size()];
+        int index = 0;
+        for (Long gram : added.keySet()) {
+            addedGrams[index++] = gram;
+        }
+        Arrays.sort(addedGrams);
+
+        long[] mergedGrams = new long[grams.length + addedGrams.length];
+        int[] mergedOffsets = new int[mergedGrams.length + 1];
+        int[] mergedPositions = new int[positions.length + countPositions(added)];
+        int gramCount = 0;
+        int count = 0;
+        int i = 0;
+        int j = 0;
+        while (i < grams.length || j < addedGrams.length) {
+            long gram;
+            if (j == addedGrams.length || (i < grams.length && grams[i] < addedGrams[j])) {
+                gram = grams[i];
+            } else {
+                gram = addedGrams[j];
+            }
+            int start = count;
+            List<Integer> addedPositions = null;
+            if (j < addedGrams.length && addedGrams[j] == gram) {
+                addedPositions = added.get(gram);
+                j++;
+            }
+            int k = 0;
+            if (i < grams.length && grams[i] == gram) {
+                for (int p = offsets[i]; p < offsets[i + 1]; p++) {
+                    int position = delta.newPosition(positions[p]);
+                    if (position < 0 || delta.isChanged(position)) {
+                        continue;
+                    }
+                    while (addedPositions != null && k < addedPositions.size() && addedPositions.get(k) < position) {
+                        mergedPositions[count++] = addedPositions.get(k++);
+                    }
+                    mergedPositions[count++] = position;
+                }
+                i++;
+            }
+            while (addedPositions != null && k < addedPositions.size()) {
+                mergedPositions[count++] = addedPositions.get(k++);
+            }
+            // 所有行都已删除或变更的片段不再保留
+            if (count > start) {
+                mergedGrams[gramCount++] = gram;
+                mergedOffsets[gramCount] = count;
+            }
+        }
+        return new NgramIndex(columnName, Arrays.copyOf(mergedGrams, gramCount),
+                Arrays.copyOf(mergedOffsets, gramCount + 1), Arrays.copyOf(mergedPositions, count));
+    }
+
+    private static int countPositions(Map<Long, List<Integer>> added) {
+        int count = 0;
+        for (List<Integer> addedPositions : added.values()) {
+            count += addedPositions.size();
+        }
+        return count;
+    }
+
+    /**
+     * 查找包含所有文本片段的候选行
+     *
+     * @param fragments 必须出现在单元格文本中的常量文本
+     * @return 候选行位置（升序），没有长度不小于3的文本时返回null，表示无法缩小范围
+     */
+    public int[] candidates(List<String> fragments) {
+        long[] required = new long[0];
+        for (String fragment : fragments) {
+            long[] fragmentGrams = distinctGrams(fragment);
+            int start = required.length;
+            required = Arrays.copyOf(required, start + fragmentGrams.length);
+            System.arraycopy(fragmentGrams, 0, required, start, fragmentGrams.length);
+        }
+        if (required.length == 0) {
+            return null;
+        }
+
+        // 从行数最少的片段开始求交集
+        int[] found = new int[required.length];
+        for (int i = 0; i < required.length; i++) {
+            found[i] = Arrays.binarySearch(grams, required[i]);
+            if (found[i] < 0) {
+                return new int[0];
+            }
+        }
+        Integer[] order = new Integer[found.length];
+        for (int i = 0; i < order.length; i++) {
+            order[i] = found[i];
+        }
+        Arrays.sort(order, (a, b) -> Integer.compare(postingSize(a), postingSize(b)));
+
+        int first = order[0];
+        int[] result = Arrays.copyOfRange(positions, offsets[first], offsets[first + 1]);
+        int length = result.length;
+        for (int i = 1; i < order.length && length > 0; i++) {
+            length = intersect(result, length, order[i]);
+        }
+        return length == result.length ? result : Arrays.copyOf(result, length);
+    }
+
+    /**
+     * 把result前length个行位置与片段的行位置求交集，结果写回result
+     *
+     * @return 交集的大小
+     */
+    private int intersect(int[] result, int length, int gramIndex) {
+        int from = offsets[gramIndex];
+        int to = offsets[gramIndex + 1];
+        int count = 0;
+        for (int i = 0; i < length && from < to; i++) {
+            int position = result[i];
+            from = lowerBound(from, to, position);
+            if (from < to && positions[from] == position) {
+                result[count++] = position;
+            }
+        }
+        return count;
+    }
+
+    /**
+     * 在positions的[from, to)中查找第一个不小于position的下标，先指数步进再二分
+     */
+    private int lowerBound(int from, int to, int position) {
+        int step = 1;
+        int high = from;
+        while (high < to && positions[high] < position) {
+            from = high + 1;
+            high += step;
+            step <<= 1;
+        }
+        high = Math.min(high, to);
+        while (from < high) {
+            int mid = (from + high) >>> 1;
+            if (positions[mid] < position) {
+                from = mid + 1;
+            } else {
+                high = mid;
+            }
+        }
+        return from;
+    }
+
+    private int postingSize(int gramIndex) {
+        return offsets[gramIndex + 1] - offsets[gramIndex];
+    }
+
+    /**
+     * 拆分文本的片段并去重，字符按忽略大小写的比较方式折叠
+     */
+    private static long[] distinctGrams(String text) {
+        int count = text.length() - GRAM_LENGTH + 1;
+        if (count <= 0) {
+            return new long[0];
+        }
+        long[] result = new long[count];
+        long gram = 0;
+        for (int i = 0; i < text.length(); i++) {
+            // 与String.regionMatches(true, ...)一致：大写后再小写相同的字符视为相同
+            char c = Character.toLowerCase(Character.toUpperCase(text.charAt(i)));
+            gram = ((gram << 16) | c) & 0xFFFFFFFFFFFFL;
+            if (i >= GRAM_LENGTH - 1) {
+                result[i - GRAM_LENGTH + 1] = gram;
+            }
+        }
+        Arrays.sort(result);
+        int distinct = 0;
+        for (int i = 0; i < result.length; i++) {
+            if (i == 0 || result[i] != result[i - 1]) {
+                result[distinct++] = result[i];
+            }
+        }
+        return distinct == result.length ? result : Arrays.copyOf(result, distinct);
+    }
+
+    /**
+     * 写入索引文件
+     *
+     * @param out 输出
+     * @throws IOException 写入失败
+     */
+    public void write(DataOutput out) throws IOException {
+        out.writeUTF(columnName);
+        out.writeInt(grams.length);
+        for (int i = 0; i < grams.length; i++) {
+            out.writeLong(grams[i]);
+            out.writeInt(offsets[i + 1]);
+        }
+        for (int position : positions) {
+            out.writeInt(position);
+        }
+    }
+
+    /**
+     * 从索引文件读取
+     *
+     * @param in 输入
+     * @return 三元组索引
+     * @throws IOException 读取失败
+     */
+    public static NgramIndex read(DataInput in) throws IOException {
+        String columnName = in.readUTF();
+        long[] grams = new long[in.readInt()];
+        int[] offsets = new int[grams.length + 1];
+        for (int i = 0; i < grams.length; i++) {
+            grams[i] = in.readLong();
+            offsets[i + 1] = in.readInt();
+        }
+        int[] positions = new int[offsets[grams.length]];
+        for (int i = 0; i < positions.length; i++) {
+            positions[i] = in.readInt();
+        }
+        return new NgramIndex(columnName, grams, offsets, positions);
+    }
+
+    public String getColumnName() {
+        return columnName;
+    }
+
+    /**
+     * 获取不同片段的数量
+     *
+     * @return 片段数量
+     */
+    public int getGramCount() {
+        return grams.length;
+    }
+}
@@ -0,0 +1,134 @@
+package com.excel.sql.engine.model.excel.index;
+
+import com.excel.sql.engine.model.excel.columnar.ColumnarTable;
+
+/**
+ * 一次数据修改前后列式存储中行位置的对应关系
+ * 删除行之后的行位置依次前移，插入的行追加在末尾；更新和插入的行为变更行。
+ * 索引结构据此移除变更行的旧值、加入变更行的新值，其余行只需换成新的行位置，不必重新构建。
+ */
+public class RowDelta {
+
+    private final ColumnarTable oldTable;
+    private final ColumnarTable newTable;
+
+    /**
+     * 旧行位置到新行位置的映射，删除的行为-1；没有删除行时为null，行位置不变
+     */
+    private final int[] remap;
+
+    /**
+     * 变更行的新行位置（升序）
+     */
+    private final int[] changed;
+
+    /**
+     * 与changed对应的旧行位置，插入的行为-1
+     */
+    private final int[] changedFrom;
+
+    private final boolean[] changedMask;
+
+    /**
+     * 前stableRows个行位置在修改前后指向同一行
+     */
+    private final int stableRows;
+
+    public RowDelta(ColumnarTable oldTable, ColumnarTable newTable, int[] remap, int[] changed, int[] changedFrom) {
+        this.oldTable = oldTable;
+        this.newTable = newTable;
+        this.remap = remap;
+        this.changed = changed;
+        this.changedFrom = changedFrom;
+        this.changedMask = new boolean[newTable.size()];
+        for (int position : changed) {
+            changedMask[position] = true;
+        }
+
+        int stable = Math.min(oldTable.size(), newTable.size());
+        if (remap != null) {
+            for (int position = 0; position < remap.length; position++) {
+                if (remap[position] < 0) {
+                    stable = Math.min(stable, position);
+                    break;
+                }
+            }
+        }
+        this.stableRows = stable;
+    }
+
+    public ColumnarTable getOldTable() {
+        return oldTable;
+    }
+
+    public ColumnarTable getNewTable() {
+        return newTable;
+    }
+
+    /**
+     * 获取旧行位置对应的新行位置
+     *
+     * @param oldPosition 旧行位置
+     * @return 新行位置，行已删除时返回-1
+     */
+    public int newPosition(int oldPosition) {
+        return remap != null ? remap[oldPosition] : oldPosition;
+    }
+
+    /**
+     * 是否有删除的行
+     *
+     * @return 有删除行时返回true
+     */
+    public boolean hasDeletes() {
+        return remap != null;
+    }
+
+    /**
+     * 获取变更行的新行位置
+     *
+     * @return 升序的新行位置
+     */
+    public int[] getChanged() {
+        return changed;
+    }
+
+    /**
+     * 获取变更行的旧行位置
+     *
+     * @return 与 {@link #getChanged()} 一一对应的旧行位置，插入的行为-1
+     */
+    public int[] getChangedFrom() {
+        return changedFrom;
+    }
+
+    /**
+     * 新行位置上的行是否为变更行
+     *
+     * @param newPosition 新行位置
+     * @return 更新或插入的行返回true
+     */
+    public boolean isChanged(int newPosition) {
+        return changedMask[newPosition];
+    }
+
+    /**
+     * 计算按区块划分时内容发生变化的区块：包含变更行的区块，以及行位置前移、行数变化或新增的区块
+     *
+     * @param blockRows 每个区块的行数
+     * @return 下标为新的区块
+     */
+    public boolean[] dirtyBlocks(int blockRows) {
+        int size = newTable.size();
+        int oldSize = oldTable.size();
+        boolean[] dirty = new boolean[(size + blockRows - 1) / blockRows];
+        for (int block = 0; block < dirty.length; block++) {
+            int end = (block + 1) * blockRows;
+            dirty[block] = Math.max(Math.min(size, end), Math.min(oldSize, end)) > stableRows;
+        }
+        for (int position : changed) {
+            dirty[position / blockRows] = true;
+        }
+        return dirty;
+    }
+}
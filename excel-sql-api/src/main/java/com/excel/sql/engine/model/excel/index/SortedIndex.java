@@ -0,0 +1,464 @@
+package com.excel.sql.engine.model.excel.index;
+
+import com.excel.sql.engine.model.excel.columnar.ColumnVector;
+import com.excel.sql.engine.model.excel.columnar.ColumnarTable;
+import com.excel.sql.engine.model.excel.columnar.DateColumnVector;
+import com.excel.sql.engine.model.excel.columnar.StringColumnVector;
+
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.function.IntPredicate;
+
+/**
+ * 单列有序索引
+ * 非空值按值排序后保存在基本类型数组中，与之并列保存行位置；值相等的行按行位置升序，空值单独保存。
+ * 数值列按数值排序，日期列按毫秒时间戳排序，字符串列按字符串自然顺序排序，与WHERE比较和ORDER BY的顺序一致。
+ * 范围条件通过二分查找得到排序下标区间 [from, to)。
+ */
+public class SortedIndex {
+
+    /**
+     * 排序键的类型，写入索引文件；字符串和数值与只区分这两种类型时写入的布尔值相同
+     */
+    private static final byte KIND_TEXT = 0;
+    private static final byte KIND_NUMBER = 1;
+    private static final byte KIND_DATE = 2;
+
+    private final String columnName;
+
+    /**
+     * 排序键的类型
+     */
+    private final byte kind;
+
+    /**
+     * 数值列的排序键，日期列为毫秒时间戳，字符串列时为null
+     */
+    private final double[] numberKeys;
+
+    /**
+     * 字符串列的排序键，数值列时为null
+     */
+    private final String[] textKeys;
+
+    /**
+     * 与排序键一一对应的行位置
+     */
+    private final int[] positions;
+
+    /**
+     * 空值所在的行位置（升序）
+     */
+    private final int[] nullPositions;
+
+    private SortedIndex(String columnName, byte kind, double[] numberKeys, String[] textKeys, int[] positions,
+                        int[] nullPositions) {
+        this.columnName = columnName;
+        this.kind = kind;
+        this.numberKeys = numberKeys;
+        this.textKeys = textKeys;
+        this.positions = positions;
+        this.nullPositions = nullPositions;
+    }
+
+    /**
+     * 由列式存储中的一列构建索引
+     *
+     * @param table 列式存储
+     * @param ordinal 列序号
+     * @return 有序索引，列不是数值列、日期列或字符串列时返回null
+     */
+    public static SortedIndex build(ColumnarTable table, int ordinal) {
+        ColumnVector vector = table.getVector(ordinal);
+        byte kind = kindOf(vector);
+        if (kind < 0) {
+            return null;
+        }
+
+        int size = table.size();
+        int nullCount = 0;
+        for (int position = 0; position < size; position++) {
+            if (vector.isNull(position)) {
+                nullCount++;
+            }
+        }
+        int[] positions = new int[size - nullCount];
+        int[] nullPositions = new int[nullCount];
+        int valueIndex = 0;
+        int nullIndex = 0;
+        for (int position = 0; position < size; position++) {
+            if (vector.isNull(position)) {
+                nullPositions[nullIndex++] = position;
+            } else {
+                positions[valueIndex++] = position;
+            }
+        }
+
+        String columnName = table.getColumnNames().get(ordinal);
+        if (kind != KIND_TEXT) {
+            double[] values = new double[size];
+            for (int position : positions) {
+                values[position] = vector.getDouble(position);
+            }
+            sort(positions, (a, b) -> Double.compare(values[a], values[b]));
+            double[] keys = new double[positions.length];
+            for (int i = 0; i < positions.length; i++) {
+                keys[i] = values[positions[i]];
+            }
+            return new SortedIndex(columnName, kind, keys, null, positions, nullPositions);
+        }
+
+        String[] values = new String[size];
+        for (int position : positions) {
+            values[position] = (String) vector.get(position);
+        }
+        sort(positions, (a, b) -> values[a].compareTo(values[b]));
+        String[] keys = new String[positions.length];
+        for (int i = 0; i < positions.length; i++) {
+            keys[i] = values[positions[i]];
+        }
+        return new SortedIndex(columnName, kind, null, keys, positions, nullPositions);
+    }
+
+    /**
+     * 由数据修改前的索引得到修改后的索引：未变更的行换成新的行位置并保持原有顺序，
+     * 变更行按新值排序后归并进来，不必重新排序整列
+     *
+     * @param delta 修改前后的行位置对应关系
+     * @return 修改后的有序索引，列不存在或列的类型变化时返回null，需要重新构建
+     */
+    public SortedIndex apply(RowDelta delta) {
+        ColumnarTable table = delta.getNewTable();
+        int ordinal = table.ordinal(columnName);
+        ColumnVector vector = ordinal >= 0 ? table.getVector(ordinal) : null;
+        if (kindOf(vector) != kind) {
+            return null;
+        }
+        boolean numeric = numberKeys != null;
+
+        // 未变更的行：记录在旧排序中的下标，映射保持顺序，值相等的行仍按行位置升序
+        int[] kept = new int[positions.length];
+        int keptCount = 0;
+        for (int i = 0; i < positions.length; i++) {
+            int position = delta.newPosition(positions[i]);
+            if (position >= 0 && !delta.isChanged(position)) {
+                kept[keptCount++] = i;
+            }
+        }
+
+        int[] changed = delta.getChanged();
+        int[] added = new int[changed.length];
+        int[] addedNulls = new int[changed.length];
+        int addedCount = 0;
+        int addedNullCount = 0;
+        for (int position : changed) {
+            if (vector.isNull(position)) {
+                addedNulls[addedNullCount++] = position;
+            } else {
+                added[addedCount++] = position;
+            }
+        }
+        added = Arrays.copyOf(added, addedCount);
+        if (numeric) {
+            sort(added, (a, b) -> Double.compare(vector.getDouble(a), vector.getDouble(b)));
+        } else {
+            sort(added, (a, b) -> ((String) vector.get(a)).compareTo((String) vector.get(b)));
+        }
+
+        int size = keptCount + addedCount;
+        double[] mergedNumbers = numeric ? new double[size] : null;
+        String[] mergedTexts = numeric ? null : new String[size];
+        int[] mergedPositions = new int[size];
+        int i = 0;
+        int j = 0;
+        for (int out = 0; out < size; out++) {
+            boolean takeKept;
+            if (j == addedCount) {
+                takeKept = true;
+            } else if (i == keptCount) {
+                takeKept = false;
+            } else {
+                int cmp = numeric
+                        ? Double.compare(numberKeys[kept[i]], vector.getDouble(added[j]))
+                        : textKeys[kept[i]].compareTo((String) vector.get(added[j]));
+                takeKept = cmp < 0 || (cmp == 0 && delta.newPosition(positions[kept[i]]) < added[j]);
+            }
+            if (takeKept) {
+                int index = kept[i++];
+                if (numeric) {
+                    mergedNumbers[out] = numberKeys[index];
+                } else {
+                    mergedTexts[out] = textKeys[index];
+                }
+                mergedPositions[out] = delta.newPosition(positions[index]);
+            } else {
+                int position = added[j++];
+                if (numeric) {
+                    mergedNumbers[out] = vector.getDouble(position);
+                } else {
+                    mergedTexts[out] = (String) vector.get(position);
+                }
+                mergedPositions[out] = position;
+            }
+        }
+
+        // 空值的行位置为升序，两部分归并即可
+        int[] nulls = new int[nullPositions.length + addedNullCount];
+        int nullCount = 0;
+        int k = 0;
+        for (int nullPosition : nullPositions) {
+            int position = delta.newPosition(nullPosition);
+            if (position < 0 || delta.isChanged(position)) {
+                continue;
+            }
+            while (k < addedNullCount && addedNulls[k] < position) {
+                nulls[nullCount++] = addedNulls[k++];
+            }
+            nulls[nullCount++] = position;
+        }
+        while (k < addedNullCount) {
+            nulls[nullCount++] = addedNulls[k++];
+        }
+        return new SortedIndex(columnName, kind, mergedNumbers, mergedTexts, mergedPositions,
+                Arrays.copyOf(nulls, nullCount));
+    }
+
+    /**
+     * 第一个不小于（inclusive）或大于（!inclusive）边界的排序下标
+     *
+     * @param bound 边界，数值索引为Double，日期索引为毫秒时间戳的Double，字符串索引为String
+     * @param inclusive 是否包含等于边界的值
+     * @return 排序下标，所有值都在边界之前时返回 {@link #size()}
+     */
+    public int lowerBound(Object bound, boolean inclusive) {
+        int low = 0;
+        int high = positions.length;
+        while (low < high) {
+            int mid = (low + high) >>> 1;
+            int cmp = compareAt(mid, bound);
+            if (cmp < 0 || (cmp == 0 && !inclusive)) {
+                low = mid + 1;
+            } else {
+                high = mid;
+            }
+        }
+        return low;
+    }
+
+    /**
+     * 按排序顺序遍历 [from, to) 区间内的行位置，值相等的行总是按行位置升序
+     * 升序时空值在最前，降序时空值在最后，与ORDER BY一致
+     *
+     * @param from 起始排序下标（包含）
+     * @param to 结束排序下标（不包含）
+     * @param descending 是否降序
+     * @param includeNulls 是否包含空值
+     * @param consumer 接收行位置，返回false时停止遍历
+     */
+    public void forEachPosition(int from, int to, boolean descending, boolean includeNulls, IntPredicate consumer) {
+        if (!descending) {
+            if (includeNulls && !forEach(nullPositions, consumer)) {
+                return;
+            }
+            for (int i = from; i < to; i++) {
+                if (!consumer.test(positions[i])) {
+                    return;
+                }
+            }
+            return;
+        }
+
+        int end = to;
+        while (end > from) {
+            int start = end - 1;
+            while (start > from && keyEquals(start - 1, start)) {
+                start--;
+            }
+            for (int i = start; i < end; i++) {
+                if (!consumer.test(positions[i])) {
+                    return;
+                }
+            }
+            end = start;
+        }
+        if (includeNulls) {
+            forEach(nullPositions, consumer);
+        }
+    }
+
+    /**
+     * 写入索引文件
+     *
+     * @param out 输出
+     * @throws IOException 写入失败
+     */
+    public void write(DataOutput out) throws IOException {
+        out.writeUTF(columnName);
+        out.writeByte(kind);
+        out.writeInt(positions.length);
+        for (int i = 0; i < positions.length; i++) {
+            if (numberKeys != null) {
+                out.writeDouble(numberKeys[i]);
+            } else {
+                byte[] bytes = textKeys[i].getBytes(StandardCharsets.UTF_8);
+                out.writeInt(bytes.length);
+                out.write(bytes);
+            }
+            out.writeInt(positions[i]);
+        }
+        out.writeInt(nullPositions.length);
+        for (int position : nullPositions) {
+            out.writeInt(position);
+        }
+    }
+
+    /**
+     * 从索引文件读取
+     *
+     * @param in 输入
+     * @return 有序索引
+     * @throws IOException 读取失败
+     */
+    public static SortedIndex read(DataInput in) throws IOException {
+        String columnName = in.readUTF();
+        byte kind = in.readByte();
+        if (kind != KIND_TEXT && kind != KIND_NUMBER && kind != KIND_DATE) {
+            throw new IOException("索引文件格式错误，未知的排序键类型: " + kind);
+        }
+        boolean numeric = kind != KIND_TEXT;
+        int size = in.readInt();
+        double[] numberKeys = numeric ? new double[size] : null;
+        String[] textKeys = numeric ? null : new String[size];
+        int[] positions = new int[size];
+        for (int i = 0; i < size; i++) {
+            if (numeric) {
+                numberKeys[i] = in.readDouble();
+            } else {
+                byte[] bytes = new byte[in.readInt()];
+                in.readFully(bytes);
+                textKeys[i] = new String(bytes, StandardCharsets.UTF_8);
+            }
+            positions[i] = in.readInt();
+        }
+        int[] nullPositions = new int[in.readInt()];
+        for (int i = 0; i < nullPositions.length; i++) {
+            nullPositions[i] = in.readInt();
+        }
+        return new SortedIndex(columnName, kind, numberKeys, textKeys, positions, nullPositions);
+    }
+
+    public String getColumnName() {
+        return columnName;
+    }
+
+    /**
+     * 是否为数值索引
+     *
+     * @return 数值列返回true，日期列和字符串列返回false
+     */
+    public boolean isNumeric() {
+        return kind == KIND_NUMBER;
+    }
+
+    /**
+     * 是否为日期索引
+     *
+     * @return 日期列返回true
+     */
+    public boolean isDate() {
+        return kind == KIND_DATE;
+    }
+
+    /**
+     * 获取非空值的数量
+     *
+     * @return 非空值的数量，即排序下标的上界
+     */
+    public int size() {
+        return positions.length;
+    }
+
+    private int compareAt(int index, Object bound) {
+        if (numberKeys != null) {
+            return Double.compare(numberKeys[index], (Double) bound);
+        }
+        return textKeys[index].compareTo((String) bound);
+    }
+
+    private boolean keyEquals(int a, int b) {
+        if (numberKeys != null) {
+            return Double.compare(numberKeys[a], numberKeys[b]) == 0;
+        }
+        return textKeys[a].equals(textKeys[b]);
+    }
+
+    /**
+     * 列向量对应的排序键类型
+     *
+     * @return 排序键类型，列为空或不能建立有序索引时返回-1
+     */
+    private static byte kindOf(ColumnVector vector) {
+        if (vector == null) {
+            return -1;
+        }
+        if (vector.isNumeric()) {
+            return KIND_NUMBER;
+        }
+        if (vector instanceof DateColumnVector) {
+            return KIND_DATE;
+        }
+        return vector instanceof StringColumnVector ? KIND_TEXT : -1;
+    }
+
+    private static boolean forEach(int[] values, IntPredicate consumer) {
+        for (int value : values) {
+            if (!consumer.test(value)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * 比较两个行位置的值
+     */
+    private interface PositionComparator {
+        int compare(int a, int b);
+    }
+
+    /**
+     * 对行位置做稳定的归并排序，避免装箱
+     */
+    private static void sort(int[] positions, PositionComparator comparator) {
+        int[] buffer = new int[positions.length];
+        int[] source = positions;
+        int[] target = buffer;
+        for (int width = 1; width < positions.length; width <<= 1) {
+            for (int low = 0; low < positions.length; low += width << 1) {
+                int mid = Math.min(low + width, positions.length);
+                int high = Math.min(low + (width << 1), positions.length);
+                int left = low;
+                int right = mid;
+                int out = low;
+                while (left < mid && right < high) {
+                    target[out++] = comparator.compare(source[right], source[left]) < 0 ? source[right++] : source[left++];
+                }
+                while (left < mid) {
+                    target[out++] = source[left++];
+                }
+                while (right < high) {
+                    target[out++] = source[right++];
+                }
+            }
+            int[] swap = source;
+            source = target;
+            target = swap;
+        }
+        if (source != positions) {
+            System.arraycopy(source, 0, positions, 0, positions.length);
+        }
+    }
+}
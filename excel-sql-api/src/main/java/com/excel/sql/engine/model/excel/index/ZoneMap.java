@@ -0,0 +1,314 @@
+package com.excel.sql.engine.model.excel.index;
+
+import com.excel.sql.engine.model.excel.columnar.ColumnVector;
+import com.excel.sql.engine.model.excel.columnar.ColumnarTable;
+import com.excel.sql.engine.model.excel.columnar.DateColumnVector;
+import com.excel.sql.engine.model.excel.columnar.StringColumnVector;
+
+/**
+ * 区块统计（Zone Map）
+ * 按行位置把数据划分为固定行数的区块，记录每个区块中每列的空值数量，
+ * 数值列、日期列和字符串列还记录非空值的最小值和最大值（比较方式与有序索引相同）。
+ * 过滤时根据统计跳过不可能有满足条件的行的区块，按追加顺序写入的时间、序号列上的范围查询只需读取少量区块。
+ */
+public class ZoneMap {
+
+    /**
+     * 默认每个区块的行数
+     */
+    public static final int DEFAULT_BLOCK_ROWS = 1024;
+
+    private final int blockRows;
+    private final int rowCount;
+    private final int blockCount;
+
+    /**
+     * 每列每个区块的空值数量，下标为 [列序号][区块]
+     */
+    private final int[][] nullCounts;
+
+    /**
+     * 数值列和日期列每个区块的最小值和最大值，日期列为毫秒时间戳，其他列为null
+     */
+    private final double[][] numberMins;
+    private final double[][] numberMaxes;
+
+    /**
+     * 是否为日期列
+     */
+    private final boolean[] dateColumns;
+
+    /**
+     * 字符串列每个区块的最小值和最大值，其他列为null；区块内全为空值时为null
+     */
+    private final String[][] textMins;
+    private final String[][] textMaxes;
+
+    private ZoneMap(int blockRows, int rowCount, int columnCount) {
+        this.blockRows = blockRows;
+        this.rowCount = rowCount;
+        this.blockCount = (rowCount + blockRows - 1) / blockRows;
+        this.nullCounts = new int[columnCount][];
+        this.numberMins = new double[columnCount][];
+        this.numberMaxes = new double[columnCount][];
+        this.dateColumns = new boolean[columnCount];
+        this.textMins = new String[columnCount][];
+        this.textMaxes = new String[columnCount][];
+    }
+
+    /**
+     * 由列式存储构建区块统计
+     *
+     * @param table 列式存储
+     * @param blockRows 每个区块的行数
+     * @return 区块统计
+     */
+    public static ZoneMap build(ColumnarTable table, int blockRows) {
+        int columnCount = table.getColumnNames().size();
+        ZoneMap zoneMap = new ZoneMap(Math.max(1, blockRows), table.size(), columnCount);
+        for (int ordinal = 0; ordinal < columnCount; ordinal++) {
+            zoneMap.buildColumn(ordinal, table.getVector(ordinal), null, null);
+        }
+        return zoneMap;
+    }
+
+    /**
+     * 由数据修改前的区块统计得到修改后的区块统计，只重新统计内容发生变化的区块
+     *
+     * @param delta 修改前后的行位置对应关系
+     * @return 修改后的区块统计，区块行数不变
+     */
+    public ZoneMap apply(RowDelta delta) {
+        ColumnarTable table = delta.getNewTable();
+        int columnCount = table.getColumnNames().size();
+        ZoneMap zoneMap = new ZoneMap(blockRows, table.size(), columnCount);
+        boolean[] dirty = delta.dirtyBlocks(blockRows);
+        for (int ordinal = 0; ordinal < columnCount; ordinal++) {
+            ColumnVector vector = table.getVector(ordinal);
+            // 列的类型变化时整列重新统计
+            boolean sameKind = ordinal < getColumnCount() && vector != null
+                    && vector.isNumeric() == isNumeric(ordinal) && (vector instanceof DateColumnVector) == isDate(ordinal)
+                    && (vector instanceof StringColumnVector) == isText(ordinal);
+            zoneMap.buildColumn(ordinal, vector, sameKind ? this : null, dirty);
+        }
+        return zoneMap;
+    }
+
+    /**
+     * 统计一列
+     *
+     * @param previous 修改前的区块统计，为null时统计所有区块
+     * @param dirty 需要重新统计的区块，previous不为null时使用
+     */
+    private void buildColumn(int ordinal, ColumnVector vector, ZoneMap previous, boolean[] dirty) {
+        int[] nulls = new int[blockCount];
+        nullCounts[ordinal] = nulls;
+        if (vector == null) {
+            // 整列为空
+            for (int block = 0; block < blockCount; block++) {
+                nulls[block] = blockSize(block);
+            }
+            return;
+        }
+
+        // 日期列按毫秒时间戳与数值列一样统计
+        boolean numeric = vector.isNumeric() || vector instanceof DateColumnVector;
+        boolean text = vector instanceof StringColumnVector;
+        dateColumns[ordinal] = vector instanceof DateColumnVector;
+        double[] mins = numeric ? new double[blockCount] : null;
+        double[] maxes = numeric ? new double[blockCount] : null;
+        String[] minTexts = text ? new String[blockCount] : null;
+        String[] maxTexts = text ? new String[blockCount] : null;
+
+        for (int block = 0; block < blockCount; block++) {
+            if (previous != null && !dirty[block]) {
+                nulls[block] = previous.nullCounts[ordinal][block];
+                if (numeric) {
+                    mins[block] = previous.numberMins[ordinal][block];
+                    maxes[block] = previous.numberMaxes[ordinal][block];
+                } else if (text) {
+                    minTexts[block] = previous.textMins[ordinal][block];
+                    maxTexts[block] = previous.textMaxes[ordinal][block];
+                }
+                continue;
+            }
+
+            int end = blockEnd(block);
+            double min = Double.NaN;
+            double max = Double.NaN;
+            String minText = null;
+            String maxText = null;
+            boolean seen = false;
+            for (int position = blockStart(block); position < end; position++) {
+                if (vector.isNull(position)) {
+                    nulls[block]++;
+                } else if (numeric) {
+                    double value = vector.getDouble(position);
+                    if (!seen || Double.compare(value, min) < 0) {
+                        min = value;
+                    }
+                    if (!seen || Double.compare(value, max) > 0) {
+                        max = value;
+                    }
+                    seen = true;
+                } else if (text) {
+                    String value = (String) vector.get(position);
+                    if (minText == null || value.compareTo(minText) < 0) {
+                        minText = value;
+                    }
+                    if (maxText == null || value.compareTo(maxText) > 0) {
+                        maxText = value;
+                    }
+                }
+            }
+            if (numeric) {
+                mins[block] = min;
+                maxes[block] = max;
+            } else if (text) {
+                minTexts[block] = minText;
+                maxTexts[block] = maxText;
+            }
+        }
+        numberMins[ordinal] = mins;
+        numberMaxes[ordinal] = maxes;
+        textMins[ordinal] = minTexts;
+        textMaxes[ordinal] = maxTexts;
+    }
+
+    /**
+     * 获取区块数量
+     *
+     * @return 区块数量
+     */
+    public int getBlockCount() {
+        return blockCount;
+    }
+
+    /**
+     * 获取每个区块的行数
+     *
+     * @return 每个区块的行数，最后一个区块可能更少
+     */
+    public int getBlockRows() {
+        return blockRows;
+    }
+
+    /**
+     * 获取统计时的总行数
+     *
+     * @return 总行数
+     */
+    public int getRowCount() {
+        return rowCount;
+    }
+
+    /**
+     * 获取区块的起始行位置（包含）
+     *
+     * @param block 区块
+     * @return 起始行位置
+     */
+    public int blockStart(int block) {
+        return block * blockRows;
+    }
+
+    /**
+     * 获取区块的结束行位置（不包含）
+     *
+     * @param block 区块
+     * @return 结束行位置
+     */
+    public int blockEnd(int block) {
+        return Math.min(rowCount, (block + 1) * blockRows);
+    }
+
+    /**
+     * 获取区块的行数
+     *
+     * @param block 区块
+     * @return 行数
+     */
+    public int blockSize(int block) {
+        return blockEnd(block) - blockStart(block);
+    }
+
+    /**
+     * 获取列数
+     *
+     * @return 列数，列序号的上界
+     */
+    public int getColumnCount() {
+        return nullCounts.length;
+    }
+
+    /**
+     * 获取区块中某列的空值数量
+     *
+     * @param ordinal 列序号
+     * @param block 区块
+     * @return 空值数量
+     */
+    public int nullCount(int ordinal, int block) {
+        return nullCounts[ordinal][block];
+    }
+
+    /**
+     * 是否为数值列
+     *
+     * @param ordinal 列序号
+     * @return 数值列返回true
+     */
+    public boolean isNumeric(int ordinal) {
+        return numberMins[ordinal] != null && !dateColumns[ordinal];
+    }
+
+    /**
+     * 是否为日期列
+     *
+     * @param ordinal 列序号
+     * @return 日期列返回true
+     */
+    public boolean isDate(int ordinal) {
+        return dateColumns[ordinal];
+    }
+
+    /**
+     * 是否为字符串列
+     *
+     * @param ordinal 列序号
+     * @return 字符串列返回true
+     */
+    public boolean isText(int ordinal) {
+        return textMins[ordinal] != null;
+    }
+
+    /**
+     * 区块最小值与边界比较，调用前需确认区块中有非空值
+     *
+     * @param ordinal 列序号
+     * @param block 区块
+     * @param bound 边界，数值列为Double，日期列为毫秒时间戳的Double，字符串列为String
+     * @return 比较结果
+     */
+    public int compareMin(int ordinal, int block, Object bound) {
+        if (numberMins[ordinal] != null) {
+            return Double.compare(numberMins[ordinal][block], (Double) bound);
+        }
+        return textMins[ordinal][block].compareTo((String) bound);
+    }
+
+    /**
+     * 区块最大值与边界比较，调用前需确认区块中有非空值
+     *
+     * @param ordinal 列序号
+     * @param block 区块
+     * @param bound 边界，数值列为Double，日期列为毫秒时间戳的Double，字符串列为String
+     * @return 比较结果
+     */
+    public int compareMax(int ordinal, int block, Object bound) {
+        if (numberMaxes[ordinal] != null) {
+            return Double.compare(numberMaxes[ordinal][block], (Double) bound);
+        }
+        return textMaxes[ordinal][block].compareTo((String) bound);
+    }
+}
@@ -0,0 +1,45 @@
+package com.excel.sql.engine.service.cache;
+
+import com.excel.sql.engine.model.excel.ExcelSheet;
+import com.excel.sql.engine.model.excel.SheetChanges;
+
+import java.util.Collection;
+
+/**
+ * 已加载工作表数据的缓存接口
+ * 进程级缓存工作表的列式数据及其上构建的索引，以文件路径和工作表名为键，
+ * 并通过文件大小和最后修改时间校验有效性
+ */
+public interface SheetDataCache {
+
+    /**
+     * 获取已加载数据的工作表，缓存中没有或已失效时从文件加载
+     * 返回的工作表在多个查询之间共享，调用方不能修改其中的行
+     *
+     * @param sheet 工作表元数据
+     * @param workbookPath 工作簿文件路径
+     * @return 已加载数据的工作表，加载失败时返回null
+     */
+    ExcelSheet getLoadedSheet(ExcelSheet sheet, String workbookPath);
+
+    /**
+     * 工作簿文件写入行变更后，在缓存的工作表数据上增量应用变更并更新文件状态，索引随之维护；
+     * 变更行数超过重建阈值、缓存的数据不是变更前的文件状态或变更无法增量应用时，改为使该文件的数据失效
+     *
+     * @param filePath 文件路径
+     * @param changes 各工作表的行变更，修改前的文件状态相同
+     */
+    void applyChanges(String filePath, Collection<SheetChanges> changes);
+
+    /**
+     * 使指定文件中所有工作表的数据失效
+     *
+     * @param filePath 文件路径
+     */
+    void invalidate(String filePath);
+
+    /**
+     * 使所有工作表数据失效
+     */
+    void invalidateAll();
+}
@@ -0,0 +1,41 @@
+package com.excel.sql.engine.service.cache;
+
+import com.excel.sql.engine.model.excel.ExcelWorkbook;
+
+import java.io.File;
+
+/**
+ * 工作簿元数据目录接口
+ * 进程级缓存工作簿/工作表/列定义，以文件路径为键，并通过文件大小和最后修改时间校验有效性
+ */
+public interface WorkbookCatalog {
+
+    /**
+     * 获取工作簿元数据
+     * 仅当文件大小和最后修改时间与缓存时一致时返回，返回的是元数据副本
+     *
+     * @param file 工作簿文件
+     * @return 工作簿元数据副本，如果不存在或已失效则返回null
+     */
+    ExcelWorkbook get(File file);
+
+    /**
+     * 缓存工作簿元数据
+     *
+     * @param file 工作簿文件
+     * @param workbook 工作簿元数据
+     */
+    void put(File file, ExcelWorkbook workbook);
+
+    /**
+     * 使指定文件的元数据失效
+     *
+     * @param filePath 文件路径
+     */
+    void invalidate(String filePath);
+
+    /**
+     * 使所有元数据失效
+     */
+    void invalidateAll();
+}
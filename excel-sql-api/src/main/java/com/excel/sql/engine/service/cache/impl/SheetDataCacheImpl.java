@@ -0,0 +1,194 @@
+package com.excel.sql.engine.service.cache.impl;
+
+import com.excel.sql.engine.config.ExcelConfig;
+import com.excel.sql.engine.model.excel.ExcelSheet;
+import com.excel.sql.engine.model.excel.SheetChanges;
+import com.excel.sql.engine.service.cache.SheetDataCache;
+import com.excel.sql.engine.service.index.IndexStore;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Service;
+
+import java.io.File;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * 已加载工作表数据的缓存实现类
+ * 基于Caffeine按数据行数限制缓存容量，同一工作表的并发加载只执行一次；
+ * 加载时放入该工作表上通过CREATE INDEX创建的索引和区块布隆过滤器；
+ * 修改数据后在缓存的数据上增量应用行变更，不重新加载文件和重建索引
+ */
+@Slf4j
+@Service
+public class SheetDataCacheImpl implements SheetDataCache {
+
+    /**
+     * 工作表数据缓存，key为"文件绝对路径#工作表名"
+     */
+    private final Cache<String, SheetEntry> entries;
+
+    private final IndexStore indexStore;
+
+    /**
+     * 增量应用的最大变更行数，超过时重新加载并重建索引
+     */
+    private final int rebuildThreshold;
+
+    public SheetDataCacheImpl(ExcelConfig excelConfig, IndexStore indexStore) {
+        this.indexStore = indexStore;
+        this.rebuildThreshold = excelConfig.getIndex().getRebuildThreshold();
+        this.entries = Caffeine.newBuilder()
+                .maximumWeight(excelConfig.getIndex().getMaxCachedRows())
+                .weigher((String key, SheetEntry entry) -> Math.max(1, entry.sheet.getRows().size()))
+                .recordStats()
+                .build();
+    }
+
+    /**
+     * 缓存条目，记录加载时的文件大小和最后修改时间
+     */
+    private static class SheetEntry {
+        private final long fileSize;
+        private final long lastModified;
+        private final ExcelSheet sheet;
+
+        SheetEntry(long fileSize, long lastModified, ExcelSheet sheet) {
+            this.fileSize = fileSize;
+            this.lastModified = lastModified;
+            this.sheet = sheet;
+        }
+
+        boolean matches(File file) {
+            return matches(file.length(), file.lastModified());
+        }
+
+        boolean matches(long size, long modified) {
+            return size == fileSize && modified == lastModified;
+        }
+    }
+
+    @Override
+    public ExcelSheet getLoadedSheet(ExcelSheet sheet, String workbookPath) {
+        if (sheet == null || workbookPath == null) {
+            return null;
+        }
+
+        File file = new File(workbookPath);
+        if (!file.exists()) {
+            return null;
+        }
+
+        String key = file.getAbsolutePath() + "#" + sheet.getName();
+        SheetEntry entry = entries.getIfPresent(key);
+        if (entry != null && !entry.matches(file)) {
+            log.debug("工作表数据已失效: {}", key);
+            entries.invalidate(key);
+        }
+
+        entry = entries.get(key, k -> load(sheet, file));
+        return entry != null ? entry.sheet : null;
+    }
+
+    /**
+     * 加载工作表数据，先记录文件状态，加载期间文件被修改时下次访问会重新加载
+     */
+    private SheetEntry load(ExcelSheet sheet, File file) {
+        long fileSize = file.length();
+        long lastModified = file.lastModified();
+        long startTime = System.currentTimeMillis();
+
+        ExcelSheet loaded = sheet.copyMetadata();
+        if (!loaded.loadRows(file.getAbsolutePath())) {
+            log.warn("加载工作表数据失败: {}#{}", file.getAbsolutePath(), sheet.getName());
+            return null;
+        }
+        loaded.initializeIndexes();
+        indexStore.attachIndexes(loaded, file.getAbsolutePath(), fileSize, lastModified);
+        indexStore.attachBloomFilters(loaded, file.getAbsolutePath(), fileSize, lastModified);
+        log.debug("加载工作表数据: {}#{}，{} 行，耗时 {} 毫秒", file.getAbsolutePath(), sheet.getName(),
+                loaded.getRows().size(), System.currentTimeMillis() - startTime);
+        return new SheetEntry(fileSize, lastModified, loaded);
+    }
+
+    @Override
+    public synchronized void applyChanges(String filePath, Collection<SheetChanges> changes) {
+        if (filePath == null || changes == null || changes.isEmpty()) {
+            return;
+        }
+        File file = new File(filePath).getAbsoluteFile();
+        String prefix = file.getPath() + "#";
+        SheetChanges first = changes.iterator().next();
+        long baseSize = first.getFileSize();
+        long baseModified = first.getLastModified();
+        int rows = 0;
+        for (SheetChanges sheetChanges : changes) {
+            rows += sheetChanges.size();
+        }
+        if (rows > rebuildThreshold) {
+            invalidate(filePath);
+            return;
+        }
+
+        long startTime = System.currentTimeMillis();
+        Map<String, ExcelSheet> updated = new HashMap<>();
+        for (SheetChanges sheetChanges : changes) {
+            String key = prefix + sheetChanges.getSheetName();
+            SheetEntry entry = entries.getIfPresent(key);
+            // 未加载的工作表没有需要更新的数据
+            if (entry == null || sheetChanges.isEmpty()) {
+                continue;
+            }
+            ExcelSheet sheet = entry.matches(baseSize, baseModified) ? entry.sheet.applyChanges(sheetChanges) : null;
+            if (sheet == null) {
+                invalidate(filePath);
+                return;
+            }
+            updated.put(key, sheet);
+        }
+
+        // 同一文件中其他工作表的数据没有变化，只更新文件状态
+        long fileSize = file.length();
+        long lastModified = file.lastModified();
+        List<String> keys = new ArrayList<>();
+        for (String cachedKey : entries.asMap().keySet()) {
+            if (cachedKey.startsWith(prefix)) {
+                keys.add(cachedKey);
+            }
+        }
+        for (String cachedKey : keys) {
+            SheetEntry cached = entries.getIfPresent(cachedKey);
+            if (cached == null) {
+                continue;
+            }
+            if (!cached.matches(baseSize, baseModified)) {
+                entries.invalidate(cachedKey);
+            } else {
+                entries.put(cachedKey, new SheetEntry(fileSize, lastModified,
+                        updated.getOrDefault(cachedKey, cached.sheet)));
+            }
+        }
+        log.debug("增量应用 {} 行变更: {}，耗时 {} 毫秒", rows, file.getPath(), System.currentTimeMillis() - startTime);
+    }
+
+    @Override
+    public void invalidate(String filePath) {
+        if (filePath == null) {
+            return;
+        }
+
+        String prefix = new File(filePath).getAbsolutePath() + "#";
+        entries.asMap().keySet().removeIf(key -> key.startsWith(prefix));
+        log.debug("清除工作表数据: {}", filePath);
+    }
+
+    @Override
+    public void invalidateAll() {
+        entries.invalidateAll();
+        log.debug("清除所有工作表数据");
+    }
+}
@@ -0,0 +1,101 @@
+package com.excel.sql.engine.service.cache.impl;
+
+import com.excel.sql.engine.config.ExcelConfig;
+import com.excel.sql.engine.model.excel.ExcelWorkbook;
+import com.excel.sql.engine.service.cache.WorkbookCatalog;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Service;
+
+import java.io.File;
+
+/**
+ * 工作簿元数据目录实现类
+ * 基于Caffeine的进程级缓存，命中时无需再通过POI解析工作簿
+ */
+@Slf4j
+@Service
+public class WorkbookCatalogImpl implements WorkbookCatalog {
+
+    /**
+     * 元数据缓存，key为文件绝对路径
+     */
+    private final Cache<String, CatalogEntry> entries;
+
+    public WorkbookCatalogImpl(ExcelConfig excelConfig) {
+        this.entries = Caffeine.newBuilder()
+                .maximumSize(excelConfig.getCache().getCatalogSize())
+                .recordStats()
+                .build();
+    }
+
+    /**
+     * 目录条目，记录缓存时的文件大小和最后修改时间
+     */
+    private static class CatalogEntry {
+        private final long fileSize;
+        private final long lastModified;
+        private final ExcelWorkbook workbook;
+
+        CatalogEntry(long fileSize, long lastModified, ExcelWorkbook workbook) {
+            this.fileSize = fileSize;
+            this.lastModified = lastModified;
+            this.workbook = workbook;
+        }
+
+        boolean matches(File file) {
+            return file.length() == fileSize && file.lastModified() == lastModified;
+        }
+    }
+
+    @Override
+    public ExcelWorkbook get(File file) {
+        if (file == null) {
+            return null;
+        }
+
+        String key = file.getAbsolutePath();
+        CatalogEntry entry = entries.getIfPresent(key);
+        if (entry == null) {
+            return null;
+        }
+
+        if (!file.exists() || !entry.matches(file)) {
+            log.debug("工作簿元数据已失效: {}", key);
+            entries.invalidate(key);
+            return null;
+        }
+
+        log.debug("工作簿元数据目录命中: {}", key);
+        ExcelWorkbook copy = entry.workbook.copyMetadata();
+        copy.setFile(file);
+        return copy;
+    }
+
+    @Override
+    public void put(File file, ExcelWorkbook workbook) {
+        if (file == null || workbook == null || !file.exists()) {
+            return;
+        }
+
+        entries.put(file.getAbsolutePath(),
+                new CatalogEntry(file.length(), file.lastModified(), workbook.copyMetadata()));
+    }
+
+    @Override
+    public void invalidate(String filePath) {
+        if (filePath == null) {
+            return;
+        }
+
+        entries.invalidate(new File(filePath).getAbsolutePath());
+        log.debug("清除工作簿元数据: {}", filePath);
+    }
+
+    @Override
+    public void invalidateAll() {
+        entries.invalidateAll();
+        log.debug("清除所有工作簿元数据");
+    }
+}
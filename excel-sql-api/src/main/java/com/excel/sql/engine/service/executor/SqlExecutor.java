@@ -1,7 +1,9 @@
 package com.excel.sql.engine.service.executor;
 
+import com.excel.sql.engine.model.dto.AsyncQueryStatus;
 import com.excel.sql.engine.model.dto.SqlQueryRequest;
 import com.excel.sql.engine.model.dto.SqlQueryResult;
+import com.excel.sql.engine.service.executor.stream.StreamingQuery;
 import com.excel.sql.engine.service.parser.ParsedSql;
 
 /**
@@ -27,4 +29,38 @@ public interface SqlExecutor {
      * @return SQL查询结果
      */
     SqlQueryResult execute(ParsedSql parsedSql, String workbook, boolean useCache, int maxRows);
+    
+    /**
+     * 准备流式SELECT查询：在调用线程中解析SQL并确定工作簿（当前工作簿保存在会话中）
+     *
+     * @param request SQL查询请求
+     * @return 可以在其他线程中执行的查询；准备失败时执行直接返回错误结果
+     */
+    StreamingQuery prepareStream(SqlQueryRequest request);
+    
+    /**
+     * 提交异步查询，立即返回查询ID
+     *
+     * @param request SQL查询请求
+     * @return 查询状态，包含查询ID；无法提交时状态为FAILED
+     */
+    AsyncQueryStatus submit(SqlQueryRequest request);
+    
+    /**
+     * 获取异步查询的状态，查询完成时返回结果的一页
+     *
+     * @param queryId 查询ID
+     * @param offset 结果页的起始行
+     * @param limit 结果页的最大行数
+     * @return 查询状态，查询不存在或已过期时返回null
+     */
+    AsyncQueryStatus getAsyncQuery(String queryId, int offset, int limit);
+    
+    /**
+     * 取消异步查询
+     *
+     * @param queryId 查询ID
+     * @return 取消后的查询状态，查询不存在或已过期时返回null
+     */
+    AsyncQueryStatus cancel(String queryId);
 } 
\ No newline at end of file
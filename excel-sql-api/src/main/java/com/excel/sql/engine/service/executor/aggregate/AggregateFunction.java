@@ -0,0 +1,30 @@
+package com.excel.sql.engine.service.executor.aggregate;
+
+/**
+ * 支持的聚合函数
+ */
+public enum AggregateFunction {
+
+    COUNT,
+    SUM,
+    AVG,
+    MIN,
+    MAX;
+
+    /**
+     * 根据函数名获取聚合函数
+     *
+     * @param functionName 函数名，不区分大小写
+     * @return 聚合函数，不支持时返回null
+     */
+    public static AggregateFunction of(String functionName) {
+        if (functionName == null) {
+            return null;
+        }
+        try {
+            return valueOf(functionName.toUpperCase());
+        } catch (IllegalArgumentException e) {
+            return null;
+        }
+    }
+}
@@ -0,0 +1,39 @@
+package com.excel.sql.engine.service.executor.aggregate;
+
+import java.util.Arrays;
+
+/**
+ * 多列分组键，按各列的值（而不是拼接后的字符串）比较
+ * 单列分组直接使用列值作为键，不创建本对象
+ */
+public final class GroupKey {
+
+    private final Object[] values;
+    private final int hash;
+
+    public GroupKey(Object[] values) {
+        this.values = values;
+        this.hash = Arrays.hashCode(values);
+    }
+
+    public Object[] getValues() {
+        return values;
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) {
+            return true;
+        }
+        if (!(o instanceof GroupKey)) {
+            return false;
+        }
+        GroupKey other = (GroupKey) o;
+        return hash == other.hash && Arrays.equals(values, other.values);
+    }
+
+    @Override
+    public int hashCode() {
+        return hash;
+    }
+}
@@ -0,0 +1,354 @@
+package com.excel.sql.engine.service.executor.aggregate;
+
+import com.excel.sql.engine.model.excel.ExcelRow;
+import com.excel.sql.engine.model.excel.ExcelSheet;
+import com.excel.sql.engine.model.excel.columnar.ColumnVector;
+import com.excel.sql.engine.service.executor.expression.ColumnOperand;
+import com.excel.sql.engine.service.executor.expression.PredicateCompiler;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * 哈希聚合算子
+ * 输入行逐行累加到所属分组的原始类型累加器中，不保留输入行，
+ * 内存占用只与分组数量有关。分组按首次出现的顺序输出。
+ */
+public class HashAggregator {
+
+    /**
+     * double能精确表示的最大整数
+     */
+    private static final double MAX_EXACT_LONG = 9007199254740992d;
+
+    private final List<String> groupByColumns;
+    private final ColumnOperand[] groupOperands;
+    private final String[] outputNames;
+    private final AggregateFunction[] functions;
+
+    /**
+     * 聚合参数列，COUNT(*)为null
+     */
+    private final ColumnOperand[] arguments;
+
+    private final Map<Object, GroupState> groups = new LinkedHashMap<>();
+
+    /**
+     * @param groupByColumns 分组列，可以为空
+     * @param aggregateFunctions 聚合函数映射（输出列名，如SUM(amount) -> 函数名）
+     * @param columnNames 工作表列名，下标即列序号
+     */
+    public HashAggregator(List<String> groupByColumns, Map<String, String> aggregateFunctions, List<String> columnNames) {
+        this.groupByColumns = groupByColumns != null ? groupByColumns : new ArrayList<>();
+        this.groupOperands = new ColumnOperand[this.groupByColumns.size()];
+        for (int i = 0; i < groupOperands.length; i++) {
+            groupOperands[i] = resolveColumn(this.groupByColumns.get(i), columnNames);
+        }
+
+        List<String> names = new ArrayList<>();
+        List<AggregateFunction> functionList = new ArrayList<>();
+        List<ColumnOperand> argumentList = new ArrayList<>();
+        if (aggregateFunctions != null) {
+            for (Map.Entry<String, String> entry : aggregateFunctions.entrySet()) {
+                AggregateFunction function = AggregateFunction.of(entry.getValue());
+                if (function == null) {
+                    continue;
+                }
+                String argument = extractArgument(entry.getKey());
+                names.add(entry.getKey());
+                functionList.add(function);
+                argumentList.add("*".equals(argument) ? null : resolveColumn(argument, columnNames));
+            }
+        }
+        this.outputNames = names.toArray(new String[0]);
+        this.functions = functionList.toArray(new AggregateFunction[0]);
+        this.arguments = argumentList.toArray(new ColumnOperand[0]);
+    }
+
+    /**
+     * 累加一行
+     *
+     * @param row 行
+     */
+    public void accept(ExcelRow row) {
+        Object key = groupKey(row);
+        GroupState state = groups.get(key);
+        if (state == null) {
+            Object[] keyValues;
+            if (key instanceof GroupKey) {
+                keyValues = ((GroupKey) key).getValues();
+            } else {
+                keyValues = groupOperands.length == 0 ? new Object[0] : new Object[] {key};
+            }
+            state = new GroupState(keyValues, functions.length);
+            groups.put(key, state);
+        }
+
+        for (int i = 0; i < functions.length; i++) {
+            ColumnOperand argument = arguments[i];
+            if (argument == null) {
+                state.count[i]++;
+                continue;
+            }
+
+            ColumnVector vector = argument.vector(row);
+            if (vector != null && vector.isNumeric()) {
+                int position = row.getPosition();
+                if (!vector.isNull(position)) {
+                    state.addNumber(i, functions[i], vector.getDouble(position));
+                }
+                continue;
+            }
+
+            Object value = argument.evaluate(row);
+            if (value instanceof Number) {
+                state.addNumber(i, functions[i], ((Number) value).doubleValue());
+            } else if (value != null) {
+                state.addObject(i, functions[i], value);
+            }
+        }
+    }
+
+    /**
+     * 合并另一个聚合器的部分结果，两者必须使用相同的分组列和聚合函数
+     * 按分区顺序合并时，分组的输出顺序与顺序执行时相同
+     *
+     * @param other 另一个聚合器
+     */
+    public void merge(HashAggregator other) {
+        for (Map.Entry<Object, GroupState> entry : other.groups.entrySet()) {
+            GroupState state = groups.get(entry.getKey());
+            if (state == null) {
+                groups.put(entry.getKey(), entry.getValue());
+            } else {
+                state.merge(entry.getValue(), functions);
+            }
+        }
+    }
+
+    /**
+     * 输出聚合结果，每个分组一行，包含分组列和聚合列
+     * 没有GROUP BY时即使没有输入行也输出一行
+     *
+     * @param sheet 工作表
+     * @return 结果行
+     */
+    public List<ExcelRow> getResult(ExcelSheet sheet) {
+        if (groups.isEmpty() && groupOperands.length == 0) {
+            groups.put(null, new GroupState(new Object[0], functions.length));
+        }
+
+        List<ExcelRow> result = new ArrayList<>(groups.size());
+        int rowNum = 0;
+        for (GroupState state : groups.values()) {
+            ExcelRow row = new ExcelRow(rowNum++, sheet);
+            for (int i = 0; i < groupOperands.length; i++) {
+                // 分组列同时以书写的名称和解析后的列名输出，SELECT、ORDER BY中的两种写法都能读取
+                row.setCellValue(groupByColumns.get(i), state.keyValues[i]);
+                if (!groupByColumns.get(i).equals(groupOperands[i].getName())) {
+                    row.setCellValue(groupOperands[i].getName(), state.keyValues[i]);
+                }
+            }
+            for (int i = 0; i < functions.length; i++) {
+                row.setCellValue(outputNames[i], state.result(i, functions[i]));
+            }
+            result.add(row);
+        }
+        return result;
+    }
+
+    /**
+     * 获取分组数量
+     *
+     * @return 分组数量
+     */
+    public int getGroupCount() {
+        return groups.size();
+    }
+
+    private Object groupKey(ExcelRow row) {
+        if (groupOperands.length == 0) {
+            return null;
+        }
+        if (groupOperands.length == 1) {
+            return groupOperands[0].evaluate(row);
+        }
+        Object[] values = new Object[groupOperands.length];
+        for (int i = 0; i < groupOperands.length; i++) {
+            values[i] = groupOperands[i].evaluate(row);
+        }
+        return new GroupKey(values);
+    }
+
+    private static ColumnOperand resolveColumn(String name, List<String> columnNames) {
+        int ordinal = PredicateCompiler.resolveOrdinal(name, columnNames);
+        return ordinal >= 0 ? new ColumnOperand(columnNames.get(ordinal), ordinal) : new ColumnOperand(name, -1);
+    }
+
+    /**
+     * 从 SUM(amount) 形式的列名中提取参数
+     */
+    private static String extractArgument(String aggregateKey) {
+        int start = aggregateKey.indexOf('(');
+        int end = aggregateKey.lastIndexOf(')');
+        if (start >= 0 && start + 1 < end) {
+            return aggregateKey.substring(start + 1, end).trim();
+        }
+        return "*";
+    }
+
+    /**
+     * 单个分组的累加器状态，每个聚合函数占数组中的一个位置
+     */
+    private static final class GroupState {
+
+        private final Object[] keyValues;
+
+        /**
+         * COUNT的计数；SUM、AVG、MIN、MAX累加的数值个数
+         */
+        private final long[] count;
+
+        /**
+         * SUM、AVG的和；MIN、MAX的当前值
+         */
+        private final double[] value;
+
+        /**
+         * MIN、MAX遇到的非数值（字符串、日期等）的当前值
+         */
+        private Object[] objects;
+
+        GroupState(Object[] keyValues, int size) {
+            this.keyValues = keyValues;
+            this.count = new long[size];
+            this.value = new double[size];
+        }
+
+        void addNumber(int i, AggregateFunction function, double number) {
+            switch (function) {
+                case SUM:
+                case AVG:
+                    value[i] += number;
+                    break;
+                case MIN:
+                    if (count[i] == 0 || number < value[i]) {
+                        value[i] = number;
+                    }
+                    break;
+                case MAX:
+                    if (count[i] == 0 || number > value[i]) {
+                        value[i] = number;
+                    }
+                    break;
+                default:
+                    break;
+            }
+            count[i]++;
+        }
+
+        void addObject(int i, AggregateFunction function, Object object) {
+            if (function == AggregateFunction.COUNT) {
+                count[i]++;
+                return;
+            }
+            if (function != AggregateFunction.MIN && function != AggregateFunction.MAX) {
+                // SUM、AVG忽略非数值
+                return;
+            }
+            mergeObject(i, function, object);
+        }
+
+        void merge(GroupState other, AggregateFunction[] functions) {
+            for (int i = 0; i < functions.length; i++) {
+                if (other.count[i] == 0) {
+                    continue;
+                }
+                switch (functions[i]) {
+                    case SUM:
+                    case AVG:
+                        value[i] += other.value[i];
+                        break;
+                    case MIN:
+                        if (count[i] == 0 || other.value[i] < value[i]) {
+                            value[i] = other.value[i];
+                        }
+                        break;
+                    case MAX:
+                        if (count[i] == 0 || other.value[i] > value[i]) {
+                            value[i] = other.value[i];
+                        }
+                        break;
+                    default:
+                        break;
+                }
+                count[i] += other.count[i];
+            }
+            if (other.objects != null) {
+                for (int i = 0; i < functions.length; i++) {
+                    if (other.objects[i] != null) {
+                        mergeObject(i, functions[i], other.objects[i]);
+                    }
+                }
+            }
+        }
+
+        private void mergeObject(int i, AggregateFunction function, Object object) {
+            if (objects == null) {
+                objects = new Object[count.length];
+            }
+            Object current = objects[i];
+            if (current == null) {
+                objects[i] = object;
+                return;
+            }
+            int cmp = compare(object, current);
+            if (function == AggregateFunction.MIN ? cmp < 0 : cmp > 0) {
+                objects[i] = object;
+            }
+        }
+
+        Object result(int i, AggregateFunction function) {
+            switch (function) {
+                case COUNT:
+                    return count[i];
+                case SUM:
+                    return value[i];
+                case AVG:
+                    return count[i] == 0 ? 0.0 : value[i] / count[i];
+                case MIN:
+                case MAX:
+                    Object number = count[i] == 0 ? null : toCellNumber(value[i]);
+                    Object object = objects != null ? objects[i] : null;
+                    if (number == null || object == null) {
+                        return number != null ? number : object;
+                    }
+                    // 数值与非数值混合时按字符串比较
+                    int cmp = number.toString().compareTo(object.toString());
+                    return (function == AggregateFunction.MIN ? cmp <= 0 : cmp >= 0) ? number : object;
+                default:
+                    return null;
+            }
+        }
+
+        @SuppressWarnings({"unchecked", "rawtypes"})
+        private static int compare(Object a, Object b) {
+            if (a instanceof Comparable && a.getClass() == b.getClass()) {
+                return ((Comparable) a).compareTo(b);
+            }
+            return a.toString().compareTo(b.toString());
+        }
+
+        /**
+         * 与单元格读取保持一致，整数值以Long返回
+         */
+        private static Object toCellNumber(double number) {
+            if (number == Math.floor(number) && Math.abs(number) <= MAX_EXACT_LONG) {
+                return (long) number;
+            }
+            return number;
+        }
+    }
+}
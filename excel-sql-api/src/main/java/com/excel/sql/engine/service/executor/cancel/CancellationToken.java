@@ -0,0 +1,172 @@
+package com.excel.sql.engine.service.executor.cancel;
+
+import com.excel.sql.engine.exception.QueryCancelledException;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Supplier;
+
+/**
+ * 查询取消令牌
+ * 每条语句执行时绑定一个令牌，扫描、排序、聚合等循环定期调用 {@link #checkpoint()}，
+ * 令牌被取消或超过截止时间后抛出 {@link QueryCancelledException}，使查询尽快停止并释放内存。
+ * 令牌通过线程变量传递，提交到其他线程的子任务需要用 {@link #callWith(Supplier)} 重新绑定。
+ * 令牌同时记录已扫描的行数，用于报告异步查询的进度。
+ */
+public final class CancellationToken {
+
+    /**
+     * 没有绑定令牌时使用，永远不会被取消
+     */
+    private static final CancellationToken NONE = new CancellationToken(0);
+
+    private static final ThreadLocal<CancellationToken> CURRENT = new ThreadLocal<>();
+
+    private final int timeoutSeconds;
+
+    /**
+     * 截止时间（System.nanoTime），0表示不限时
+     */
+    private final long deadline;
+
+    private volatile boolean cancelled;
+    private volatile boolean timedOut;
+
+    private final LongAdder rowsScanned = new LongAdder();
+    private final LongAdder totalRows = new LongAdder();
+    private volatile boolean totalRowsUnknown;
+
+    private CancellationToken(int timeoutSeconds) {
+        this.timeoutSeconds = timeoutSeconds;
+        this.deadline = timeoutSeconds > 0 ? System.nanoTime() + TimeUnit.SECONDS.toNanos(timeoutSeconds) : 0;
+    }
+
+    /**
+     * 创建令牌
+     *
+     * @param timeoutSeconds 超时秒数，小于等于0表示不限时
+     * @return 令牌
+     */
+    public static CancellationToken withTimeout(int timeoutSeconds) {
+        return new CancellationToken(timeoutSeconds);
+    }
+
+    /**
+     * 获取当前线程绑定的令牌
+     *
+     * @return 当前令牌，没有绑定时返回永远不会取消的令牌
+     */
+    public static CancellationToken current() {
+        CancellationToken token = CURRENT.get();
+        return token != null ? token : NONE;
+    }
+
+    /**
+     * 在当前线程绑定本令牌后执行任务，结束后恢复原来的令牌
+     *
+     * @param task 任务
+     * @return 任务结果
+     */
+    public <T> T callWith(Supplier<T> task) {
+        CancellationToken previous = CURRENT.get();
+        CURRENT.set(this);
+        try {
+            return task.get();
+        } finally {
+            if (previous != null) {
+                CURRENT.set(previous);
+            } else {
+                CURRENT.remove();
+            }
+        }
+    }
+
+    /**
+     * 取消查询
+     */
+    public void cancel() {
+        cancelled = true;
+    }
+
+    /**
+     * 因超时取消查询
+     */
+    public void timeout() {
+        timedOut = true;
+        cancelled = true;
+    }
+
+    /**
+     * 是否因超时被取消
+     *
+     * @return 是否超时
+     */
+    public boolean isTimedOut() {
+        return timedOut;
+    }
+
+    /**
+     * 累加已扫描的行数，分区任务可以并发调用
+     *
+     * @param rows 行数
+     */
+    public void addScannedRows(long rows) {
+        rowsScanned.add(rows);
+    }
+
+    /**
+     * 获取已扫描的行数
+     *
+     * @return 已扫描的行数
+     */
+    public long getRowsScanned() {
+        return rowsScanned.sum();
+    }
+
+    /**
+     * 累加需要扫描的行数，JOIN、UNION涉及的每个工作表各累加一次
+     *
+     * @param rows 行数，未知时传null
+     */
+    public void addTotalRows(Long rows) {
+        if (rows == null) {
+            totalRowsUnknown = true;
+        } else {
+            totalRows.add(rows);
+        }
+    }
+
+    /**
+     * 获取需要扫描的总行数
+     *
+     * @return 总行数，有工作表行数未知或尚未记录时返回null
+     */
+    public Long getTotalRows() {
+        long total = totalRows.sum();
+        return totalRowsUnknown || total == 0 ? null : total;
+    }
+
+    /**
+     * 是否已取消（包括超时）
+     *
+     * @return 是否已取消
+     */
+    public boolean isCancelled() {
+        return cancelled || (deadline != 0 && System.nanoTime() - deadline > 0);
+    }
+
+    /**
+     * 检查点：已取消或已超时时抛出异常
+     *
+     * @throws QueryCancelledException 查询已取消或超时
+     */
+    public void checkpoint() {
+        if (cancelled) {
+            throw timedOut ? QueryCancelledException.timeout(timeoutSeconds) : QueryCancelledException.cancelled();
+        }
+        if (deadline != 0 && System.nanoTime() - deadline > 0) {
+            timeout();
+            throw QueryCancelledException.timeout(timeoutSeconds);
+        }
+    }
+}
@@ -0,0 +1,35 @@
+package com.excel.sql.engine.service.executor.expression;
+
+import com.excel.sql.engine.model.excel.ExcelRow;
+
+/**
+ * AND条件，左侧不成立时不再计算右侧
+ */
+public class AndPredicate implements RowPredicate {
+
+    private final RowPredicate left;
+    private final RowPredicate right;
+
+    public AndPredicate(RowPredicate left, RowPredicate right) {
+        this.left = left;
+        this.right = right;
+    }
+
+    @Override
+    public boolean test(ExcelRow row) {
+        return left.test(row) && right.test(row);
+    }
+
+    public RowPredicate getLeft() {
+        return left;
+    }
+
+    public RowPredicate getRight() {
+        return right;
+    }
+
+    @Override
+    public String toString() {
+        return "(" + left + " AND " + right + ")";
+    }
+}
@@ -0,0 +1,47 @@
+package com.excel.sql.engine.service.executor.expression;
+
+import com.excel.sql.engine.model.excel.ExcelRow;
+
+/**
+ * 四则运算操作数，例如 WHERE qty * price > 100
+ * 任一侧不是数值时结果为空值
+ */
+public class ArithmeticOperand implements Operand {
+
+    private final Operand left;
+    private final char operator;
+    private final Operand right;
+
+    /**
+     * @param left 左操作数
+     * @param operator 运算符：+ - * /
+     * @param right 右操作数
+     */
+    public ArithmeticOperand(Operand left, char operator, Operand right) {
+        this.left = left;
+        this.operator = operator;
+        this.right = right;
+    }
+
+    @Override
+    public Object evaluate(ExcelRow row) {
+        Object a = left.evaluate(row);
+        Object b = right.evaluate(row);
+        if (!(a instanceof Number) || !(b instanceof Number)) {
+            return null;
+        }
+        double x = ((Number) a).doubleValue();
+        double y = ((Number) b).doubleValue();
+        switch (operator) {
+            case '+': return x + y;
+            case '-': return x - y;
+            case '*': return x * y;
+            default: return y == 0 ? null : x / y;
+        }
+    }
+
+    @Override
+    public String toString() {
+        return "(" + left + " " + operator + " " + right + ")";
+    }
+}
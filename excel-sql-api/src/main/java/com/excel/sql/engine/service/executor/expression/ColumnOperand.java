@@ -0,0 +1,55 @@
+package com.excel.sql.engine.service.executor.expression;
+
+import com.excel.sql.engine.model.excel.ExcelRow;
+import com.excel.sql.engine.model.excel.columnar.ColumnVector;
+import com.excel.sql.engine.model.excel.columnar.ColumnarTable;
+
+/**
+ * 列引用，编译时解析为工作表中的列序号
+ */
+public class ColumnOperand implements Operand {
+
+    private final String name;
+    private final int ordinal;
+
+    /**
+     * @param name 列名
+     * @param ordinal 列序号，列不存在时为-1
+     */
+    public ColumnOperand(String name, int ordinal) {
+        this.name = name;
+        this.ordinal = ordinal;
+    }
+
+    @Override
+    public Object evaluate(ExcelRow row) {
+        return row.getCellValue(ordinal, name);
+    }
+
+    /**
+     * 获取行视图对应的列向量，用于直接读取原始类型的值
+     *
+     * @param row 行
+     * @return 列向量，行不是列式存储的视图或整列为空时返回null
+     */
+    public ColumnVector vector(ExcelRow row) {
+        ColumnarTable table = row.getTable();
+        if (table == null || ordinal < 0 || ordinal >= table.getColumnNames().size()) {
+            return null;
+        }
+        return table.getVector(ordinal);
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    public int getOrdinal() {
+        return ordinal;
+    }
+
+    @Override
+    public String toString() {
+        return name;
+    }
+}
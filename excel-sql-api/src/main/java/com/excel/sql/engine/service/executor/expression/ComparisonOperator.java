@@ -0,0 +1,66 @@
+package com.excel.sql.engine.service.executor.expression;
+
+/**
+ * 比较运算符
+ */
+public enum ComparisonOperator {
+
+    EQ("="),
+    NE("<>"),
+    GT(">"),
+    GE(">="),
+    LT("<"),
+    LE("<=");
+
+    private final String symbol;
+
+    ComparisonOperator(String symbol) {
+        this.symbol = symbol;
+    }
+
+    /**
+     * 根据比较结果判断是否满足运算符
+     *
+     * @param cmp 比较结果，与Comparator约定一致
+     * @return 是否满足
+     */
+    public boolean test(int cmp) {
+        switch (this) {
+            case EQ: return cmp == 0;
+            case NE: return cmp != 0;
+            case GT: return cmp > 0;
+            case GE: return cmp >= 0;
+            case LT: return cmp < 0;
+            case LE: return cmp <= 0;
+            default: return false;
+        }
+    }
+
+    /**
+     * 交换左右操作数后的运算符，例如 5 < a 等价于 a > 5
+     *
+     * @return 交换后的运算符
+     */
+    public ComparisonOperator flip() {
+        switch (this) {
+            case GT: return LT;
+            case GE: return LE;
+            case LT: return GT;
+            case LE: return GE;
+            default: return this;
+        }
+    }
+
+    /**
+     * 是否为大小比较（非等值比较）
+     *
+     * @return 是否为大小比较
+     */
+    public boolean isOrdering() {
+        return this != EQ && this != NE;
+    }
+
+    public String getSymbol() {
+        return symbol;
+    }
+}
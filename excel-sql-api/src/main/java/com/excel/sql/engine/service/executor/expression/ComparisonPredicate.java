@@ -0,0 +1,95 @@
+package com.excel.sql.engine.service.executor.expression;
+
+import com.excel.sql.engine.model.excel.ExcelRow;
+import com.excel.sql.engine.model.excel.columnar.ColumnVector;
+import com.excel.sql.engine.model.excel.columnar.DateColumnVector;
+
+/**
+ * 比较条件，编译时字面量总是放在右侧
+ * 任一侧为空值时条件不成立
+ */
+public class ComparisonPredicate implements RowPredicate {
+
+    private final Operand left;
+    private final ComparisonOperator operator;
+    private final Operand right;
+
+    /**
+     * 右侧为数值字面量、左侧为列时，可直接读取数值列向量；右侧为日期字面量时可直接读取日期列向量
+     */
+    private final ColumnOperand column;
+    private final LiteralOperand literal;
+    private final double number;
+    private final Long dateMillis;
+
+    public ComparisonPredicate(Operand left, ComparisonOperator operator, Operand right) {
+        this.left = left;
+        this.operator = operator;
+        this.right = right;
+        this.column = left instanceof ColumnOperand ? (ColumnOperand) left : null;
+        this.literal = right instanceof LiteralOperand ? (LiteralOperand) right : null;
+        this.number = literal != null && literal.getNumber() != null ? literal.getNumber() : Double.NaN;
+        this.dateMillis = literal != null ? literal.getDateMillis() : null;
+    }
+
+    @Override
+    public boolean test(ExcelRow row) {
+        if (column != null && !Double.isNaN(number)) {
+            ColumnVector vector = column.vector(row);
+            if (vector != null && vector.isNumeric()) {
+                int position = row.getPosition();
+                return !vector.isNull(position) && operator.test(Double.compare(vector.getDouble(position), number));
+            }
+        }
+        if (column != null && dateMillis != null) {
+            ColumnVector vector = column.vector(row);
+            if (vector instanceof DateColumnVector) {
+                int position = row.getPosition();
+                return !vector.isNull(position)
+                        && operator.test(Long.compare(((DateColumnVector) vector).getMillis(position), dateMillis));
+            }
+        }
+
+        Object leftValue = left.evaluate(row);
+        if (leftValue == null) {
+            return false;
+        }
+        if (literal != null) {
+            return operator.test(literal.compareFrom(leftValue, operator.isOrdering()));
+        }
+
+        Object rightValue = right.evaluate(row);
+        return rightValue != null && operator.test(compareValues(leftValue, rightValue));
+    }
+
+    public Operand getLeft() {
+        return left;
+    }
+
+    public ComparisonOperator getOperator() {
+        return operator;
+    }
+
+    public Operand getRight() {
+        return right;
+    }
+
+    /**
+     * 比较两个单元格值，数值按数值比较，其余按字符串比较
+     */
+    @SuppressWarnings({"unchecked", "rawtypes"})
+    static int compareValues(Object a, Object b) {
+        if (a instanceof Number && b instanceof Number) {
+            return Double.compare(((Number) a).doubleValue(), ((Number) b).doubleValue());
+        }
+        if (a instanceof Comparable && a.getClass() == b.getClass()) {
+            return ((Comparable) a).compareTo(b);
+        }
+        return a.toString().compareTo(b.toString());
+    }
+
+    @Override
+    public String toString() {
+        return left + " " + operator.getSymbol() + " " + right;
+    }
+}
@@ -0,0 +1,78 @@
+package com.excel.sql.engine.service.executor.expression;
+
+import com.excel.sql.engine.model.excel.ExcelRow;
+
+import java.util.Date;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.stream.Collectors;
+
+/**
+ * IN条件，值列表在编译时放入哈希集合
+ * 数值单元格按数值匹配，日期单元格按日期字面量的时间匹配，其余按字符串匹配
+ */
+public class InPredicate implements RowPredicate {
+
+    private final Operand operand;
+    private final List<LiteralOperand> values;
+    private final boolean not;
+    private final Set<String> texts = new HashSet<>();
+    private final Set<Double> numbers = new HashSet<>();
+    private final Set<Long> dates = new HashSet<>();
+
+    public InPredicate(Operand operand, List<LiteralOperand> values, boolean not) {
+        this.operand = operand;
+        this.values = values;
+        this.not = not;
+        for (LiteralOperand value : values) {
+            if (value.isNull()) {
+                continue;
+            }
+            texts.add(value.getBool() != null ? value.getText().toLowerCase() : value.getText());
+            if (value.getNumber() != null) {
+                numbers.add(value.getNumber());
+            }
+            if (value.getDateMillis() != null) {
+                dates.add(value.getDateMillis());
+            }
+        }
+    }
+
+    @Override
+    public boolean test(ExcelRow row) {
+        Object value = operand.evaluate(row);
+        if (value == null) {
+            return false;
+        }
+        boolean found;
+        if (value instanceof Number) {
+            found = numbers.contains(((Number) value).doubleValue()) || texts.contains(value.toString());
+        } else if (value instanceof Date) {
+            found = dates.contains(((Date) value).getTime()) || texts.contains(value.toString());
+        } else if (value instanceof Boolean) {
+            found = texts.contains(value.toString()) || texts.contains(value.toString().toUpperCase());
+        } else {
+            found = texts.contains(value.toString());
+        }
+        return found != not;
+    }
+
+    public Operand getOperand() {
+        return operand;
+    }
+
+    public List<LiteralOperand> getValues() {
+        return values;
+    }
+
+    public boolean isNot() {
+        return not;
+    }
+
+    @Override
+    public String toString() {
+        return operand + (not ? " NOT IN " : " IN ")
+                + values.stream().map(Object::toString).collect(Collectors.joining(", ", "(", ")"));
+    }
+}
@@ -0,0 +1,35 @@
+package com.excel.sql.engine.service.executor.expression;
+
+import com.excel.sql.engine.model.excel.ExcelRow;
+
+/**
+ * IS NULL / IS NOT NULL条件
+ */
+public class IsNullPredicate implements RowPredicate {
+
+    private final Operand operand;
+    private final boolean not;
+
+    public IsNullPredicate(Operand operand, boolean not) {
+        this.operand = operand;
+        this.not = not;
+    }
+
+    @Override
+    public boolean test(ExcelRow row) {
+        return (operand.evaluate(row) == null) != not;
+    }
+
+    public Operand getOperand() {
+        return operand;
+    }
+
+    public boolean isNot() {
+        return not;
+    }
+
+    @Override
+    public String toString() {
+        return operand + (not ? " IS NOT NULL" : " IS NULL");
+    }
+}
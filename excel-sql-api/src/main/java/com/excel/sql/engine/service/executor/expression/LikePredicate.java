@@ -0,0 +1,127 @@
+package com.excel.sql.engine.service.executor.expression;
+
+import com.excel.sql.engine.model.excel.ExcelRow;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.regex.Pattern;
+
+/**
+ * LIKE条件，模式在编译时转换为正则表达式，匹配时忽略大小写
+ * 只有前缀、后缀或包含匹配的模式不使用正则表达式
+ */
+public class LikePredicate implements RowPredicate {
+
+    private enum Mode { EXACT, PREFIX, SUFFIX, CONTAINS, REGEX }
+
+    private final Operand operand;
+    private final String pattern;
+    private final boolean not;
+    private final Mode mode;
+    private final String fragment;
+    private final Pattern regex;
+
+    public LikePredicate(Operand operand, String pattern, boolean not) {
+        this.operand = operand;
+        this.pattern = pattern;
+        this.not = not;
+
+        boolean leading = pattern.startsWith("%");
+        boolean trailing = pattern.length() > 1 && pattern.endsWith("%");
+        String inner = pattern.substring(leading ? 1 : 0, pattern.length() - (trailing ? 1 : 0));
+        if (inner.indexOf('%') < 0 && inner.indexOf('_') < 0) {
+            this.mode = leading && trailing ? Mode.CONTAINS : leading ? Mode.SUFFIX : trailing ? Mode.PREFIX : Mode.EXACT;
+            this.fragment = inner;
+            this.regex = null;
+        } else {
+            this.mode = Mode.REGEX;
+            this.fragment = null;
+            this.regex = toRegex(pattern);
+        }
+    }
+
+    @Override
+    public boolean test(ExcelRow row) {
+        Object value = operand.evaluate(row);
+        if (value == null) {
+            return false;
+        }
+        return matches(value.toString()) != not;
+    }
+
+    private boolean matches(String str) {
+        switch (mode) {
+            case EXACT:
+                return str.equalsIgnoreCase(fragment);
+            case PREFIX:
+                return str.regionMatches(true, 0, fragment, 0, fragment.length());
+            case SUFFIX:
+                return str.length() >= fragment.length()
+                        && str.regionMatches(true, str.length() - fragment.length(), fragment, 0, fragment.length());
+            case CONTAINS:
+                for (int i = 0; i + fragment.length() <= str.length(); i++) {
+                    if (str.regionMatches(true, i, fragment, 0, fragment.length())) {
+                        return true;
+                    }
+                }
+                return false;
+            default:
+                return regex.matcher(str).matches();
+        }
+    }
+
+    public Operand getOperand() {
+        return operand;
+    }
+
+    public boolean isNot() {
+        return not;
+    }
+
+    /**
+     * 获取匹配的值中必须出现的常量文本，即模式中被%和_分隔的各段文本
+     *
+     * @return 常量文本列表
+     */
+    public List<String> getFragments() {
+        if (fragment != null) {
+            return Collections.singletonList(fragment);
+        }
+        List<String> fragments = new ArrayList<>();
+        for (String part : pattern.split("[%_]")) {
+            if (!part.isEmpty()) {
+                fragments.add(part);
+            }
+        }
+        return fragments;
+    }
+
+    /**
+     * 将SQL LIKE模式转换为正则表达式，%匹配任意字符串，_匹配单个字符
+     */
+    private static Pattern toRegex(String pattern) {
+        StringBuilder sb = new StringBuilder();
+        StringBuilder literal = new StringBuilder();
+        for (char c : pattern.toCharArray()) {
+            if (c == '%' || c == '_') {
+                if (literal.length() > 0) {
+                    sb.append(Pattern.quote(literal.toString()));
+                    literal.setLength(0);
+                }
+                sb.append(c == '%' ? ".*" : ".");
+            } else {
+                literal.append(c);
+            }
+        }
+        if (literal.length() > 0) {
+            sb.append(Pattern.quote(literal.toString()));
+        }
+        return Pattern.compile(sb.toString(), Pattern.CASE_INSENSITIVE | Pattern.UNICODE_CASE | Pattern.DOTALL);
+    }
+
+    @Override
+    public String toString() {
+        return operand + (not ? " NOT LIKE '" : " LIKE '") + pattern + "'";
+    }
+}
@@ -0,0 +1,142 @@
+package com.excel.sql.engine.service.executor.expression;
+
+import com.excel.sql.engine.model.excel.ExcelRow;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.time.format.DateTimeParseException;
+import java.util.Date;
+
+/**
+ * 字面量，编译时预先解析出数值、布尔值和日期形式
+ */
+public class LiteralOperand implements Operand {
+
+    private final Object value;
+    private final String text;
+    private final Double number;
+    private final Boolean bool;
+    private final Long dateMillis;
+
+    /**
+     * @param value 字面量值，可以是String、Long、Double、Boolean或null
+     */
+    public LiteralOperand(Object value) {
+        this.value = value;
+        this.text = value != null ? value.toString() : null;
+        this.number = value instanceof Number ? Double.valueOf(((Number) value).doubleValue()) : parseNumber(text);
+        this.bool = value instanceof Boolean ? (Boolean) value : null;
+        this.dateMillis = value instanceof Date ? Long.valueOf(((Date) value).getTime()) : parseDate(text);
+    }
+
+    @Override
+    public Object evaluate(ExcelRow row) {
+        return value;
+    }
+
+    /**
+     * 将单元格值与字面量比较
+     * 数值单元格与数值字面量按数值比较（包括 '100' 这样带引号的数值），
+     * 字符串单元格与数值字面量做大小比较时尝试把单元格解析为数值，
+     * 日期单元格与 '2024-01-31'、'2024-01-31 08:00:00' 这样的日期字面量按时间先后比较，其余情况按字符串比较
+     *
+     * @param actual 单元格值，不能为null
+     * @param ordering 是否为大小比较
+     * @return 比较结果
+     */
+    public int compareFrom(Object actual, boolean ordering) {
+        if (dateMillis != null && actual instanceof Date) {
+            return Long.compare(((Date) actual).getTime(), dateMillis);
+        }
+        if (number != null) {
+            if (actual instanceof Number) {
+                return Double.compare(((Number) actual).doubleValue(), number);
+            }
+            if (ordering && actual instanceof String) {
+                Double parsed = parseNumber((String) actual);
+                if (parsed != null) {
+                    return Double.compare(parsed, number);
+                }
+            }
+        }
+        if (actual instanceof Boolean && text != null) {
+            return actual.toString().compareToIgnoreCase(text);
+        }
+        return actual.toString().compareTo(text);
+    }
+
+    public Object getValue() {
+        return value;
+    }
+
+    public String getText() {
+        return text;
+    }
+
+    /**
+     * 获取数值形式
+     *
+     * @return 数值，字面量不是数值时返回null
+     */
+    public Double getNumber() {
+        return number;
+    }
+
+    public Boolean getBool() {
+        return bool;
+    }
+
+    /**
+     * 获取日期形式
+     *
+     * @return 毫秒时间戳，字面量不是日期时返回null
+     */
+    public Long getDateMillis() {
+        return dateMillis;
+    }
+
+    public boolean isNull() {
+        return value == null;
+    }
+
+    /**
+     * 解析数值，先检查首字符以避免对普通字符串抛出异常
+     */
+    static Double parseNumber(String str) {
+        if (str == null || str.isEmpty()) {
+            return null;
+        }
+        char first = str.charAt(0);
+        if (!Character.isDigit(first) && first != '-' && first != '+' && first != '.') {
+            return null;
+        }
+        try {
+            return Double.parseDouble(str);
+        } catch (NumberFormatException e) {
+            return null;
+        }
+    }
+
+    /**
+     * 解析ISO格式的日期或日期时间（日期与时间之间可以是空格），按默认时区转换，与读取日期单元格的时区一致
+     */
+    static Long parseDate(String str) {
+        if (str == null || str.length() < 10 || str.charAt(4) != '-' || !Character.isDigit(str.charAt(0))) {
+            return null;
+        }
+        try {
+            if (str.length() == 10) {
+                return LocalDate.parse(str).atStartOfDay(ZoneId.systemDefault()).toInstant().toEpochMilli();
+            }
+            return LocalDateTime.parse(str.replace(' ', 'T')).atZone(ZoneId.systemDefault()).toInstant().toEpochMilli();
+        } catch (DateTimeParseException e) {
+            return null;
+        }
+    }
+
+    @Override
+    public String toString() {
+        return value instanceof String ? "'" + text + "'" : String.valueOf(text);
+    }
+}
@@ -0,0 +1,25 @@
+package com.excel.sql.engine.service.executor.expression;
+
+import com.excel.sql.engine.model.excel.ExcelRow;
+
+/**
+ * NOT条件
+ */
+public class NotPredicate implements RowPredicate {
+
+    private final RowPredicate predicate;
+
+    public NotPredicate(RowPredicate predicate) {
+        this.predicate = predicate;
+    }
+
+    @Override
+    public boolean test(ExcelRow row) {
+        return !predicate.test(row);
+    }
+
+    @Override
+    public String toString() {
+        return "NOT " + predicate;
+    }
+}
@@ -0,0 +1,17 @@
+package com.excel.sql.engine.service.executor.expression;
+
+import com.excel.sql.engine.model.excel.ExcelRow;
+
+/**
+ * 条件中的操作数：列引用或字面量
+ */
+public interface Operand {
+
+    /**
+     * 计算操作数在行上的值
+     *
+     * @param row 行
+     * @return 值，空值返回null
+     */
+    Object evaluate(ExcelRow row);
+}
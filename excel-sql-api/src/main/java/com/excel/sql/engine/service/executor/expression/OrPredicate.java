@@ -0,0 +1,27 @@
+package com.excel.sql.engine.service.executor.expression;
+
+import com.excel.sql.engine.model.excel.ExcelRow;
+
+/**
+ * OR条件，左侧成立时不再计算右侧
+ */
+public class OrPredicate implements RowPredicate {
+
+    private final RowPredicate left;
+    private final RowPredicate right;
+
+    public OrPredicate(RowPredicate left, RowPredicate right) {
+        this.left = left;
+        this.right = right;
+    }
+
+    @Override
+    public boolean test(ExcelRow row) {
+        return left.test(row) || right.test(row);
+    }
+
+    @Override
+    public String toString() {
+        return "(" + left + " OR " + right + ")";
+    }
+}
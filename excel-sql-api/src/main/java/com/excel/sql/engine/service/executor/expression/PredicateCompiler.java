@@ -0,0 +1,319 @@
+package com.excel.sql.engine.service.executor.expression;
+
+import com.excel.sql.engine.service.parser.ParsedSql;
+import net.sf.jsqlparser.JSQLParserException;
+import net.sf.jsqlparser.expression.BinaryExpression;
+import net.sf.jsqlparser.expression.DoubleValue;
+import net.sf.jsqlparser.expression.Expression;
+import net.sf.jsqlparser.expression.LongValue;
+import net.sf.jsqlparser.expression.NotExpression;
+import net.sf.jsqlparser.expression.NullValue;
+import net.sf.jsqlparser.expression.Parenthesis;
+import net.sf.jsqlparser.expression.SignedExpression;
+import net.sf.jsqlparser.expression.StringValue;
+import net.sf.jsqlparser.expression.operators.arithmetic.Addition;
+import net.sf.jsqlparser.expression.operators.arithmetic.Division;
+import net.sf.jsqlparser.expression.operators.arithmetic.Multiplication;
+import net.sf.jsqlparser.expression.operators.arithmetic.Subtraction;
+import net.sf.jsqlparser.expression.operators.conditional.AndExpression;
+import net.sf.jsqlparser.expression.operators.conditional.OrExpression;
+import net.sf.jsqlparser.expression.operators.relational.Between;
+import net.sf.jsqlparser.expression.operators.relational.EqualsTo;
+import net.sf.jsqlparser.expression.operators.relational.ExpressionList;
+import net.sf.jsqlparser.expression.operators.relational.GreaterThan;
+import net.sf.jsqlparser.expression.operators.relational.GreaterThanEquals;
+import net.sf.jsqlparser.expression.operators.relational.InExpression;
+import net.sf.jsqlparser.expression.operators.relational.IsNullExpression;
+import net.sf.jsqlparser.expression.operators.relational.LikeExpression;
+import net.sf.jsqlparser.expression.operators.relational.MinorThan;
+import net.sf.jsqlparser.expression.operators.relational.MinorThanEquals;
+import net.sf.jsqlparser.expression.operators.relational.NotEqualsTo;
+import net.sf.jsqlparser.parser.CCJSqlParserUtil;
+import net.sf.jsqlparser.schema.Column;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * WHERE条件编译器
+ * 将JSqlParser的表达式树编译为RowPredicate：列名解析为列序号，字面量预先解析为数值，
+ * LIKE模式预先转换为正则表达式，IN列表预先放入哈希集合
+ */
+public final class PredicateCompiler {
+
+    private PredicateCompiler() {
+    }
+
+    /**
+     * 编译SQL中的WHERE条件
+     *
+     * @param parsedSql 解析后的SQL
+     * @param columnNames 工作表列名，下标即列序号
+     * @return 行过滤条件，没有WHERE条件时返回null
+     * @throws IllegalArgumentException 条件中包含不支持的表达式
+     */
+    public static RowPredicate compileWhere(ParsedSql parsedSql, List<String> columnNames) {
+        Expression where = parsedSql.getWhereExpression();
+        if (where == null) {
+            String condition = parsedSql.getWhereCondition();
+            if (condition == null || condition.trim().isEmpty()) {
+                return null;
+            }
+            try {
+                where = CCJSqlParserUtil.parseCondExpression(condition);
+            } catch (JSQLParserException e) {
+                throw new IllegalArgumentException("无法解析WHERE条件: " + condition, e);
+            }
+        }
+        return compile(where, columnNames);
+    }
+
+    /**
+     * 编译条件表达式
+     *
+     * @param expression 条件表达式
+     * @param columnNames 工作表列名，下标即列序号
+     * @return 行过滤条件
+     * @throws IllegalArgumentException 条件中包含不支持的表达式
+     */
+    public static RowPredicate compile(Expression expression, List<String> columnNames) {
+        if (expression instanceof Parenthesis) {
+            return compile(((Parenthesis) expression).getExpression(), columnNames);
+        }
+        if (expression instanceof AndExpression) {
+            AndExpression and = (AndExpression) expression;
+            return new AndPredicate(compile(and.getLeftExpression(), columnNames),
+                    compile(and.getRightExpression(), columnNames));
+        }
+        if (expression instanceof OrExpression) {
+            OrExpression or = (OrExpression) expression;
+            return new OrPredicate(compile(or.getLeftExpression(), columnNames),
+                    compile(or.getRightExpression(), columnNames));
+        }
+        if (expression instanceof NotExpression) {
+            return new NotPredicate(compile(((NotExpression) expression).getExpression(), columnNames));
+        }
+        ComparisonOperator operator = toOperator(expression);
+        if (operator != null) {
+            return compileComparison((BinaryExpression) expression, operator, columnNames);
+        }
+        if (expression instanceof LikeExpression) {
+            LikeExpression like = (LikeExpression) expression;
+            Operand pattern = compileOperand(like.getRightExpression(), columnNames);
+            if (!(pattern instanceof LiteralOperand) || ((LiteralOperand) pattern).isNull()) {
+                throw new IllegalArgumentException("LIKE模式必须是字符串常量: " + expression);
+            }
+            return new LikePredicate(compileOperand(like.getLeftExpression(), columnNames),
+                    ((LiteralOperand) pattern).getText(), like.isNot());
+        }
+        if (expression instanceof InExpression) {
+            return compileIn((InExpression) expression, columnNames);
+        }
+        if (expression instanceof Between) {
+            return compileBetween((Between) expression, columnNames);
+        }
+        if (expression instanceof IsNullExpression) {
+            IsNullExpression isNull = (IsNullExpression) expression;
+            return new IsNullPredicate(compileOperand(isNull.getLeftExpression(), columnNames), isNull.isNot());
+        }
+        throw new IllegalArgumentException("不支持的WHERE条件: " + expression);
+    }
+
+    /**
+     * 编译比较条件，字面量统一放到右侧；与NULL比较时按IS NULL处理
+     */
+    private static RowPredicate compileComparison(BinaryExpression comparison, ComparisonOperator operator,
+                                                  List<String> columnNames) {
+        Operand left = compileOperand(comparison.getLeftExpression(), columnNames);
+        Operand right = compileOperand(comparison.getRightExpression(), columnNames);
+
+        if (left instanceof LiteralOperand && !(right instanceof LiteralOperand)) {
+            Operand swap = left;
+            left = right;
+            right = swap;
+            operator = operator.flip();
+        }
+
+        if (right instanceof LiteralOperand && ((LiteralOperand) right).isNull()) {
+            switch (operator) {
+                case EQ: return new IsNullPredicate(left, false);
+                case NE: return new IsNullPredicate(left, true);
+                default: return row -> false;
+            }
+        }
+        return new ComparisonPredicate(left, operator, right);
+    }
+
+    /**
+     * 获取比较运算符
+     *
+     * @return 比较运算符，表达式不是比较运算时返回null
+     */
+    private static ComparisonOperator toOperator(Expression comparison) {
+        if (comparison instanceof EqualsTo) {
+            return ComparisonOperator.EQ;
+        } else if (comparison instanceof NotEqualsTo) {
+            return ComparisonOperator.NE;
+        } else if (comparison instanceof GreaterThan) {
+            return ComparisonOperator.GT;
+        } else if (comparison instanceof GreaterThanEquals) {
+            return ComparisonOperator.GE;
+        } else if (comparison instanceof MinorThan) {
+            return ComparisonOperator.LT;
+        } else if (comparison instanceof MinorThanEquals) {
+            return ComparisonOperator.LE;
+        }
+        return null;
+    }
+
+    private static RowPredicate compileIn(InExpression in, List<String> columnNames) {
+        if (!(in.getRightItemsList() instanceof ExpressionList)) {
+            throw new IllegalArgumentException("IN条件只支持常量列表: " + in);
+        }
+        List<LiteralOperand> values = new ArrayList<>();
+        for (Expression item : ((ExpressionList) in.getRightItemsList()).getExpressions()) {
+            Operand value = compileOperand(item, columnNames);
+            if (!(value instanceof LiteralOperand)) {
+                throw new IllegalArgumentException("IN条件只支持常量列表: " + in);
+            }
+            values.add((LiteralOperand) value);
+        }
+        return new InPredicate(compileOperand(in.getLeftExpression(), columnNames), values, in.isNot());
+    }
+
+    /**
+     * BETWEEN a AND b 编译为 x >= a AND x <= b，NOT BETWEEN 编译为 x < a OR x > b
+     */
+    private static RowPredicate compileBetween(Between between, List<String> columnNames) {
+        Operand operand = compileOperand(between.getLeftExpression(), columnNames);
+        Operand start = compileOperand(between.getBetweenExpressionStart(), columnNames);
+        Operand end = compileOperand(between.getBetweenExpressionEnd(), columnNames);
+        if (between.isNot()) {
+            return new OrPredicate(
+                    new ComparisonPredicate(operand, ComparisonOperator.LT, start),
+                    new ComparisonPredicate(operand, ComparisonOperator.GT, end));
+        }
+        return new AndPredicate(
+                new ComparisonPredicate(operand, ComparisonOperator.GE, start),
+                new ComparisonPredicate(operand, ComparisonOperator.LE, end));
+    }
+
+    /**
+     * 编译操作数
+     * 不在工作表中的 true/false 按布尔常量处理，不在工作表中的双引号标识符按字符串常量处理
+     */
+    private static Operand compileOperand(Expression expression, List<String> columnNames) {
+        if (expression instanceof Parenthesis) {
+            return compileOperand(((Parenthesis) expression).getExpression(), columnNames);
+        }
+        if (expression instanceof StringValue) {
+            return new LiteralOperand(((StringValue) expression).getValue().replace("''", "'"));
+        }
+        if (expression instanceof LongValue) {
+            return new LiteralOperand(((LongValue) expression).getValue());
+        }
+        if (expression instanceof DoubleValue) {
+            return new LiteralOperand(((DoubleValue) expression).getValue());
+        }
+        if (expression instanceof NullValue) {
+            return new LiteralOperand(null);
+        }
+        if (expression instanceof SignedExpression) {
+            SignedExpression signed = (SignedExpression) expression;
+            Operand inner = compileOperand(signed.getExpression(), columnNames);
+            if (inner instanceof LiteralOperand && ((LiteralOperand) inner).getValue() instanceof Number) {
+                Object value = ((LiteralOperand) inner).getValue();
+                if (signed.getSign() != '-') {
+                    return inner;
+                }
+                return new LiteralOperand(value instanceof Long ? (Object) (-(Long) value) : (Object) (-((Number) value).doubleValue()));
+            }
+            throw new IllegalArgumentException("不支持的WHERE条件: " + expression);
+        }
+        if (expression instanceof Addition || expression instanceof Subtraction
+                || expression instanceof Multiplication || expression instanceof Division) {
+            BinaryExpression arithmetic = (BinaryExpression) expression;
+            return new ArithmeticOperand(compileOperand(arithmetic.getLeftExpression(), columnNames),
+                    arithmetic.getStringExpression().charAt(0),
+                    compileOperand(arithmetic.getRightExpression(), columnNames));
+        }
+        if (expression instanceof Column) {
+            Column column = (Column) expression;
+            String rawName = column.getColumnName();
+            String name = unquote(rawName);
+            String table = column.getTable() != null ? column.getTable().getName() : null;
+            int ordinal = resolveOrdinal(table != null ? unquote(table) + "." + name : name, columnNames);
+            if (ordinal < 0) {
+                if ("true".equalsIgnoreCase(name) || "false".equalsIgnoreCase(name)) {
+                    return new LiteralOperand(Boolean.valueOf(name.toLowerCase()));
+                }
+                if (rawName.startsWith("\"")) {
+                    return new LiteralOperand(name);
+                }
+                return new ColumnOperand(name, ordinal);
+            }
+            return new ColumnOperand(columnNames.get(ordinal), ordinal);
+        }
+        throw new IllegalArgumentException("不支持的WHERE条件: " + expression);
+    }
+
+    /**
+     * 解析列引用对应的列序号
+     * 依次尝试精确匹配、忽略大小写匹配；不带表名的引用可以唯一匹配"表名.列名"形式的列（JOIN结果），
+     * 带表名的引用匹配失败时去掉表名再匹配（单表查询中使用表别名）
+     *
+     * @param name 列引用，可以带表名或表别名
+     * @param columnNames 列名，下标即列序号
+     * @return 列序号，无法解析或有歧义时返回-1
+     */
+    public static int resolveOrdinal(String name, List<String> columnNames) {
+        int ordinal = matchOrdinal(name, columnNames);
+        if (ordinal >= 0) {
+            return ordinal;
+        }
+
+        int dot = name.lastIndexOf('.');
+        if (dot < 0) {
+            String suffix = "." + name;
+            for (int i = 0; i < columnNames.size(); i++) {
+                String columnName = columnNames.get(i);
+                if (columnName.length() > suffix.length()
+                        && columnName.regionMatches(true, columnName.length() - suffix.length(), suffix, 0, suffix.length())) {
+                    if (ordinal >= 0) {
+                        return -1;
+                    }
+                    ordinal = i;
+                }
+            }
+            return ordinal;
+        }
+        return matchOrdinal(name.substring(dot + 1), columnNames);
+    }
+
+    private static int matchOrdinal(String name, List<String> columnNames) {
+        int ordinal = columnNames.indexOf(name);
+        if (ordinal >= 0) {
+            return ordinal;
+        }
+        for (int i = 0; i < columnNames.size(); i++) {
+            if (name.equalsIgnoreCase(columnNames.get(i))) {
+                return i;
+            }
+        }
+        return -1;
+    }
+
+    /**
+     * 去掉标识符两侧的引号或反引号
+     */
+    private static String unquote(String name) {
+        if (name.length() >= 2) {
+            char first = name.charAt(0);
+            char last = name.charAt(name.length() - 1);
+            if ((first == '"' && last == '"') || (first == '`' && last == '`') || (first == '[' && last == ']')) {
+                return name.substring(1, name.length() - 1);
+            }
+        }
+        return name;
+    }
+}
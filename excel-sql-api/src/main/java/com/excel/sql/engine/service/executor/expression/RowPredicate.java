@@ -0,0 +1,19 @@
+package com.excel.sql.engine.service.executor.expression;
+
+import com.excel.sql.engine.model.excel.ExcelRow;
+
+/**
+ * 编译后的行过滤条件
+ * 由WHERE表达式编译一次，之后对每一行只做比较运算
+ */
+@FunctionalInterface
+public interface RowPredicate {
+
+    /**
+     * 判断行是否满足条件
+     *
+     * @param row 行
+     * @return 是否满足条件
+     */
+    boolean test(ExcelRow row);
+}
@@ -1,8 +1,11 @@
 package com.excel.sql.engine.service.executor.handler;
 
 import com.excel.sql.engine.model.dto.SqlQueryResult;
+import com.excel.sql.engine.service.executor.stream.ResultSink;
 import com.excel.sql.engine.service.parser.ParsedSql;
 
+import java.util.Set;
+
 /**
  * SELECT查询处理器接口
  */
@@ -17,4 +20,24 @@ public interface SelectQueryHandler extends QueryHandler {
      * @return SQL查询结果
      */
     SqlQueryResult handle(ParsedSql parsedSql, String workbook, int maxRows);
+    
+    /**
+     * 处理SELECT查询，结果行按顺序逐行写入sink，返回的结果中不包含行数据
+     *
+     * @param parsedSql 已解析的SQL
+     * @param workbook 工作簿名称
+     * @param maxRows 最大返回行数
+     * @param sink 结果接收者，为null时与 {@link #handle(ParsedSql, String, int)} 相同
+     * @return SQL查询结果（列定义、执行时间或错误信息）
+     */
+    SqlQueryResult handle(ParsedSql parsedSql, String workbook, int maxRows, ResultSink sink);
+    
+    /**
+     * 获取查询读取的工作簿文件路径，包括FROM表、JOIN的右表和UNION各分支涉及的工作簿
+     *
+     * @param parsedSql 已解析的SQL
+     * @param workbook 工作簿名称，表没有工作簿前缀时使用
+     * @return 工作簿文件路径，无法解析的工作簿不包含在内
+     */
+    Set<String> getWorkbookPaths(ParsedSql parsedSql, String workbook);
 } 
\ No newline at end of file
@@ -1,21 +1,34 @@
 package com.excel.sql.engine.service.executor.handler.impl;
 
 import com.excel.sql.engine.model.dto.SqlQueryResult;
+import com.excel.sql.engine.model.excel.ExcelDataType;
+import com.excel.sql.engine.model.excel.ExcelSheet;
 import com.excel.sql.engine.model.excel.ExcelWorkbook;
+import com.excel.sql.engine.model.excel.index.IndexDefinition;
+import com.excel.sql.engine.service.ExcelFileService;
 import com.excel.sql.engine.service.WorkbookManager;
+import com.excel.sql.engine.service.cache.SheetDataCache;
 import com.excel.sql.engine.service.executor.handler.QueryHandler;
+import com.excel.sql.engine.service.index.IndexStore;
 import com.excel.sql.engine.service.parser.ParsedSql;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.stereotype.Service;
 
+import java.io.File;
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.util.ArrayList;
 import java.util.Collections;
 import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
 import java.util.Map;
 
 /**
  * DDL查询处理器实现类
- * 处理CREATE WORKBOOK, CREATE SHEET, USE WORKBOOK等DDL操作
+ * 处理CREATE WORKBOOK, CREATE SHEET, USE WORKBOOK等DDL操作，以及CREATE INDEX, DROP INDEX, SHOW INDEXES
  */
 @Slf4j
 @Service
@@ -23,6 +36,9 @@ import java.util.Map;
 public class DDLQueryHandlerImpl implements QueryHandler {
     
     private final WorkbookManager workbookManager;
+    private final ExcelFileService excelFileService;
+    private final SheetDataCache sheetDataCache;
+    private final IndexStore indexStore;
     
     @Override
     public SqlQueryResult handle(ParsedSql parsedSql, String workbook) {
@@ -42,6 +58,12 @@ public class DDLQueryHandlerImpl implements QueryHandler {
                     return handleDropWorkbook(parsedSql, startTime);
                 case DROP_SHEET:
                     return handleDropSheet(parsedSql, startTime);
+                case CREATE_INDEX:
+                    return handleCreateIndex(parsedSql, workbook, startTime);
+                case DROP_INDEX:
+                    return handleDropIndex(parsedSql, workbook, startTime);
+                case SHOW_INDEXES:
+                    return handleShowIndexes(parsedSql, workbook, startTime);
                 default:
                     return SqlQueryResult.error("不支持的DDL操作: " + sqlType);
             }
@@ -177,4 +199,141 @@ public class DDLQueryHandlerImpl implements QueryHandler {
             return SqlQueryResult.error("删除工作表失败: " + e.getMessage());
         }
     }
-} 
\ No newline at end of file
+    
+    /**
+     * 处理CREATE INDEX语句
+     * 在缓存的已加载工作表上构建索引并写入索引文件，之后的查询直接使用。
+     * USING NGRAM（或TRIGRAM）创建用于LIKE子串匹配的三元组索引，USING HASH、BTREE与不指定相同
+     */
+    private SqlQueryResult handleCreateIndex(ParsedSql parsedSql, String workbook, long startTime) {
+        try {
+            String sheetName = parsedSql.getTargetTables().get(0);
+            String workbookPath = resolveWorkbookPath(workbook);
+            if (!excelFileService.existsSheet(workbook, sheetName)) {
+                return SqlQueryResult.error("工作表不存在: " + sheetName);
+            }
+            
+            String method = parsedSql.getIndexMethod();
+            String indexType = null;
+            if ("NGRAM".equals(method) || "TRIGRAM".equals(method)) {
+                indexType = IndexDefinition.TYPE_NGRAM;
+            } else if (method != null && !"HASH".equals(method) && !"BTREE".equals(method)) {
+                return SqlQueryResult.error("不支持的索引方法: " + method);
+            }
+            
+            ExcelSheet sheet = excelFileService.getSheet(workbook, sheetName);
+            ExcelSheet loaded = sheetDataCache.getLoadedSheet(sheet, workbookPath);
+            if (loaded == null) {
+                return SqlQueryResult.error("加载工作表数据失败: " + sheetName);
+            }
+            
+            IndexDefinition definition = IndexDefinition.builder()
+                    .sheetName(sheetName)
+                    .name(parsedSql.getIndexName())
+                    .indexType(indexType)
+                    .columns(parsedSql.getIndexColumns())
+                    .unique(parsedSql.isUniqueIndex())
+                    .build();
+            indexStore.createIndex(loaded, workbookPath, definition);
+            
+            long executionTime = System.currentTimeMillis() - startTime;
+            return SqlQueryResult.successDml(1, SqlQueryResult.SqlType.CREATE_INDEX, executionTime);
+        } catch (Exception e) {
+            log.error("创建索引失败: {}", e.getMessage(), e);
+            return SqlQueryResult.error("创建索引失败: " + e.getMessage());
+        }
+    }
+    
+    /**
+     * 处理DROP INDEX语句
+     * 删除索引文件，已加载工作表中的索引保留，查询结果不受影响
+     */
+    private SqlQueryResult handleDropIndex(ParsedSql parsedSql, String workbook, long startTime) {
+        try {
+            String sheetName = parsedSql.getTargetTables().isEmpty() ? null : parsedSql.getTargetTables().get(0);
+            String workbookPath = resolveWorkbookPath(workbook);
+            
+            boolean success = indexStore.dropIndex(workbookPath, sheetName, parsedSql.getIndexName());
+            if (success) {
+                long executionTime = System.currentTimeMillis() - startTime;
+                return SqlQueryResult.successDml(1, SqlQueryResult.SqlType.DROP_INDEX, executionTime);
+            } else {
+                return SqlQueryResult.error("索引不存在: " + parsedSql.getIndexName());
+            }
+        } catch (Exception e) {
+            log.error("删除索引失败: {}", e.getMessage(), e);
+            return SqlQueryResult.error("删除索引失败: " + e.getMessage());
+        }
+    }
+    
+    /**
+     * 处理SHOW INDEXES语句
+     * 索引生成后工作簿被修改过时状态为STALE，下次加载该工作表数据时重建
+     */
+    private SqlQueryResult handleShowIndexes(ParsedSql parsedSql, String workbook, long startTime) {
+        try {
+            String sheetName = parsedSql.getTargetTables().isEmpty() ? null : parsedSql.getTargetTables().get(0);
+            String workbookPath = resolveWorkbookPath(workbook);
+            File workbookFile = new File(workbookPath);
+            
+            List<Map<String, Object>> rows = new ArrayList<>();
+            for (IndexDefinition definition : indexStore.listIndexes(workbookPath, sheetName)) {
+                boolean valid = definition.getWorkbookSize() == workbookFile.length()
+                        && definition.getWorkbookModified() == workbookFile.lastModified();
+                Map<String, Object> row = new LinkedHashMap<>();
+                row.put("sheet", definition.getSheetName());
+                row.put("name", definition.getName());
+                row.put("type", definition.getIndexType());
+                row.put("columns", String.join(",", definition.getColumns()));
+                row.put("unique", definition.isUnique());
+                row.put("keys", definition.getKeyCount());
+                row.put("status", valid ? "VALID" : "STALE");
+                row.put("createTime", LocalDateTime.ofInstant(Instant.ofEpochMilli(definition.getCreateTime()),
+                        ZoneId.systemDefault()).toString());
+                rows.add(row);
+            }
+            
+            List<SqlQueryResult.ColumnDefinition> columns = new ArrayList<>();
+            columns.add(columnDefinition("sheet", ExcelDataType.STRING));
+            columns.add(columnDefinition("name", ExcelDataType.STRING));
+            columns.add(columnDefinition("type", ExcelDataType.STRING));
+            columns.add(columnDefinition("columns", ExcelDataType.STRING));
+            columns.add(columnDefinition("unique", ExcelDataType.BOOLEAN));
+            columns.add(columnDefinition("keys", ExcelDataType.INTEGER));
+            columns.add(columnDefinition("status", ExcelDataType.STRING));
+            columns.add(columnDefinition("createTime", ExcelDataType.DATETIME));
+            
+            long executionTime = System.currentTimeMillis() - startTime;
+            SqlQueryResult result = SqlQueryResult.success(columns, rows, executionTime);
+            result.setSqlType(SqlQueryResult.SqlType.SHOW_INDEXES);
+            return result;
+        } catch (Exception e) {
+            log.error("查询索引失败: {}", e.getMessage(), e);
+            return SqlQueryResult.error("查询索引失败: " + e.getMessage());
+        }
+    }
+    
+    private SqlQueryResult.ColumnDefinition columnDefinition(String name, ExcelDataType dataType) {
+        return SqlQueryResult.ColumnDefinition.builder()
+                .name(name)
+                .label(name)
+                .dataType(dataType)
+                .build();
+    }
+    
+    /**
+     * 获取工作簿文件路径
+     *
+     * @throws IllegalArgumentException 工作簿不存在
+     */
+    private String resolveWorkbookPath(String workbook) {
+        if (workbook == null) {
+            throw new IllegalArgumentException("未指定工作簿，请使用USE WORKBOOK命令选择工作簿");
+        }
+        ExcelWorkbook excelWorkbook = excelFileService.loadWorkbook(workbook);
+        if (excelWorkbook == null || excelWorkbook.getFilePath() == null) {
+            throw new IllegalArgumentException("工作簿不存在: " + workbook);
+        }
+        return excelWorkbook.getFilePath();
+    }
+}
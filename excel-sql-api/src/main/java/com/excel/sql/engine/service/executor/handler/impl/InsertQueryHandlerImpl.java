@@ -5,18 +5,24 @@ import com.excel.sql.engine.model.excel.ExcelColumn;
 import com.excel.sql.engine.model.excel.ExcelRow;
 import com.excel.sql.engine.model.excel.ExcelSheet;
 import com.excel.sql.engine.model.excel.ExcelWorkbook;
-import com.excel.sql.engine.service.CacheService;
+import com.excel.sql.engine.model.excel.SheetChanges;
+import com.excel.sql.engine.model.excel.index.IndexDefinition;
 import com.excel.sql.engine.service.ExcelFileService;
 import com.excel.sql.engine.service.executor.handler.InsertQueryHandler;
+import com.excel.sql.engine.service.index.IndexStore;
 import com.excel.sql.engine.service.parser.ParsedSql;
+import com.excel.sql.engine.service.write.RowUndoLog;
+import com.excel.sql.engine.service.write.WorkbookWriteBuffer;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.stereotype.Service;
 
 import java.util.ArrayList;
+import java.util.HashSet;
 import java.util.List;
 import java.util.Map;
 import java.util.Objects;
+import java.util.Set;
 
 /**
  * INSERT查询处理器实现类
@@ -27,7 +33,8 @@ import java.util.Objects;
 public class InsertQueryHandlerImpl implements InsertQueryHandler {
     
     private final ExcelFileService excelFileService;
-    private final CacheService cacheService;
+    private final WorkbookWriteBuffer workbookWriteBuffer;
+    private final IndexStore indexStore;
     
     @Override
     public SqlQueryResult handle(ParsedSql parsedSql, String workbook) {
@@ -107,205 +114,216 @@ public class InsertQueryHandlerImpl implements InsertQueryHandler {
                 throw new IllegalStateException("无法获取工作簿路径");
             }
             
-            // 打开工作簿文件
+            // 检查工作簿文件
             java.io.File file = new java.io.File(workbookPath);
             if (!file.exists()) {
                 log.error("工作簿文件不存在: {}", workbookPath);
                 throw new IllegalStateException("工作簿文件不存在: " + workbookPath);
             }
             
-            org.apache.poi.ss.usermodel.Workbook workbook = null;
+            // 工作表有唯一索引时，在包含待写回修改的当前数据上检查插入的行
+            String targetPath = workbookPath;
+            boolean uniqueIndexed = indexStore.listIndexes(targetPath, sheet.getName()).stream()
+                    .anyMatch(IndexDefinition::isUnique);
+            ExcelSheet current = uniqueIndexed ? workbookWriteBuffer.getCurrentSheet(sheet, targetPath) : null;
+            if (uniqueIndexed && current == null) {
+                throw new IllegalStateException("无法加载工作表数据: " + sheet.getName());
+            }
             
-            try {
-                // 直接使用XSSFWorkbook，不使用SXSSF模式
-                try (java.io.FileInputStream fis = new java.io.FileInputStream(file)) {
-                    workbook = new org.apache.poi.xssf.usermodel.XSSFWorkbook(fis);
-                } catch (Exception e) {
-                    log.warn("使用XSSFWorkbook读取文件失败: {}", e.getMessage());
-                    // 如果读取失败，创建新的空工作簿
-                    workbook = new org.apache.poi.xssf.usermodel.XSSFWorkbook();
-                    workbook.createSheet(sheet.getName());
+            // 在写缓冲中的工作簿上插入，多条语句的修改合并后一次写回文件
+            insertedRows = workbookWriteBuffer.modify(targetPath, workbookName, (workbook, changes, undo) -> {
+                SheetChanges sheetChanges = changes.apply(sheet.getName());
+                Set<Integer> rowNums = new HashSet<>();
+                int count = writeRows(workbook, sheetChanges, undo, sheet, insertValues, rowNums);
+                // 违反唯一索引时抛出异常，本条语句插入的行全部撤销
+                if (uniqueIndexed) {
+                    indexStore.checkUnique(current, targetPath, sheetChanges, rowNums);
                 }
+                return count;
+            });
+            
+            log.info("成功插入 {} 行数据到工作表 {}", insertedRows, sheet.getName());
+            
+        } catch (Exception e) {
+            log.error("插入数据异常: {}", e.getMessage(), e);
+            throw new RuntimeException("插入数据异常: " + e.getMessage(), e);
+        }
+        
+        return insertedRows;
+    }
+    
+    /**
+     * 在POI工作簿中追加插入的行，并记录写入的单元格
+     *
+     * @param workbook POI工作簿
+     * @param changes 工作表的行变更
+     * @param undo 行撤销日志
+     * @param sheet 工作表
+     * @param insertValues 插入值列表
+     * @param rowNums 收集插入行的Excel行号
+     * @return 插入的行数
+     */
+    private int writeRows(org.apache.poi.ss.usermodel.Workbook workbook, SheetChanges changes, RowUndoLog undo,
+                          ExcelSheet sheet, List<Map<String, Object>> insertValues, Set<Integer> rowNums) {
+        int insertedRows = 0;
+        
+        // 获取工作表
+        org.apache.poi.ss.usermodel.Sheet poiSheet = workbook.getSheet(sheet.getName());
+        if (poiSheet == null) {
+            log.warn("工作表不存在: {}，创建新表", sheet.getName());
+            poiSheet = workbook.createSheet(sheet.getName());
+            undo.sheetCreated(poiSheet);
+            
+            // 如果是新创建的表，需要创建表头行
+            if (sheet.getColumns() != null && !sheet.getColumns().isEmpty()) {
+                int headerRowIndex = sheet.getHeaderRowIndex() != null ? sheet.getHeaderRowIndex() : 0;
+                org.apache.poi.ss.usermodel.Row headerRow = poiSheet.createRow(headerRowIndex);
                 
-                // 获取工作表
-                org.apache.poi.ss.usermodel.Sheet poiSheet = workbook.getSheet(sheet.getName());
-                if (poiSheet == null) {
-                    log.warn("工作表不存在: {}，创建新表", sheet.getName());
-                    poiSheet = workbook.createSheet(sheet.getName());
-                    
-                    // 如果是新创建的表，需要创建表头行
-                    if (sheet.getColumns() != null && !sheet.getColumns().isEmpty()) {
-                        int headerRowIndex = sheet.getHeaderRowIndex() != null ? sheet.getHeaderRowIndex() : 0;
-                        org.apache.poi.ss.usermodel.Row headerRow = poiSheet.createRow(headerRowIndex);
-                        
-                        for (ExcelColumn column : sheet.getColumns()) {
-                            if (column.getIndex() != null) {
-                                org.apache.poi.ss.usermodel.Cell cell = headerRow.createCell(column.getIndex());
-                                cell.setCellValue(column.getName());
-                            }
-                        }
+                for (ExcelColumn column : sheet.getColumns()) {
+                    if (column.getIndex() != null) {
+                        org.apache.poi.ss.usermodel.Cell cell = headerRow.createCell(column.getIndex());
+                        cell.setCellValue(column.getName());
                     }
                 }
+            }
+        }
+        
+        // 获取当前最大行号
+        int lastRowNum = poiSheet.getLastRowNum();
+        int dataStartRowIndex = sheet.getDataStartRowIndex() != null ? sheet.getDataStartRowIndex() : 1;
+        
+        // 确保nextRowNum大于lastRowNum，避免尝试覆盖已写入的行
+        int nextRowNum = Math.max(lastRowNum + 1, dataStartRowIndex);
+        
+        log.info("开始插入数据，起始行号: {}", nextRowNum);
+        
+        // 处理每一行数据
+        for (Map<String, Object> rowData : insertValues) {
+            try {
+                // 检查是否是自动列模式（未指定列的INSERT语句）
+                boolean isAutoColumns = rowData.containsKey("__AUTO_COLUMNS__") && (Boolean) rowData.get("__AUTO_COLUMNS__");
                 
-                // 获取当前最大行号
-                int lastRowNum = poiSheet.getLastRowNum();
-                int dataStartRowIndex = sheet.getDataStartRowIndex() != null ? sheet.getDataStartRowIndex() : 1;
-                
-                // 确保nextRowNum大于lastRowNum，避免尝试覆盖已写入的行
-                int nextRowNum = Math.max(lastRowNum + 1, dataStartRowIndex);
-                
-                log.info("开始插入数据，起始行号: {}", nextRowNum);
-                
-                // 处理每一行数据
-                for (Map<String, Object> rowData : insertValues) {
-                    try {
-                        // 检查是否是自动列模式（未指定列的INSERT语句）
-                        boolean isAutoColumns = rowData.containsKey("__AUTO_COLUMNS__") && (Boolean) rowData.get("__AUTO_COLUMNS__");
-                        
-                        if (isAutoColumns) {
-                            // 自动列模式，需要根据工作表的列顺序来映射值
-                            if (sheet.getColumns() == null || sheet.getColumns().isEmpty()) {
-                                log.error("工作表 '{}' 没有定义列，无法执行未指定列的INSERT语句", sheet.getName());
-                                throw new IllegalArgumentException("工作表 '" + sheet.getName() + "' 没有定义列，无法执行未指定列的INSERT语句");
-                            }
-                            
-                            // 提取所有值
-                            List<Object> values = new ArrayList<>();
-                            int valueIndex = 0;
-                            while (rowData.containsKey("__VALUE_" + valueIndex + "__")) {
-                                values.add(rowData.get("__VALUE_" + valueIndex + "__"));
-                                valueIndex++;
-                            }
-                            
-                            // 检查值的数量是否与列的数量匹配
-                            if (values.size() != sheet.getColumns().size()) {
-                                StringBuilder missingInfo = new StringBuilder();
-                                if (values.size() < sheet.getColumns().size()) {
-                                    // 缺少列
-                                    missingInfo.append("缺少列: ");
-                                    for (int i = values.size(); i < sheet.getColumns().size(); i++) {
-                                        if (i > values.size()) missingInfo.append(", ");
-                                        missingInfo.append(sheet.getColumns().get(i).getName());
-                                    }
-                                } else {
-                                    // 多余的值
-                                    missingInfo.append("多余的值: 提供了 ").append(values.size())
-                                            .append(" 个值，但工作表只有 ").append(sheet.getColumns().size()).append(" 列");
-                                }
-                                
-                                log.error("INSERT语句中值的数量 ({}) 与工作表 '{}' 的列数量 ({}) 不匹配. {}", 
-                                        values.size(), sheet.getName(), sheet.getColumns().size(), missingInfo);
-                                throw new IllegalArgumentException("INSERT语句中值的数量 (" + values.size() + 
-                                        ") 与工作表 '" + sheet.getName() + "' 的列数量 (" + sheet.getColumns().size() + 
-                                        ") 不匹配. " + missingInfo);
-                            }
-                            
-                            // 创建新行
-                            org.apache.poi.ss.usermodel.Row poiRow = poiSheet.createRow(nextRowNum);
-                            
-                            // 创建内存中的Excel行对象
-                            ExcelRow newRow = new ExcelRow(nextRowNum, sheet);
-                            
-                            // 按列顺序设置值
-                            for (int i = 0; i < sheet.getColumns().size(); i++) {
-                                ExcelColumn column = sheet.getColumns().get(i);
-                                String columnName = column.getName();
-                                Object value = values.get(i);
-                                
-                                // 创建单元格
-                                org.apache.poi.ss.usermodel.Cell cell = poiRow.createCell(column.getIndex());
-                                
-                                // 根据值类型设置单元格值
-                                setCellValue(cell, value);
-                                
-                                // 同时更新内存中的模型
-                                newRow.setCellValue(columnName, value);
+                if (isAutoColumns) {
+                    // 自动列模式，需要根据工作表的列顺序来映射值
+                    if (sheet.getColumns() == null || sheet.getColumns().isEmpty()) {
+                        log.error("工作表 '{}' 没有定义列，无法执行未指定列的INSERT语句", sheet.getName());
+                        throw new IllegalArgumentException("工作表 '" + sheet.getName() + "' 没有定义列，无法执行未指定列的INSERT语句");
+                    }
+                    
+                    // 提取所有值
+                    List<Object> values = new ArrayList<>();
+                    int valueIndex = 0;
+                    while (rowData.containsKey("__VALUE_" + valueIndex + "__")) {
+                        values.add(rowData.get("__VALUE_" + valueIndex + "__"));
+                        valueIndex++;
+                    }
+                    
+                    // 检查值的数量是否与列的数量匹配
+                    if (values.size() != sheet.getColumns().size()) {
+                        StringBuilder missingInfo = new StringBuilder();
+                        if (values.size() < sheet.getColumns().size()) {
+                            // 缺少列
+                            missingInfo.append("缺少列: ");
+                            for (int i = values.size(); i < sheet.getColumns().size(); i++) {
+                                if (i > values.size()) missingInfo.append(", ");
+                                missingInfo.append(sheet.getColumns().get(i).getName());
                             }
-                            
-                            // 添加行到内存模型的索引
-                            sheet.addToPrimaryIndex(newRow);
-                            
                         } else {
-                            // 普通模式，验证所有列是否都存在于工作表中
-                            for (String columnName : rowData.keySet()) {
-                                if (Objects.isNull(sheet.getColumn(columnName))) {
-                                    log.error("列 '{}' 在工作表 '{}' 中不存在", columnName, sheet.getName());
-                                    throw new IllegalArgumentException("列 '" + columnName + "' 在工作表 '" + sheet.getName() + "' 中不存在");
-                                }
-                            }
-                            
-                            // 创建新行
-                            org.apache.poi.ss.usermodel.Row poiRow = poiSheet.createRow(nextRowNum);
-                            
-                            // 创建内存中的Excel行对象
-                            ExcelRow newRow = new ExcelRow(nextRowNum, sheet);
-                            
-                            // 设置单元格值
-                            for (Map.Entry<String, Object> entry : rowData.entrySet()) {
-                                String columnName = entry.getKey();
-                                Object value = entry.getValue();
-                                
-                                // 获取列定义
-                                ExcelColumn column = sheet.getColumn(columnName);
-                                if (column == null) {
-                                    continue; // 已经验证过，这里不应该发生
-                                }
-                                
-                                // 创建单元格
-                                org.apache.poi.ss.usermodel.Cell cell = poiRow.createCell(column.getIndex());
-                                
-                                // 根据值类型设置单元格值
-                                setCellValue(cell, value);
-                                
-                                // 同时更新内存中的模型
-                                newRow.setCellValue(columnName, value);
-                            }
-                            
-                            // 添加行到内存模型的索引
-                            sheet.addToPrimaryIndex(newRow);
+                            // 多余的值
+                            missingInfo.append("多余的值: 提供了 ").append(values.size())
+                                    .append(" 个值，但工作表只有 ").append(sheet.getColumns().size()).append(" 列");
                         }
                         
-                        // 更新下一行行号
-                        nextRowNum++;
-                        insertedRows++;
+                        log.error("INSERT语句中值的数量 ({}) 与工作表 '{}' 的列数量 ({}) 不匹配. {}", 
+                                values.size(), sheet.getName(), sheet.getColumns().size(), missingInfo);
+                        throw new IllegalArgumentException("INSERT语句中值的数量 (" + values.size() + 
+                                ") 与工作表 '" + sheet.getName() + "' 的列数量 (" + sheet.getColumns().size() + 
+                                ") 不匹配. " + missingInfo);
+                    }
+                    
+                    // 创建新行
+                    undo.saveRow(poiSheet, nextRowNum);
+                    org.apache.poi.ss.usermodel.Row poiRow = poiSheet.createRow(nextRowNum);
+                    
+                    // 创建内存中的Excel行对象
+                    ExcelRow newRow = new ExcelRow(nextRowNum, sheet);
+                    
+                    // 按列顺序设置值
+                    for (int i = 0; i < sheet.getColumns().size(); i++) {
+                        ExcelColumn column = sheet.getColumns().get(i);
+                        String columnName = column.getName();
+                        Object value = values.get(i);
                         
-                    } catch (Exception e) {
-                        log.error("插入行异常: {}", e.getMessage(), e);
-                        throw new RuntimeException("插入行异常: " + e.getMessage(), e);
+                        // 创建单元格
+                        org.apache.poi.ss.usermodel.Cell cell = poiRow.createCell(column.getIndex());
+                        
+                        // 根据值类型设置单元格值
+                        setCellValue(cell, value);
+                        changes.write(nextRowNum, columnName, ExcelSheet.getCellValue(cell));
+                        
+                        // 同时更新内存中的模型
+                        newRow.setCellValue(columnName, value);
                     }
-                }
-                
-                // 更新工作表的总行数
-                sheet.setTotalRows(Math.max(sheet.getTotalRows() != null ? sheet.getTotalRows() : 0, nextRowNum));
-                
-                // 直接将工作簿保存到原文件
-                try (java.io.FileOutputStream fileOut = new java.io.FileOutputStream(file)) {
-                    workbook.write(fileOut);
-                    log.info("成功将数据写入文件: {}", file.getAbsolutePath());
                     
-                    // 清除相关缓存
-                    cacheService.clearFilePathCache(workbookPath);
-                    cacheService.clearWorkbookCache(workbookName);
+                    // 添加行到内存模型的索引
+                    sheet.addToPrimaryIndex(newRow);
+                    
+                } else {
+                    // 普通模式，验证所有列是否都存在于工作表中
+                    for (String columnName : rowData.keySet()) {
+                        if (Objects.isNull(sheet.getColumn(columnName))) {
+                            log.error("列 '{}' 在工作表 '{}' 中不存在", columnName, sheet.getName());
+                            throw new IllegalArgumentException("列 '" + columnName + "' 在工作表 '" + sheet.getName() + "' 中不存在");
+                        }
+                    }
+                    
+                    // 创建新行
+                    undo.saveRow(poiSheet, nextRowNum);
+                    org.apache.poi.ss.usermodel.Row poiRow = poiSheet.createRow(nextRowNum);
+                    
+                    // 创建内存中的Excel行对象
+                    ExcelRow newRow = new ExcelRow(nextRowNum, sheet);
+                    
+                    // 设置单元格值
+                    for (Map.Entry<String, Object> entry : rowData.entrySet()) {
+                        String columnName = entry.getKey();
+                        Object value = entry.getValue();
+                        
+                        // 获取列定义
+                        ExcelColumn column = sheet.getColumn(columnName);
+                        if (column == null) {
+                            continue; // 已经验证过，这里不应该发生
+                        }
+                        
+                        // 创建单元格
+                        org.apache.poi.ss.usermodel.Cell cell = poiRow.createCell(column.getIndex());
+                        
+                        // 根据值类型设置单元格值
+                        setCellValue(cell, value);
+                        changes.write(nextRowNum, columnName, ExcelSheet.getCellValue(cell));
+                        
+                        // 同时更新内存中的模型
+                        newRow.setCellValue(columnName, value);
+                    }
+                    
+                    // 添加行到内存模型的索引
+                    sheet.addToPrimaryIndex(newRow);
                 }
                 
-                log.info("成功插入 {} 行数据到工作表 {}", insertedRows, sheet.getName());
+                // 更新下一行行号
+                rowNums.add(nextRowNum);
+                nextRowNum++;
+                insertedRows++;
                 
-            } finally {
-                // 关闭工作簿
-                if (workbook != null) {
-                    try {
-                        workbook.close();
-                    } catch (Exception e) {
-                        log.warn("关闭工作簿异常: {}", e.getMessage());
-                    }
-                }
+            } catch (Exception e) {
+                log.error("插入行异常: {}", e.getMessage(), e);
+                throw new RuntimeException("插入行异常: " + e.getMessage(), e);
             }
-            
-        } catch (Exception e) {
-            log.error("插入数据异常: {}", e.getMessage(), e);
-            throw new RuntimeException("插入数据异常: " + e.getMessage(), e);
         }
         
+        // 更新工作表的总行数
+        sheet.setTotalRows(Math.max(sheet.getTotalRows() != null ? sheet.getTotalRows() : 0, nextRowNum));
+        
         return insertedRows;
     }
     
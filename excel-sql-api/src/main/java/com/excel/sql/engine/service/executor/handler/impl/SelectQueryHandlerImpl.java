@@ -1,9 +1,37 @@
 package com.excel.sql.engine.service.executor.handler.impl;
 
+import com.excel.sql.engine.exception.QueryCancelledException;
+import com.excel.sql.engine.exception.SqlExecutionException;
 import com.excel.sql.engine.model.dto.SqlQueryResult;
 import com.excel.sql.engine.model.excel.*;
+import com.excel.sql.engine.model.excel.index.BlockBloomFilter;
+import com.excel.sql.engine.model.excel.index.HashIndex;
+import com.excel.sql.engine.model.excel.index.IndexDefinition;
+import com.excel.sql.engine.model.excel.index.NgramIndex;
+import com.excel.sql.engine.model.excel.index.SortedIndex;
+import com.excel.sql.engine.model.excel.index.ZoneMap;
 import com.excel.sql.engine.service.ExcelFileService;
+import com.excel.sql.engine.service.cache.SheetDataCache;
+import com.excel.sql.engine.service.executor.aggregate.HashAggregator;
+import com.excel.sql.engine.service.executor.cancel.CancellationToken;
+import com.excel.sql.engine.service.executor.expression.PredicateCompiler;
+import com.excel.sql.engine.service.executor.expression.RowPredicate;
 import com.excel.sql.engine.service.executor.handler.SelectQueryHandler;
+import com.excel.sql.engine.service.executor.index.BloomFilterLookup;
+import com.excel.sql.engine.service.executor.index.IndexLookup;
+import com.excel.sql.engine.service.executor.index.NgramLookup;
+import com.excel.sql.engine.service.executor.index.RangeLookup;
+import com.excel.sql.engine.service.executor.index.ZoneMapFilter;
+import com.excel.sql.engine.service.index.IndexStore;
+import com.excel.sql.engine.service.executor.parallel.PartitionedExecutor;
+import com.excel.sql.engine.service.executor.join.EquiJoinCondition;
+import com.excel.sql.engine.service.executor.join.HashJoin;
+import com.excel.sql.engine.service.executor.join.JoinInput;
+import com.excel.sql.engine.service.executor.join.JoinType;
+import com.excel.sql.engine.service.executor.sort.ExternalSorter;
+import com.excel.sql.engine.service.executor.sort.RowComparator;
+import com.excel.sql.engine.service.executor.sort.TopNHeap;
+import com.excel.sql.engine.service.executor.stream.ResultSink;
 import com.excel.sql.engine.service.parser.ParsedSql;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
@@ -11,16 +39,20 @@ import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Service;
 
 import java.io.File;
+import java.io.IOException;
 import java.nio.file.Files;
 import java.nio.file.Path;
 import java.nio.file.Paths;
 import java.nio.file.attribute.BasicFileAttributes;
 import java.nio.file.attribute.FileTime;
 import java.util.*;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
 import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Consumer;
+import java.util.function.Function;
 import java.util.function.Predicate;
 import java.util.stream.Collectors;
-import java.util.regex.Pattern;
 
 /**
  * SELECT查询处理器实现类
@@ -31,10 +63,25 @@ import java.util.regex.Pattern;
 public class SelectQueryHandlerImpl implements SelectQueryHandler {
     
     private final ExcelFileService excelFileService;
+    private final PartitionedExecutor partitionedExecutor;
+    private final SheetDataCache sheetDataCache;
+    private final IndexStore indexStore;
     
     @Value("${excel-sql.query.page-size:1000}")
     private int defaultPageSize;
     
+    @Value("${excel-sql.query.sort-buffer-rows:100000}")
+    private int sortBufferRows;
+    
+    @Value("${excel-sql.storage.temp-path:./excel-files/temp}")
+    private String tempPath;
+    
+    @Value("${excel-sql.index.auto-create:true}")
+    private boolean indexAutoCreate;
+    
+    @Value("${excel-sql.index.max-cached-rows:5000000}")
+    private long maxCachedRows;
+    
     @Value("${excel-sql.query.use-cache:true}")
     private boolean useQueryCache;
     
@@ -44,8 +91,99 @@ public class SelectQueryHandlerImpl implements SelectQueryHandler {
     // 查询结果缓存
     private final Map<String, CachedQueryResult> queryCache = new ConcurrentHashMap<>();
     
+    /**
+     * JOIN右表及其所在工作簿的文件路径
+     */
+    private static class JoinSource {
+        private final ExcelSheet sheet;
+        private final String workbookPath;
+        
+        JoinSource(ExcelSheet sheet, String workbookPath) {
+            this.sheet = sheet;
+            this.workbookPath = workbookPath;
+        }
+    }
+    
+    /**
+     * 通过索引找到并已按WHERE条件过滤的行，以及这些行所在的已加载工作表
+     * ordered为true时行已按ORDER BY排好序，且只包含 offset+limit 行
+     */
+    private static class IndexedRows {
+        private final ExcelSheet sheet;
+        private final List<ExcelRow> rows;
+        private final boolean ordered;
+        
+        IndexedRows(ExcelSheet sheet, List<ExcelRow> rows, boolean ordered) {
+            this.sheet = sheet;
+            this.rows = rows;
+            this.ordered = ordered;
+        }
+    }
+    
+    /**
+     * 从游标逐批读取并按WHERE条件过滤的扫描
+     * 有WHERE条件且启用并行时，批次从一页开始逐次加倍，直到达到并行阈值，达到阈值的批次按行区间分区并行过滤，
+     * 结果保持文件中的顺序；LIMIT较小的查询在前几页读够后即可停止，不会为了凑满一批多读文件
+     */
+    private class FilteredScan {
+        private final SheetCursor cursor;
+        private final RowPredicate predicate;
+        private final boolean batched;
+        private final CancellationToken token = CancellationToken.current();
+        private int batchRows = defaultPageSize;
+        private int pages;
+        
+        FilteredScan(SheetCursor cursor, RowPredicate predicate) {
+            this.cursor = cursor;
+            this.predicate = predicate;
+            this.batched = predicate != null && partitionedExecutor.isParallel(Integer.MAX_VALUE);
+        }
+        
+        /**
+         * 读取下一批行并过滤
+         *
+         * @return 满足WHERE条件的行，可能为空列表；没有更多数据时返回null
+         */
+        List<ExcelRow> next() {
+            token.checkpoint();
+            List<ExcelRow> batch = cursor.nextPage(defaultPageSize);
+            if (batch.isEmpty()) {
+                return null;
+            }
+            pages++;
+            if (batched && batch.size() < batchRows) {
+                batch = new ArrayList<>(batch);
+                List<ExcelRow> pageRows;
+                while (batch.size() < batchRows && !(pageRows = cursor.nextPage(defaultPageSize)).isEmpty()) {
+                    token.checkpoint();
+                    pages++;
+                    batch.addAll(pageRows);
+                }
+            }
+            token.addScannedRows(batch.size());
+            if (predicate == null) {
+                return batch;
+            }
+            
+            List<ExcelRow> matched;
+            if (partitionedExecutor.isParallel(batch.size())) {
+                matched = new ArrayList<>();
+                for (List<ExcelRow> partial : partitionedExecutor.mapPartitions(batch, partition -> filterRows(partition, predicate))) {
+                    matched.addAll(partial);
+                }
+            } else {
+                matched = filterRows(batch, predicate);
+            }
+            if (batched && !partitionedExecutor.isParallel(batchRows)) {
+                batchRows *= 2;
+            }
+            return matched;
+        }
+    }
+    
     /**
      * 缓存的查询结果，包含过期时间和文件修改时间
+     * 结果以紧凑格式保存，不为每行重复保存列名
      */
     private static class CachedQueryResult {
         private final SqlQueryResult result;
@@ -53,7 +191,7 @@ public class SelectQueryHandlerImpl implements SelectQueryHandler {
         private final Map<String, FileTime> fileModificationTimes;
         
         public CachedQueryResult(SqlQueryResult result, long ttlSeconds, String... filePaths) {
-            this.result = result;
+            this.result = result.toFormat(SqlQueryResult.ResultFormat.COMPACT);
             this.expiryTimeMillis = System.currentTimeMillis() + (ttlSeconds * 1000);
             this.fileModificationTimes = new HashMap<>();
             
@@ -71,6 +209,13 @@ public class SelectQueryHandlerImpl implements SelectQueryHandler {
             }
         }
         
+        /**
+         * 检查缓存是否有效，检查创建时记录的所有文件
+         */
+        public boolean isValid() {
+            return isValid(fileModificationTimes.keySet().toArray(new String[0]));
+        }
+        
         /**
          * 检查缓存是否有效
          */
@@ -107,10 +252,10 @@ public class SelectQueryHandlerImpl implements SelectQueryHandler {
         }
         
         /**
-         * 获取查询结果
+         * 获取查询结果，每次返回新的行列表
          */
         public SqlQueryResult getResult() {
-            return result;
+            return result.toFormat(SqlQueryResult.ResultFormat.ROWS);
         }
     }
     
@@ -121,34 +266,33 @@ public class SelectQueryHandlerImpl implements SelectQueryHandler {
     
     @Override
     public SqlQueryResult handle(ParsedSql parsedSql, String workbook, int maxRows) {
+        return handle(parsedSql, workbook, maxRows, null);
+    }
+    
+    @Override
+    public SqlQueryResult handle(ParsedSql parsedSql, String workbook, int maxRows, ResultSink sink) {
         long startTime = System.currentTimeMillis();
         
+        if (parsedSql.getUnionQueries() != null && !parsedSql.getUnionQueries().isEmpty()) {
+            return executeUnion(parsedSql, workbook, maxRows, startTime, sink);
+        }
+        
+        // FROM表带工作簿前缀时查询该工作簿
+        if (parsedSql.getFromWorkbook() != null) {
+            workbook = parsedSql.getFromWorkbook();
+        }
+        
         // 生成缓存键
         String cacheKey = generateCacheKey(parsedSql, workbook, maxRows);
         
         // 获取工作簿文件路径
-        String workbookPath = null;
-        try {
-            // 尝试将workbook转换为Long类型的ID
-            Long workbookId = Long.parseLong(workbook);
-            workbookPath = excelFileService.getWorkbookPathById(workbookId);
-        } catch (NumberFormatException e) {
-            // 如果转换失败，说明workbook不是ID而是名称，直接通过名称获取路径
-            log.debug("workbook参数不是有效的ID，将作为工作簿名称处理");
-        }
-        
-        if (workbookPath == null) {
-            // 通过工作簿名称获取路径
-            ExcelWorkbook excelWorkbook = excelFileService.loadWorkbook(workbook);
-            if (excelWorkbook != null) {
-                workbookPath = excelWorkbook.getFilePath();
-            }
-        }
+        String workbookPath = resolveWorkbookPath(workbook);
         
-        // 检查缓存
-        if (useQueryCache && workbookPath != null && queryCache.containsKey(cacheKey)) {
+        // 检查缓存，流式输出不使用缓存
+        boolean cacheable = useQueryCache && workbookPath != null && sink == null;
+        if (cacheable && queryCache.containsKey(cacheKey)) {
             CachedQueryResult cachedResult = queryCache.get(cacheKey);
-            if (cachedResult.isValid(workbookPath)) {
+            if (cachedResult.isValid()) {
                 log.info("使用查询缓存: {}", cacheKey);
                 return cachedResult.getResult();
             } else {
@@ -177,28 +321,53 @@ public class SelectQueryHandlerImpl implements SelectQueryHandler {
             
             // 获取工作表
             ExcelSheet sheet = excelFileService.getSheet(workbook, sheetName);
+            recordTotalRows(sheet);
             
             if (workbookPath == null) {
                 return SqlQueryResult.error("无法获取工作簿文件路径");
             }
             
-            // 处理SELECT *
-            List<String> selectedColumns = parsedSql.getSelectedColumns();
-            if (selectedColumns == null || selectedColumns.isEmpty() || 
-                (selectedColumns.size() == 1 && "*".equals(selectedColumns.get(0)))) {
-                selectedColumns = sheet.getColumnNames();
+            // 有JOIN时先执行哈希连接，之后在连接结果上完成聚合、排序和投影
+            List<String> sourcePaths = new ArrayList<>();
+            sourcePaths.add(workbookPath);
+            boolean joined = parsedSql.getJoinClauses() != null && !parsedSql.getJoinClauses().isEmpty();
+            if (joined) {
+                sheet = executeJoins(sheet, parsedSql, workbook, workbookPath, sourcePaths);
             }
             
+            // 处理SELECT *
+            List<String> selectedColumns = resolveSelectedColumns(sheet, parsedSql);
+            
             // 构建结果列定义
             List<SqlQueryResult.ColumnDefinition> resultColumns = buildResultColumns(sheet, selectedColumns, parsedSql);
             
             // 确定是否需要分页加载
-            boolean needsPaging = maxRows > defaultPageSize || parsedSql.getLimit() == null || parsedSql.getLimit() > defaultPageSize;
-            List<Map<String, Object>> resultRows;
+            // 分组聚合总是逐行读取，避免为了聚合把整个工作表加载到内存
+            boolean needsPaging = maxRows > defaultPageSize || parsedSql.getLimit() == null || parsedSql.getLimit() > defaultPageSize
+                    || needsGrouping(parsedSql);
+            
+            // 有sink时结果行边产生边写出，否则收集到列表中
+            List<Map<String, Object>> resultRows = sink != null ? null : new ArrayList<>();
+            Consumer<Map<String, Object>> output = sink != null ? sink::accept : resultRows::add;
+            
+            // 点查询、范围查询和按列排序通过索引只读取候选行
+            IndexedRows indexed = joined ? null : lookupIndexedRows(sheet, parsedSql, workbookPath, maxRows);
             
-            if (needsPaging) {
+            if (joined) {
+                // WHERE条件已在连接时应用
+                startSink(sink, resultColumns);
+                executeFilteredQuery(sheet, parsedSql, sheet.getRows(), maxRows, output);
+            } else if (indexed != null) {
+                startSink(sink, resultColumns);
+                if (indexed.ordered) {
+                    buildResultRows(indexed.sheet, parsedSql, indexed.rows, maxRows, output);
+                } else {
+                    executeFilteredQuery(indexed.sheet, parsedSql, indexed.rows, maxRows, output);
+                }
+            } else if (needsPaging) {
                 // 分页加载和处理
-                resultRows = executePagedQuery(sheet, parsedSql, workbookPath, maxRows);
+                startSink(sink, resultColumns);
+                executePagedQuery(sheet, parsedSql, workbookPath, maxRows, output);
             } else {
                 // 一次性加载所有数据
                 if (sheet.getRows() == null || sheet.getRows().isEmpty()) {
@@ -209,7 +378,8 @@ public class SelectQueryHandlerImpl implements SelectQueryHandler {
                 }
                 
                 // 执行查询
-                resultRows = executeQuery(sheet, parsedSql, maxRows);
+                startSink(sink, resultColumns);
+                executeQuery(sheet, parsedSql, maxRows, output);
             }
             
             // 创建查询结果
@@ -217,18 +387,270 @@ public class SelectQueryHandlerImpl implements SelectQueryHandler {
             SqlQueryResult result = SqlQueryResult.success(resultColumns, resultRows, executionTime);
             
             // 缓存查询结果
-            if (useQueryCache && workbookPath != null) {
-                queryCache.put(cacheKey, new CachedQueryResult(result, cacheTtlSeconds, workbookPath));
+            if (cacheable) {
+                queryCache.put(cacheKey, new CachedQueryResult(result, cacheTtlSeconds, sourcePaths.toArray(new String[0])));
             }
             
             return result;
             
+        } catch (QueryCancelledException e) {
+            throw e;
         } catch (Exception e) {
             log.error("执行SELECT查询异常: {}", e.getMessage(), e);
             return SqlQueryResult.error("执行SELECT查询异常: " + e.getMessage());
         }
     }
     
+    /**
+     * 在缓存的已加载工作表上按需构建索引并读取候选行，候选行再用完整的WHERE条件过滤：
+     * WHERE条件覆盖CREATE INDEX创建的多列索引的所有列时使用该索引；
+     * 否则WHERE中有"列 = 常量"或"列 IN (...)"条件时使用该列的哈希索引；
+     * 否则WHERE中有"列 LIKE 模式"条件且该列有CREATE INDEX ... USING NGRAM创建的三元组索引时，使用候选行最少的一个；
+     * 否则ORDER BY只有一列时按该列的有序索引顺序读取，省去排序并在取够 offset+limit 行后停止；
+     * 否则WHERE中有范围条件时使用候选行最少的一列的有序索引，或者用区块统计跳过不可能满足条件的区块。
+     * 区块统计或区块布隆过滤器已能跳过部分区块时不新建哈希索引和范围条件的有序索引，已有索引的候选行更少时才使用索引。
+     * 关闭自动创建索引时只使用CREATE INDEX创建的索引
+     *
+     * @return 过滤后的行，没有可用的条件或索引不适用时返回null，改为扫描
+     */
+    private IndexedRows lookupIndexedRows(ExcelSheet sheet, ParsedSql parsedSql, String workbookPath, int maxRows) {
+        // 超出数据缓存容量的工作表不加载到内存，仍然逐页扫描
+        if (estimateRowCount(sheet) > maxCachedRows) {
+            return null;
+        }
+        List<IndexDefinition> declared = indexStore.listIndexes(workbookPath, sheet.getName());
+        if (!indexAutoCreate && declared.isEmpty()) {
+            return null;
+        }
+        RowPredicate predicate = PredicateCompiler.compileWhere(parsedSql, sheet.getColumnNames());
+        List<IndexLookup> lookups = new ArrayList<>();
+        List<NgramLookup> ngramLookups = new ArrayList<>();
+        for (NgramLookup lookup : NgramLookup.of(predicate, sheet.getColumnNames())) {
+            for (IndexDefinition definition : declared) {
+                if (IndexDefinition.TYPE_NGRAM.equals(definition.getIndexType())
+                        && definition.getColumns().get(0).equals(lookup.getColumnName())) {
+                    ngramLookups.add(lookup);
+                    break;
+                }
+            }
+        }
+        for (IndexDefinition definition : declared) {
+            IndexLookup composite = definition.getColumns().size() > 1
+                    ? IndexLookup.of(predicate, definition.getColumns()) : null;
+            if (composite != null) {
+                lookups.add(composite);
+            }
+        }
+        IndexLookup single = IndexLookup.of(predicate);
+        if (single != null) {
+            lookups.add(single);
+        }
+        List<RangeLookup> ranges = RangeLookup.of(predicate);
+        ZoneMapFilter zoneFilter = ZoneMapFilter.of(predicate);
+        String orderColumn = resolveIndexOrderColumn(sheet, parsedSql);
+        if (lookups.isEmpty() && ngramLookups.isEmpty() && ranges.isEmpty() && zoneFilter == null
+                && orderColumn == null) {
+            return null;
+        }
+        
+        ExcelSheet loaded = sheetDataCache.getLoadedSheet(sheet, workbookPath);
+        if (loaded == null) {
+            return null;
+        }
+        
+        boolean[] blocks = candidateBlocks(loaded, zoneFilter, BloomFilterLookup.of(predicate));
+        long blockRows = blocks != null ? countBlockRows(loaded.getZoneMap(), blocks) : Long.MAX_VALUE;
+        
+        for (IndexLookup lookup : lookups) {
+            HashIndex index = findHashIndex(loaded, lookup.getColumnName(), blocks == null);
+            List<ExcelRow> candidates = index != null ? lookup.lookup(index, loaded.getRows()) : null;
+            if (candidates != null && candidates.size() <= blockRows) {
+                log.debug("通过列 {} 的哈希索引找到 {} 行候选行（共 {} 个键）", lookup.getColumnName(), candidates.size(),
+                        index.getKeyCount());
+                CancellationToken.current().addScannedRows(candidates.size());
+                return new IndexedRows(loaded, filterRows(candidates, predicate), false);
+            }
+        }
+        
+        IndexedRows ngramRows = lookupNgramRows(loaded, predicate, ngramLookups, blockRows);
+        if (ngramRows != null) {
+            return ngramRows;
+        }
+        
+        SortedIndex orderIndex = orderColumn != null ? findSortedIndex(loaded, orderColumn, true) : null;
+        if (orderIndex != null) {
+            return scanInIndexOrder(loaded, parsedSql, predicate, ranges, orderIndex, maxRows);
+        }
+        return lookupRangeRows(loaded, predicate, ranges, blocks, blockRows);
+    }
+    
+    /**
+     * 选择候选行最少的LIKE条件，通过三元组索引读取候选行
+     *
+     * @param blockRows 跳过部分区块后剩余的行数，候选行更多时不使用索引
+     * @return 过滤后的行，没有可用的三元组索引时返回null
+     */
+    private IndexedRows lookupNgramRows(ExcelSheet loaded, RowPredicate predicate, List<NgramLookup> lookups,
+                                        long blockRows) {
+        Map<String, NgramIndex> indexes = loaded.getNgramIndexes();
+        if (indexes == null || lookups.isEmpty()) {
+            return null;
+        }
+        NgramIndex bestIndex = null;
+        int[] bestPositions = null;
+        for (NgramLookup lookup : lookups) {
+            NgramIndex index = indexes.get(lookup.getColumnName());
+            int[] positions = index != null ? lookup.lookup(index) : null;
+            if (positions != null && (bestPositions == null || positions.length < bestPositions.length)) {
+                bestIndex = index;
+                bestPositions = positions;
+            }
+        }
+        if (bestPositions == null || bestPositions.length > blockRows) {
+            return null;
+        }
+        
+        List<ExcelRow> loadedRows = loaded.getRows();
+        List<ExcelRow> candidates = new ArrayList<>(bestPositions.length);
+        for (int position : bestPositions) {
+            candidates.add(loadedRows.get(position));
+        }
+        log.debug("通过列 {} 的三元组索引找到 {} 行候选行", bestIndex.getColumnName(), candidates.size());
+        CancellationToken.current().addScannedRows(candidates.size());
+        return new IndexedRows(loaded, filterRows(candidates, predicate), false);
+    }
+    
+    /**
+     * 获取哈希索引：多列索引、关闭自动创建或不允许构建时只使用已有的索引，否则按需构建
+     *
+     * @param key 列名，多列索引为逗号连接的列名
+     * @param build 是否允许构建新索引
+     */
+    private HashIndex findHashIndex(ExcelSheet loaded, String key, boolean build) {
+        Map<String, HashIndex> indexes = loaded.getSecondaryIndexes();
+        HashIndex index = indexes != null ? indexes.get(key) : null;
+        if (index == null && build && indexAutoCreate && loaded.getColumnNames().contains(key)) {
+            index = loaded.getSecondaryIndex(key);
+        }
+        return index;
+    }
+    
+    /**
+     * 获取有序索引：关闭自动创建或不允许构建时只使用已有的索引，否则按需构建
+     *
+     * @param build 是否允许构建新索引
+     */
+    private SortedIndex findSortedIndex(ExcelSheet loaded, String columnName, boolean build) {
+        if (build && indexAutoCreate) {
+            return loaded.getSortedIndex(columnName);
+        }
+        Map<String, SortedIndex> indexes = loaded.getSortedIndexes();
+        return indexes != null ? indexes.get(columnName) : null;
+    }
+    
+    /**
+     * 获取可以按有序索引顺序读取的ORDER BY列：只有一个排序列、没有分组聚合，且排序列是工作表的列
+     *
+     * @return 列名，不适用时返回null
+     */
+    private String resolveIndexOrderColumn(ExcelSheet sheet, ParsedSql parsedSql) {
+        List<ParsedSql.OrderByClause> orderByClauses = parsedSql.getOrderByClauses();
+        if (orderByClauses == null || orderByClauses.size() != 1 || needsGrouping(parsedSql)) {
+            return null;
+        }
+        String name = RowComparator.resolveAlias(orderByClauses.get(0).getColumn(), parsedSql.getColumnAliases());
+        int ordinal = PredicateCompiler.resolveOrdinal(name, sheet.getColumnNames());
+        return ordinal >= 0 ? sheet.getColumnNames().get(ordinal) : null;
+    }
+    
+    /**
+     * 按排序列的有序索引顺序读取行，排序列上的范围条件缩小读取区间，取够 offset+limit 行后停止
+     */
+    private IndexedRows scanInIndexOrder(ExcelSheet loaded, ParsedSql parsedSql, RowPredicate predicate,
+                                         List<RangeLookup> ranges, SortedIndex orderIndex, int maxRows) {
+        int[] range = null;
+        for (RangeLookup lookup : ranges) {
+            if (lookup.getColumnName().equals(orderIndex.getColumnName())) {
+                range = lookup.range(orderIndex);
+            }
+        }
+        
+        int offset = parsedSql.getOffset() != null ? parsedSql.getOffset() : 0;
+        int limit = parsedSql.getLimit() != null ? Math.min(parsedSql.getLimit(), maxRows) : maxRows;
+        long keep = (long) offset + limit;
+        boolean descending = parsedSql.getOrderByClauses().get(0).isDescending();
+        
+        List<ExcelRow> loadedRows = loaded.getRows();
+        List<ExcelRow> rows = new ArrayList<>();
+        CancellationToken token = CancellationToken.current();
+        int[] scanned = new int[1];
+        // 有范围条件时空值不可能满足条件，不需要读取
+        orderIndex.forEachPosition(range != null ? range[0] : 0, range != null ? range[1] : orderIndex.size(),
+                descending, range == null, position -> {
+                    token.checkpoint();
+                    scanned[0]++;
+                    ExcelRow row = loadedRows.get(position);
+                    if (predicate == null || predicate.test(row)) {
+                        rows.add(row);
+                    }
+                    return rows.size() < keep;
+                });
+        token.addScannedRows(scanned[0]);
+        log.debug("按列 {} 的有序索引顺序读取 {} 行，返回 {} 行", orderIndex.getColumnName(), scanned[0], rows.size());
+        return new IndexedRows(loaded, rows, true);
+    }
+    
+    /**
+     * 选择候选行最少的范围条件，通过有序索引读取候选行，并按行位置恢复工作表中的顺序；
+     * 跳过部分区块后剩余的行更少时只扫描剩余的区块
+     *
+     * @param blocks 可能有满足条件的行的区块，没有区块被跳过时为null
+     * @param blockRows 剩余区块的行数
+     * @return 过滤后的行，没有可用的有序索引且没有区块被跳过时返回null
+     */
+    private IndexedRows lookupRangeRows(ExcelSheet loaded, RowPredicate predicate, List<RangeLookup> ranges,
+                                        boolean[] blocks, long blockRows) {
+        SortedIndex bestIndex = null;
+        int[] bestRange = null;
+        for (RangeLookup lookup : ranges) {
+            SortedIndex index = findSortedIndex(loaded, lookup.getColumnName(), blocks == null);
+            int[] range = index != null ? lookup.range(index) : null;
+            if (range != null && (bestRange == null || range[1] - range[0] < bestRange[1] - bestRange[0])) {
+                bestIndex = index;
+                bestRange = range;
+            }
+        }
+        if (bestIndex == null || bestRange[1] - bestRange[0] > blockRows) {
+            return blocks != null ? new IndexedRows(loaded, scanBlocks(loaded, predicate, blocks), false) : null;
+        }
+        
+        int[] positions = new int[bestRange[1] - bestRange[0]];
+        int[] count = new int[1];
+        bestIndex.forEachPosition(bestRange[0], bestRange[1], false, false, position -> {
+            positions[count[0]++] = position;
+            return true;
+        });
+        Arrays.sort(positions);
+        
+        List<ExcelRow> loadedRows = loaded.getRows();
+        List<ExcelRow> candidates = new ArrayList<>(positions.length);
+        for (int position : positions) {
+            candidates.add(loadedRows.get(position));
+        }
+        log.debug("通过列 {} 的有序索引找到 {} 行候选行", bestIndex.getColumnName(), candidates.size());
+        CancellationToken.current().addScannedRows(candidates.size());
+        return new IndexedRows(loaded, filterRows(candidates, predicate), false);
+    }
+    
+    /**
+     * 流式输出时在第一行结果之前写出列定义
+     */
+    private void startSink(ResultSink sink, List<SqlQueryResult.ColumnDefinition> resultColumns) {
+        if (sink != null) {
+            sink.start(resultColumns);
+        }
+    }
+    
     /**
      * 生成查询缓存键
      */
@@ -240,10 +662,22 @@ public class SelectQueryHandlerImpl implements SelectQueryHandler {
             sb.append(parsedSql.getTargetTables().get(0)).append(":");
         }
         
+        if (parsedSql.getJoinClauses() != null) {
+            for (ParsedSql.JoinClause join : parsedSql.getJoinClauses()) {
+                sb.append(join.getJoinType()).append(" JOIN ").append(join.getRightTable())
+                        .append(" ").append(join.getRightTableAlias())
+                        .append(" ON ").append(join.getOnCondition()).append(":");
+            }
+        }
+        
         if (parsedSql.getSelectedColumns() != null) {
             sb.append(String.join(",", parsedSql.getSelectedColumns())).append(":");
         }
         
+        if (parsedSql.getGroupByColumns() != null && !parsedSql.getGroupByColumns().isEmpty()) {
+            sb.append("GROUP:").append(String.join(",", parsedSql.getGroupByColumns())).append(":");
+        }
+        
         if (parsedSql.getWhereCondition() != null) {
             sb.append(parsedSql.getWhereCondition()).append(":");
         }
@@ -267,165 +701,493 @@ public class SelectQueryHandlerImpl implements SelectQueryHandler {
         return sb.toString();
     }
     
+    @Override
+    public Set<String> getWorkbookPaths(ParsedSql parsedSql, String workbook) {
+        Set<String> paths = new LinkedHashSet<>();
+        collectWorkbookPaths(parsedSql, workbook, paths);
+        return paths;
+    }
+    
+    private void collectWorkbookPaths(ParsedSql parsedSql, String workbook, Set<String> paths) {
+        if (parsedSql.getUnionQueries() != null && !parsedSql.getUnionQueries().isEmpty()) {
+            for (ParsedSql unionQuery : parsedSql.getUnionQueries()) {
+                collectWorkbookPaths(unionQuery, workbook, paths);
+            }
+            return;
+        }
+        if (parsedSql.getFromWorkbook() != null) {
+            workbook = parsedSql.getFromWorkbook();
+        }
+        addWorkbookPath(workbook, paths);
+        if (parsedSql.getJoinClauses() != null) {
+            for (ParsedSql.JoinClause joinClause : parsedSql.getJoinClauses()) {
+                addWorkbookPath(joinClause.getRightWorkbook() != null ? joinClause.getRightWorkbook() : workbook, paths);
+            }
+        }
+    }
+    
+    private void addWorkbookPath(String workbook, Set<String> paths) {
+        String workbookPath = workbook != null ? resolveWorkbookPath(workbook) : null;
+        if (workbookPath != null) {
+            paths.add(workbookPath);
+        }
+    }
+    
     /**
-     * 执行分页查询
+     * 获取工作簿文件路径
+     *
+     * @param workbook 工作簿ID或名称
+     * @return 文件路径，工作簿不存在时返回null
      */
-    private List<Map<String, Object>> executePagedQuery(ExcelSheet sheet, ParsedSql parsedSql, String workbookPath, int maxRows) {
-        // 如果有聚合函数，我们需要加载所有数据进行处理
-        Map<String, String> aggregateFunctions = parsedSql.getAggregateFunctions();
-        boolean hasAggregates = aggregateFunctions != null && !aggregateFunctions.isEmpty();
+    private String resolveWorkbookPath(String workbook) {
+        String workbookPath = null;
+        try {
+            // 尝试将workbook转换为Long类型的ID
+            Long workbookId = Long.parseLong(workbook);
+            workbookPath = excelFileService.getWorkbookPathById(workbookId);
+        } catch (NumberFormatException e) {
+            // 如果转换失败，说明workbook不是ID而是名称，直接通过名称获取路径
+            log.debug("workbook参数不是有效的ID，将作为工作簿名称处理");
+        }
         
-        if (hasAggregates) {
-            // 加载所有数据
-            boolean loaded = sheet.loadRows(workbookPath);
-            if (!loaded) {
-                log.error("加载数据失败");
-                return Collections.emptyList();
+        if (workbookPath == null) {
+            // 通过工作簿名称获取路径
+            ExcelWorkbook excelWorkbook = excelFileService.loadWorkbook(workbook);
+            if (excelWorkbook != null) {
+                workbookPath = excelWorkbook.getFilePath();
             }
-            
-            // 使用常规查询处理聚合
-            return executeQuery(sheet, parsedSql, maxRows);
         }
-        
-        // 确定分页参数
+        return workbookPath;
+    }
+    
+    /**
+     * 执行UNION [ALL]：各个SELECT在分区并行执行器的线程池中并发执行（可以查询不同的工作簿），
+     * 结果按列位置合并，再应用末尾的ORDER BY、LIMIT、OFFSET，最大行数只限制合并后的结果
+     * 没有ORDER BY时合并的行逐行去重并直接输出，达到 offset+limit 行后停止；有ORDER BY时用有界堆保留前 offset+limit 行
+     */
+    private SqlQueryResult executeUnion(ParsedSql parsedSql, String workbook, int maxRows, long startTime, ResultSink sink) {
+        CancellationToken token = CancellationToken.current();
         int offset = parsedSql.getOffset() != null ? parsedSql.getOffset() : 0;
         int limit = parsedSql.getLimit() != null ? Math.min(parsedSql.getLimit(), maxRows) : maxRows;
+        int keep = (int) Math.min((long) offset + limit, Integer.MAX_VALUE);
+        boolean ordered = parsedSql.getOrderByClauses() != null && !parsedSql.getOrderByClauses().isEmpty();
+        
+        // 不排序也不去重时合并结果的前 offset+limit 行只来自每个SELECT的前 offset+limit 行，其他情况下各个SELECT不截断
+        int branchRows = ordered || parsedSql.isUnionDistinct() ? Integer.MAX_VALUE : keep;
+        List<CompletableFuture<SqlQueryResult>> futures = new ArrayList<>();
+        for (ParsedSql unionQuery : parsedSql.getUnionQueries()) {
+            futures.add(partitionedExecutor.supplyAsync(() -> handle(unionQuery, workbook, branchRows)));
+        }
+        List<SqlQueryResult> results = new ArrayList<>();
+        for (CompletableFuture<SqlQueryResult> future : futures) {
+            SqlQueryResult result;
+            try {
+                result = future.join();
+            } catch (CompletionException e) {
+                throw e.getCause() instanceof RuntimeException ? (RuntimeException) e.getCause() : e;
+            }
+            if (!result.isSuccess()) {
+                return result;
+            }
+            results.add(result);
+        }
         
-        // 计算需要加载的页数
-        int pageSize = defaultPageSize;
-        int startPage = offset / pageSize;
-        int totalPagesToLoad = (int) Math.ceil((double) (offset + limit) / pageSize);
-        
-        List<Map<String, Object>> allResults = new ArrayList<>();
-        
-        // 逐页加载和处理数据
-        for (int page = startPage; page < totalPagesToLoad; page++) {
-            int startRow = page * pageSize;
-            
-            // 加载当前页的数据
-            boolean loaded = sheet.loadRows(workbookPath, startRow, pageSize);
-            if (!loaded) {
-                log.error("加载第 {} 页数据失败", page);
-                continue;
+        // 以第一个SELECT的列作为结果列
+        List<SqlQueryResult.ColumnDefinition> firstColumns = results.get(0).getColumns();
+        List<SqlQueryResult.ColumnDefinition> resultColumns = new ArrayList<>();
+        List<ExcelColumn> unionColumns = new ArrayList<>();
+        for (int i = 0; i < firstColumns.size(); i++) {
+            SqlQueryResult.ColumnDefinition column = firstColumns.get(i);
+            resultColumns.add(SqlQueryResult.ColumnDefinition.builder()
+                    .name(column.getLabel())
+                    .label(column.getLabel())
+                    .dataType(column.getDataType())
+                    .aggregated(column.isAggregated())
+                    .build());
+            unionColumns.add(ExcelColumn.builder()
+                    .name(column.getLabel())
+                    .columnIndex(i)
+                    .dataType(column.getDataType())
+                    .build());
+        }
+        for (SqlQueryResult result : results) {
+            if (result.getColumns().size() != unionColumns.size()) {
+                return SqlQueryResult.error("UNION的各个SELECT列数必须相同");
             }
-            
-            // 处理当前页的数据
-            List<ExcelRow> pageRows = sheet.getRows();
-            if (pageRows == null || pageRows.isEmpty()) {
-                break; // 没有更多数据了
+        }
+        ExcelSheet unionSheet = ExcelSheet.builder().name("UNION").columns(unionColumns).build();
+        
+        List<Map<String, Object>> resultRows = sink != null ? null : new ArrayList<>();
+        Consumer<Map<String, Object>> output = sink != null ? sink::accept : resultRows::add;
+        Function<ExcelRow, Map<String, Object>> projection = newProjection(unionSheet, parsedSql);
+        TopNHeap<ExcelRow> heap = ordered ? new TopNHeap<>(keep, newRowComparator(unionSheet, parsedSql)) : null;
+        Set<List<Object>> seen = parsedSql.isUnionDistinct() ? new HashSet<>() : null;
+        startSink(sink, resultColumns);
+        
+        int merged = 0;
+        merge:
+        for (SqlQueryResult result : results) {
+            List<SqlQueryResult.ColumnDefinition> columns = result.getColumns();
+            for (Map<String, Object> resultRow : result.getRows()) {
+                if (heap == null && merged >= keep) {
+                    break merge;
+                }
+                token.checkpoint();
+                Object[] values = new Object[columns.size()];
+                for (int i = 0; i < values.length; i++) {
+                    values[i] = resultRow.get(columns.get(i).getLabel());
+                }
+                if (seen != null && !seen.add(Arrays.asList(values))) {
+                    continue;
+                }
+                ExcelRow row = new ExcelRow(merged++, unionSheet);
+                for (int i = 0; i < values.length; i++) {
+                    if (values[i] != null) {
+                        row.setCellValue(unionColumns.get(i).getName(), values[i]);
+                    }
+                }
+                if (heap != null) {
+                    heap.offer(row);
+                } else if (merged > offset) {
+                    output.accept(projection.apply(row));
+                }
             }
-            
-            // 应用WHERE条件过滤
-            if (parsedSql.getWhereCondition() != null && !parsedSql.getWhereCondition().isEmpty()) {
-                String whereCondition = resolveTableAliases(parsedSql.getWhereCondition(), parsedSql.getTableAliases());
-                pageRows = filterRowsBySimpleCondition(pageRows, whereCondition);
+        }
+        if (heap != null) {
+            List<ExcelRow> sortedRows = heap.toSortedList();
+            if (offset < sortedRows.size()) {
+                projectRows(unionSheet, parsedSql, sortedRows.subList(offset, sortedRows.size()), output);
             }
-            
-            // 计算当前页内的偏移量
-            int pageOffset = Math.max(0, offset - startRow);
-            int pageLimit = Math.min(pageSize - pageOffset, limit - allResults.size());
-            
-            // 如果当前页没有足够的行，跳过
-            if (pageOffset >= pageRows.size()) {
-                continue;
+        }
+        return SqlQueryResult.success(resultColumns, resultRows, System.currentTimeMillis() - startTime);
+    }
+    
+    /**
+     * 依次执行JOIN子句，每次以行数较少的一侧构建哈希表、逐行读取另一侧探测
+     * 最后一次连接时应用WHERE条件，只有满足条件的连接行保留在内存中
+     * 各个右表（可以位于不同工作簿）的元数据在分区并行执行器的线程池中并发加载
+     *
+     * @param sourcePaths 收集参与查询的工作簿文件路径，用于缓存失效判断
+     * @return 连接结果，列名为"表别名.列名"，行已放入内存
+     */
+    private ExcelSheet executeJoins(ExcelSheet sheet, ParsedSql parsedSql, String workbook, String workbookPath,
+                                    List<String> sourcePaths) throws IOException {
+        String tableName = parsedSql.getTargetTables().get(0);
+        Map<String, String> tableAliases = parsedSql.getTableAliases();
+        String qualifier = tableAliases != null && tableAliases.containsKey(tableName) ? tableAliases.get(tableName) : tableName;
+        
+        ExcelSheet leftSheet = sheet;
+        JoinInput leftInput = JoinInput.ofSheet(sheet, qualifier);
+        ExcelSheet joinedSheet = null;
+        List<ExcelRow> joinedRows = null;
+        
+        List<ParsedSql.JoinClause> joinClauses = parsedSql.getJoinClauses();
+        List<CompletableFuture<JoinSource>> joinSources = new ArrayList<>();
+        for (ParsedSql.JoinClause joinClause : joinClauses) {
+            String rightWorkbook = joinClause.getRightWorkbook() != null ? joinClause.getRightWorkbook() : workbook;
+            joinSources.add(partitionedExecutor.supplyAsync(
+                    () -> openJoinSource(rightWorkbook, joinClause.getRightTable())));
+        }
+        
+        for (int i = 0; i < joinClauses.size(); i++) {
+            ParsedSql.JoinClause joinClause = joinClauses.get(i);
+            JoinType joinType = JoinType.of(joinClause.getJoinType());
+            if (joinType == null) {
+                throw new IllegalArgumentException("不支持的JOIN类型: " + joinClause.getJoinType());
             }
-            
-            // 截取当前页的结果
-            int pageEndIndex = Math.min(pageOffset + pageLimit, pageRows.size());
-            List<ExcelRow> pageResultRows = pageRows.subList(pageOffset, pageEndIndex);
-            
-            // 转换为结果行并添加到总结果集
-            List<String> selectedColumns = parsedSql.getSelectedColumns();
-            if (selectedColumns == null || selectedColumns.isEmpty() || 
-                (selectedColumns.size() == 1 && "*".equals(selectedColumns.get(0)))) {
-                selectedColumns = sheet.getColumnNames();
+            JoinSource joinSource;
+            try {
+                joinSource = joinSources.get(i).join();
+            } catch (CompletionException e) {
+                throw e.getCause() instanceof RuntimeException ? (RuntimeException) e.getCause() : e;
             }
+            ExcelSheet rightSheet = joinSource.sheet;
+            recordTotalRows(rightSheet);
+            String rightPath = joinSource.workbookPath;
+            sourcePaths.add(rightPath);
+            JoinInput rightInput = JoinInput.ofSheet(rightSheet, joinClause.getRightTableAlias() != null
+                    ? joinClause.getRightTableAlias() : joinClause.getRightTable());
             
-            Map<String, String> columnAliases = parsedSql.getColumnAliases();
+            EquiJoinCondition condition = EquiJoinCondition.compile(joinClause.getOnCondition(), leftInput, rightInput);
+            long leftSize = joinedRows != null ? joinedRows.size() : estimateRowCount(leftSheet);
+            boolean buildLeft = leftSize <= estimateRowCount(rightSheet);
             
-            for (ExcelRow row : pageResultRows) {
-                Map<String, Object> resultRow = new HashMap<>();
-                
-                for (String colName : selectedColumns) {
-                    // 获取列别名
-                    String outputName = columnAliases != null && columnAliases.containsKey(colName) 
-                            ? columnAliases.get(colName) : colName;
-                    
-                    // 获取列值
-                    Object value = row.getCellValue(colName);
-                    resultRow.put(outputName, value);
+            // 右表按单列连接键连接且不需要保留未匹配的右表行时，用右表连接键列的哈希索引代替构建阶段
+            ExcelSheet indexedSheet = null;
+            HashIndex rightIndex = null;
+            if (joinType != JoinType.RIGHT && condition.getRightKeys().size() == 1
+                    && estimateRowCount(rightSheet) <= maxCachedRows
+                    && (indexAutoCreate || !indexStore.listIndexes(rightPath, rightSheet.getName()).isEmpty())) {
+                indexedSheet = sheetDataCache.getLoadedSheet(rightSheet, rightPath);
+                if (indexedSheet != null) {
+                    rightIndex = findHashIndex(indexedSheet, condition.getRightKeys().get(0).getName(), true);
                 }
-                
-                allResults.add(resultRow);
+            }
+            if (rightIndex != null) {
+                buildLeft = false;
+            }
+            HashJoin join = new HashJoin(joinType, leftInput, rightInput, condition, buildLeft, tableName);
+            if (rightIndex != null && !join.canUseBuildIndex()) {
+                rightIndex = null;
+            }
+            if (i == joinClauses.size() - 1) {
+                join.setFilter(PredicateCompiler.compileWhere(parsedSql, join.getOutputSheet().getColumnNames()));
             }
             
-            // 如果已经收集了足够的行，停止加载
-            if (allResults.size() >= limit) {
-                break;
+            List<ExcelRow> leftRows = joinedRows;
+            List<ExcelRow> output = new ArrayList<>();
+            if (rightIndex != null) {
+                join.useBuildIndex(rightIndex, indexedSheet.getRows());
+                scanJoinInput(leftSheet, leftRows, workbookPath, row -> join.probe(row, output::add));
+            } else if (buildLeft) {
+                scanJoinInput(leftSheet, leftRows, workbookPath, join::build);
+                scanJoinInput(rightSheet, null, rightPath, row -> join.probe(row, output::add));
+            } else {
+                scanJoinInput(rightSheet, null, rightPath, join::build);
+                scanJoinInput(leftSheet, leftRows, workbookPath, row -> join.probe(row, output::add));
             }
+            join.finish(output::add);
+            log.debug("{} JOIN {}：以{}为构建侧，输出 {} 行", joinType, joinClause.getRightTable(),
+                    rightIndex != null ? "右表索引" : buildLeft ? "左表" : "右表", output.size());
+            
+            joinedSheet = join.getOutputSheet();
+            joinedRows = output;
+            leftInput = JoinInput.ofJoined(joinedSheet);
         }
         
-        // 应用ORDER BY（如果需要）
-        if (parsedSql.getOrderByClauses() != null && !parsedSql.getOrderByClauses().isEmpty()) {
-            // 注意：这里的排序是在内存中进行的，可能不适合大型数据集
-            allResults = sortResultRows(allResults, parsedSql.getOrderByClauses());
+        joinedSheet.setRows(joinedRows);
+        joinedSheet.setDataLoaded(true);
+        return joinedSheet;
+    }
+    
+    /**
+     * 加载JOIN右表的元数据和所在工作簿的文件路径
+     */
+    private JoinSource openJoinSource(String workbook, String sheetName) {
+        if (!excelFileService.existsWorkbook(workbook)) {
+            throw new IllegalArgumentException("工作簿不存在: " + workbook);
         }
-        
-        return allResults;
+        if (!excelFileService.existsSheet(workbook, sheetName)) {
+            throw new IllegalArgumentException("工作表不存在: " + sheetName);
+        }
+        ExcelSheet sheet = excelFileService.getSheet(workbook, sheetName);
+        String workbookPath = resolveWorkbookPath(workbook);
+        if (workbookPath == null) {
+            throw new IllegalArgumentException("无法获取工作簿文件路径: " + workbook);
+        }
+        return new JoinSource(sheet, workbookPath);
     }
     
     /**
-     * 排序结果行
+     * 逐行读取连接的一侧：上一次连接的结果直接遍历，已加载的工作表遍历内存中的行，否则通过游标逐页读取
      */
-    private List<Map<String, Object>> sortResultRows(List<Map<String, Object>> rows, List<ParsedSql.OrderByClause> orderByClauses) {
-        List<Map<String, Object>> sortedRows = new ArrayList<>(rows);
-        
-        sortedRows.sort((row1, row2) -> {
-            for (ParsedSql.OrderByClause clause : orderByClauses) {
-                String columnName = clause.getColumn();
-                boolean descending = clause.isDescending();
-                
-                Object value1 = row1.get(columnName);
-                Object value2 = row2.get(columnName);
-                
-                // 处理null值
-                if (value1 == null && value2 == null) {
-                    continue;
-                }
-                if (value1 == null) {
-                    return descending ? 1 : -1;
-                }
-                if (value2 == null) {
-                    return descending ? -1 : 1;
-                }
-                
-                // 比较值
-                if (value1 instanceof Comparable && value2 instanceof Comparable) {
-                    try {
-                        @SuppressWarnings("unchecked")
-                        int result = ((Comparable<Object>) value1).compareTo(value2);
-                        if (result != 0) {
-                            return descending ? -result : result;
-                        }
-                    } catch (ClassCastException e) {
-                        // 如果类型不兼容，尝试字符串比较
-                        int result = value1.toString().compareTo(value2.toString());
-                        if (result != 0) {
-                            return descending ? -result : result;
-                        }
-                    }
-                } else {
-                    // 如果不是Comparable，使用toString比较
-                    int result = value1.toString().compareTo(value2.toString());
-                    if (result != 0) {
-                        return descending ? -result : result;
+    private void scanJoinInput(ExcelSheet sheet, List<ExcelRow> joinedRows, String workbookPath, Consumer<ExcelRow> action)
+            throws IOException {
+        CancellationToken token = CancellationToken.current();
+        Consumer<ExcelRow> checked = row -> {
+            token.checkpoint();
+            action.accept(row);
+        };
+        if (joinedRows != null) {
+            joinedRows.forEach(checked);
+            return;
+        }
+        if (sheet.getRows() != null && !sheet.getRows().isEmpty()) {
+            token.addScannedRows(sheet.getRows().size());
+            sheet.getRows().forEach(checked);
+            return;
+        }
+        try (SheetCursor cursor = sheet.openCursor(workbookPath)) {
+            List<ExcelRow> pageRows;
+            while (!(pageRows = cursor.nextPage(defaultPageSize)).isEmpty()) {
+                token.addScannedRows(pageRows.size());
+                pageRows.forEach(checked);
+            }
+        }
+    }
+    
+    /**
+     * 把工作表的数据行数计入当前查询需要扫描的总行数，用于报告查询进度
+     */
+    private void recordTotalRows(ExcelSheet sheet) {
+        Long dataRows = null;
+        if (sheet.getRows() != null && !sheet.getRows().isEmpty()) {
+            dataRows = (long) sheet.getRows().size();
+        } else if (sheet.getTotalRows() != null) {
+            int headerRows = sheet.getDataStartRowIndex() != null ? sheet.getDataStartRowIndex() : 1;
+            dataRows = (long) Math.max(0, sheet.getTotalRows() - headerRows);
+        }
+        CancellationToken.current().addTotalRows(dataRows);
+    }
+    
+    /**
+     * 估算工作表行数，用于选择哈希连接的构建侧
+     */
+    private long estimateRowCount(ExcelSheet sheet) {
+        if (sheet.getRows() != null && !sheet.getRows().isEmpty()) {
+            return sheet.getRows().size();
+        }
+        return sheet.getTotalRows() != null ? sheet.getTotalRows() : Long.MAX_VALUE;
+    }
+    
+    /**
+     * 执行分页查询
+     */
+    private void executePagedQuery(ExcelSheet sheet, ParsedSql parsedSql, String workbookPath, int maxRows,
+                                   Consumer<Map<String, Object>> output) {
+        // 有聚合函数或GROUP BY时，逐行读取并累加到分组中，不加载整个工作表
+        if (needsGrouping(parsedSql)) {
+            if (sheet.getRows() != null && !sheet.getRows().isEmpty()) {
+                executeQuery(sheet, parsedSql, maxRows, output);
+            } else {
+                executeStreamingAggregate(sheet, parsedSql, workbookPath, maxRows, output);
+            }
+            return;
+        }
+        
+        // 确定分页参数
+        int offset = parsedSql.getOffset() != null ? parsedSql.getOffset() : 0;
+        int limit = parsedSql.getLimit() != null ? Math.min(parsedSql.getLimit(), maxRows) : maxRows;
+        
+        List<String> selectedColumns = resolveSelectedColumns(sheet, parsedSql);
+        
+        Map<String, String> columnAliases = parsedSql.getColumnAliases();
+        RowPredicate predicate = PredicateCompiler.compileWhere(parsedSql, sheet.getColumnNames());
+        
+        // 有ORDER BY时扫描全部行，只在有界堆中保留前 offset+limit 行
+        if (parsedSql.getOrderByClauses() != null && !parsedSql.getOrderByClauses().isEmpty()) {
+            executeTopNQuery(sheet, parsedSql, workbookPath, predicate, offset, limit, maxRows, output);
+            return;
+        }
+        
+        int returned = 0;
+        int skipped = 0;
+        
+        // 整个查询只打开一次文件，从同一个游标中逐页读取
+        try (SheetCursor cursor = sheet.openCursor(workbookPath)) {
+            // 没有WHERE条件时OFFSET直接在游标上跳过，不做单元格转换
+            if (predicate == null && offset > 0) {
+                skipped = cursor.skip(offset);
+            }
+            
+            // 逐批读取并应用WHERE条件过滤
+            FilteredScan scan = new FilteredScan(cursor, predicate);
+            List<ExcelRow> pageRows;
+            while (returned < limit && (pageRows = scan.next()) != null) {
+                for (ExcelRow row : pageRows) {
+                    // 跳过OFFSET之前的行
+                    if (skipped < offset) {
+                        skipped++;
+                        continue;
+                    }
+                    
+                    Map<String, Object> resultRow = new HashMap<>();
+                    for (String colName : selectedColumns) {
+                        // 获取列别名
+                        String outputName = columnAliases != null && columnAliases.containsKey(colName) 
+                                ? columnAliases.get(colName) : colName;
+                        
+                        // 获取列值
+                        Object value = row.getCellValue(colName);
+                        resultRow.put(outputName, value);
+                    }
+                    
+                    // 读到一行就写出，不等整页处理完
+                    output.accept(resultRow);
+                    returned++;
+                    
+                    // 如果已经收集了足够的行，停止读取
+                    if (returned >= limit) {
+                        break;
                     }
                 }
             }
-            return 0;
-        });
+            log.debug("分页查询读取了 {} 页数据，返回 {} 行", scan.pages, returned);
+        } catch (QueryCancelledException e) {
+            throw e;
+        } catch (Exception e) {
+            // 读取失败时只扫描了部分页，不能作为成功结果返回或缓存
+            log.error("分页读取工作表数据失败: {}", e.getMessage(), e);
+            throw new SqlExecutionException("分页读取工作表数据失败: " + e.getMessage(), e);
+        }
+    }
+    
+    /**
+     * 执行 ORDER BY ... LIMIT 查询：逐页扫描，用有界堆保留排序后的前 offset+limit 行；
+     * offset+limit 超过排序缓存行数时改用外部归并排序
+     */
+    private void executeTopNQuery(ExcelSheet sheet, ParsedSql parsedSql, String workbookPath, RowPredicate predicate,
+                                  int offset, int limit, int maxRows, Consumer<Map<String, Object>> output) {
+        if ((long) offset + limit > sortBufferRows) {
+            executeExternalSortQuery(sheet, parsedSql, workbookPath, predicate, offset, limit, output);
+            return;
+        }
         
-        return sortedRows;
+        TopNHeap<ExcelRow> heap = new TopNHeap<>((int) Math.min((long) offset + limit, Integer.MAX_VALUE),
+                newRowComparator(sheet, parsedSql));
+        
+        CancellationToken token = CancellationToken.current();
+        try (SheetCursor cursor = sheet.openCursor(workbookPath)) {
+            FilteredScan scan = new FilteredScan(cursor, predicate);
+            List<ExcelRow> pageRows;
+            while ((pageRows = scan.next()) != null) {
+                for (ExcelRow row : pageRows) {
+                    token.checkpoint();
+                    heap.offer(row);
+                }
+            }
+        } catch (QueryCancelledException e) {
+            throw e;
+        } catch (Exception e) {
+            // 堆中只有部分行参与了排序，不能作为成功结果返回或缓存
+            log.error("分页读取工作表数据失败: {}", e.getMessage(), e);
+            throw new SqlExecutionException("分页读取工作表数据失败: " + e.getMessage(), e);
+        }
+        
+        buildResultRows(sheet, parsedSql, heap.toSortedList(), maxRows, output);
+    }
+    
+    /**
+     * 使用外部归并排序执行 ORDER BY 查询：超出缓存的行排序后溢写到临时目录，
+     * 归并时跳过前 offset 行，取够 limit 行即停止
+     */
+    private void executeExternalSortQuery(ExcelSheet sheet, ParsedSql parsedSql, String workbookPath,
+                                          RowPredicate predicate, int offset, int limit,
+                                          Consumer<Map<String, Object>> output) {
+        CancellationToken token = CancellationToken.current();
+        try (ExternalSorter sorter = new ExternalSorter(newRowComparator(sheet, parsedSql), sheet,
+                sortBufferRows, Paths.get(tempPath));
+             SheetCursor cursor = sheet.openCursor(workbookPath)) {
+            FilteredScan scan = new FilteredScan(cursor, predicate);
+            List<ExcelRow> pageRows;
+            while ((pageRows = scan.next()) != null) {
+                for (ExcelRow row : pageRows) {
+                    token.checkpoint();
+                    sorter.add(row);
+                }
+            }
+            
+            // 边归并边投影写出，结果行不在内存中累积
+            Function<ExcelRow, Map<String, Object>> projection = newProjection(sheet, parsedSql);
+            Iterator<ExcelRow> sorted = sorter.sortedIterator();
+            for (int skipped = 0; skipped < offset && sorted.hasNext(); skipped++) {
+                token.checkpoint();
+                sorted.next();
+            }
+            int returned = 0;
+            while (returned < limit && sorted.hasNext()) {
+                token.checkpoint();
+                output.accept(projection.apply(sorted.next()));
+                returned++;
+            }
+            log.debug("外部排序溢写了 {} 个有序段，返回 {} 行", sorter.getRunCount(), returned);
+        } catch (QueryCancelledException e) {
+            throw e;
+        } catch (Exception e) {
+            // 临时目录读写失败时结果不完整，不能作为成功结果返回或缓存
+            log.error("外部排序失败: {}", e.getMessage(), e);
+            throw new SqlExecutionException("外部排序失败: " + e.getMessage(), e);
+        }
     }
     
     /**
@@ -496,343 +1258,393 @@ public class SelectQueryHandlerImpl implements SelectQueryHandler {
     /**
      * 执行查询并返回结果行
      */
-    private List<Map<String, Object>> executeQuery(ExcelSheet sheet, ParsedSql parsedSql, int maxRows) {
+    private void executeQuery(ExcelSheet sheet, ParsedSql parsedSql, int maxRows, Consumer<Map<String, Object>> output) {
         List<ExcelRow> rows = sheet.getRows();
         
         if (rows == null || rows.isEmpty()) {
-            return Collections.emptyList();
+            return;
         }
         
         // 应用WHERE条件过滤
-        if (parsedSql.getWhereCondition() != null && !parsedSql.getWhereCondition().isEmpty()) {
-            // 处理表别名
-            String whereCondition = resolveTableAliases(parsedSql.getWhereCondition(), parsedSql.getTableAliases());
-            rows = filterRowsBySimpleCondition(rows, whereCondition);
-        }
+        RowPredicate predicate = PredicateCompiler.compileWhere(parsedSql, sheet.getColumnNames());
         
-        // 应用GROUP BY（简化实现）
-        boolean hasAggregates = parsedSql.getAggregateFunctions() != null && !parsedSql.getAggregateFunctions().isEmpty();
-        if (parsedSql.getGroupByColumns() != null && !parsedSql.getGroupByColumns().isEmpty() || hasAggregates) {
-            rows = groupRows(rows, parsedSql);
-        }
-        
-        // 应用ORDER BY（简化实现）
-        if (parsedSql.getOrderByClauses() != null && !parsedSql.getOrderByClauses().isEmpty()) {
-            rows = sortRows(rows, parsedSql.getOrderByClauses());
+        // 区块统计能跳过部分区块时只扫描剩余区块
+        boolean[] blocks = candidateBlocks(sheet, ZoneMapFilter.of(predicate), BloomFilterLookup.of(predicate));
+        if (blocks != null) {
+            executeFilteredQuery(sheet, parsedSql, scanBlocks(sheet, predicate, blocks), maxRows, output);
+            return;
         }
         
-        // 应用LIMIT和OFFSET
-        int offset = parsedSql.getOffset() != null ? parsedSql.getOffset() : 0;
-        int limit = parsedSql.getLimit() != null ? Math.min(parsedSql.getLimit(), maxRows) : maxRows;
+        CancellationToken.current().addScannedRows(rows.size());
         
-        // 截取结果集
-        if (offset >= rows.size()) {
-            return Collections.emptyList();
+        // 行数达到阈值时按行区间分区并行执行
+        if (partitionedExecutor.isParallel(rows.size())) {
+            executeParallelQuery(sheet, parsedSql, rows, predicate, maxRows, output);
+            return;
         }
         
-        int endIndex = Math.min(offset + limit, rows.size());
-        rows = rows.subList(offset, endIndex);
-        
-        // 转换为结果行
-        List<String> selectedColumns = parsedSql.getSelectedColumns();
-        if (selectedColumns == null || selectedColumns.isEmpty() || 
-            (selectedColumns.size() == 1 && "*".equals(selectedColumns.get(0)))) {
-            selectedColumns = sheet.getColumnNames();
+        if (predicate != null) {
+            rows = filterRows(rows, predicate);
         }
-
-        // 处理聚合函数和列别名
-        Map<String, String> columnAliases = parsedSql.getColumnAliases();
-        Map<String, String> aggregateFunctions = parsedSql.getAggregateFunctions();
         
-        List<Map<String, Object>> resultRows = new ArrayList<>();
-        for (ExcelRow row : rows) {
-            Map<String, Object> resultRow = new HashMap<>();
-            
-            for (String colName : selectedColumns) {
-                // 确定输出的列名（使用别名）
-                String outputName = columnAliases != null && columnAliases.containsKey(colName) 
-                        ? columnAliases.get(colName) : colName;
-                
-                // 处理聚合函数列
-                if (aggregateFunctions != null && aggregateFunctions.containsKey(colName)) {
-                    // 聚合列的值已经在 groupRows 中计算好了
-                    Object value = row.getCellValue(colName);
-                    resultRow.put(outputName, value);
-                } else if (colName.contains("(") && colName.contains(")")) {
-                    // 处理其他函数列
-                    Object value = row.getCellValue(colName);
-                    resultRow.put(outputName, value);
-                } else {
-                    // 普通列
-                    Object value = row.getCellValue(colName);
-                    resultRow.put(outputName, value);
+        executeFilteredQuery(sheet, parsedSql, rows, maxRows, output);
+    }
+    
+    /**
+     * 分区并行执行：每个分区独立过滤，并在分区内完成部分聚合或局部排序（前 offset+limit 行），
+     * 再按分区顺序合并，结果与顺序执行一致
+     */
+    private void executeParallelQuery(ExcelSheet sheet, ParsedSql parsedSql, List<ExcelRow> rows,
+                                      RowPredicate predicate, int maxRows, Consumer<Map<String, Object>> output) {
+        log.debug("分区并行执行查询，共 {} 行", rows.size());
+        if (needsGrouping(parsedSql)) {
+            List<HashAggregator> partials = partitionedExecutor.mapPartitions(rows, partition -> {
+                CancellationToken token = CancellationToken.current();
+                HashAggregator aggregator = newAggregator(sheet, parsedSql);
+                for (ExcelRow row : partition) {
+                    token.checkpoint();
+                    if (predicate == null || predicate.test(row)) {
+                        aggregator.accept(row);
+                    }
                 }
+                return aggregator;
+            });
+            HashAggregator aggregator = partials.get(0);
+            for (int i = 1; i < partials.size(); i++) {
+                aggregator.merge(partials.get(i));
             }
-            
-            resultRows.add(resultRow);
+            List<ExcelRow> groups = aggregator.getResult(sheet);
+            buildResultRows(sheet, parsedSql, orderRows(sheet, parsedSql, groups, maxRows), maxRows, output);
+            return;
         }
         
-        return resultRows;
+        List<List<ExcelRow>> partials = partitionedExecutor.mapPartitions(rows, partition -> {
+            List<ExcelRow> matched = predicate != null ? filterRows(partition, predicate) : partition;
+            return orderRows(sheet, parsedSql, matched, maxRows);
+        });
+        List<ExcelRow> merged = new ArrayList<>();
+        for (List<ExcelRow> partial : partials) {
+            merged.addAll(partial);
+        }
+        // 各分区已局部有序，合并后再取一次前 offset+limit 行
+        buildResultRows(sheet, parsedSql, orderRows(sheet, parsedSql, merged, maxRows), maxRows, output);
     }
     
     /**
-     * 解析表别名，将条件中的表别名替换为实际表名
+     * 对已按WHERE条件过滤的行应用聚合、排序、分页和投影
      */
-    private String resolveTableAliases(String condition, Map<String, String> tableAliases) {
-        if (condition == null || tableAliases == null || tableAliases.isEmpty()) {
-            return condition;
+    private void executeFilteredQuery(ExcelSheet sheet, ParsedSql parsedSql, List<ExcelRow> rows, int maxRows,
+                                      Consumer<Map<String, Object>> output) {
+        if (partitionedExecutor.isParallel(rows.size())) {
+            executeParallelQuery(sheet, parsedSql, rows, null, maxRows, output);
+            return;
         }
         
-        String result = condition;
-        for (Map.Entry<String, String> entry : tableAliases.entrySet()) {
-            String tableName = entry.getKey();
-            String alias = entry.getValue();
-            
-            // 替换形如 "alias.column" 的模式为 "tableName.column"
-            result = result.replaceAll(
-                    "\\b" + alias + "\\.(\\w+)\\b", 
-                    tableName + ".$1");
+        // 应用GROUP BY和聚合函数
+        if (needsGrouping(parsedSql)) {
+            CancellationToken token = CancellationToken.current();
+            HashAggregator aggregator = newAggregator(sheet, parsedSql);
+            for (ExcelRow row : rows) {
+                token.checkpoint();
+                aggregator.accept(row);
+            }
+            rows = aggregator.getResult(sheet);
         }
         
-        return result;
+        buildResultRows(sheet, parsedSql, orderRows(sheet, parsedSql, rows, maxRows), maxRows, output);
     }
     
     /**
-     * 简单条件过滤（实际应该使用表达式解析器）
+     * 流式聚合：从游标逐页读取、过滤并累加，不保留输入行
      */
-    private List<ExcelRow> filterRowsBySimpleCondition(List<ExcelRow> rows, String condition) {
-        // 这里只是一个简化示例，实际应该解析WHERE条件
-        // 例如 "age > 30" 或 "name = 'John'"
-        return rows.stream()
-                .filter(row -> evaluateCondition(row, condition))
-                .collect(Collectors.toList());
+    private void executeStreamingAggregate(ExcelSheet sheet, ParsedSql parsedSql, String workbookPath, int maxRows,
+                                           Consumer<Map<String, Object>> output) {
+        RowPredicate predicate = PredicateCompiler.compileWhere(parsedSql, sheet.getColumnNames());
+        HashAggregator aggregator = newAggregator(sheet, parsedSql);
+        CancellationToken token = CancellationToken.current();
+        
+        try (SheetCursor cursor = sheet.openCursor(workbookPath)) {
+            FilteredScan scan = new FilteredScan(cursor, predicate);
+            List<ExcelRow> pageRows;
+            while ((pageRows = scan.next()) != null) {
+                for (ExcelRow row : pageRows) {
+                    token.checkpoint();
+                    aggregator.accept(row);
+                }
+            }
+        } catch (QueryCancelledException e) {
+            throw e;
+        } catch (Exception e) {
+            // 分组只累加了部分行，不能作为成功结果返回或缓存
+            log.error("聚合读取工作表数据失败: {}", e.getMessage(), e);
+            throw new SqlExecutionException("聚合读取工作表数据失败: " + e.getMessage(), e);
+        }
+        log.debug("流式聚合完成，分组数: {}", aggregator.getGroupCount());
+        
+        buildResultRows(sheet, parsedSql, orderRows(sheet, parsedSql, aggregator.getResult(sheet), maxRows), maxRows, output);
     }
     
     /**
-     * 简单条件评估（实际应该使用表达式解析器）
+     * 是否需要分组聚合
      */
-    private boolean evaluateCondition(ExcelRow row, String condition) {
-        // 处理AND条件
-        if (condition.contains(" AND ")) {
-            String[] andConditions = condition.split(" AND ");
-            return Arrays.stream(andConditions)
-                    .allMatch(subCondition -> evaluateCondition(row, subCondition.trim()));
-        }
-        
-        // 处理OR条件
-        if (condition.contains(" OR ")) {
-            String[] orConditions = condition.split(" OR ");
-            return Arrays.stream(orConditions)
-                    .anyMatch(subCondition -> evaluateCondition(row, subCondition.trim()));
-        }
-
-        // 处理各种比较运算符
-        if (condition.contains(">=")) {
-            return evaluateComparisonCondition(row, condition, ">=");
-        } else if (condition.contains("<=")) {
-            return evaluateComparisonCondition(row, condition, "<=");
-        } else if (condition.contains("<>") || condition.contains("!=")) {
-            String operator = condition.contains("<>") ? "<>" : "!=";
-            return evaluateComparisonCondition(row, condition, operator);
-        } else if (condition.contains(">")) {
-            return evaluateComparisonCondition(row, condition, ">");
-        } else if (condition.contains("<")) {
-            return evaluateComparisonCondition(row, condition, "<");
-        } else if (condition.contains("=")) {
-            return evaluateComparisonCondition(row, condition, "=");
-        } else if (condition.toLowerCase().contains(" like ")) {
-            return evaluateLikeCondition(row, condition);
-        } else if (condition.toLowerCase().contains(" in ")) {
-            return evaluateInCondition(row, condition);
-        }
-        
-        // 无法识别的条件，默认通过
-        log.warn("无法识别的WHERE条件: {}", condition);
-        return true;
+    private boolean needsGrouping(ParsedSql parsedSql) {
+        boolean hasAggregates = parsedSql.getAggregateFunctions() != null && !parsedSql.getAggregateFunctions().isEmpty();
+        boolean hasGroupBy = parsedSql.getGroupByColumns() != null && !parsedSql.getGroupByColumns().isEmpty();
+        return hasAggregates || hasGroupBy;
+    }
+    
+    private HashAggregator newAggregator(ExcelSheet sheet, ParsedSql parsedSql) {
+        return new HashAggregator(parsedSql.getGroupByColumns(), parsedSql.getAggregateFunctions(), sheet.getColumnNames());
     }
     
     /**
-     * 评估比较条件
+     * 应用ORDER BY
+     * 结果只需要前 offset+limit 行时使用有界堆，否则完整排序
      */
-    private boolean evaluateComparisonCondition(ExcelRow row, String condition, String operator) {
-        String[] parts = condition.split(Pattern.quote(operator));
-        if (parts.length != 2) {
-            log.warn("无效的比较条件: {}", condition);
-            return true;
+    private List<ExcelRow> orderRows(ExcelSheet sheet, ParsedSql parsedSql, List<ExcelRow> rows, int maxRows) {
+        if (parsedSql.getOrderByClauses() == null || parsedSql.getOrderByClauses().isEmpty()) {
+            return rows;
         }
         
-        String columnName = parts[0].trim();
-        String expectedValueStr = parts[1].trim().replace("'", "").replace("\"", "");
-        
-        Object actualValue = row.getCellValue(columnName);
-        if (actualValue == null) {
-            // 对于NULL值的特殊处理
-            return expectedValueStr.equalsIgnoreCase("null");
+        int offset = parsedSql.getOffset() != null ? parsedSql.getOffset() : 0;
+        int limit = parsedSql.getLimit() != null ? Math.min(parsedSql.getLimit(), maxRows) : maxRows;
+        long keep = (long) offset + limit;
+        RowComparator comparator = newRowComparator(sheet, parsedSql);
+        
+        if (keep < rows.size()) {
+            CancellationToken token = CancellationToken.current();
+            TopNHeap<ExcelRow> heap = new TopNHeap<>((int) keep, comparator);
+            for (ExcelRow row : rows) {
+                token.checkpoint();
+                heap.offer(row);
+            }
+            return heap.toSortedList();
         }
         
-        // 尝试进行数值比较
-        if (actualValue instanceof Number && isNumeric(expectedValueStr)) {
-            double actualDouble = ((Number) actualValue).doubleValue();
-            double expectedDouble = Double.parseDouble(expectedValueStr);
-            
-            switch (operator) {
-                case "=": return actualDouble == expectedDouble;
-                case "<>":
-                case "!=": return actualDouble != expectedDouble;
-                case ">": return actualDouble > expectedDouble;
-                case "<": return actualDouble < expectedDouble;
-                case ">=": return actualDouble >= expectedDouble;
-                case "<=": return actualDouble <= expectedDouble;
-                default: return false;
-            }
-        }
-        
-        // 字符串比较
-        String actualStr = actualValue.toString();
-        switch (operator) {
-            case "=": return actualStr.equals(expectedValueStr);
-            case "<>":
-            case "!=": return !actualStr.equals(expectedValueStr);
-            case ">": return actualStr.compareTo(expectedValueStr) > 0;
-            case "<": return actualStr.compareTo(expectedValueStr) < 0;
-            case ">=": return actualStr.compareTo(expectedValueStr) >= 0;
-            case "<=": return actualStr.compareTo(expectedValueStr) <= 0;
-            default: return false;
-        }
+        List<ExcelRow> sortedRows = new ArrayList<>(rows);
+        partitionedExecutor.sort(sortedRows, comparator);
+        return sortedRows;
+    }
+    
+    private RowComparator newRowComparator(ExcelSheet sheet, ParsedSql parsedSql) {
+        return new RowComparator(parsedSql.getOrderByClauses(), parsedSql.getColumnAliases(), sheet.getColumnNames());
     }
     
     /**
-     * 评估LIKE条件
+     * 对已排序的行应用LIMIT/OFFSET并转换为结果行
      */
-    private boolean evaluateLikeCondition(ExcelRow row, String condition) {
-        String[] parts = condition.toLowerCase().split(" like ");
-        if (parts.length != 2) {
-            log.warn("无效的LIKE条件: {}", condition);
-            return true;
-        }
-        
-        String columnName = parts[0].trim();
-        String pattern = parts[1].trim().replace("'", "").replace("\"", "");
+    private void buildResultRows(ExcelSheet sheet, ParsedSql parsedSql, List<ExcelRow> rows, int maxRows,
+                                 Consumer<Map<String, Object>> output) {
+        // 应用LIMIT和OFFSET
+        int offset = parsedSql.getOffset() != null ? parsedSql.getOffset() : 0;
+        int limit = parsedSql.getLimit() != null ? Math.min(parsedSql.getLimit(), maxRows) : maxRows;
         
-        Object actualValue = row.getCellValue(columnName);
-        if (actualValue == null) {
-            return false;
+        // 截取结果集
+        if (offset >= rows.size()) {
+            return;
         }
         
-        String actualStr = actualValue.toString();
-        // 将SQL LIKE模式转换为Java正则表达式
-        pattern = pattern.replace("%", ".*").replace("_", ".");
-        
-        return actualStr.matches(pattern);
+        int endIndex = (int) Math.min((long) offset + limit, rows.size());
+        projectRows(sheet, parsedSql, rows.subList(offset, endIndex), output);
     }
     
     /**
-     * 评估IN条件
+     * 获取SELECT的列，* 展开为所有列，表别名.* 展开为该表的所有列
      */
-    private boolean evaluateInCondition(ExcelRow row, String condition) {
-        String[] parts = condition.toLowerCase().split(" in ");
-        if (parts.length != 2) {
-            log.warn("无效的IN条件: {}", condition);
-            return true;
+    private List<String> resolveSelectedColumns(ExcelSheet sheet, ParsedSql parsedSql) {
+        List<String> selectedColumns = parsedSql.getSelectedColumns();
+        if (selectedColumns == null || selectedColumns.isEmpty() || 
+            (selectedColumns.size() == 1 && "*".equals(selectedColumns.get(0)))) {
+            return sheet.getColumnNames();
         }
-        
-        String columnName = parts[0].trim();
-        String valuesStr = parts[1].trim();
-        
-        // 提取括号中的值列表
-        if (!valuesStr.startsWith("(") || !valuesStr.endsWith(")")) {
-            log.warn("IN条件格式错误: {}", condition);
-            return true;
+        if (selectedColumns.stream().noneMatch(c -> c.endsWith(".*"))) {
+            return selectedColumns;
         }
         
-        // 移除括号并分割值
-        valuesStr = valuesStr.substring(1, valuesStr.length() - 1);
-        List<String> values = Arrays.stream(valuesStr.split(","))
-                .map(v -> v.trim().replace("'", "").replace("\"", ""))
-                .collect(Collectors.toList());
-        
-        Object actualValue = row.getCellValue(columnName);
-        if (actualValue == null) {
-            return values.contains("null");
+        List<String> expanded = new ArrayList<>();
+        for (String colName : selectedColumns) {
+            if (!colName.endsWith(".*")) {
+                expanded.add(colName);
+                continue;
+            }
+            String prefix = colName.substring(0, colName.length() - 1);
+            int size = expanded.size();
+            for (String columnName : sheet.getColumnNames()) {
+                if (columnName.regionMatches(true, 0, prefix, 0, prefix.length())) {
+                    expanded.add(columnName);
+                }
+            }
+            if (expanded.size() == size) {
+                // 单表查询中列名不带表名，表名.* 即所有列
+                expanded.addAll(sheet.getColumnNames());
+            }
         }
-        
-        return values.contains(actualValue.toString());
+        return expanded;
     }
     
     /**
-     * 检查字符串是否为数值
+     * 将行转换为结果行，应用列选择和列别名，按行的顺序写出
      */
-    private boolean isNumeric(String str) {
-        try {
-            Double.parseDouble(str);
-            return true;
-        } catch (NumberFormatException e) {
-            return false;
+    private void projectRows(ExcelSheet sheet, ParsedSql parsedSql, List<ExcelRow> rows,
+                             Consumer<Map<String, Object>> output) {
+        Function<ExcelRow, Map<String, Object>> projection = newProjection(sheet, parsedSql);
+        CancellationToken token = CancellationToken.current();
+        if (!partitionedExecutor.isParallel(rows.size())) {
+            for (ExcelRow row : rows) {
+                token.checkpoint();
+                output.accept(projection.apply(row));
+            }
+            return;
+        }
+        
+        // 结果行较多时分区并行投影，按分区顺序写出
+        List<List<Map<String, Object>>> partials = partitionedExecutor.mapPartitions(rows, partition -> {
+            List<Map<String, Object>> projected = new ArrayList<>(partition.size());
+            for (ExcelRow row : partition) {
+                token.checkpoint();
+                projected.add(projection.apply(row));
+            }
+            return projected;
+        });
+        for (List<Map<String, Object>> partial : partials) {
+            partial.forEach(output);
         }
     }
     
     /**
-     * 简单分组，不计算聚合函数，每组返回第一行
+     * 创建行到结果行的转换，应用列选择和列别名
      */
-    private List<ExcelRow> simpleGroupBy(List<ExcelRow> rows, List<String> groupByColumns) {
-        Map<String, ExcelRow> groups = new HashMap<>();
+    private Function<ExcelRow, Map<String, Object>> newProjection(ExcelSheet sheet, ParsedSql parsedSql) {
+        List<String> selectedColumns = resolveSelectedColumns(sheet, parsedSql);
+
+        // 处理聚合函数和列别名
+        Map<String, String> columnAliases = parsedSql.getColumnAliases();
+        Map<String, String> aggregateFunctions = parsedSql.getAggregateFunctions();
         
-        for (ExcelRow row : rows) {
-            // 构建分组键
-            StringBuilder keyBuilder = new StringBuilder();
-            for (String groupByColumn : groupByColumns) {
-                Object value = row.getCellValue(groupByColumn);
-                keyBuilder.append(value == null ? "null" : value.toString()).append(":");
+        // 不带表名的列引用解析为连接结果中"表别名.列名"形式的列
+        Map<String, String> resolvedNames = new HashMap<>();
+        List<String> columnNames = sheet.getColumnNames();
+        for (String colName : selectedColumns) {
+            int ordinal = PredicateCompiler.resolveOrdinal(colName, columnNames);
+            if (ordinal >= 0 && !columnNames.get(ordinal).equals(colName)) {
+                resolvedNames.put(colName, columnNames.get(ordinal));
             }
-            String groupKey = keyBuilder.toString();
-            
-            // 保留每组的第一行
-            groups.putIfAbsent(groupKey, row);
         }
         
-        return new ArrayList<>(groups.values());
+        return row -> {
+            Map<String, Object> resultRow = new HashMap<>();
+            
+            for (String colName : selectedColumns) {
+                // 确定输出的列名（使用别名）
+                String outputName = columnAliases != null && columnAliases.containsKey(colName) 
+                        ? columnAliases.get(colName) : colName;
+                
+                // 处理聚合函数列
+                if (aggregateFunctions != null && aggregateFunctions.containsKey(colName)) {
+                    // 聚合列的值已经在 groupRows 中计算好了
+                    Object value = row.getCellValue(colName);
+                    resultRow.put(outputName, value);
+                } else if (colName.contains("(") && colName.contains(")")) {
+                    // 处理其他函数列
+                    Object value = row.getCellValue(colName);
+                    resultRow.put(outputName, value);
+                } else {
+                    // 普通列
+                    Object value = row.getCellValue(colName);
+                    if (value == null && resolvedNames.containsKey(colName)) {
+                        value = row.getCellValue(resolvedNames.get(colName));
+                    }
+                    resultRow.put(outputName, value);
+                }
+            }
+            
+            return resultRow;
+        };
     }
     
     /**
-     * 简单排序实现
+     * 通过区块统计和区块布隆过滤器计算已加载工作表中可能有满足WHERE条件的行的区块
+     *
+     * @return 下标为区块，没有区块统计、没有可用条件或没有区块被跳过时返回null
      */
-    private List<ExcelRow> sortRows(List<ExcelRow> rows, List<ParsedSql.OrderByClause> orderByClauses) {
-        // 创建一个新的列表，避免修改原始列表
-        List<ExcelRow> sortedRows = new ArrayList<>(rows);
+    private boolean[] candidateBlocks(ExcelSheet loaded, ZoneMapFilter zoneFilter, BloomFilterLookup bloomLookup) {
+        ZoneMap zoneMap = loaded.getZoneMap();
+        List<ExcelRow> rows = loaded.getRows();
+        Map<String, BlockBloomFilter> bloomFilters = loaded.getBloomFilters();
+        if (bloomFilters == null || bloomFilters.isEmpty()) {
+            bloomLookup = null;
+        }
+        if ((zoneFilter == null && bloomLookup == null) || zoneMap == null || rows == null
+                || zoneMap.getRowCount() != rows.size()) {
+            return null;
+        }
         
-        // 按照ORDER BY子句排序
-        sortedRows.sort((row1, row2) -> {
-            for (ParsedSql.OrderByClause clause : orderByClauses) {
-                String columnName = clause.getColumn();
-                boolean descending = clause.isDescending();
-                
-                Object value1 = row1.getCellValue(columnName);
-                Object value2 = row2.getCellValue(columnName);
-                
-                // 处理null值
-                if (value1 == null && value2 == null) {
-                    continue;
-                }
-                if (value1 == null) {
-                    return descending ? 1 : -1;
-                }
-                if (value2 == null) {
-                    return descending ? -1 : 1;
-                }
-                
-                // 比较值
-                if (value1 instanceof Comparable && value2 instanceof Comparable) {
-                    @SuppressWarnings("unchecked")
-                    int result = ((Comparable<Object>) value1).compareTo(value2);
-                    if (result != 0) {
-                        return descending ? -result : result;
-                    }
+        BlockBloomFilter[] filters = bloomLookup != null
+                ? BloomFilterLookup.byOrdinal(bloomFilters, loaded.getColumnarTable().getColumnNames()) : null;
+        boolean[] blocks = new boolean[zoneMap.getBlockCount()];
+        int skipped = 0;
+        for (int block = 0; block < blocks.length; block++) {
+            blocks[block] = (zoneFilter == null || zoneFilter.mayMatch(zoneMap, block))
+                    && (bloomLookup == null || bloomLookup.mayMatch(filters, block));
+            if (!blocks[block]) {
+                skipped++;
+            }
+        }
+        if (skipped == 0) {
+            return null;
+        }
+        log.debug("区块统计和布隆过滤器跳过 {}/{} 个区块", skipped, blocks.length);
+        return blocks;
+    }
+    
+    private long countBlockRows(ZoneMap zoneMap, boolean[] blocks) {
+        long count = 0;
+        for (int block = 0; block < blocks.length; block++) {
+            if (blocks[block]) {
+                count += zoneMap.blockSize(block);
+            }
+        }
+        return count;
+    }
+    
+    /**
+     * 只扫描候选区块中的行，按行位置顺序返回满足WHERE条件的行
+     */
+    private List<ExcelRow> scanBlocks(ExcelSheet loaded, RowPredicate predicate, boolean[] blocks) {
+        ZoneMap zoneMap = loaded.getZoneMap();
+        List<ExcelRow> rows = loaded.getRows();
+        CancellationToken token = CancellationToken.current();
+        List<ExcelRow> result = new ArrayList<>();
+        for (int block = 0; block < blocks.length; block++) {
+            if (!blocks[block]) {
+                continue;
+            }
+            int end = zoneMap.blockEnd(block);
+            token.addScannedRows(zoneMap.blockSize(block));
+            for (int position = zoneMap.blockStart(block); position < end; position++) {
+                token.checkpoint();
+                ExcelRow row = rows.get(position);
+                if (predicate.test(row)) {
+                    result.add(row);
                 }
             }
-            return 0;
-        });
-        
-        return sortedRows;
+        }
+        return result;
+    }
+    
+    /**
+     * 使用编译后的WHERE条件过滤行
+     */
+    private List<ExcelRow> filterRows(List<ExcelRow> rows, RowPredicate predicate) {
+        CancellationToken token = CancellationToken.current();
+        List<ExcelRow> result = new ArrayList<>();
+        for (ExcelRow row : rows) {
+            token.checkpoint();
+            if (predicate.test(row)) {
+                result.add(row);
+            }
+        }
+        return result;
     }
     
     /**
@@ -877,208 +1689,4 @@ public class SelectQueryHandlerImpl implements SelectQueryHandler {
             log.info("已清除与文件 {} 相关的 {} 个缓存项", filePath, keysToRemove.size());
         }
     }
-    
-    /**
-     * 简单分组实现（实际应该更复杂）
-     */
-    private List<ExcelRow> groupRows(List<ExcelRow> rows, ParsedSql parsedSql) {
-        if (rows == null || rows.isEmpty()) {
-            return rows;
-        }
-        
-        List<String> groupByColumns = parsedSql.getGroupByColumns();
-        Map<String, String> aggregateFunctions = parsedSql.getAggregateFunctions();
-        
-        // 如果没有GROUP BY但有聚合函数，则将所有行作为一组
-        if ((groupByColumns == null || groupByColumns.isEmpty()) && aggregateFunctions != null && !aggregateFunctions.isEmpty()) {
-            return aggregateAllRows(rows, parsedSql);
-        }
-        
-        // 如果没有聚合函数，则简单分组返回第一行
-        if (aggregateFunctions == null || aggregateFunctions.isEmpty()) {
-            return simpleGroupBy(rows, groupByColumns);
-        }
-        
-        // 按分组键进行分组
-        Map<String, List<ExcelRow>> groups = new HashMap<>();
-        
-        for (ExcelRow row : rows) {
-            // 构建分组键
-            StringBuilder keyBuilder = new StringBuilder();
-            for (String groupByColumn : groupByColumns) {
-                Object value = row.getCellValue(groupByColumn);
-                keyBuilder.append(value == null ? "null" : value.toString()).append(":");
-            }
-            String groupKey = keyBuilder.toString();
-            
-            // 将行添加到对应的分组
-            groups.computeIfAbsent(groupKey, k -> new ArrayList<>()).add(row);
-        }
-        
-        // 处理每个分组，计算聚合值
-        List<ExcelRow> resultRows = new ArrayList<>();
-        
-        for (Map.Entry<String, List<ExcelRow>> entry : groups.entrySet()) {
-            List<ExcelRow> group = entry.getValue();
-            if (group.isEmpty()) {
-                continue;
-            }
-            
-            // 使用第一行作为基础
-            ExcelRow baseRow = group.get(0);
-            ExcelRow resultRow = new ExcelRow(baseRow.getRowNum(), baseRow.getSheet());
-            
-            // 复制分组列的值
-            for (String groupByColumn : groupByColumns) {
-                resultRow.setCellValue(groupByColumn, baseRow.getCellValue(groupByColumn));
-            }
-            
-            // 计算聚合函数
-            for (Map.Entry<String, String> aggEntry : aggregateFunctions.entrySet()) {
-                String columnName = aggEntry.getKey();
-                String functionName = aggEntry.getValue();
-                
-                // 提取真正的列名（如果是COUNT(*)这样的形式）
-                String actualColumnName = columnName;
-                if (columnName.contains("(") && columnName.contains(")")) {
-                    int startIdx = columnName.indexOf("(") + 1;
-                    int endIdx = columnName.indexOf(")");
-                    if (startIdx < endIdx) {
-                        actualColumnName = columnName.substring(startIdx, endIdx);
-                    }
-                }
-                
-                // 计算聚合值
-                Object aggregateValue = calculateAggregateValue(group, actualColumnName, functionName);
-                
-                // 设置聚合值
-                resultRow.setCellValue(columnName, aggregateValue);
-            }
-            
-            resultRows.add(resultRow);
-        }
-        
-        return resultRows;
-    }
-    
-    /**
-     * 对所有行进行聚合计算（没有GROUP BY的情况）
-     */
-    private List<ExcelRow> aggregateAllRows(List<ExcelRow> rows, ParsedSql parsedSql) {
-        if (rows == null || rows.isEmpty()) {
-            return Collections.emptyList();
-        }
-        
-        Map<String, String> aggregateFunctions = parsedSql.getAggregateFunctions();
-        if (aggregateFunctions == null || aggregateFunctions.isEmpty()) {
-            return rows;
-        }
-        
-        // 创建一个聚合结果行
-        ExcelRow resultRow = new ExcelRow(0, rows.get(0).getSheet());
-        
-        // 计算聚合函数
-        for (Map.Entry<String, String> aggEntry : aggregateFunctions.entrySet()) {
-            String columnName = aggEntry.getKey();
-            String functionName = aggEntry.getValue();
-            
-            // 提取真正的列名（如果是COUNT(*)这样的形式）
-            String actualColumnName = columnName;
-            if (columnName.contains("(") && columnName.contains(")")) {
-                int startIdx = columnName.indexOf("(") + 1;
-                int endIdx = columnName.indexOf(")");
-                if (startIdx < endIdx) {
-                    actualColumnName = columnName.substring(startIdx, endIdx);
-                }
-            }
-            
-            // 计算聚合值
-            Object aggregateValue = calculateAggregateValue(rows, actualColumnName, functionName);
-            
-            // 设置聚合值
-            resultRow.setCellValue(columnName, aggregateValue);
-        }
-        
-        return Collections.singletonList(resultRow);
-    }
-    
-    /**
-     * 计算聚合函数值
-     */
-    private Object calculateAggregateValue(List<ExcelRow> rows, String columnName, String functionName) {
-        if (rows == null || rows.isEmpty()) {
-            return null;
-        }
-        
-        switch (functionName.toUpperCase()) {
-            case "COUNT":
-                // 特殊处理COUNT(*)
-                if ("*".equals(columnName)) {
-                    return (long) rows.size();
-                }
-                // 计算非空值的数量
-                return rows.stream()
-                        .map(row -> row.getCellValue(columnName))
-                        .filter(Objects::nonNull)
-                        .count();
-                
-            case "SUM":
-                // 计算数值列的总和
-                return rows.stream()
-                        .map(row -> row.getCellValue(columnName))
-                        .filter(Objects::nonNull)
-                        .filter(value -> value instanceof Number)
-                        .mapToDouble(value -> ((Number) value).doubleValue())
-                        .sum();
-                
-            case "AVG":
-                // 计算数值列的平均值
-                return rows.stream()
-                        .map(row -> row.getCellValue(columnName))
-                        .filter(Objects::nonNull)
-                        .filter(value -> value instanceof Number)
-                        .mapToDouble(value -> ((Number) value).doubleValue())
-                        .average()
-                        .orElse(0.0);
-                
-            case "MAX":
-                // 计算数值列的最大值
-                return rows.stream()
-                        .map(row -> row.getCellValue(columnName))
-                        .filter(Objects::nonNull)
-                        .filter(value -> value instanceof Comparable)
-                        .max((o1, o2) -> {
-                            try {
-                                @SuppressWarnings("unchecked")
-                                Comparable<Object> c1 = (Comparable<Object>) o1;
-                                return c1.compareTo(o2);
-                            } catch (ClassCastException e) {
-                                // 如果无法直接比较，则转换为字符串比较
-                                return o1.toString().compareTo(o2.toString());
-                            }
-                        })
-                        .orElse(null);
-                
-            case "MIN":
-                // 计算数值列的最小值
-                return rows.stream()
-                        .map(row -> row.getCellValue(columnName))
-                        .filter(Objects::nonNull)
-                        .filter(value -> value instanceof Comparable)
-                        .min((o1, o2) -> {
-                            try {
-                                @SuppressWarnings("unchecked")
-                                Comparable<Object> c1 = (Comparable<Object>) o1;
-                                return c1.compareTo(o2);
-                            } catch (ClassCastException e) {
-                                // 如果无法直接比较，则转换为字符串比较
-                                return o1.toString().compareTo(o2.toString());
-                            }
-                        })
-                        .orElse(null);
-                
-            default:
-                return null;
-        }
-    }
-} 
\ No newline at end of file
+}
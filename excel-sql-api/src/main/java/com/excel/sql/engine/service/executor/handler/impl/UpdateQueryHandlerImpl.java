@@ -5,21 +5,27 @@ import com.excel.sql.engine.model.excel.ExcelColumn;
 import com.excel.sql.engine.model.excel.ExcelRow;
 import com.excel.sql.engine.model.excel.ExcelSheet;
 import com.excel.sql.engine.model.excel.ExcelWorkbook;
-import com.excel.sql.engine.service.CacheService;
+import com.excel.sql.engine.model.excel.SheetChanges;
+import com.excel.sql.engine.model.excel.index.IndexDefinition;
 import com.excel.sql.engine.service.ExcelFileService;
+import com.excel.sql.engine.service.executor.expression.PredicateCompiler;
+import com.excel.sql.engine.service.executor.expression.RowPredicate;
 import com.excel.sql.engine.service.executor.handler.UpdateQueryHandler;
+import com.excel.sql.engine.service.index.IndexStore;
 import com.excel.sql.engine.service.parser.ParsedSql;
+import com.excel.sql.engine.service.write.RowUndoLog;
+import com.excel.sql.engine.service.write.WorkbookWriteBuffer;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.stereotype.Service;
 
-import java.io.FileInputStream;
-import java.io.FileOutputStream;
+import java.util.ArrayList;
 import java.util.List;
 import java.util.Map;
 import java.util.Objects;
 import java.util.regex.Matcher;
 import java.util.regex.Pattern;
+import java.util.stream.Collectors;
 
 /**
  * UPDATE查询处理器实现类
@@ -30,7 +36,8 @@ import java.util.regex.Pattern;
 public class UpdateQueryHandlerImpl implements UpdateQueryHandler {
     
     private final ExcelFileService excelFileService;
-    private final CacheService cacheService;
+    private final WorkbookWriteBuffer workbookWriteBuffer;
+    private final IndexStore indexStore;
     
     // 表达式模式：列名 运算符 值
     // 更灵活的模式，支持更多格式
@@ -88,32 +95,9 @@ public class UpdateQueryHandlerImpl implements UpdateQueryHandler {
      * @return 影响的行数
      */
     private int updateRows(ExcelSheet sheet, ParsedSql parsedSql, String workbookName) {
-        // 首先确保行数据已加载
-        if (sheet.getRows() == null || sheet.getRows().isEmpty()) {
-            try {
-                // 通过工作簿名称获取路径
-                ExcelWorkbook excelWorkbook = excelFileService.loadWorkbook(workbookName);
-                if (excelWorkbook != null) {
-                    String workbookPath = excelWorkbook.getFilePath();
-                    if (workbookPath != null) {
-                        // 加载行数据
-                        boolean loaded = sheet.loadRows(workbookPath);
-                        if (!loaded) {
-                            log.error("无法加载工作表数据");
-                            return 0;
-                        }
-                    }
-                }
-            } catch (Exception e) {
-                log.error("加载工作表数据异常: {}", e.getMessage(), e);
-                return 0;
-            }
-        }
-        
-        List<ExcelRow> rows = sheet.getRows();
-        if (rows == null || rows.isEmpty()) {
-            return 0;
-        }
+        // WHERE条件只编译一次，命中的行记录下来供写回文件时使用
+        RowPredicate predicate = PredicateCompiler.compileWhere(parsedSql, sheet.getColumnNames());
+        List<ExcelRow> matchedRows = new ArrayList<>();
         
         int updatedRows = 0;
         Map<String, Object> updateValues = parsedSql.getUpdateValues();
@@ -156,15 +140,23 @@ public class UpdateQueryHandlerImpl implements UpdateQueryHandler {
                 }
             }
             
+            // 在包含待写回修改的当前数据上查找命中的行，不写回文件也不重新解析
+            ExcelSheet current = workbookWriteBuffer.getCurrentSheet(sheet, workbookPath);
+            if (current == null) {
+                throw new IllegalStateException("无法加载工作表数据: " + sheet.getName());
+            }
+            
             // 先在内存中应用更新
-            for (ExcelRow row : rows) {
+            for (ExcelRow currentRow : current.getRows()) {
                 try {
                     // 检查WHERE条件
-                    if (parsedSql.getWhereCondition() != null && !parsedSql.getWhereCondition().isEmpty()) {
-                        if (!evaluateCondition(row, parsedSql.getWhereCondition())) {
-                            continue;
-                        }
+                    if (predicate != null && !predicate.test(currentRow)) {
+                        continue;
                     }
+                    // 当前数据在查询之间共享，更新后的值在行的副本上计算
+                    ExcelRow row = new ExcelRow(currentRow.getRowNum(), sheet);
+                    currentRow.getCells().forEach(row::setCellValue);
+                    matchedRows.add(row);
                     
                     // 更新行数据 - 支持多个字段同时更新
                     boolean rowUpdated = false;
@@ -222,95 +214,25 @@ public class UpdateQueryHandlerImpl implements UpdateQueryHandler {
                 }
             }
             
-            // 然后将更新写入Excel文件
-            org.apache.poi.ss.usermodel.Workbook workbook = null;
-            
-            try {
-                // 打开工作簿
-                try (FileInputStream fis = new FileInputStream(file)) {
-                    workbook = new org.apache.poi.xssf.usermodel.XSSFWorkbook(fis);
-                }
-                
-                // 获取工作表
-                org.apache.poi.ss.usermodel.Sheet poiSheet = workbook.getSheet(sheet.getName());
-                if (poiSheet == null) {
-                    log.error("工作表不存在: {}", sheet.getName());
-                    throw new IllegalStateException("工作表不存在: " + sheet.getName());
-                }
-                
-                // 将内存中的更新应用到POI工作表
-                for (ExcelRow row : rows) {
-                    // 只处理已更新的行
-                    if (parsedSql.getWhereCondition() != null && !parsedSql.getWhereCondition().isEmpty()) {
-                        if (!evaluateCondition(row, parsedSql.getWhereCondition())) {
-                            continue;
-                        }
-                    }
-                    
-                    // 获取对应的POI行
-                    org.apache.poi.ss.usermodel.Row poiRow = poiSheet.getRow(row.getRowNum());
-                    if (poiRow == null) {
-                        log.warn("行 {} 在Excel文件中不存在，创建新行", row.getRowNum());
-                        poiRow = poiSheet.createRow(row.getRowNum());
-                    }
-                    
-                    log.info("将内存中的更新应用到POI工作表，行号: {}, 更新字段数量: {}", row.getRowNum(), updateValues.size());
-                    
-                    // 更新行数据 - 确保遍历所有需要更新的字段
-                    for (String columnName : updateValues.keySet()) {
-                        // 获取列定义
-                        ExcelColumn column = sheet.getColumn(columnName);
-                        if (column == null) {
-                            log.error("无法获取列定义: {}", columnName);
-                            continue;
-                        }
-                        
-                        int columnIndex = column.getIndex();
-                        log.debug("更新单元格: 行={}, 列={}, 索引={}", row.getRowNum(), columnName, columnIndex);
-                        
-                        // 创建或获取单元格
-                        org.apache.poi.ss.usermodel.Cell cell = poiRow.getCell(columnIndex);
-                        if (cell == null) {
-                            cell = poiRow.createCell(columnIndex);
-                            log.debug("创建新单元格: 行={}, 列={}", row.getRowNum(), columnName);
-                        }
-                        
-                        // 从内存模型中获取已计算的值
-                        Object value = row.getCellValue(columnName);
-                        log.debug("单元格值: 列={}, 值={}, 类型={}", 
-                                columnName, 
-                                value, 
-                                (value != null ? value.getClass().getName() : "null"));
-                        
-                        // 设置单元格值
-                        setCellValue(cell, value);
-                    }
-                }
-                
-                // 保存工作簿
-                try (FileOutputStream fos = new FileOutputStream(file)) {
-                    workbook.write(fos);
-                    fos.flush(); // 确保数据写入磁盘
-                    log.info("成功将数据写入文件: {}", file.getAbsolutePath());
-                    
-                    // 清除相关缓存
-                    cacheService.clearFilePathCache(workbookPath);
-                    cacheService.clearWorkbookCache(workbookName);
-                }
-                
-                log.info("成功更新 {} 行数据", updatedRows);
-                
-            } finally {
-                // 关闭工作簿
-                if (workbook != null) {
-                    try {
-                        workbook.close();
-                    } catch (Exception e) {
-                        log.warn("关闭工作簿异常: {}", e.getMessage());
+            // 然后在写缓冲中的工作簿上应用更新，多条语句的修改合并后一次写回文件
+            if (!matchedRows.isEmpty()) {
+                String targetPath = workbookPath;
+                boolean uniqueIndexed = indexStore.listIndexes(targetPath, sheet.getName()).stream()
+                        .anyMatch(IndexDefinition::isUnique);
+                workbookWriteBuffer.modify(targetPath, workbookName, (workbook, changes, undo) -> {
+                    SheetChanges sheetChanges = changes.apply(sheet.getName());
+                    writeUpdates(workbook, sheetChanges, undo, sheet, matchedRows, updateValues);
+                    // 按写入后的值检查唯一索引，违反时抛出异常，本条语句的修改全部撤销
+                    if (uniqueIndexed) {
+                        indexStore.checkUnique(current, targetPath, sheetChanges,
+                                matchedRows.stream().map(ExcelRow::getRowNum).collect(Collectors.toSet()));
                     }
-                }
+                    return null;
+                });
             }
             
+            log.info("成功更新 {} 行数据", updatedRows);
+            
         } catch (Exception e) {
             log.error("更新数据异常: {}", e.getMessage(), e);
             throw new RuntimeException("更新数据异常: " + e.getMessage(), e);
@@ -319,6 +241,72 @@ public class UpdateQueryHandlerImpl implements UpdateQueryHandler {
         return updatedRows;
     }
     
+    /**
+     * 将内存中的更新应用到POI工作表，并记录写入的单元格
+     *
+     * @param workbook POI工作簿
+     * @param changes 工作表的行变更
+     * @param undo 行撤销日志
+     * @param sheet 工作表
+     * @param matchedRows 已更新的行
+     * @param updateValues 更新值
+     */
+    private void writeUpdates(org.apache.poi.ss.usermodel.Workbook workbook, SheetChanges changes, RowUndoLog undo,
+                              ExcelSheet sheet, List<ExcelRow> matchedRows, Map<String, Object> updateValues) {
+        // 获取工作表
+        org.apache.poi.ss.usermodel.Sheet poiSheet = workbook.getSheet(sheet.getName());
+        if (poiSheet == null) {
+            log.error("工作表不存在: {}", sheet.getName());
+            throw new IllegalStateException("工作表不存在: " + sheet.getName());
+        }
+        
+        // 将内存中的更新应用到POI工作表
+        // 只处理已更新的行，更新后的值可能已不满足WHERE条件，不能重新计算
+        for (ExcelRow row : matchedRows) {
+            
+            // 获取对应的POI行
+            undo.saveRow(poiSheet, row.getRowNum());
+            org.apache.poi.ss.usermodel.Row poiRow = poiSheet.getRow(row.getRowNum());
+            if (poiRow == null) {
+                log.warn("行 {} 在Excel文件中不存在，创建新行", row.getRowNum());
+                poiRow = poiSheet.createRow(row.getRowNum());
+            }
+            
+            log.info("将内存中的更新应用到POI工作表，行号: {}, 更新字段数量: {}", row.getRowNum(), updateValues.size());
+            
+            // 更新行数据 - 确保遍历所有需要更新的字段
+            for (String columnName : updateValues.keySet()) {
+                // 获取列定义
+                ExcelColumn column = sheet.getColumn(columnName);
+                if (column == null) {
+                    log.error("无法获取列定义: {}", columnName);
+                    continue;
+                }
+                
+                int columnIndex = column.getIndex();
+                log.debug("更新单元格: 行={}, 列={}, 索引={}", row.getRowNum(), columnName, columnIndex);
+                
+                // 创建或获取单元格
+                org.apache.poi.ss.usermodel.Cell cell = poiRow.getCell(columnIndex);
+                if (cell == null) {
+                    cell = poiRow.createCell(columnIndex);
+                    log.debug("创建新单元格: 行={}, 列={}", row.getRowNum(), columnName);
+                }
+                
+                // 从内存模型中获取已计算的值
+                Object value = row.getCellValue(columnName);
+                log.debug("单元格值: 列={}, 值={}, 类型={}", 
+                        columnName, 
+                        value, 
+                        (value != null ? value.getClass().getName() : "null"));
+                
+                // 设置单元格值
+                setCellValue(cell, value);
+                changes.write(row.getRowNum(), columnName, ExcelSheet.getCellValue(cell));
+            }
+        }
+    }
+    
     /**
      * 计算表达式值
      * 支持形如 "column + 5", "column - 10" 等表达式
@@ -417,314 +405,6 @@ public class UpdateQueryHandlerImpl implements UpdateQueryHandler {
         return expression; // 如果出现任何异常，返回原始表达式
     }
     
-    /**
-     * 简单条件评估
-     */
-    private boolean evaluateCondition(ExcelRow row, String condition) {
-        log.debug("评估条件: {}", condition);
-        
-        // 处理多个条件（AND连接）
-        if (condition.contains(" AND ")) {
-            String[] conditions = condition.split(" AND ");
-            for (String subCondition : conditions) {
-                if (!evaluateSimpleCondition(row, subCondition.trim())) {
-                    return false;
-                }
-            }
-            return true;
-        }
-        
-        // 处理多个条件（OR连接）
-        if (condition.contains(" OR ")) {
-            String[] conditions = condition.split(" OR ");
-            for (String subCondition : conditions) {
-                if (evaluateSimpleCondition(row, subCondition.trim())) {
-                    return true;
-                }
-            }
-            return false;
-        }
-        
-        // 处理单个条件
-        return evaluateSimpleCondition(row, condition);
-    }
-    
-    /**
-     * 评估简单条件
-     */
-    private boolean evaluateSimpleCondition(ExcelRow row, String condition) {
-        log.debug("评估简单条件: {}", condition);
-        
-        // 处理等于条件 - 支持引号和无引号的值
-        if (condition.contains("=") && !condition.contains("!=") && !condition.contains("<>") && !condition.contains(">=") && !condition.contains("<=")) {
-            String[] parts = condition.split("=");
-            if (parts.length == 2) {
-                String columnName = parts[0].trim();
-                String expectedValue = parts[1].trim();
-                
-                // 移除引号
-                if ((expectedValue.startsWith("'") && expectedValue.endsWith("'")) || 
-                    (expectedValue.startsWith("\"") && expectedValue.endsWith("\""))) {
-                    expectedValue = expectedValue.substring(1, expectedValue.length() - 1);
-                }
-                
-                Object actualValue = row.getCellValue(columnName);
-                log.debug("比较: 列={}, 期望值={}, 实际值={}", columnName, expectedValue, actualValue);
-                
-                if (actualValue == null) {
-                    return expectedValue.equalsIgnoreCase("null") || expectedValue.isEmpty();
-                }
-                
-                // 尝试数值比较
-                if (actualValue instanceof Number && isNumeric(expectedValue)) {
-                    double actualNum = ((Number) actualValue).doubleValue();
-                    double expectedNum = Double.parseDouble(expectedValue);
-                    return actualNum == expectedNum;
-                }
-                
-                // 字符串比较
-                return actualValue.toString().equals(expectedValue);
-            }
-        }
-        
-        // 处理不等于条件
-        if (condition.contains("!=") || condition.contains("<>")) {
-            String[] parts;
-            if (condition.contains("!=")) {
-                parts = condition.split("!=");
-            } else {
-                parts = condition.split("<>");
-            }
-            
-            if (parts.length == 2) {
-                String columnName = parts[0].trim();
-                String expectedValue = parts[1].trim();
-                
-                // 移除引号
-                if ((expectedValue.startsWith("'") && expectedValue.endsWith("'")) || 
-                    (expectedValue.startsWith("\"") && expectedValue.endsWith("\""))) {
-                    expectedValue = expectedValue.substring(1, expectedValue.length() - 1);
-                }
-                
-                Object actualValue = row.getCellValue(columnName);
-                log.debug("比较不等: 列={}, 期望值={}, 实际值={}", columnName, expectedValue, actualValue);
-                
-                if (actualValue == null) {
-                    return !expectedValue.equalsIgnoreCase("null") && !expectedValue.isEmpty();
-                }
-                
-                // 尝试数值比较
-                if (actualValue instanceof Number && isNumeric(expectedValue)) {
-                    double actualNum = ((Number) actualValue).doubleValue();
-                    double expectedNum = Double.parseDouble(expectedValue);
-                    return actualNum != expectedNum;
-                }
-                
-                // 字符串比较
-                return !actualValue.toString().equals(expectedValue);
-            }
-        }
-        
-        // 处理大于条件
-        if (condition.contains(">") && !condition.contains(">=")) {
-            String[] parts = condition.split(">");
-            if (parts.length == 2) {
-                String columnName = parts[0].trim();
-                String expectedValue = parts[1].trim();
-                
-                // 移除引号
-                if ((expectedValue.startsWith("'") && expectedValue.endsWith("'")) || 
-                    (expectedValue.startsWith("\"") && expectedValue.endsWith("\""))) {
-                    expectedValue = expectedValue.substring(1, expectedValue.length() - 1);
-                }
-                
-                Object actualValue = row.getCellValue(columnName);
-                log.debug("比较大于: 列={}, 期望值={}, 实际值={}", columnName, expectedValue, actualValue);
-                
-                if (actualValue == null) {
-                    return false;
-                }
-                
-                // 尝试数值比较
-                if (isNumeric(expectedValue)) {
-                    double expectedNum = Double.parseDouble(expectedValue);
-                    
-                    if (actualValue instanceof Number) {
-                        double actualNum = ((Number) actualValue).doubleValue();
-                        return actualNum > expectedNum;
-                    } else if (isNumeric(actualValue.toString())) {
-                        double actualNum = Double.parseDouble(actualValue.toString());
-                        return actualNum > expectedNum;
-                    }
-                }
-                
-                // 字符串比较
-                return actualValue.toString().compareTo(expectedValue) > 0;
-            }
-        }
-        
-        // 处理大于等于条件
-        if (condition.contains(">=")) {
-            String[] parts = condition.split(">=");
-            if (parts.length == 2) {
-                String columnName = parts[0].trim();
-                String expectedValue = parts[1].trim();
-                
-                // 移除引号
-                if ((expectedValue.startsWith("'") && expectedValue.endsWith("'")) || 
-                    (expectedValue.startsWith("\"") && expectedValue.endsWith("\""))) {
-                    expectedValue = expectedValue.substring(1, expectedValue.length() - 1);
-                }
-                
-                Object actualValue = row.getCellValue(columnName);
-                log.debug("比较大于等于: 列={}, 期望值={}, 实际值={}", columnName, expectedValue, actualValue);
-                
-                if (actualValue == null) {
-                    return false;
-                }
-                
-                // 尝试数值比较
-                if (isNumeric(expectedValue)) {
-                    double expectedNum = Double.parseDouble(expectedValue);
-                    
-                    if (actualValue instanceof Number) {
-                        double actualNum = ((Number) actualValue).doubleValue();
-                        return actualNum >= expectedNum;
-                    } else if (isNumeric(actualValue.toString())) {
-                        double actualNum = Double.parseDouble(actualValue.toString());
-                        return actualNum >= expectedNum;
-                    }
-                }
-                
-                // 字符串比较
-                return actualValue.toString().compareTo(expectedValue) >= 0;
-            }
-        }
-        
-        // 处理小于条件
-        if (condition.contains("<") && !condition.contains("<=")) {
-            String[] parts = condition.split("<");
-            if (parts.length == 2) {
-                String columnName = parts[0].trim();
-                String expectedValue = parts[1].trim();
-                
-                // 移除引号
-                if ((expectedValue.startsWith("'") && expectedValue.endsWith("'")) || 
-                    (expectedValue.startsWith("\"") && expectedValue.endsWith("\""))) {
-                    expectedValue = expectedValue.substring(1, expectedValue.length() - 1);
-                }
-                
-                Object actualValue = row.getCellValue(columnName);
-                log.debug("比较小于: 列={}, 期望值={}, 实际值={}", columnName, expectedValue, actualValue);
-                
-                if (actualValue == null) {
-                    return false;
-                }
-                
-                // 尝试数值比较
-                if (isNumeric(expectedValue)) {
-                    double expectedNum = Double.parseDouble(expectedValue);
-                    
-                    if (actualValue instanceof Number) {
-                        double actualNum = ((Number) actualValue).doubleValue();
-                        return actualNum < expectedNum;
-                    } else if (isNumeric(actualValue.toString())) {
-                        double actualNum = Double.parseDouble(actualValue.toString());
-                        return actualNum < expectedNum;
-                    }
-                }
-                
-                // 字符串比较
-                return actualValue.toString().compareTo(expectedValue) < 0;
-            }
-        }
-        
-        // 处理小于等于条件
-        if (condition.contains("<=")) {
-            String[] parts = condition.split("<=");
-            if (parts.length == 2) {
-                String columnName = parts[0].trim();
-                String expectedValue = parts[1].trim();
-                
-                // 移除引号
-                if ((expectedValue.startsWith("'") && expectedValue.endsWith("'")) || 
-                    (expectedValue.startsWith("\"") && expectedValue.endsWith("\""))) {
-                    expectedValue = expectedValue.substring(1, expectedValue.length() - 1);
-                }
-                
-                Object actualValue = row.getCellValue(columnName);
-                log.debug("比较小于等于: 列={}, 期望值={}, 实际值={}", columnName, expectedValue, actualValue);
-                
-                if (actualValue == null) {
-                    return false;
-                }
-                
-                // 尝试数值比较
-                if (isNumeric(expectedValue)) {
-                    double expectedNum = Double.parseDouble(expectedValue);
-                    
-                    if (actualValue instanceof Number) {
-                        double actualNum = ((Number) actualValue).doubleValue();
-                        return actualNum <= expectedNum;
-                    } else if (isNumeric(actualValue.toString())) {
-                        double actualNum = Double.parseDouble(actualValue.toString());
-                        return actualNum <= expectedNum;
-                    }
-                }
-                
-                // 字符串比较
-                return actualValue.toString().compareTo(expectedValue) <= 0;
-            }
-        }
-        
-        // 处理LIKE条件
-        if (condition.toLowerCase().contains(" like ")) {
-            String[] parts = condition.toLowerCase().split(" like ");
-            if (parts.length == 2) {
-                String columnName = parts[0].trim();
-                String pattern = parts[1].trim();
-                
-                // 移除引号
-                if ((pattern.startsWith("'") && pattern.endsWith("'")) || 
-                    (pattern.startsWith("\"") && pattern.endsWith("\""))) {
-                    pattern = pattern.substring(1, pattern.length() - 1);
-                }
-                
-                Object actualValue = row.getCellValue(columnName);
-                log.debug("比较LIKE: 列={}, 模式={}, 实际值={}", columnName, pattern, actualValue);
-                
-                if (actualValue == null) {
-                    return false;
-                }
-                
-                String actualStr = actualValue.toString();
-                // 将SQL LIKE模式转换为Java正则表达式
-                String regex = pattern.replace("%", ".*").replace("_", ".");
-                
-                return actualStr.matches(regex);
-            }
-        }
-        
-        // 默认通过所有行
-        log.debug("无法识别的条件，默认为true: {}", condition);
-        return true;
-    }
-    
-    /**
-     * 检查字符串是否为数字
-     */
-    private boolean isNumeric(String str) {
-        if (str == null || str.isEmpty()) {
-            return false;
-        }
-        try {
-            Double.parseDouble(str);
-            return true;
-        } catch (NumberFormatException e) {
-            return false;
-        }
-    }
-    
     /**
      * 根据值类型设置单元格值
      *
@@ -1,20 +1,32 @@
 package com.excel.sql.engine.service.executor.impl;
 
+import com.excel.sql.engine.exception.QueryCancelledException;
+import com.excel.sql.engine.model.dto.AsyncQueryStatus;
 import com.excel.sql.engine.model.dto.SqlQueryRequest;
 import com.excel.sql.engine.model.dto.SqlQueryResult;
 import com.excel.sql.engine.model.excel.*;
 import com.excel.sql.engine.service.WorkbookManager;
 import com.excel.sql.engine.service.cache.QueryCacheService;
 import com.excel.sql.engine.service.executor.SqlExecutor;
+import com.excel.sql.engine.service.executor.cancel.CancellationToken;
 import com.excel.sql.engine.service.executor.handler.*;
 import com.excel.sql.engine.service.executor.handler.impl.DDLQueryHandlerImpl;
+import com.excel.sql.engine.service.executor.stream.StreamingQuery;
 import com.excel.sql.engine.service.parser.ParsedSql;
 import com.excel.sql.engine.service.parser.SqlParser;
 import com.excel.sql.engine.service.parser.impl.CustomSqlParserImpl;
+import com.excel.sql.engine.service.write.WorkbookWriteBuffer;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Service;
+import org.springframework.web.context.request.RequestAttributes;
+import org.springframework.web.context.request.RequestContextHolder;
 
+import javax.annotation.PreDestroy;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
 import java.util.concurrent.*;
 
 /**
@@ -32,6 +44,24 @@ public class SqlExecutorImpl implements SqlExecutor {
     private final DeleteQueryHandler deleteQueryHandler;
     private final DDLQueryHandlerImpl ddlQueryHandler;
     private final WorkbookManager workbookManager;
+    private final WorkbookWriteBuffer workbookWriteBuffer;
+    
+    /**
+     * 请求未指定超时时间时使用的默认超时（秒）
+     */
+    @Value("${excel-sql.query.timeout-seconds:30}")
+    private int defaultTimeoutSeconds;
+    
+    /**
+     * 异步查询结束后保留状态和结果的时间（秒）
+     */
+    @Value("${excel-sql.query.async-result-ttl-seconds:600}")
+    private long asyncResultTtlSeconds;
+    
+    /**
+     * 异步查询，按查询ID索引
+     */
+    private final Map<String, AsyncQuery> asyncQueries = new ConcurrentHashMap<>();
     
     /**
      * 构造函数，使用 @Qualifier 注解指定要注入的 SqlParser 实现
@@ -44,7 +74,10 @@ public class SqlExecutorImpl implements SqlExecutor {
             UpdateQueryHandler updateQueryHandler,
             DeleteQueryHandler deleteQueryHandler,
             DDLQueryHandlerImpl ddlQueryHandler,
-            WorkbookManager workbookManager) {
+            WorkbookManager workbookManager,
+            WorkbookWriteBuffer workbookWriteBuffer,
+            @Value("${excel-sql.query.async-threads:2}") int asyncThreads,
+            @Value("${excel-sql.query.async-queue-capacity:50}") int asyncQueueCapacity) {
         this.sqlParser = sqlParser;
         this.queryCacheService = queryCacheService;
         this.selectQueryHandler = selectQueryHandler;
@@ -53,17 +86,31 @@ public class SqlExecutorImpl implements SqlExecutor {
         this.deleteQueryHandler = deleteQueryHandler;
         this.ddlQueryHandler = ddlQueryHandler;
         this.workbookManager = workbookManager;
+        this.workbookWriteBuffer = workbookWriteBuffer;
+        this.asyncExecutor = new ThreadPoolExecutor(
+                Math.max(1, asyncThreads), Math.max(1, asyncThreads), 60L, TimeUnit.SECONDS,
+                new LinkedBlockingQueue<>(Math.max(1, asyncQueueCapacity)),
+                new ThreadPoolExecutor.AbortPolicy()
+        );
+        this.asyncExecutor.allowCoreThreadTimeOut(true);
     }
     
     /**
-     * 查询执行线程池
+     * 同步查询执行线程池
+     * 队列已满时拒绝提交，查询改为在请求线程中执行
      */
-    private final ExecutorService queryExecutor = new ThreadPoolExecutor(
+    private final ThreadPoolExecutor queryExecutor = new ThreadPoolExecutor(
             4, 8, 60L, TimeUnit.SECONDS,
             new LinkedBlockingQueue<>(100),
-            new ThreadPoolExecutor.CallerRunsPolicy()
+            new ThreadPoolExecutor.AbortPolicy()
     );
     
+    /**
+     * 异步查询执行线程池，线程数和队列长度单独限制
+     * 长时间运行的异步查询不占用同步查询的线程和队列；队列已满时提交失败
+     */
+    private final ThreadPoolExecutor asyncExecutor;
+    
     @Override
     public SqlQueryResult execute(SqlQueryRequest request) {
         long startTime = System.currentTimeMillis();
@@ -76,17 +123,13 @@ public class SqlExecutorImpl implements SqlExecutor {
                 return SqlQueryResult.error(parsedSql.getErrorMessage());
             }
             
-            // 如果没有指定工作簿，则使用当前工作簿
-            String workbook = request.getWorkbook();
+            String workbook = resolveWorkbook(request, parsedSql);
             if (workbook == null && !isDDLOperation(parsedSql.getSqlType())) {
-                workbook = workbookManager.getCurrentWorkbookName();
-                if (workbook == null) {
-                    return SqlQueryResult.error("未指定工作簿，请使用USE WORKBOOK命令选择工作簿");
-                }
+                return SqlQueryResult.error("未指定工作簿，请使用USE WORKBOOK命令选择工作簿");
             }
             
-            // 执行查询
-            return execute(parsedSql, workbook, request.getUseCache(), request.getMaxRows());
+            // 在查询线程池中执行，超过截止时间后取消查询
+            return executeWithTimeout(parsedSql, workbook, request).toFormat(request.getResultFormat());
         } catch (Exception e) {
             log.error("执行SQL查询异常: {}", e.getMessage(), e);
             return SqlQueryResult.error("执行SQL查询异常: " + e.getMessage());
@@ -99,6 +142,12 @@ public class SqlExecutorImpl implements SqlExecutor {
     public SqlQueryResult execute(ParsedSql parsedSql, String workbook, boolean useCache, int maxRows) {
         long startTime = System.currentTimeMillis();
         
+        // 读取数据之前先写回涉及的工作簿中待写回的修改，查询缓存也在写回时清除
+        SqlQueryResult flushFailure = flushBeforeRead(parsedSql, workbook);
+        if (flushFailure != null) {
+            return flushFailure;
+        }
+        
         // 检查是否可以使用缓存
         if (useCache && parsedSql.getSqlType() == SqlQueryResult.SqlType.SELECT) {
             String cacheKey = generateCacheKey(parsedSql, workbook);
@@ -106,7 +155,7 @@ public class SqlExecutorImpl implements SqlExecutor {
             
             if (cachedResult != null) {
                 log.debug("使用缓存结果: {}", cacheKey);
-                return cachedResult;
+                return cachedResult.toFormat(SqlQueryResult.ResultFormat.ROWS);
             }
         }
         
@@ -131,8 +180,15 @@ public class SqlExecutorImpl implements SqlExecutor {
                 case USE_WORKBOOK:
                 case DROP_WORKBOOK:
                 case DROP_SHEET:
+                case CREATE_INDEX:
+                case DROP_INDEX:
+                case SHOW_INDEXES:
                     result = ddlQueryHandler.handle(parsedSql, workbook);
                     break;
+                case FLUSH:
+                    result = SqlQueryResult.successDml(workbookWriteBuffer.flushAll(), SqlQueryResult.SqlType.FLUSH,
+                            System.currentTimeMillis() - startTime);
+                    break;
                 default:
                     return SqlQueryResult.error("不支持的SQL语句类型: " + parsedSql.getSqlType());
             }
@@ -148,16 +204,231 @@ public class SqlExecutorImpl implements SqlExecutor {
             // 缓存SELECT查询结果
             if (useCache && result.isSuccess() && parsedSql.getSqlType() == SqlQueryResult.SqlType.SELECT) {
                 String cacheKey = generateCacheKey(parsedSql, workbook);
-                queryCacheService.putToCache(cacheKey, result);
+                // 缓存中保存紧凑格式，L1内存占用和L2、L3的JSON体积更小
+                queryCacheService.putToCache(cacheKey, result.toFormat(SqlQueryResult.ResultFormat.COMPACT));
             }
             
             return result;
+        } catch (QueryCancelledException e) {
+            throw e;
         } catch (Exception e) {
             log.error("执行SQL查询异常: {}", e.getMessage(), e);
             return SqlQueryResult.error("执行SQL查询异常: " + e.getMessage());
         }
     }
     
+    /**
+     * 在查询线程池中执行语句并等待到截止时间
+     * 超时后取消令牌，查询在下一个检查点停止，不再继续占用CPU和内存；
+     * 修改数据的语句不限时，等待其执行结束并返回实际结果
+     */
+    private SqlQueryResult executeWithTimeout(ParsedSql parsedSql, String workbook, SqlQueryRequest request)
+            throws InterruptedException {
+        int timeoutSeconds = resolveTimeout(request, parsedSql);
+        boolean useCache = request.getUseCache() == null || request.getUseCache();
+        int maxRows = request.getMaxRows() != null ? request.getMaxRows() : 10000;
+        CancellationToken token = CancellationToken.withTimeout(timeoutSeconds);
+        // 当前工作簿保存在会话作用域中，查询线程需要沿用请求线程的请求上下文
+        RequestAttributes requestAttributes = RequestContextHolder.getRequestAttributes();
+        
+        Future<SqlQueryResult> future;
+        try {
+            future = queryExecutor.submit(() -> {
+                RequestContextHolder.setRequestAttributes(requestAttributes);
+                try {
+                    return token.callWith(() -> execute(parsedSql, workbook, useCache, maxRows));
+                } finally {
+                    RequestContextHolder.resetRequestAttributes();
+                }
+            });
+        } catch (RejectedExecutionException e) {
+            // 线程池已满时在请求线程中执行，截止时间仍由检查点保证
+            try {
+                return token.callWith(() -> execute(parsedSql, workbook, useCache, maxRows));
+            } catch (QueryCancelledException cancelled) {
+                return SqlQueryResult.error(cancelled.getMessage());
+            }
+        }
+        try {
+            return timeoutSeconds > 0 ? future.get(timeoutSeconds, TimeUnit.SECONDS) : future.get();
+        } catch (TimeoutException e) {
+            token.timeout();
+            log.warn("SQL查询超时（{}秒），已取消: {}", timeoutSeconds, parsedSql.getOriginalSql());
+            return SqlQueryResult.error(QueryCancelledException.timeout(timeoutSeconds).getMessage());
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof QueryCancelledException) {
+                log.warn("SQL查询已取消: {}", e.getCause().getMessage());
+                return SqlQueryResult.error(e.getCause().getMessage());
+            }
+            throw new IllegalStateException(e.getCause() != null ? e.getCause().getMessage() : e.getMessage(), e.getCause());
+        } catch (InterruptedException e) {
+            token.cancel();
+            throw e;
+        }
+    }
+    
+    @Override
+    public StreamingQuery prepareStream(SqlQueryRequest request) {
+        ParsedSql parsedSql = sqlParser.parse(request.getSql());
+        if (!parsedSql.isSuccess()) {
+            return sink -> SqlQueryResult.error(parsedSql.getErrorMessage());
+        }
+        if (parsedSql.getSqlType() != SqlQueryResult.SqlType.SELECT) {
+            return sink -> SqlQueryResult.error("流式查询只支持SELECT语句");
+        }
+        String workbook = resolveWorkbook(request, parsedSql);
+        if (workbook == null) {
+            return sink -> SqlQueryResult.error("未指定工作簿，请使用USE WORKBOOK命令选择工作簿");
+        }
+        
+        int maxRows = request.getMaxRows() != null ? request.getMaxRows() : 10000;
+        int timeoutSeconds = resolveTimeout(request);
+        return sink -> {
+            SqlQueryResult flushFailure = flushBeforeRead(parsedSql, workbook);
+            if (flushFailure != null) {
+                return flushFailure;
+            }
+            // 截止时间从开始写出结果时计算
+            CancellationToken token = CancellationToken.withTimeout(timeoutSeconds);
+            try {
+                return token.callWith(() -> selectQueryHandler.handle(parsedSql, workbook, maxRows, sink));
+            } catch (QueryCancelledException e) {
+                log.warn("流式查询已停止: {}", e.getMessage());
+                return SqlQueryResult.error(e.getMessage());
+            }
+        };
+    }
+    
+    @Override
+    public AsyncQueryStatus submit(SqlQueryRequest request) {
+        evictExpiredAsyncQueries();
+        
+        ParsedSql parsedSql = sqlParser.parse(request.getSql());
+        if (!parsedSql.isSuccess()) {
+            return failedStatus(request.getSql(), parsedSql.getErrorMessage());
+        }
+        // USE WORKBOOK等DDL修改会话状态，异步执行时请求已经结束，只支持同步执行
+        if (isDDLOperation(parsedSql.getSqlType())) {
+            return failedStatus(request.getSql(), "DDL语句不支持异步执行");
+        }
+        // 工作簿在请求线程中确定，异步执行时不再访问会话
+        String workbook = resolveWorkbook(request, parsedSql);
+        if (workbook == null) {
+            return failedStatus(request.getSql(), "未指定工作簿，请使用USE WORKBOOK命令选择工作簿");
+        }
+        
+        boolean useCache = request.getUseCache() == null || request.getUseCache();
+        int maxRows = request.getMaxRows() != null ? request.getMaxRows() : 10000;
+        AsyncQuery query = new AsyncQuery(UUID.randomUUID().toString(), request.getSql(),
+                CancellationToken.withTimeout(resolveTimeout(request, parsedSql)), request.getResultFormat());
+        asyncQueries.put(query.queryId, query);
+        try {
+            query.future = asyncExecutor.submit(() -> runAsync(query, parsedSql, workbook, useCache, maxRows));
+        } catch (RejectedExecutionException e) {
+            asyncQueries.remove(query.queryId);
+            return failedStatus(request.getSql(), "查询队列已满，请稍后重试");
+        }
+        log.info("提交异步查询 {}: {}", query.queryId, request.getSql());
+        return query.toStatus(0, 0);
+    }
+    
+    @Override
+    public AsyncQueryStatus getAsyncQuery(String queryId, int offset, int limit) {
+        evictExpiredAsyncQueries();
+        AsyncQuery query = asyncQueries.get(queryId);
+        return query != null ? query.toStatus(Math.max(0, offset), Math.max(0, limit)) : null;
+    }
+    
+    @Override
+    public AsyncQueryStatus cancel(String queryId) {
+        AsyncQuery query = asyncQueries.get(queryId);
+        if (query == null) {
+            return null;
+        }
+        query.token.cancel();
+        // 还在排队的查询直接结束；执行中的查询在下一个检查点停止
+        if (query.status == AsyncQueryStatus.Status.PENDING && query.future != null && query.future.cancel(false)) {
+            query.finish(AsyncQueryStatus.Status.CANCELLED, null, "查询已取消");
+        }
+        log.info("取消异步查询 {}", queryId);
+        return query.toStatus(0, 0);
+    }
+    
+    /**
+     * 在查询线程中执行异步查询并记录结果
+     */
+    private void runAsync(AsyncQuery query, ParsedSql parsedSql, String workbook, boolean useCache, int maxRows) {
+        query.start();
+        try {
+            SqlQueryResult result = query.token.callWith(() -> execute(parsedSql, workbook, useCache, maxRows));
+            if (result.isSuccess()) {
+                query.finish(AsyncQueryStatus.Status.SUCCEEDED, result, null);
+            } else {
+                query.finish(AsyncQueryStatus.Status.FAILED, null, result.getErrorMessage());
+            }
+        } catch (QueryCancelledException e) {
+            query.finish(query.token.isTimedOut() ? AsyncQueryStatus.Status.TIMEOUT : AsyncQueryStatus.Status.CANCELLED,
+                    null, e.getMessage());
+        } catch (Exception e) {
+            log.error("异步查询 {} 执行异常: {}", query.queryId, e.getMessage(), e);
+            query.finish(AsyncQueryStatus.Status.FAILED, null, "执行SQL查询异常: " + e.getMessage());
+        }
+    }
+    
+    /**
+     * 移除结束时间超过保留时间的异步查询
+     */
+    private void evictExpiredAsyncQueries() {
+        long expireBefore = System.currentTimeMillis() - TimeUnit.SECONDS.toMillis(asyncResultTtlSeconds);
+        asyncQueries.values().removeIf(query -> query.finishedAt > 0 && query.finishedAt < expireBefore);
+    }
+    
+    private AsyncQueryStatus failedStatus(String sql, String errorMessage) {
+        return AsyncQueryStatus.builder()
+                .sql(sql)
+                .status(AsyncQueryStatus.Status.FAILED)
+                .errorMessage(errorMessage)
+                .build();
+    }
+    
+    /**
+     * 确定执行的工作簿：请求指定的工作簿，其次是FROM表的工作簿前缀，最后是当前工作簿
+     * DDL语句不使用当前工作簿
+     */
+    private String resolveWorkbook(SqlQueryRequest request, ParsedSql parsedSql) {
+        String workbook = request.getWorkbook();
+        if (workbook == null && parsedSql.getFromWorkbook() != null) {
+            workbook = parsedSql.getFromWorkbook();
+        }
+        if (workbook == null && !isDDLOperation(parsedSql.getSqlType())) {
+            workbook = workbookManager.getCurrentWorkbookName();
+        }
+        return workbook;
+    }
+    
+    /**
+     * 请求未指定超时时间时使用配置的默认值
+     */
+    private int resolveTimeout(SqlQueryRequest request) {
+        return request.getTimeout() != null && request.getTimeout() > 0 ? request.getTimeout() : defaultTimeoutSeconds;
+    }
+    
+    /**
+     * 确定语句的超时时间：修改数据的语句在写入行时不检查令牌，超时后仍会执行完并生效，
+     * 返回超时会让调用方误以为修改失败，因此不限时
+     *
+     * @return 超时秒数，0表示不限时
+     */
+    private int resolveTimeout(SqlQueryRequest request, ParsedSql parsedSql) {
+        return modifiesData(parsedSql.getSqlType()) ? 0 : resolveTimeout(request);
+    }
+    
+    @PreDestroy
+    public void shutdown() {
+        queryExecutor.shutdownNow();
+        asyncExecutor.shutdownNow();
+    }
+    
     /**
      * 生成缓存键
      *
@@ -172,13 +443,131 @@ public class SqlExecutorImpl implements SqlExecutor {
     }
     
     /**
-     * 判断是否为DDL操作
+     * 判断是否为DDL操作，不属于某个工作簿的COMMIT/FLUSH按DDL处理
      */
     private boolean isDDLOperation(SqlQueryResult.SqlType sqlType) {
         return sqlType == SqlQueryResult.SqlType.CREATE_WORKBOOK ||
                 sqlType == SqlQueryResult.SqlType.CREATE_SHEET ||
                 sqlType == SqlQueryResult.SqlType.USE_WORKBOOK ||
                 sqlType == SqlQueryResult.SqlType.DROP_WORKBOOK ||
-                sqlType == SqlQueryResult.SqlType.DROP_SHEET;
+                sqlType == SqlQueryResult.SqlType.DROP_SHEET ||
+                sqlType == SqlQueryResult.SqlType.FLUSH;
+    }
+    
+    /**
+     * 判断语句是否修改数据：SELECT和SHOW INDEXES以外的语句
+     */
+    private boolean modifiesData(SqlQueryResult.SqlType sqlType) {
+        return sqlType != SqlQueryResult.SqlType.SELECT && sqlType != SqlQueryResult.SqlType.SHOW_INDEXES;
+    }
+    
+    /**
+     * 语句执行前写回待写回的修改：SELECT只写回FROM、JOIN和UNION涉及的工作簿；INSERT、UPDATE、DELETE
+     * 在写缓冲中的工作簿上修改，UPDATE、DELETE在叠加了待写回修改的缓存数据上查找行，COMMIT/FLUSH自行写回，
+     * 都不需要写回；其余语句写回所有工作簿
+     *
+     * @return 写回失败时返回错误结果，否则返回null
+     */
+    private SqlQueryResult flushBeforeRead(ParsedSql parsedSql, String workbook) {
+        try {
+            switch (parsedSql.getSqlType()) {
+                case SELECT:
+                    for (String workbookPath : selectQueryHandler.getWorkbookPaths(parsedSql, workbook)) {
+                        workbookWriteBuffer.flush(workbookPath);
+                    }
+                    break;
+                case INSERT:
+                case UPDATE:
+                case DELETE:
+                case FLUSH:
+                    break;
+                default:
+                    workbookWriteBuffer.flushAll();
+            }
+        } catch (IllegalStateException e) {
+            return SqlQueryResult.error(e.getMessage());
+        }
+        return null;
+    }
+    
+    /**
+     * 异步查询的执行状态
+     */
+    private static class AsyncQuery {
+        
+        private final String queryId;
+        private final String sql;
+        private final CancellationToken token;
+        private final SqlQueryResult.ResultFormat resultFormat;
+        private final long submittedAt = System.currentTimeMillis();
+        private volatile Future<?> future;
+        private volatile AsyncQueryStatus.Status status = AsyncQueryStatus.Status.PENDING;
+        private volatile long startedAt;
+        private volatile long finishedAt;
+        private volatile SqlQueryResult result;
+        private volatile String errorMessage;
+        
+        AsyncQuery(String queryId, String sql, CancellationToken token, SqlQueryResult.ResultFormat resultFormat) {
+            this.queryId = queryId;
+            this.sql = sql;
+            this.token = token;
+            this.resultFormat = resultFormat;
+        }
+        
+        synchronized void start() {
+            if (status == AsyncQueryStatus.Status.PENDING) {
+                status = AsyncQueryStatus.Status.RUNNING;
+                startedAt = System.currentTimeMillis();
+            }
+        }
+        
+        synchronized void finish(AsyncQueryStatus.Status finalStatus, SqlQueryResult finalResult, String error) {
+            if (status.isFinished()) {
+                return;
+            }
+            result = finalResult;
+            errorMessage = error;
+            finishedAt = System.currentTimeMillis();
+            status = finalStatus;
+        }
+        
+        /**
+         * 生成状态快照，查询成功时只返回 [offset, offset+limit) 范围内的结果行
+         */
+        AsyncQueryStatus toStatus(int offset, int limit) {
+            AsyncQueryStatus.Status currentStatus = status;
+            long end = finishedAt > 0 ? finishedAt : System.currentTimeMillis();
+            AsyncQueryStatus.AsyncQueryStatusBuilder builder = AsyncQueryStatus.builder()
+                    .queryId(queryId)
+                    .sql(sql)
+                    .status(currentStatus)
+                    .rowsScanned(token.getRowsScanned())
+                    .totalRows(token.getTotalRows())
+                    .elapsedTime(end - (startedAt > 0 ? startedAt : submittedAt))
+                    .errorMessage(errorMessage);
+            
+            SqlQueryResult finalResult = result;
+            if (currentStatus == AsyncQueryStatus.Status.SUCCEEDED && finalResult != null) {
+                List<Map<String, Object>> rows = finalResult.getRows();
+                if (rows == null) {
+                    builder.result(finalResult);
+                } else {
+                    int from = Math.min(offset, rows.size());
+                    int to = (int) Math.min((long) from + limit, rows.size());
+                    builder.resultRows(rows.size())
+                            .offset(from)
+                            .result(SqlQueryResult.builder()
+                                    .columns(finalResult.getColumns())
+                                    .rows(rows.subList(from, to))
+                                    .affectedRows(finalResult.getAffectedRows())
+                                    .executionTime(finalResult.getExecutionTime())
+                                    .success(true)
+                                    .sqlType(finalResult.getSqlType())
+                                    .build()
+                                    .toFormat(resultFormat));
+                }
+            }
+            return builder.build();
+        }
     }
-} 
\ No newline at end of file
+}
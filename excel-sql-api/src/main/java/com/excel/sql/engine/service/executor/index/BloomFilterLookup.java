@@ -0,0 +1,161 @@
+package com.excel.sql.engine.service.executor.index;
+
+import com.excel.sql.engine.model.excel.index.BlockBloomFilter;
+import com.excel.sql.engine.service.executor.expression.ColumnOperand;
+import com.excel.sql.engine.service.executor.expression.ComparisonOperator;
+import com.excel.sql.engine.service.executor.expression.ComparisonPredicate;
+import com.excel.sql.engine.service.executor.expression.InPredicate;
+import com.excel.sql.engine.service.executor.expression.LiteralOperand;
+import com.excel.sql.engine.service.executor.expression.RowPredicate;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * 可以通过区块布隆过滤器求值的WHERE条件
+ * 收集AND连接的条件中的"列 = 常量"和"列 IN (常量, ...)"，预先计算常量的数值哈希和文本哈希；
+ * 任一条件的所有常量都不在区块的过滤器中时跳过整个区块。
+ * 整数列只使用数值字面量，非数值字面量会按文本与数值单元格比较，无法排除区块。
+ */
+public class BloomFilterLookup {
+
+    private final List<Condition> conditions;
+
+    private BloomFilterLookup(List<Condition> conditions) {
+        this.conditions = conditions;
+    }
+
+    /**
+     * 一个等值或IN条件
+     */
+    private static class Condition {
+        private final int ordinal;
+
+        /**
+         * 常量的数值哈希，有非数值常量时为null
+         */
+        private final long[] numberHashes;
+        private final long[] textHashes;
+
+        Condition(int ordinal, long[] numberHashes, long[] textHashes) {
+            this.ordinal = ordinal;
+            this.numberHashes = numberHashes;
+            this.textHashes = textHashes;
+        }
+    }
+
+    /**
+     * 从WHERE条件中收集可以使用布隆过滤器的条件
+     *
+     * @param predicate 编译后的WHERE条件，可以为null
+     * @return 过滤器查找，没有可用条件时返回null
+     */
+    public static BloomFilterLookup of(RowPredicate predicate) {
+        List<RowPredicate> conjuncts = new ArrayList<>();
+        IndexLookup.flattenAnd(predicate, conjuncts);
+
+        List<Condition> conditions = new ArrayList<>();
+        for (RowPredicate conjunct : conjuncts) {
+            Condition condition = null;
+            if (conjunct instanceof ComparisonPredicate) {
+                ComparisonPredicate comparison = (ComparisonPredicate) conjunct;
+                if (comparison.getOperator() == ComparisonOperator.EQ && isColumn(comparison.getLeft())
+                        && comparison.getRight() instanceof LiteralOperand
+                        && !((LiteralOperand) comparison.getRight()).isNull()) {
+                    condition = condition((ColumnOperand) comparison.getLeft(),
+                            Collections.singletonList((LiteralOperand) comparison.getRight()), false);
+                }
+            } else if (conjunct instanceof InPredicate) {
+                InPredicate in = (InPredicate) conjunct;
+                if (!in.isNot() && isColumn(in.getOperand())) {
+                    condition = condition((ColumnOperand) in.getOperand(), in.getValues(), true);
+                }
+            }
+            if (condition != null) {
+                conditions.add(condition);
+            }
+        }
+        return conditions.isEmpty() ? null : new BloomFilterLookup(conditions);
+    }
+
+    /**
+     * 判断区块中是否可能有满足条件的行
+     *
+     * @param filters 按列序号排列的区块布隆过滤器，没有过滤器的列为null
+     * @param block 区块
+     * @return 所有条件都可能成立时返回true
+     */
+    public boolean mayMatch(BlockBloomFilter[] filters, int block) {
+        for (Condition condition : conditions) {
+            BlockBloomFilter filter = condition.ordinal < filters.length ? filters[condition.ordinal] : null;
+            if (filter == null) {
+                continue;
+            }
+            long[] hashes = filter.isNumeric() ? condition.numberHashes : condition.textHashes;
+            if (hashes == null) {
+                continue;
+            }
+            boolean possible = false;
+            for (long hash : hashes) {
+                if (filter.mightContain(block, hash)) {
+                    possible = true;
+                    break;
+                }
+            }
+            if (!possible) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * 按列序号排列工作表上的区块布隆过滤器
+     *
+     * @param filters 区块布隆过滤器，key为列名
+     * @param columnNames 列名列表，下标即列序号
+     * @return 下标为列序号，没有过滤器的列为null
+     */
+    public static BlockBloomFilter[] byOrdinal(Map<String, BlockBloomFilter> filters, List<String> columnNames) {
+        BlockBloomFilter[] result = new BlockBloomFilter[columnNames.size()];
+        for (int ordinal = 0; ordinal < result.length; ordinal++) {
+            result[ordinal] = filters.get(columnNames.get(ordinal));
+        }
+        return result;
+    }
+
+    private static Condition condition(ColumnOperand column, List<LiteralOperand> values, boolean in) {
+        List<Long> numberHashes = new ArrayList<>();
+        List<Long> textHashes = new ArrayList<>();
+        boolean allNumeric = true;
+        for (LiteralOperand value : values) {
+            if (value.isNull()) {
+                continue;
+            }
+            if (value.getNumber() != null) {
+                numberHashes.add(BlockBloomFilter.hashNumber(value.getNumber()));
+            } else {
+                allNumeric = false;
+            }
+            // 与InPredicate一致，IN列表中的布尔常量按小写文本匹配
+            String text = in && value.getBool() != null ? value.getText().toLowerCase() : value.getText();
+            textHashes.add(BlockBloomFilter.hashText(text));
+        }
+        return new Condition(column.getOrdinal(), allNumeric ? toArray(numberHashes) : null,
+                toArray(textHashes));
+    }
+
+    private static long[] toArray(List<Long> values) {
+        long[] result = new long[values.size()];
+        for (int i = 0; i < result.length; i++) {
+            result[i] = values.get(i);
+        }
+        return result;
+    }
+
+    private static boolean isColumn(Object operand) {
+        return operand instanceof ColumnOperand && ((ColumnOperand) operand).getOrdinal() >= 0;
+    }
+}
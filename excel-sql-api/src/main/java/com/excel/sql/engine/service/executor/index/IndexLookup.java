@@ -0,0 +1,202 @@
+package com.excel.sql.engine.service.executor.index;
+
+import com.excel.sql.engine.model.excel.ExcelRow;
+import com.excel.sql.engine.model.excel.index.HashIndex;
+import com.excel.sql.engine.service.executor.expression.AndPredicate;
+import com.excel.sql.engine.service.executor.expression.ColumnOperand;
+import com.excel.sql.engine.service.executor.expression.ComparisonOperator;
+import com.excel.sql.engine.service.executor.expression.ComparisonPredicate;
+import com.excel.sql.engine.service.executor.expression.InPredicate;
+import com.excel.sql.engine.service.executor.expression.LiteralOperand;
+import com.excel.sql.engine.service.executor.expression.RowPredicate;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * 可以通过哈希索引求值的WHERE条件
+ * 从AND连接的条件中选出一个"列 = 常量"或"列 IN (常量, ...)"，把常量转换为可能匹配的索引键；
+ * 多列索引要求每一列都有这样的条件，索引键是各列索引键的组合。
+ * 索引只用于缩小候选行，候选行仍需满足完整的WHERE条件，因此索引键可以多于实际匹配的值。
+ */
+public class IndexLookup {
+
+    /**
+     * 多列索引最多组合出的索引键数量，超过时改为扫描
+     */
+    private static final int MAX_COMPOSITE_KEYS = 1024;
+
+    private final String columnName;
+    private final Set<Object> keys;
+
+    private IndexLookup(String columnName, Set<Object> keys) {
+        this.columnName = columnName;
+        this.keys = keys;
+    }
+
+    /**
+     * 从WHERE条件中选出可以使用哈希索引的条件，等值条件优先于IN条件
+     *
+     * @param predicate 编译后的WHERE条件，可以为null
+     * @return 索引查找，没有可用条件时返回null
+     */
+    public static IndexLookup of(RowPredicate predicate) {
+        List<RowPredicate> conjuncts = new ArrayList<>();
+        flattenAnd(predicate, conjuncts);
+
+        IndexLookup best = null;
+        for (RowPredicate conjunct : conjuncts) {
+            IndexLookup lookup = null;
+            if (conjunct instanceof ComparisonPredicate) {
+                lookup = ofComparison((ComparisonPredicate) conjunct);
+            } else if (conjunct instanceof InPredicate) {
+                lookup = ofIn((InPredicate) conjunct);
+            }
+            if (lookup != null && (best == null || lookup.keys.size() < best.keys.size())) {
+                best = lookup;
+            }
+        }
+        return best;
+    }
+
+    /**
+     * 从WHERE条件中为多列索引选出条件，每一列都需要有等值或IN条件
+     *
+     * @param predicate 编译后的WHERE条件，可以为null
+     * @param columnNames 索引列名
+     * @return 索引查找，列名为逗号连接的索引列名；有列没有可用条件或组合出的键过多时返回null
+     */
+    public static IndexLookup of(RowPredicate predicate, List<String> columnNames) {
+        List<RowPredicate> conjuncts = new ArrayList<>();
+        flattenAnd(predicate, conjuncts);
+
+        List<List<Object>> keys = new ArrayList<>();
+        keys.add(new ArrayList<>());
+        for (String columnName : columnNames) {
+            IndexLookup best = null;
+            for (RowPredicate conjunct : conjuncts) {
+                IndexLookup lookup = null;
+                if (conjunct instanceof ComparisonPredicate) {
+                    lookup = ofComparison((ComparisonPredicate) conjunct);
+                } else if (conjunct instanceof InPredicate) {
+                    lookup = ofIn((InPredicate) conjunct);
+                }
+                if (lookup != null && lookup.columnName.equals(columnName)
+                        && (best == null || lookup.keys.size() < best.keys.size())) {
+                    best = lookup;
+                }
+            }
+            if (best == null || (long) keys.size() * best.keys.size() > MAX_COMPOSITE_KEYS) {
+                return null;
+            }
+
+            List<List<Object>> combined = new ArrayList<>(keys.size() * best.keys.size());
+            for (List<Object> prefix : keys) {
+                for (Object key : best.keys) {
+                    List<Object> next = new ArrayList<>(prefix);
+                    next.add(key);
+                    combined.add(next);
+                }
+            }
+            keys = combined;
+        }
+        return new IndexLookup(String.join(",", columnNames), new LinkedHashSet<Object>(keys));
+    }
+
+    /**
+     * 通过索引查找候选行，按行位置顺序返回
+     *
+     * @param index 条件列的哈希索引
+     * @param rows 已加载的行，下标即行位置
+     * @return 候选行；索引中有日期等只能按字符串比较的值时返回null，需要改为扫描
+     */
+    public List<ExcelRow> lookup(HashIndex index, List<ExcelRow> rows) {
+        if (!index.isLiteralComparable()) {
+            return null;
+        }
+        if (keys.isEmpty()) {
+            return Collections.emptyList();
+        }
+        return index.lookup(keys, rows);
+    }
+
+    /**
+     * 获取条件列名
+     *
+     * @return 列名，多列索引为逗号连接的索引列名
+     */
+    public String getColumnName() {
+        return columnName;
+    }
+
+    /**
+     * 把AND连接的条件展开为条件列表
+     */
+    static void flattenAnd(RowPredicate predicate, List<RowPredicate> conjuncts) {
+        if (predicate instanceof AndPredicate) {
+            flattenAnd(((AndPredicate) predicate).getLeft(), conjuncts);
+            flattenAnd(((AndPredicate) predicate).getRight(), conjuncts);
+        } else if (predicate != null) {
+            conjuncts.add(predicate);
+        }
+    }
+
+    private static IndexLookup ofComparison(ComparisonPredicate comparison) {
+        if (comparison.getOperator() != ComparisonOperator.EQ || !isColumn(comparison.getLeft())
+                || !(comparison.getRight() instanceof LiteralOperand)) {
+            return null;
+        }
+        Set<Object> keys = new LinkedHashSet<>();
+        if (!addKeys((LiteralOperand) comparison.getRight(), keys)) {
+            return null;
+        }
+        return new IndexLookup(((ColumnOperand) comparison.getLeft()).getName(), keys);
+    }
+
+    private static IndexLookup ofIn(InPredicate in) {
+        if (in.isNot() || !isColumn(in.getOperand())) {
+            return null;
+        }
+        Set<Object> keys = new LinkedHashSet<>();
+        for (LiteralOperand value : in.getValues()) {
+            if (!addKeys(value, keys)) {
+                return null;
+            }
+        }
+        return new IndexLookup(((ColumnOperand) in.getOperand()).getName(), keys);
+    }
+
+    private static boolean isColumn(Object operand) {
+        return operand instanceof ColumnOperand && ((ColumnOperand) operand).getOrdinal() >= 0;
+    }
+
+    /**
+     * 加入与字面量可能相等的索引键
+     * 数值单元格按数值匹配，字符串单元格按原文匹配，布尔单元格忽略大小写匹配
+     *
+     * @return 字面量是超出double精确范围的整数时返回false，这时不使用索引
+     */
+    private static boolean addKeys(LiteralOperand literal, Set<Object> keys) {
+        if (literal.isNull()) {
+            // 与NULL相等的条件不成立
+            return true;
+        }
+        Double number = literal.getNumber();
+        if (number != null) {
+            Object key = HashIndex.key(number);
+            if (key instanceof Double && number == Math.floor(number)) {
+                return false;
+            }
+            keys.add(key);
+        }
+        String text = literal.getText();
+        keys.add(text);
+        if ("true".equalsIgnoreCase(text) || "false".equalsIgnoreCase(text)) {
+            keys.add(Boolean.valueOf(text));
+        }
+        return true;
+    }
+}
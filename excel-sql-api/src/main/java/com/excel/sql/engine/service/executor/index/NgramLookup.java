@@ -0,0 +1,66 @@
+package com.excel.sql.engine.service.executor.index;
+
+import com.excel.sql.engine.model.excel.index.NgramIndex;
+import com.excel.sql.engine.service.executor.expression.ColumnOperand;
+import com.excel.sql.engine.service.executor.expression.LikePredicate;
+import com.excel.sql.engine.service.executor.expression.RowPredicate;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * 可以通过三元组索引求值的WHERE条件
+ * 收集AND连接的条件中的"列 LIKE 模式"，模式中的常量文本必须出现在单元格文本中，
+ * 通过该列的三元组索引得到候选行。NOT LIKE无法缩小范围，不使用索引。
+ */
+public class NgramLookup {
+
+    private final String columnName;
+    private final List<String> fragments;
+
+    private NgramLookup(String columnName, List<String> fragments) {
+        this.columnName = columnName;
+        this.fragments = fragments;
+    }
+
+    /**
+     * 从WHERE条件中收集可以使用三元组索引的LIKE条件
+     *
+     * @param predicate 编译后的WHERE条件，可以为null
+     * @param columnNames 工作表列名列表，下标即列序号
+     * @return 每个LIKE条件一个查找
+     */
+    public static List<NgramLookup> of(RowPredicate predicate, List<String> columnNames) {
+        List<RowPredicate> conjuncts = new ArrayList<>();
+        IndexLookup.flattenAnd(predicate, conjuncts);
+
+        List<NgramLookup> lookups = new ArrayList<>();
+        for (RowPredicate conjunct : conjuncts) {
+            if (!(conjunct instanceof LikePredicate)) {
+                continue;
+            }
+            LikePredicate like = (LikePredicate) conjunct;
+            if (!like.isNot() && like.getOperand() instanceof ColumnOperand) {
+                int ordinal = ((ColumnOperand) like.getOperand()).getOrdinal();
+                if (ordinal >= 0 && ordinal < columnNames.size()) {
+                    lookups.add(new NgramLookup(columnNames.get(ordinal), like.getFragments()));
+                }
+            }
+        }
+        return lookups;
+    }
+
+    public String getColumnName() {
+        return columnName;
+    }
+
+    /**
+     * 通过三元组索引查找候选行
+     *
+     * @param index 该列的三元组索引
+     * @return 候选行位置（升序），模式中没有足够长的常量文本时返回null
+     */
+    public int[] lookup(NgramIndex index) {
+        return index.candidates(fragments);
+    }
+}
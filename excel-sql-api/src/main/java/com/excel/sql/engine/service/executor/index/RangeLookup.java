@@ -0,0 +1,123 @@
+package com.excel.sql.engine.service.executor.index;
+
+import com.excel.sql.engine.model.excel.index.SortedIndex;
+import com.excel.sql.engine.service.executor.expression.AndPredicate;
+import com.excel.sql.engine.service.executor.expression.ColumnOperand;
+import com.excel.sql.engine.service.executor.expression.ComparisonOperator;
+import com.excel.sql.engine.service.executor.expression.ComparisonPredicate;
+import com.excel.sql.engine.service.executor.expression.LiteralOperand;
+import com.excel.sql.engine.service.executor.expression.RowPredicate;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * 可以通过有序索引求值的WHERE条件
+ * 收集AND连接的条件中同一列上的"列 比较运算符 常量"，BETWEEN编译后的 >= 和 <= 也在其中，
+ * 在有序索引上二分查找得到各条件排序下标区间的交集。
+ * 与哈希索引相同，索引只用于缩小候选行，候选行仍需满足完整的WHERE条件。
+ */
+public class RangeLookup {
+
+    private final String columnName;
+    private final List<ComparisonPredicate> conditions;
+
+    private RangeLookup(String columnName, List<ComparisonPredicate> conditions) {
+        this.columnName = columnName;
+        this.conditions = conditions;
+    }
+
+    /**
+     * 从WHERE条件中按列收集可以使用有序索引的条件
+     *
+     * @param predicate 编译后的WHERE条件，可以为null
+     * @return 每列一个范围查找，按列在WHERE中首次出现的顺序排列；没有可用条件时返回空列表
+     */
+    public static List<RangeLookup> of(RowPredicate predicate) {
+        List<RowPredicate> conjuncts = new ArrayList<>();
+        IndexLookup.flattenAnd(predicate, conjuncts);
+
+        Map<String, List<ComparisonPredicate>> byColumn = new LinkedHashMap<>();
+        for (RowPredicate conjunct : conjuncts) {
+            if (!(conjunct instanceof ComparisonPredicate)) {
+                continue;
+            }
+            ComparisonPredicate comparison = (ComparisonPredicate) conjunct;
+            if (comparison.getOperator() == ComparisonOperator.NE
+                    || !(comparison.getLeft() instanceof ColumnOperand)
+                    || ((ColumnOperand) comparison.getLeft()).getOrdinal() < 0
+                    || !(comparison.getRight() instanceof LiteralOperand)
+                    || ((LiteralOperand) comparison.getRight()).isNull()) {
+                continue;
+            }
+            byColumn.computeIfAbsent(((ColumnOperand) comparison.getLeft()).getName(), k -> new ArrayList<>())
+                    .add(comparison);
+        }
+
+        List<RangeLookup> lookups = new ArrayList<>(byColumn.size());
+        for (Map.Entry<String, List<ComparisonPredicate>> entry : byColumn.entrySet()) {
+            lookups.add(new RangeLookup(entry.getKey(), entry.getValue()));
+        }
+        return lookups;
+    }
+
+    /**
+     * 在有序索引上求排序下标区间
+     * 数值索引只使用数值字面量；日期索引只使用日期字面量；字符串索引只使用非数值字面量，
+     * 因为带数值字面量的大小比较会把字符串单元格解析为数值，与字符串顺序不一致
+     *
+     * @param index 条件列的有序索引
+     * @return 排序下标区间 {from, to}，没有条件能在该索引上求值时返回null
+     */
+    public int[] range(SortedIndex index) {
+        int from = 0;
+        int to = index.size();
+        boolean used = false;
+        for (ComparisonPredicate condition : conditions) {
+            LiteralOperand literal = (LiteralOperand) condition.getRight();
+            Object bound;
+            if (index.isNumeric()) {
+                bound = literal.getNumber();
+            } else if (index.isDate()) {
+                bound = literal.getDateMillis() != null ? Double.valueOf(literal.getDateMillis()) : null;
+            } else {
+                bound = literal.getNumber() == null ? literal.getText() : null;
+            }
+            if (bound == null) {
+                continue;
+            }
+            used = true;
+
+            switch (condition.getOperator()) {
+                case GT:
+                    from = Math.max(from, index.lowerBound(bound, false));
+                    break;
+                case GE:
+                    from = Math.max(from, index.lowerBound(bound, true));
+                    break;
+                case LT:
+                    to = Math.min(to, index.lowerBound(bound, true));
+                    break;
+                case LE:
+                    to = Math.min(to, index.lowerBound(bound, false));
+                    break;
+                case EQ:
+                    from = Math.max(from, index.lowerBound(bound, true));
+                    to = Math.min(to, index.lowerBound(bound, false));
+                    break;
+                default:
+                    break;
+            }
+        }
+        if (!used) {
+            return null;
+        }
+        return new int[] {from, Math.max(from, to)};
+    }
+
+    public String getColumnName() {
+        return columnName;
+    }
+}
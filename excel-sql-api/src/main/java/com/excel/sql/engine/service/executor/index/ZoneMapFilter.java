@@ -0,0 +1,188 @@
+package com.excel.sql.engine.service.executor.index;
+
+import com.excel.sql.engine.model.excel.index.ZoneMap;
+import com.excel.sql.engine.service.executor.expression.ColumnOperand;
+import com.excel.sql.engine.service.executor.expression.ComparisonPredicate;
+import com.excel.sql.engine.service.executor.expression.InPredicate;
+import com.excel.sql.engine.service.executor.expression.IsNullPredicate;
+import com.excel.sql.engine.service.executor.expression.LiteralOperand;
+import com.excel.sql.engine.service.executor.expression.RowPredicate;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * 可以通过区块统计求值的WHERE条件
+ * 收集AND连接的条件中的"列 比较运算符 常量"、"列 IN (常量, ...)"和"列 IS [NOT] NULL"，
+ * 任一条件在区块上不可能成立时跳过整个区块。数值列只使用数值字面量，日期列只使用日期字面量；
+ * 字符串列的等值比较使用字面量文本，大小比较只使用非数值字面量，与WHERE条件的比较方式一致。
+ * 未跳过的区块中的行仍需满足完整的WHERE条件。
+ */
+public class ZoneMapFilter {
+
+    private final List<RowPredicate> conditions;
+
+    private ZoneMapFilter(List<RowPredicate> conditions) {
+        this.conditions = conditions;
+    }
+
+    /**
+     * 从WHERE条件中收集可以使用区块统计的条件
+     *
+     * @param predicate 编译后的WHERE条件，可以为null
+     * @return 区块过滤，没有可用条件时返回null
+     */
+    public static ZoneMapFilter of(RowPredicate predicate) {
+        List<RowPredicate> conjuncts = new ArrayList<>();
+        IndexLookup.flattenAnd(predicate, conjuncts);
+
+        List<RowPredicate> conditions = new ArrayList<>();
+        for (RowPredicate conjunct : conjuncts) {
+            if (conjunct instanceof ComparisonPredicate) {
+                ComparisonPredicate comparison = (ComparisonPredicate) conjunct;
+                if (isColumn(comparison.getLeft()) && comparison.getRight() instanceof LiteralOperand
+                        && !((LiteralOperand) comparison.getRight()).isNull()) {
+                    conditions.add(comparison);
+                }
+            } else if (conjunct instanceof InPredicate) {
+                InPredicate in = (InPredicate) conjunct;
+                if (!in.isNot() && isColumn(in.getOperand())) {
+                    conditions.add(in);
+                }
+            } else if (conjunct instanceof IsNullPredicate) {
+                if (isColumn(((IsNullPredicate) conjunct).getOperand())) {
+                    conditions.add(conjunct);
+                }
+            }
+        }
+        return conditions.isEmpty() ? null : new ZoneMapFilter(conditions);
+    }
+
+    /**
+     * 判断区块中是否可能有满足条件的行
+     *
+     * @param zoneMap 区块统计
+     * @param block 区块
+     * @return 所有条件都可能成立时返回true
+     */
+    public boolean mayMatch(ZoneMap zoneMap, int block) {
+        for (RowPredicate condition : conditions) {
+            boolean possible;
+            if (condition instanceof ComparisonPredicate) {
+                possible = mayMatch(zoneMap, block, (ComparisonPredicate) condition);
+            } else if (condition instanceof InPredicate) {
+                possible = mayMatch(zoneMap, block, (InPredicate) condition);
+            } else {
+                possible = mayMatch(zoneMap, block, (IsNullPredicate) condition);
+            }
+            if (!possible) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private static boolean mayMatch(ZoneMap zoneMap, int block, ComparisonPredicate comparison) {
+        int ordinal = ((ColumnOperand) comparison.getLeft()).getOrdinal();
+        if (ordinal >= zoneMap.getColumnCount()) {
+            return true;
+        }
+        // 空值与任何值比较都不成立
+        if (zoneMap.nullCount(ordinal, block) == zoneMap.blockSize(block)) {
+            return false;
+        }
+
+        Object bound = bound(zoneMap, ordinal, (LiteralOperand) comparison.getRight(),
+                comparison.getOperator().isOrdering());
+        if (bound == null) {
+            return true;
+        }
+        switch (comparison.getOperator()) {
+            case EQ:
+                return zoneMap.compareMin(ordinal, block, bound) <= 0 && zoneMap.compareMax(ordinal, block, bound) >= 0;
+            case NE:
+                return zoneMap.compareMin(ordinal, block, bound) != 0 || zoneMap.compareMax(ordinal, block, bound) != 0;
+            case GT:
+                return zoneMap.compareMax(ordinal, block, bound) > 0;
+            case GE:
+                return zoneMap.compareMax(ordinal, block, bound) >= 0;
+            case LT:
+                return zoneMap.compareMin(ordinal, block, bound) < 0;
+            case LE:
+                return zoneMap.compareMin(ordinal, block, bound) <= 0;
+            default:
+                return true;
+        }
+    }
+
+    private static boolean mayMatch(ZoneMap zoneMap, int block, InPredicate in) {
+        int ordinal = ((ColumnOperand) in.getOperand()).getOrdinal();
+        if (ordinal >= zoneMap.getColumnCount()) {
+            return true;
+        }
+        if (zoneMap.nullCount(ordinal, block) == zoneMap.blockSize(block)) {
+            return false;
+        }
+        if (!zoneMap.isNumeric(ordinal) && !zoneMap.isDate(ordinal) && !zoneMap.isText(ordinal)) {
+            return true;
+        }
+
+        for (LiteralOperand value : in.getValues()) {
+            if (value.isNull()) {
+                continue;
+            }
+            Object bound;
+            if (zoneMap.isNumeric(ordinal)) {
+                // 数值单元格也按文本匹配非数值字面量，无法用数值范围排除
+                if (value.getNumber() == null) {
+                    return true;
+                }
+                bound = value.getNumber();
+            } else if (zoneMap.isDate(ordinal)) {
+                // 日期单元格也按文本匹配非日期字面量
+                if (value.getDateMillis() == null) {
+                    return true;
+                }
+                bound = Double.valueOf(value.getDateMillis());
+            } else {
+                bound = value.getBool() != null ? value.getText().toLowerCase() : value.getText();
+            }
+            if (zoneMap.compareMin(ordinal, block, bound) <= 0 && zoneMap.compareMax(ordinal, block, bound) >= 0) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private static boolean mayMatch(ZoneMap zoneMap, int block, IsNullPredicate isNull) {
+        int ordinal = ((ColumnOperand) isNull.getOperand()).getOrdinal();
+        if (ordinal >= zoneMap.getColumnCount()) {
+            return true;
+        }
+        int nulls = zoneMap.nullCount(ordinal, block);
+        return isNull.isNot() ? nulls < zoneMap.blockSize(block) : nulls > 0;
+    }
+
+    /**
+     * 计算比较边界，数值列为Double，日期列为毫秒时间戳的Double，字符串列为String
+     *
+     * @return 边界，区块统计无法判断时返回null
+     */
+    private static Object bound(ZoneMap zoneMap, int ordinal, LiteralOperand literal, boolean ordering) {
+        if (zoneMap.isNumeric(ordinal)) {
+            return literal.getNumber();
+        }
+        if (zoneMap.isDate(ordinal)) {
+            return literal.getDateMillis() != null ? Double.valueOf(literal.getDateMillis()) : null;
+        }
+        if (zoneMap.isText(ordinal)) {
+            // 带数值字面量的大小比较会把字符串单元格解析为数值，与字符串顺序不一致
+            return ordering && literal.getNumber() != null ? null : literal.getText();
+        }
+        return null;
+    }
+
+    private static boolean isColumn(Object operand) {
+        return operand instanceof ColumnOperand && ((ColumnOperand) operand).getOrdinal() >= 0;
+    }
+}
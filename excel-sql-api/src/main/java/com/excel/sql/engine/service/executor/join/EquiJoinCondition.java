@@ -0,0 +1,145 @@
+package com.excel.sql.engine.service.executor.join;
+
+import com.excel.sql.engine.service.executor.expression.AndPredicate;
+import com.excel.sql.engine.service.executor.expression.ColumnOperand;
+import com.excel.sql.engine.service.executor.expression.PredicateCompiler;
+import com.excel.sql.engine.service.executor.expression.RowPredicate;
+import net.sf.jsqlparser.JSQLParserException;
+import net.sf.jsqlparser.expression.Expression;
+import net.sf.jsqlparser.expression.Parenthesis;
+import net.sf.jsqlparser.expression.operators.conditional.AndExpression;
+import net.sf.jsqlparser.expression.operators.relational.EqualsTo;
+import net.sf.jsqlparser.parser.CCJSqlParserUtil;
+import net.sf.jsqlparser.schema.Column;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * 编译后的JOIN条件
+ * ON条件中用AND连接的"左表列 = 右表列"作为哈希键，其余条件在键匹配后对连接行求值
+ */
+public class EquiJoinCondition {
+
+    private final List<ColumnOperand> leftKeys;
+    private final List<ColumnOperand> rightKeys;
+    private final RowPredicate residual;
+
+    private EquiJoinCondition(List<ColumnOperand> leftKeys, List<ColumnOperand> rightKeys, RowPredicate residual) {
+        this.leftKeys = leftKeys;
+        this.rightKeys = rightKeys;
+        this.residual = residual;
+    }
+
+    /**
+     * 编译ON条件
+     *
+     * @param onCondition ON条件
+     * @param left 左侧输入
+     * @param right 右侧输入
+     * @return JOIN条件
+     * @throws IllegalArgumentException 条件无法解析或不包含等值条件
+     */
+    public static EquiJoinCondition compile(String onCondition, JoinInput left, JoinInput right) {
+        if (onCondition == null || onCondition.trim().isEmpty()) {
+            throw new IllegalArgumentException("JOIN缺少ON条件");
+        }
+        Expression expression;
+        try {
+            expression = CCJSqlParserUtil.parseCondExpression(onCondition);
+        } catch (JSQLParserException e) {
+            throw new IllegalArgumentException("无法解析JOIN条件: " + onCondition, e);
+        }
+
+        List<String> leftNames = left.getOutputNames();
+        List<String> rightNames = right.getOutputNames();
+        List<String> outputNames = new ArrayList<>(leftNames);
+        outputNames.addAll(rightNames);
+
+        List<Expression> conjuncts = new ArrayList<>();
+        flattenAnd(expression, conjuncts);
+
+        List<ColumnOperand> leftKeys = new ArrayList<>();
+        List<ColumnOperand> rightKeys = new ArrayList<>();
+        RowPredicate residual = null;
+        for (Expression conjunct : conjuncts) {
+            if (conjunct instanceof EqualsTo && addKey((EqualsTo) conjunct, left, right, leftKeys, rightKeys)) {
+                continue;
+            }
+            RowPredicate predicate = PredicateCompiler.compile(conjunct, outputNames);
+            residual = residual == null ? predicate : new AndPredicate(residual, predicate);
+        }
+
+        if (leftKeys.isEmpty()) {
+            throw new IllegalArgumentException("JOIN条件必须包含两表列的等值比较: " + onCondition);
+        }
+        return new EquiJoinCondition(leftKeys, rightKeys, residual);
+    }
+
+    public List<ColumnOperand> getLeftKeys() {
+        return leftKeys;
+    }
+
+    public List<ColumnOperand> getRightKeys() {
+        return rightKeys;
+    }
+
+    /**
+     * 获取键匹配后还需满足的条件
+     *
+     * @return 条件，对连接行求值；没有时返回null
+     */
+    public RowPredicate getResidual() {
+        return residual;
+    }
+
+    private static void flattenAnd(Expression expression, List<Expression> conjuncts) {
+        if (expression instanceof Parenthesis) {
+            flattenAnd(((Parenthesis) expression).getExpression(), conjuncts);
+        } else if (expression instanceof AndExpression) {
+            flattenAnd(((AndExpression) expression).getLeftExpression(), conjuncts);
+            flattenAnd(((AndExpression) expression).getRightExpression(), conjuncts);
+        } else {
+            conjuncts.add(expression);
+        }
+    }
+
+    /**
+     * 两侧都是列且分属左右两个输入时作为哈希键
+     */
+    private static boolean addKey(EqualsTo equalsTo, JoinInput left, JoinInput right,
+                                  List<ColumnOperand> leftKeys, List<ColumnOperand> rightKeys) {
+        if (!(equalsTo.getLeftExpression() instanceof Column) || !(equalsTo.getRightExpression() instanceof Column)) {
+            return false;
+        }
+        String first = ((Column) equalsTo.getLeftExpression()).getFullyQualifiedName();
+        String second = ((Column) equalsTo.getRightExpression()).getFullyQualifiedName();
+
+        ColumnOperand firstLeft = resolve(first, left);
+        ColumnOperand secondRight = resolve(second, right);
+        if (firstLeft != null && secondRight != null) {
+            leftKeys.add(firstLeft);
+            rightKeys.add(secondRight);
+            return true;
+        }
+        ColumnOperand secondLeft = resolve(second, left);
+        ColumnOperand firstRight = resolve(first, right);
+        if (secondLeft != null && firstRight != null) {
+            leftKeys.add(secondLeft);
+            rightKeys.add(firstRight);
+            return true;
+        }
+        return false;
+    }
+
+    /**
+     * 按连接结果中的列名解析列引用，返回该列在输入行中的列名和列序号
+     */
+    private static ColumnOperand resolve(String reference, JoinInput input) {
+        int ordinal = PredicateCompiler.resolveOrdinal(reference, input.getOutputNames());
+        if (ordinal < 0) {
+            return null;
+        }
+        return new ColumnOperand(input.getColumnNames().get(ordinal), ordinal);
+    }
+}
@@ -0,0 +1,261 @@
+package com.excel.sql.engine.service.executor.join;
+
+import com.excel.sql.engine.model.excel.ExcelColumn;
+import com.excel.sql.engine.model.excel.ExcelRow;
+import com.excel.sql.engine.model.excel.ExcelSheet;
+import com.excel.sql.engine.model.excel.index.HashIndex;
+import com.excel.sql.engine.service.executor.aggregate.GroupKey;
+import com.excel.sql.engine.service.executor.expression.ColumnOperand;
+import com.excel.sql.engine.service.executor.expression.RowPredicate;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Consumer;
+
+/**
+ * 哈希连接算子
+ * 先把构建侧（行数较少的一侧）的行按连接键放入哈希表，再逐行读取探测侧并查找匹配行，
+ * 只输出键相等的行对，不生成笛卡尔积。外连接中需要保留的一侧如果是构建侧，
+ * 探测结束后补充输出没有匹配过的构建行。
+ * 构建侧是已加载并有连接键哈希索引的工作表时，可以直接用索引代替哈希表，省去构建阶段。
+ */
+public class HashJoin {
+
+    private final JoinInput left;
+    private final JoinInput right;
+    private final boolean buildLeft;
+    private final ColumnOperand[] buildKeys;
+    private final ColumnOperand[] probeKeys;
+    private final RowPredicate residual;
+    private final boolean preserveBuild;
+    private final boolean preserveProbe;
+    private final ExcelSheet outputSheet;
+
+    private final Map<Object, List<BuildRow>> hashTable = new HashMap<>();
+
+    /**
+     * 需要保留的构建行，只在构建侧需要保留时记录
+     */
+    private final List<BuildRow> buildRows = new ArrayList<>();
+
+    /**
+     * 代替哈希表的构建侧索引及其对应的行，下标即行位置
+     */
+    private HashIndex buildIndex;
+    private List<ExcelRow> buildIndexRows;
+
+    private RowPredicate filter;
+    private int outputCount;
+
+    /**
+     * @param joinType JOIN类型
+     * @param left 左侧输入
+     * @param right 右侧输入
+     * @param condition JOIN条件
+     * @param buildLeft 是否以左侧作为构建侧
+     * @param outputName 连接结果的名称
+     */
+    public HashJoin(JoinType joinType, JoinInput left, JoinInput right, EquiJoinCondition condition,
+                    boolean buildLeft, String outputName) {
+        this.left = left;
+        this.right = right;
+        this.buildLeft = buildLeft;
+        List<ColumnOperand> leftKeys = condition.getLeftKeys();
+        List<ColumnOperand> rightKeys = condition.getRightKeys();
+        this.buildKeys = (buildLeft ? leftKeys : rightKeys).toArray(new ColumnOperand[0]);
+        this.probeKeys = (buildLeft ? rightKeys : leftKeys).toArray(new ColumnOperand[0]);
+        this.residual = condition.getResidual();
+
+        boolean preserveLeft = joinType == JoinType.LEFT;
+        boolean preserveRight = joinType == JoinType.RIGHT;
+        this.preserveBuild = buildLeft ? preserveLeft : preserveRight;
+        this.preserveProbe = buildLeft ? preserveRight : preserveLeft;
+
+        List<ExcelColumn> columns = new ArrayList<>(left.getOutputColumns());
+        columns.addAll(right.getOutputColumns());
+        for (int i = 0; i < columns.size(); i++) {
+            columns.get(i).setColumnIndex(i);
+        }
+        this.outputSheet = ExcelSheet.builder()
+                .name(outputName)
+                .columns(columns)
+                .build();
+    }
+
+    /**
+     * 设置输出行的过滤条件（WHERE），不满足的连接行不输出
+     *
+     * @param filter 过滤条件，可以为null
+     */
+    public void setFilter(RowPredicate filter) {
+        this.filter = filter;
+    }
+
+    /**
+     * 使用构建侧工作表的哈希索引代替哈希表，之后不再调用 {@link #build(ExcelRow)}
+     * 只适用于单列连接键、且构建侧的行不需要保留的连接
+     *
+     * @param index 构建侧连接键列的哈希索引
+     * @param rows 构建侧已加载的行，下标即行位置
+     * @throws IllegalStateException 连接键多于一列或构建侧需要保留
+     */
+    public void useBuildIndex(HashIndex index, List<ExcelRow> rows) {
+        if (!canUseBuildIndex()) {
+            throw new IllegalStateException("该连接不能使用构建侧索引");
+        }
+        this.buildIndex = index;
+        this.buildIndexRows = rows;
+    }
+
+    /**
+     * 是否可以用构建侧的哈希索引代替哈希表
+     *
+     * @return 连接键只有一列且构建侧的行不需要保留时返回true
+     */
+    public boolean canUseBuildIndex() {
+        return buildKeys.length == 1 && buildKeys[0].getOrdinal() >= 0 && !preserveBuild;
+    }
+
+    /**
+     * 获取连接结果的工作表定义，列名为"表别名.列名"
+     *
+     * @return 工作表定义
+     */
+    public ExcelSheet getOutputSheet() {
+        return outputSheet;
+    }
+
+    /**
+     * 加入一行构建侧数据
+     *
+     * @param row 构建侧的行
+     */
+    public void build(ExcelRow row) {
+        BuildRow buildRow = new BuildRow(row);
+        if (preserveBuild) {
+            buildRows.add(buildRow);
+        }
+        Object key = key(row, buildKeys);
+        if (key != null) {
+            hashTable.computeIfAbsent(key, k -> new ArrayList<>(1)).add(buildRow);
+        }
+    }
+
+    /**
+     * 用一行探测侧数据查找匹配行并输出连接结果
+     *
+     * @param row 探测侧的行
+     * @param output 连接行的接收者
+     */
+    public void probe(ExcelRow row, Consumer<ExcelRow> output) {
+        Object key = key(row, probeKeys);
+        boolean matched = false;
+        if (buildIndex != null) {
+            int[] positions = buildIndex.positions(key);
+            if (positions != null) {
+                for (int position : positions) {
+                    ExcelRow buildRow = buildIndexRows.get(position);
+                    ExcelRow joined = buildLeft ? combine(buildRow, row) : combine(row, buildRow);
+                    if (residual == null || residual.test(joined)) {
+                        matched = true;
+                        emit(joined, output);
+                    }
+                }
+            }
+            if (!matched && preserveProbe) {
+                emit(buildLeft ? combine(null, row) : combine(row, null), output);
+            }
+            return;
+        }
+
+        List<BuildRow> matches = key != null ? hashTable.get(key) : null;
+        if (matches != null) {
+            for (BuildRow buildRow : matches) {
+                ExcelRow joined = buildLeft ? combine(buildRow.row, row) : combine(row, buildRow.row);
+                if (residual == null || residual.test(joined)) {
+                    matched = true;
+                    buildRow.matched = true;
+                    emit(joined, output);
+                }
+            }
+        }
+        if (!matched && preserveProbe) {
+            emit(buildLeft ? combine(null, row) : combine(row, null), output);
+        }
+    }
+
+    /**
+     * 探测结束，外连接时输出没有匹配过的构建行
+     *
+     * @param output 连接行的接收者
+     */
+    public void finish(Consumer<ExcelRow> output) {
+        for (BuildRow buildRow : buildRows) {
+            if (!buildRow.matched) {
+                emit(buildLeft ? combine(buildRow.row, null) : combine(null, buildRow.row), output);
+            }
+        }
+        buildRows.clear();
+        hashTable.clear();
+    }
+
+    private void emit(ExcelRow joined, Consumer<ExcelRow> output) {
+        if (filter == null || filter.test(joined)) {
+            joined.setRowNum(outputCount++);
+            output.accept(joined);
+        }
+    }
+
+    private ExcelRow combine(ExcelRow leftRow, ExcelRow rightRow) {
+        ExcelRow joined = new ExcelRow(null, outputSheet);
+        copyValues(leftRow, left, joined);
+        copyValues(rightRow, right, joined);
+        return joined;
+    }
+
+    private static void copyValues(ExcelRow source, JoinInput input, ExcelRow target) {
+        if (source == null) {
+            return;
+        }
+        List<String> columnNames = input.getColumnNames();
+        List<ExcelColumn> outputColumns = input.getOutputColumns();
+        for (int i = 0; i < columnNames.size(); i++) {
+            Object value = source.getCellValue(i, columnNames.get(i));
+            if (value != null) {
+                target.setCellValue(outputColumns.get(i).getName(), value);
+            }
+        }
+    }
+
+    /**
+     * 计算连接键，任一键列为空时返回null（空值不与任何值相等）
+     */
+    private static Object key(ExcelRow row, ColumnOperand[] keys) {
+        if (keys.length == 1) {
+            return HashIndex.key(keys[0].evaluate(row));
+        }
+        Object[] values = new Object[keys.length];
+        for (int i = 0; i < keys.length; i++) {
+            values[i] = HashIndex.key(keys[i].evaluate(row));
+            if (values[i] == null) {
+                return null;
+            }
+        }
+        return new GroupKey(values);
+    }
+
+    /**
+     * 构建侧的一行及其是否匹配过
+     */
+    private static final class BuildRow {
+
+        private final ExcelRow row;
+        private boolean matched;
+
+        BuildRow(ExcelRow row) {
+            this.row = row;
+        }
+    }
+}
@@ -0,0 +1,81 @@
+package com.excel.sql.engine.service.executor.join;
+
+import com.excel.sql.engine.model.excel.ExcelColumn;
+import com.excel.sql.engine.model.excel.ExcelSheet;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * 连接的一侧输入
+ * 输入行中的列名与连接结果中带表名的列名一一对应
+ */
+public class JoinInput {
+
+    /**
+     * 输入行中的列名，下标即列序号
+     */
+    private final List<String> columnNames;
+
+    /**
+     * 连接结果中的列定义，列名为"表别名.列名"
+     */
+    private final List<ExcelColumn> outputColumns;
+
+    private JoinInput(List<String> columnNames, List<ExcelColumn> outputColumns) {
+        this.columnNames = columnNames;
+        this.outputColumns = outputColumns;
+    }
+
+    /**
+     * 以工作表作为输入，结果列名加上表别名（没有别名时为表名）前缀
+     *
+     * @param sheet 工作表
+     * @param qualifier 表别名或表名
+     * @return 连接输入
+     */
+    public static JoinInput ofSheet(ExcelSheet sheet, String qualifier) {
+        List<ExcelColumn> columns = sheet.getColumns() != null ? sheet.getColumns() : Collections.emptyList();
+        List<String> columnNames = new ArrayList<>(columns.size());
+        List<ExcelColumn> outputColumns = new ArrayList<>(columns.size());
+        for (ExcelColumn column : columns) {
+            columnNames.add(column.getName());
+            ExcelColumn outputColumn = column.copy();
+            outputColumn.setName(qualifier + "." + column.getName());
+            outputColumns.add(outputColumn);
+        }
+        return new JoinInput(columnNames, outputColumns);
+    }
+
+    /**
+     * 以上一次连接的结果作为输入，列名保持不变
+     *
+     * @param joinedSheet 上一次连接的结果
+     * @return 连接输入
+     */
+    public static JoinInput ofJoined(ExcelSheet joinedSheet) {
+        return new JoinInput(joinedSheet.getColumnNames(), joinedSheet.getColumns());
+    }
+
+    public List<String> getColumnNames() {
+        return columnNames;
+    }
+
+    public List<ExcelColumn> getOutputColumns() {
+        return outputColumns;
+    }
+
+    /**
+     * 获取连接结果中的列名
+     *
+     * @return 列名列表
+     */
+    public List<String> getOutputNames() {
+        List<String> names = new ArrayList<>(outputColumns.size());
+        for (ExcelColumn column : outputColumns) {
+            names.add(column.getName());
+        }
+        return names;
+    }
+}
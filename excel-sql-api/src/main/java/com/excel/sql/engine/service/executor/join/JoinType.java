@@ -0,0 +1,29 @@
+package com.excel.sql.engine.service.executor.join;
+
+/**
+ * 哈希连接支持的JOIN类型
+ */
+public enum JoinType {
+
+    INNER,
+    LEFT,
+    RIGHT;
+
+    /**
+     * 根据JOIN子句中的类型名获取JOIN类型
+     *
+     * @param name 类型名，如 INNER、LEFT
+     * @return JOIN类型，不支持的类型（如FULL）返回null
+     */
+    public static JoinType of(String name) {
+        if (name == null) {
+            return INNER;
+        }
+        for (JoinType type : values()) {
+            if (type.name().equalsIgnoreCase(name.trim())) {
+                return type;
+            }
+        }
+        return null;
+    }
+}
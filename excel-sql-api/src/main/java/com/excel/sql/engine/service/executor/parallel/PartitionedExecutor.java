@@ -0,0 +1,53 @@
+package com.excel.sql.engine.service.executor.parallel;
+
+import java.util.Comparator;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.function.Function;
+import java.util.function.Supplier;
+
+/**
+ * 分区并行执行器接口
+ * 把已加载的行按行号区间切分为若干分区，在专用的ForkJoinPool上并行处理，
+ * 各分区的结果按分区顺序返回，合并后与顺序执行的结果一致
+ */
+public interface PartitionedExecutor {
+
+    /**
+     * 判断给定行数是否达到并行执行的阈值
+     *
+     * @param rowCount 行数
+     * @return 是否并行执行
+     */
+    boolean isParallel(int rowCount);
+
+    /**
+     * 对每个分区执行任务
+     *
+     * @param items 待处理的元素
+     * @param task 分区任务，参数为一个连续的子列表
+     * @param <T> 元素类型
+     * @param <R> 分区结果类型
+     * @return 各分区的结果，按分区顺序排列
+     */
+    <T, R> List<R> mapPartitions(List<T> items, Function<List<T>, R> task);
+
+    /**
+     * 并行稳定排序
+     *
+     * @param items 待排序的元素，原地排序
+     * @param comparator 比较器
+     * @param <T> 元素类型
+     */
+    <T> void sort(List<T> items, Comparator<? super T> comparator);
+
+    /**
+     * 在执行器的线程池中异步执行任务，任务绑定调用线程的取消令牌
+     * 用于UNION各个SELECT、JOIN右表加载等需要并发执行的查询步骤，不占用公共线程池
+     *
+     * @param task 任务
+     * @param <R> 结果类型
+     * @return 任务结果
+     */
+    <R> CompletableFuture<R> supplyAsync(Supplier<R> task);
+}
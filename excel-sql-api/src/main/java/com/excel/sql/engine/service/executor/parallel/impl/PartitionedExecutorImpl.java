@@ -0,0 +1,119 @@
+package com.excel.sql.engine.service.executor.parallel.impl;
+
+import com.excel.sql.engine.config.ExcelConfig;
+import com.excel.sql.engine.service.executor.cancel.CancellationToken;
+import com.excel.sql.engine.service.executor.parallel.PartitionedExecutor;
+import com.excel.sql.engine.service.reader.CsvRecordReader;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Service;
+
+import javax.annotation.PreDestroy;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
+import java.util.concurrent.ForkJoinWorkerThread;
+import java.util.function.Function;
+import java.util.function.Supplier;
+
+/**
+ * 分区并行执行器实现类
+ * 使用独立的ForkJoinPool，查询的并行扫描不占用公共线程池
+ */
+@Slf4j
+@Service
+public class PartitionedExecutorImpl implements PartitionedExecutor {
+
+    private final int parallelism;
+    private final int threshold;
+    private final ForkJoinPool pool;
+
+    public PartitionedExecutorImpl(ExcelConfig excelConfig) {
+        int configured = excelConfig.getQuery().getParallelism();
+        this.parallelism = configured > 0 ? configured : Runtime.getRuntime().availableProcessors();
+        this.threshold = excelConfig.getQuery().getParallelThreshold();
+        this.pool = new ForkJoinPool(parallelism, pool -> {
+            ForkJoinWorkerThread thread = ForkJoinPool.defaultForkJoinWorkerThreadFactory.newThread(pool);
+            thread.setName("excel-sql-scan-" + thread.getPoolIndex());
+            return thread;
+        }, null, false);
+        // CSV文件的块也在本线程池中解析
+        CsvRecordReader.useExecutor(this);
+        log.info("分区并行执行器：并行度 {}，阈值 {} 行", parallelism, threshold);
+    }
+
+    @Override
+    public boolean isParallel(int rowCount) {
+        return parallelism > 1 && threshold > 0 && rowCount >= threshold;
+    }
+
+    @Override
+    public <T, R> List<R> mapPartitions(List<T> items, Function<List<T>, R> task) {
+        int partitions = partitionCount(items.size());
+        if (partitions <= 1) {
+            List<R> single = new ArrayList<>(1);
+            single.add(task.apply(items));
+            return single;
+        }
+
+        // 分区任务在线程池中执行，需要绑定调用线程的取消令牌
+        CancellationToken token = CancellationToken.current();
+        int size = items.size();
+        List<ForkJoinTask<R>> tasks = new ArrayList<>(partitions);
+        for (int i = 0; i < partitions; i++) {
+            int from = (int) ((long) size * i / partitions);
+            int to = (int) ((long) size * (i + 1) / partitions);
+            List<T> partition = items.subList(from, to);
+            tasks.add(pool.submit(() -> token.callWith(() -> task.apply(partition))));
+        }
+
+        List<R> results = new ArrayList<>(partitions);
+        for (ForkJoinTask<R> forkJoinTask : tasks) {
+            results.add(forkJoinTask.join());
+        }
+        return results;
+    }
+
+    @Override
+    @SuppressWarnings("unchecked")
+    public <T> void sort(List<T> items, Comparator<? super T> comparator) {
+        if (!isParallel(items.size())) {
+            items.sort(comparator);
+            return;
+        }
+        CancellationToken token = CancellationToken.current();
+        token.checkpoint();
+        Object[] array = items.toArray();
+        // 在本执行器的线程中调用，parallelSort拆分出的子任务也在本线程池中执行
+        pool.submit(() -> Arrays.parallelSort((T[]) array, comparator)).join();
+        token.checkpoint();
+        for (int i = 0; i < array.length; i++) {
+            items.set(i, (T) array[i]);
+        }
+    }
+
+    @Override
+    public <R> CompletableFuture<R> supplyAsync(Supplier<R> task) {
+        CancellationToken token = CancellationToken.current();
+        return CompletableFuture.supplyAsync(() -> token.callWith(task), pool);
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        pool.shutdown();
+    }
+
+    /**
+     * 分区数：每个分区至少包含阈值一半的行，最多为并行度的4倍，便于负载均衡
+     */
+    private int partitionCount(int size) {
+        if (!isParallel(size)) {
+            return 1;
+        }
+        int minPartitionSize = Math.max(1, threshold / 2);
+        return (int) Math.max(1, Math.min((long) parallelism * 4, size / minPartitionSize));
+    }
+}
@@ -0,0 +1,278 @@
+package com.excel.sql.engine.service.executor.sort;
+
+import com.excel.sql.engine.model.excel.ExcelRow;
+import com.excel.sql.engine.model.excel.ExcelSheet;
+import lombok.extern.slf4j.Slf4j;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.Closeable;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.Date;
+import java.util.Iterator;
+import java.util.List;
+import java.util.NoSuchElementException;
+import java.util.PriorityQueue;
+
+/**
+ * 外部归并排序算子
+ * 行先缓存在内存中，缓存达到上限时排序并以紧凑的二进制格式写入临时目录下的一个有序段；
+ * 输入结束后对所有有序段做多路归并，边归并边输出，内存中只保留每个段的当前行。
+ * 没有发生溢写时直接在内存中排序。排序相同的行保持输入顺序。
+ */
+@Slf4j
+public class ExternalSorter implements Closeable {
+
+    private static final byte TYPE_NULL = 0;
+    private static final byte TYPE_LONG = 1;
+    private static final byte TYPE_DOUBLE = 2;
+    private static final byte TYPE_BOOLEAN = 3;
+    private static final byte TYPE_STRING = 4;
+    private static final byte TYPE_DATE = 5;
+
+    private static final int IO_BUFFER_SIZE = 64 * 1024;
+
+    private final Comparator<ExcelRow> comparator;
+    private final ExcelSheet sheet;
+    private final List<String> columnNames;
+    private final int bufferRows;
+    private final Path tempDir;
+
+    private List<ExcelRow> buffer = new ArrayList<>();
+    private final List<Path> runs = new ArrayList<>();
+    private final List<RunReader> readers = new ArrayList<>();
+
+    /**
+     * @param comparator 排序比较器
+     * @param sheet 工作表，列定义决定写入有序段的列
+     * @param bufferRows 内存中缓存的最大行数
+     * @param tempDir 有序段文件所在的临时目录
+     */
+    public ExternalSorter(Comparator<ExcelRow> comparator, ExcelSheet sheet, int bufferRows, Path tempDir) {
+        this.comparator = comparator;
+        this.sheet = sheet;
+        this.columnNames = sheet.getColumnNames();
+        this.bufferRows = Math.max(1, bufferRows);
+        this.tempDir = tempDir;
+    }
+
+    /**
+     * 添加一行，缓存满时溢写为一个有序段
+     *
+     * @param row 行
+     * @throws IOException 写入临时文件失败
+     */
+    public void add(ExcelRow row) throws IOException {
+        buffer.add(row);
+        if (buffer.size() >= bufferRows) {
+            spill();
+        }
+    }
+
+    /**
+     * 获取溢写的有序段数量
+     *
+     * @return 有序段数量
+     */
+    public int getRunCount() {
+        return runs.size();
+    }
+
+    /**
+     * 按排序顺序遍历所有行，只能调用一次
+     *
+     * @return 排序后的行迭代器，读取临时文件失败时抛出UncheckedIOException
+     * @throws IOException 写入或打开临时文件失败
+     */
+    public Iterator<ExcelRow> sortedIterator() throws IOException {
+        if (runs.isEmpty()) {
+            buffer.sort(comparator);
+            return buffer.iterator();
+        }
+
+        if (!buffer.isEmpty()) {
+            spill();
+        }
+        buffer = null;
+
+        PriorityQueue<RunReader> queue = new PriorityQueue<>(runs.size(), (a, b) -> {
+            int result = comparator.compare(a.head, b.head);
+            return result != 0 ? result : Integer.compare(a.index, b.index);
+        });
+        for (int i = 0; i < runs.size(); i++) {
+            RunReader reader = new RunReader(i, runs.get(i));
+            readers.add(reader);
+            if (reader.advance()) {
+                queue.add(reader);
+            }
+        }
+        log.debug("归并 {} 个有序段", runs.size());
+
+        return new Iterator<ExcelRow>() {
+            @Override
+            public boolean hasNext() {
+                return !queue.isEmpty();
+            }
+
+            @Override
+            public ExcelRow next() {
+                RunReader reader = queue.poll();
+                if (reader == null) {
+                    throw new NoSuchElementException();
+                }
+                ExcelRow row = reader.head;
+                try {
+                    if (reader.advance()) {
+                        queue.add(reader);
+                    }
+                } catch (IOException e) {
+                    throw new UncheckedIOException(e);
+                }
+                return row;
+            }
+        };
+    }
+
+    /**
+     * 关闭所有有序段并删除临时文件
+     */
+    @Override
+    public void close() {
+        for (RunReader reader : readers) {
+            try {
+                reader.in.close();
+            } catch (IOException e) {
+                log.warn("关闭有序段文件异常: {}", e.getMessage());
+            }
+        }
+        for (Path run : runs) {
+            try {
+                Files.deleteIfExists(run);
+            } catch (IOException e) {
+                log.warn("删除有序段文件失败: {}", run);
+            }
+        }
+        readers.clear();
+        runs.clear();
+        buffer = null;
+    }
+
+    private void spill() throws IOException {
+        buffer.sort(comparator);
+        Files.createDirectories(tempDir);
+        Path run = Files.createTempFile(tempDir, "sort-", ".run");
+        runs.add(run);
+        try (DataOutputStream out = new DataOutputStream(
+                new BufferedOutputStream(Files.newOutputStream(run), IO_BUFFER_SIZE))) {
+            out.writeInt(buffer.size());
+            for (ExcelRow row : buffer) {
+                writeRow(out, row);
+            }
+        }
+        log.debug("溢写有序段 {}，{} 行", run.getFileName(), buffer.size());
+        buffer.clear();
+    }
+
+    private void writeRow(DataOutputStream out, ExcelRow row) throws IOException {
+        Integer rowNum = row.getRowNum();
+        out.writeInt(rowNum != null ? rowNum : -1);
+        for (int i = 0; i < columnNames.size(); i++) {
+            writeValue(out, row.getCellValue(i, columnNames.get(i)));
+        }
+    }
+
+    private static void writeValue(DataOutputStream out, Object value) throws IOException {
+        if (value == null) {
+            out.writeByte(TYPE_NULL);
+        } else if (value instanceof Long || value instanceof Integer || value instanceof Short || value instanceof Byte) {
+            out.writeByte(TYPE_LONG);
+            out.writeLong(((Number) value).longValue());
+        } else if (value instanceof Number) {
+            out.writeByte(TYPE_DOUBLE);
+            out.writeDouble(((Number) value).doubleValue());
+        } else if (value instanceof Boolean) {
+            out.writeByte(TYPE_BOOLEAN);
+            out.writeBoolean((Boolean) value);
+        } else if (value instanceof Date) {
+            // 日期单元格按毫秒时间戳写入，读回后仍为Date，归并时与内存排序的比较方式一致
+            out.writeByte(TYPE_DATE);
+            out.writeLong(((Date) value).getTime());
+        } else {
+            byte[] bytes = value.toString().getBytes(StandardCharsets.UTF_8);
+            out.writeByte(TYPE_STRING);
+            out.writeInt(bytes.length);
+            out.write(bytes);
+        }
+    }
+
+    private static Object readValue(DataInputStream in) throws IOException {
+        byte type = in.readByte();
+        switch (type) {
+            case TYPE_NULL:
+                return null;
+            case TYPE_LONG:
+                return in.readLong();
+            case TYPE_DOUBLE:
+                return in.readDouble();
+            case TYPE_BOOLEAN:
+                return in.readBoolean();
+            case TYPE_DATE:
+                return new Date(in.readLong());
+            case TYPE_STRING:
+                byte[] bytes = new byte[in.readInt()];
+                in.readFully(bytes);
+                return new String(bytes, StandardCharsets.UTF_8);
+            default:
+                throw new IOException("有序段文件格式错误，未知的值类型: " + type);
+        }
+    }
+
+    /**
+     * 有序段读取器，保存段中的当前行
+     */
+    private final class RunReader {
+
+        private final int index;
+        private final DataInputStream in;
+        private int remaining;
+        private ExcelRow head;
+
+        RunReader(int index, Path run) throws IOException {
+            this.index = index;
+            this.in = new DataInputStream(new BufferedInputStream(Files.newInputStream(run), IO_BUFFER_SIZE));
+            try {
+                this.remaining = in.readInt();
+            } catch (EOFException e) {
+                this.remaining = 0;
+            }
+        }
+
+        boolean advance() throws IOException {
+            if (remaining <= 0) {
+                head = null;
+                in.close();
+                return false;
+            }
+            remaining--;
+            int rowNum = in.readInt();
+            ExcelRow row = new ExcelRow(rowNum >= 0 ? rowNum : null, sheet);
+            for (String columnName : columnNames) {
+                Object value = readValue(in);
+                if (value != null) {
+                    row.setCellValue(columnName, value);
+                }
+            }
+            head = row;
+            return true;
+        }
+    }
+}
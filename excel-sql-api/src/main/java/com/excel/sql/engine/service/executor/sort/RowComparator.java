@@ -0,0 +1,108 @@
+package com.excel.sql.engine.service.executor.sort;
+
+import com.excel.sql.engine.model.excel.ExcelRow;
+import com.excel.sql.engine.model.excel.columnar.ColumnVector;
+import com.excel.sql.engine.service.executor.expression.ColumnOperand;
+import com.excel.sql.engine.service.executor.expression.PredicateCompiler;
+import com.excel.sql.engine.service.parser.ParsedSql;
+
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * ORDER BY行比较器，排序列在创建时解析为列序号
+ * 空值在升序时排在最前，数值按数值比较，其余同类型值按自然顺序比较，不同类型按字符串比较
+ */
+public class RowComparator implements Comparator<ExcelRow> {
+
+    private final ColumnOperand[] columns;
+    private final boolean[] descending;
+
+    /**
+     * @param orderByClauses ORDER BY子句
+     * @param columnAliases 列别名映射（列名 -> 别名），ORDER BY中使用别名时换回原列名
+     * @param columnNames 工作表列名，下标即列序号
+     */
+    public RowComparator(List<ParsedSql.OrderByClause> orderByClauses, Map<String, String> columnAliases,
+                         List<String> columnNames) {
+        this.columns = new ColumnOperand[orderByClauses.size()];
+        this.descending = new boolean[orderByClauses.size()];
+        for (int i = 0; i < columns.length; i++) {
+            ParsedSql.OrderByClause clause = orderByClauses.get(i);
+            String name = resolveAlias(clause.getColumn(), columnAliases);
+            columns[i] = resolveColumn(name, columnNames);
+            descending[i] = clause.isDescending();
+        }
+    }
+
+    @Override
+    public int compare(ExcelRow row1, ExcelRow row2) {
+        for (int i = 0; i < columns.length; i++) {
+            int result = compareColumn(columns[i], row1, row2);
+            if (result != 0) {
+                return descending[i] ? -result : result;
+            }
+        }
+        return 0;
+    }
+
+    private static int compareColumn(ColumnOperand column, ExcelRow row1, ExcelRow row2) {
+        // 同一列式存储中的数值列直接比较原始值
+        ColumnVector vector = column.vector(row1);
+        if (vector != null && vector.isNumeric() && row1.getTable() == row2.getTable()) {
+            int position1 = row1.getPosition();
+            int position2 = row2.getPosition();
+            boolean null1 = vector.isNull(position1);
+            boolean null2 = vector.isNull(position2);
+            if (null1 || null2) {
+                return null1 == null2 ? 0 : null1 ? -1 : 1;
+            }
+            return Double.compare(vector.getDouble(position1), vector.getDouble(position2));
+        }
+
+        Object value1 = column.evaluate(row1);
+        Object value2 = column.evaluate(row2);
+        if (value1 == null || value2 == null) {
+            return value1 == value2 ? 0 : value1 == null ? -1 : 1;
+        }
+        return compareValues(value1, value2);
+    }
+
+    @SuppressWarnings({"unchecked", "rawtypes"})
+    private static int compareValues(Object a, Object b) {
+        if (a instanceof Number && b instanceof Number) {
+            return Double.compare(((Number) a).doubleValue(), ((Number) b).doubleValue());
+        }
+        if (a instanceof Comparable && a.getClass() == b.getClass()) {
+            return ((Comparable) a).compareTo(b);
+        }
+        return a.toString().compareTo(b.toString());
+    }
+
+    /**
+     * 解析排序列，不是工作表列时（如聚合结果中的 SUM(amount)）按名称读取
+     */
+    private static ColumnOperand resolveColumn(String name, List<String> columnNames) {
+        int ordinal = PredicateCompiler.resolveOrdinal(name, columnNames);
+        return ordinal >= 0 ? new ColumnOperand(columnNames.get(ordinal), ordinal) : new ColumnOperand(name, -1);
+    }
+
+    /**
+     * ORDER BY中使用别名时换回原列名
+     *
+     * @param column ORDER BY中的列名或别名
+     * @param columnAliases 列别名映射（列名 -> 别名），可以为null
+     * @return 原列名
+     */
+    public static String resolveAlias(String column, Map<String, String> columnAliases) {
+        if (columnAliases != null && !columnAliases.containsKey(column)) {
+            for (Map.Entry<String, String> entry : columnAliases.entrySet()) {
+                if (column.equals(entry.getValue())) {
+                    return entry.getKey();
+                }
+            }
+        }
+        return column;
+    }
+}
@@ -0,0 +1,81 @@
+package com.excel.sql.engine.service.executor.sort;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.PriorityQueue;
+
+/**
+ * 有界堆，扫描过程中只保留排序后的前N个元素
+ * 堆顶是当前保留元素中排序最靠后的一个，新元素只有排在它前面时才替换它，
+ * 时间复杂度O(n log N)，内存O(N)。排序相同的元素保持输入顺序。
+ *
+ * @param <T> 元素类型
+ */
+public class TopNHeap<T> {
+
+    private final int capacity;
+    private final Comparator<Entry<T>> order;
+    private final PriorityQueue<Entry<T>> heap;
+    private long sequence;
+
+    /**
+     * @param capacity 保留的元素个数
+     * @param comparator 排序比较器
+     */
+    public TopNHeap(int capacity, Comparator<? super T> comparator) {
+        this.capacity = capacity;
+        this.order = (a, b) -> {
+            int result = comparator.compare(a.value, b.value);
+            return result != 0 ? result : Long.compare(a.sequence, b.sequence);
+        };
+        this.heap = new PriorityQueue<>(Math.max(1, Math.min(capacity, 1024)), order.reversed());
+    }
+
+    /**
+     * 提供一个元素
+     *
+     * @param value 元素
+     */
+    public void offer(T value) {
+        if (capacity <= 0) {
+            return;
+        }
+        Entry<T> entry = new Entry<>(value, sequence++);
+        if (heap.size() < capacity) {
+            heap.add(entry);
+        } else if (order.compare(entry, heap.peek()) < 0) {
+            heap.poll();
+            heap.add(entry);
+        }
+    }
+
+    /**
+     * 按排序顺序返回保留的元素
+     *
+     * @return 排序后的元素
+     */
+    public List<T> toSortedList() {
+        List<Entry<T>> entries = new ArrayList<>(heap);
+        entries.sort(order);
+        List<T> result = new ArrayList<>(entries.size());
+        for (Entry<T> entry : entries) {
+            result.add(entry.value);
+        }
+        return result;
+    }
+
+    public int size() {
+        return heap.size();
+    }
+
+    private static final class Entry<T> {
+        private final T value;
+        private final long sequence;
+
+        Entry(T value, long sequence) {
+            this.value = value;
+            this.sequence = sequence;
+        }
+    }
+}
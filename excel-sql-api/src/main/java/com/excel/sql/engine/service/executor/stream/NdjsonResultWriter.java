@@ -0,0 +1,133 @@
+package com.excel.sql.engine.service.executor.stream;
+
+import com.excel.sql.engine.exception.QueryCancelledException;
+import com.excel.sql.engine.model.dto.SqlQueryResult;
+import com.excel.sql.engine.service.executor.cancel.CancellationToken;
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * 以NDJSON（每行一个JSON对象）格式写出查询结果
+ * 第一行是列定义 {"columns":[...]}，之后每行一个结果行，最后一行是执行摘要
+ * {"success":true,"rowCount":N,"executionTime":毫秒} 或 {"success":false,"errorMessage":"..."}。
+ * 写入直接落到响应输出流上，客户端读取慢时写入阻塞，查询随之暂停；
+ * 写入失败（客户端断开）时取消当前查询。
+ */
+public class NdjsonResultWriter implements ResultSink {
+
+    /**
+     * 每写出这么多行刷新一次输出流
+     */
+    private static final int FLUSH_ROWS = 1000;
+
+    private final OutputStream out;
+    private final JsonGenerator generator;
+    private boolean started;
+    private boolean disconnected;
+    private long rowCount;
+
+    /**
+     * @param out 输出流
+     * @param objectMapper 用于序列化值的ObjectMapper
+     * @throws IOException 创建JSON生成器失败
+     */
+    public NdjsonResultWriter(OutputStream out, ObjectMapper objectMapper) throws IOException {
+        this.out = out;
+        this.generator = objectMapper.getFactory().createGenerator(out);
+        // 输出流由调用方关闭
+        this.generator.disable(JsonGenerator.Feature.AUTO_CLOSE_TARGET);
+        // 每个JSON对象之后由换行分隔，不使用默认的空格分隔符
+        this.generator.setRootValueSeparator(null);
+    }
+
+    @Override
+    public void start(List<SqlQueryResult.ColumnDefinition> columns) {
+        Map<String, Object> header = new LinkedHashMap<>();
+        header.put("columns", columns);
+        writeLine(header);
+        started = true;
+        // 列定义立即发送，客户端不必等到第一页结果
+        flush();
+    }
+
+    @Override
+    public void accept(Map<String, Object> row) {
+        writeLine(row);
+        rowCount++;
+        if (rowCount % FLUSH_ROWS == 0) {
+            flush();
+        }
+    }
+
+    /**
+     * 写出执行摘要并刷新输出流
+     *
+     * @param result 查询结果，只使用其中的状态、错误信息和执行时间
+     */
+    public void finish(SqlQueryResult result) {
+        if (disconnected) {
+            return;
+        }
+        Map<String, Object> summary = new LinkedHashMap<>();
+        summary.put("success", result.isSuccess());
+        if (result.isSuccess()) {
+            summary.put("rowCount", rowCount);
+            summary.put("executionTime", result.getExecutionTime());
+        } else {
+            summary.put("errorMessage", result.getErrorMessage());
+        }
+        writeLine(summary);
+        flush();
+    }
+
+    /**
+     * 是否已写出列定义
+     *
+     * @return 是否已写出列定义
+     */
+    public boolean isStarted() {
+        return started;
+    }
+
+    /**
+     * 获取已写出的结果行数
+     *
+     * @return 结果行数
+     */
+    public long getRowCount() {
+        return rowCount;
+    }
+
+    private void writeLine(Object value) {
+        try {
+            generator.writeObject(value);
+            generator.writeRaw('\n');
+        } catch (IOException e) {
+            throw disconnected();
+        }
+    }
+
+    private void flush() {
+        try {
+            generator.flush();
+            out.flush();
+        } catch (IOException e) {
+            throw disconnected();
+        }
+    }
+
+    /**
+     * 客户端断开后继续执行没有意义，取消当前查询
+     */
+    private QueryCancelledException disconnected() {
+        disconnected = true;
+        CancellationToken.current().cancel();
+        return QueryCancelledException.cancelled();
+    }
+}
@@ -0,0 +1,27 @@
+package com.excel.sql.engine.service.executor.stream;
+
+import com.excel.sql.engine.model.dto.SqlQueryResult;
+
+import java.util.List;
+import java.util.Map;
+
+/**
+ * 查询结果的接收者
+ * 查询处理器先写出列定义，再按结果顺序逐行写出，不在内存中保留完整的结果
+ */
+public interface ResultSink {
+
+    /**
+     * 写出列定义，在第一行之前调用一次
+     *
+     * @param columns 列定义
+     */
+    void start(List<SqlQueryResult.ColumnDefinition> columns);
+
+    /**
+     * 写出一行结果
+     *
+     * @param row 结果行，列名（别名）到值的映射
+     */
+    void accept(Map<String, Object> row);
+}
@@ -0,0 +1,19 @@
+package com.excel.sql.engine.service.executor.stream;
+
+import com.excel.sql.engine.model.dto.SqlQueryResult;
+
+/**
+ * 已准备好的流式查询
+ * SQL解析和工作簿确定已在请求线程中完成，可以在写出响应的线程中执行
+ */
+@FunctionalInterface
+public interface StreamingQuery {
+
+    /**
+     * 执行查询，结果行边产生边写入sink
+     *
+     * @param sink 结果接收者
+     * @return SQL查询结果，不包含行数据；失败、超时时为错误结果
+     */
+    SqlQueryResult execute(ResultSink sink);
+}
@@ -4,6 +4,8 @@ import com.excel.sql.engine.exception.FileProcessingException;
 import com.excel.sql.engine.model.dto.FileUploadRequest;
 import com.excel.sql.engine.model.excel.*;
 import com.excel.sql.engine.service.ExcelFileService;
+import com.excel.sql.engine.service.cache.WorkbookCatalog;
+import com.excel.sql.engine.service.reader.WorkbookMetadataReader;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.apache.poi.ss.usermodel.Workbook;
@@ -33,6 +35,10 @@ import java.util.Map;
 @RequiredArgsConstructor
 public class ExcelFileServiceImpl implements ExcelFileService {
 
+    private final WorkbookCatalog workbookCatalog;
+    
+    private final List<WorkbookMetadataReader> metadataReaders;
+
     @Value("${excel-sql.storage.base-path:./excel-files}")
     private String basePath;
 
@@ -68,6 +74,7 @@ public class ExcelFileServiceImpl implements ExcelFileService {
         try (FileOutputStream fos = new FileOutputStream(destFile)) {
             fos.write(file.getBytes());
         }
+        workbookCatalog.invalidate(destFile.getAbsolutePath());
 
         // 创建工作簿对象
         ExcelWorkbook workbook = ExcelWorkbook.builder()
@@ -170,6 +177,7 @@ public class ExcelFileServiceImpl implements ExcelFileService {
 
         boolean success = true;
         for (File file : files) {
+            workbookCatalog.invalidate(file.getAbsolutePath());
             if (!file.delete()) {
                 log.error("删除文件失败: {}", file.getAbsolutePath());
                 success = false;
@@ -266,6 +274,26 @@ public class ExcelFileServiceImpl implements ExcelFileService {
         
         log.info("开始加载工作表信息，文件: {}, 大小: {} 字节", file.getAbsolutePath(), file.length());
         
+        // 优先使用元数据读取器，只读取表头和行数，不加载整个工作簿
+        for (WorkbookMetadataReader metadataReader : metadataReaders) {
+            if (!metadataReader.supports(workbook.getFileType())) {
+                continue;
+            }
+            try {
+                List<ExcelSheet> sheets = metadataReader.readSheets(file, headerRowIndex, dataStartRowIndex);
+                sheets.forEach(workbook::addSheet);
+                workbook.setLoaded(true);
+                return;
+            } catch (IOException e) {
+                log.warn("读取工作簿元数据失败，回退到完整加载: {}", e.getMessage());
+            }
+        }
+
+        // CSV文件无法通过POI加载，也不能走下面的修复逻辑覆盖原文件
+        if (workbook.getFileType() == ExcelFileType.CSV) {
+            throw new IOException("读取CSV文件失败: " + file.getName());
+        }
+
         Workbook poiWorkbook = null;
         int retryCount = 0;
         int maxRetries = 3;
@@ -275,8 +303,8 @@ public class ExcelFileServiceImpl implements ExcelFileService {
             try {
                 // 尝试加载工作簿
                 try {
-                    // 尝试使用标准方法加载
-                    poiWorkbook = WorkbookFactory.create(file);
+                    // 以只读方式加载，避免关闭时回写文件改变修改时间
+                    poiWorkbook = WorkbookFactory.create(file, null, true);
                 } catch (org.apache.poi.openxml4j.exceptions.OpenXML4JRuntimeException e) {
                     log.warn("使用标准方法加载工作簿失败: {}", e.getMessage());
                     
@@ -302,7 +330,8 @@ public class ExcelFileServiceImpl implements ExcelFileService {
                     
                     // 关闭并重新打开
                     poiWorkbook.close();
-                    poiWorkbook = WorkbookFactory.create(file);
+                    workbookCatalog.invalidate(file.getAbsolutePath());
+                    poiWorkbook = WorkbookFactory.create(file, null, true);
                 }
                 
                 int sheetCount = poiWorkbook.getNumberOfSheets();
@@ -361,6 +390,7 @@ public class ExcelFileServiceImpl implements ExcelFileService {
                             }
                         }
                         
+                        workbookCatalog.invalidate(file.getAbsolutePath());
                         log.info("文件修复完成，大小: {} 字节", file.length());
                     } catch (Exception repairException) {
                         log.error("修复文件失败: {}", repairException.getMessage(), repairException);
@@ -587,6 +617,13 @@ public class ExcelFileServiceImpl implements ExcelFileService {
      * 从文件创建工作簿对象
      */
     private ExcelWorkbook createWorkbookFromFile(File file, String workbookName) {
+        // 优先使用元数据目录，文件未变化时无需重新解析
+        ExcelWorkbook cached = workbookCatalog.get(file);
+        if (cached != null) {
+            cached.setName(workbookName);
+            return cached;
+        }
+        
         ExcelFileType fileType = ExcelFileType.fromFileName(file.getName());
         
         // 创建工作簿对象
@@ -595,7 +632,8 @@ public class ExcelFileServiceImpl implements ExcelFileService {
                 .filePath(file.getAbsolutePath())
                 .fileType(fileType)
                 .fileSize(file.length())
-                .lastModified(LocalDateTime.now())
+                .lastModified(LocalDateTime.ofInstant(
+                        java.time.Instant.ofEpochMilli(file.lastModified()), java.time.ZoneId.systemDefault()))
                 .sheets(new HashMap<>())
                 .file(file)
                 .loaded(false)
@@ -605,6 +643,7 @@ public class ExcelFileServiceImpl implements ExcelFileService {
         try {
             loadWorkbookSheets(workbook, 0, 1);
             log.info("成功加载工作簿: {}, 工作表数量: {}", workbookName, workbook.getSheets().size());
+            workbookCatalog.put(file, workbook);
         } catch (IOException e) {
             log.error("加载工作簿失败: {}", e.getMessage(), e);
             return null;
@@ -7,6 +7,8 @@ import com.excel.sql.engine.model.excel.ExcelSheet;
 import com.excel.sql.engine.model.excel.ExcelWorkbook;
 import com.excel.sql.engine.service.ExcelFileService;
 import com.excel.sql.engine.service.WorkbookManager;
+import com.excel.sql.engine.service.cache.WorkbookCatalog;
+import com.excel.sql.engine.service.index.IndexStore;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.apache.poi.ss.usermodel.Workbook;
@@ -36,6 +38,10 @@ public class WorkbookManagerImpl implements WorkbookManager {
     
     private final ExcelFileService excelFileService;
     
+    private final WorkbookCatalog workbookCatalog;
+    
+    private final IndexStore indexStore;
+    
     // 当前工作簿名称
     private String currentWorkbookName;
     
@@ -124,6 +130,9 @@ public class WorkbookManagerImpl implements WorkbookManager {
             
             log.info("工作簿文件创建成功，大小: {} 字节", file.length());
             
+            // 新文件可能与旧的元数据同名，清除目录中的旧条目
+            workbookCatalog.invalidate(filePath);
+            
             // 创建工作簿对象
             ExcelWorkbook excelWorkbook = ExcelWorkbook.builder()
                     .name(workbookName)
@@ -406,6 +415,7 @@ public class WorkbookManagerImpl implements WorkbookManager {
                            java.nio.file.StandardCopyOption.REPLACE_EXISTING);
                 
                 log.info("临时文件已替换原始文件: {}", excelFile.getAbsolutePath());
+                workbookCatalog.invalidate(excelFile.getAbsolutePath());
                 
                 // 5. 删除临时文件
                 boolean deleted = tempFile.delete();
@@ -496,9 +506,20 @@ public class WorkbookManagerImpl implements WorkbookManager {
                 throw new IllegalArgumentException("工作簿不存在: " + workbookName);
             }
             
+            // 删除工作簿前清除元数据目录中的条目
+            ExcelWorkbook workbook = excelFileService.loadWorkbook(workbookName);
+            if (workbook != null) {
+                workbookCatalog.invalidate(workbook.getFilePath());
+            }
+            
             // 删除工作簿
             boolean success = excelFileService.deleteWorkbook(workbookName);
             
+            // 删除工作簿的索引文件
+            if (success && workbook != null) {
+                indexStore.dropIndexes(workbook.getFilePath(), null);
+            }
+            
             // 如果删除的是当前工作簿，则清除当前工作簿
             if (success && workbookName.equals(currentWorkbookName)) {
                 currentWorkbookName = null;
@@ -606,6 +627,8 @@ public class WorkbookManagerImpl implements WorkbookManager {
                            java.nio.file.StandardCopyOption.REPLACE_EXISTING);
                 
                 log.info("临时文件已替换原始文件: {}", excelFile.getAbsolutePath());
+                workbookCatalog.invalidate(excelFile.getAbsolutePath());
+                indexStore.dropIndexes(excelFile.getAbsolutePath(), sheetName);
                 
                 // 删除临时文件
                 boolean deleted = tempFile.delete();
@@ -0,0 +1,93 @@
+package com.excel.sql.engine.service.index;
+
+import com.excel.sql.engine.model.excel.ExcelSheet;
+import com.excel.sql.engine.model.excel.SheetChanges;
+import com.excel.sql.engine.model.excel.index.IndexDefinition;
+
+import java.io.IOException;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * 索引文件存储接口
+ * CREATE INDEX创建的索引保存为工作簿旁的二进制索引文件，文件头记录索引定义和生成时工作簿文件的大小、
+ * 最后修改时间。工作表数据加载时，与工作簿一致的索引直接读取，不一致的由已加载的数据重建后重新写入。
+ * 区块布隆过滤器按工作表保存在同一目录的过滤器文件中，有效性校验方式相同。
+ */
+public interface IndexStore {
+
+    /**
+     * 在已加载数据的工作表上创建索引，写入索引文件并放入工作表
+     *
+     * @param sheet 已加载数据的工作表
+     * @param workbookPath 工作簿文件路径
+     * @param definition 索引定义，需要工作表名、索引名、索引列和是否唯一
+     * @return 写入的索引定义
+     * @throws IllegalArgumentException 索引已存在、列不存在或唯一索引列有重复值
+     * @throws IOException 写入索引文件失败
+     */
+    IndexDefinition createIndex(ExcelSheet sheet, String workbookPath, IndexDefinition definition) throws IOException;
+
+    /**
+     * 删除索引文件
+     *
+     * @param workbookPath 工作簿文件路径
+     * @param sheetName 工作表名，为null时在工作簿的所有工作表中查找
+     * @param indexName 索引名
+     * @return 是否删除了索引
+     * @throws IllegalArgumentException 未指定工作表且多个工作表有同名索引
+     */
+    boolean dropIndex(String workbookPath, String sheetName, String indexName);
+
+    /**
+     * 列出索引定义
+     *
+     * @param workbookPath 工作簿文件路径
+     * @param sheetName 工作表名，为null时列出工作簿的所有索引
+     * @return 索引定义，按工作表名和索引名排序
+     */
+    List<IndexDefinition> listIndexes(String workbookPath, String sheetName);
+
+    /**
+     * 检查一条语句写入的行是否违反工作表的唯一索引
+     * 写入的行修改后的键与其他行（不包括已删除的行）或本条语句写入的其他行相同时违反唯一索引，
+     * 索引列有空值的行不参与检查
+     *
+     * @param sheet 语句执行前包含待写回修改的当前数据
+     * @param workbookPath 工作簿文件路径
+     * @param changes 工作表累计的行变更，包括本条语句的变更
+     * @param rowNums 本条语句写入的Excel行号
+     * @throws IllegalArgumentException 写入的行违反唯一索引
+     */
+    void checkUnique(ExcelSheet sheet, String workbookPath, SheetChanges changes, Set<Integer> rowNums);
+
+    /**
+     * 把工作表上创建过的索引放入刚加载数据的工作表
+     * 工作簿在索引生成后被修改过时重建索引，唯一索引的列出现重复值时改为普通索引
+     *
+     * @param sheet 已加载数据的工作表
+     * @param workbookPath 工作簿文件路径
+     * @param fileSize 加载数据时工作簿文件的大小
+     * @param lastModified 加载数据时工作簿文件的最后修改时间
+     */
+    void attachIndexes(ExcelSheet sheet, String workbookPath, long fileSize, long lastModified);
+
+    /**
+     * 把区块布隆过滤器放入刚加载数据的工作表
+     * 与工作簿一致的过滤器文件直接读取，否则为不同值较多的整数列和字符串列构建过滤器并重新写入文件
+     *
+     * @param sheet 已加载数据的工作表
+     * @param workbookPath 工作簿文件路径
+     * @param fileSize 加载数据时工作簿文件的大小
+     * @param lastModified 加载数据时工作簿文件的最后修改时间
+     */
+    void attachBloomFilters(ExcelSheet sheet, String workbookPath, long fileSize, long lastModified);
+
+    /**
+     * 删除工作表或整个工作簿的所有索引文件和区块布隆过滤器文件
+     *
+     * @param workbookPath 工作簿文件路径
+     * @param sheetName 工作表名，为null时删除工作簿的所有索引
+     */
+    void dropIndexes(String workbookPath, String sheetName);
+}
@@ -0,0 +1,605 @@
+package com.excel.sql.engine.service.index.impl;
+
+import com.excel.sql.engine.model.excel.ExcelSheet;
+import com.excel.sql.engine.model.excel.SheetChanges;
+import com.excel.sql.engine.model.excel.columnar.ColumnarTable;
+import com.excel.sql.engine.model.excel.index.BlockBloomFilter;
+import com.excel.sql.engine.model.excel.index.HashIndex;
+import com.excel.sql.engine.model.excel.index.IndexDefinition;
+import com.excel.sql.engine.model.excel.index.NgramIndex;
+import com.excel.sql.engine.model.excel.index.SortedIndex;
+import com.excel.sql.engine.model.excel.index.ZoneMap;
+import com.excel.sql.engine.service.index.IndexStore;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * 索引文件存储实现类
+ * 索引文件与工作簿放在同一目录，文件名为"工作簿文件名.工作表名.索引名.xidx"。
+ * 文件内容依次为文件头（索引定义）、哈希索引和有序索引（单列数值列或字符串列才有）；
+ * 三元组索引（USING NGRAM）的文件头之后只有三元组索引。
+ * 每个工作簿的索引定义在首次访问时读取文件头后缓存，创建、重建和删除索引时更新。
+ * 区块布隆过滤器文件名为"工作簿文件名.工作表名.xbloom"，文件头记录生成时工作簿文件的大小、最后修改时间、
+ * 区块行数和每个值的位数，任一项不一致时重新构建。
+ */
+@Slf4j
+@Service
+public class IndexStoreImpl implements IndexStore {
+
+    /**
+     * 索引文件扩展名
+     */
+    private static final String FILE_EXTENSION = ".xidx";
+
+    /**
+     * 索引文件标识 "XIDX"
+     */
+    private static final int MAGIC = 0x58494458;
+
+    private static final int VERSION = 1;
+
+    /**
+     * 区块布隆过滤器文件扩展名
+     */
+    private static final String BLOOM_FILE_EXTENSION = ".xbloom";
+
+    /**
+     * 区块布隆过滤器文件标识 "XBLM"
+     */
+    private static final int BLOOM_MAGIC = 0x58424c4d;
+
+    @Value("${excel-sql.index.bloom-filters:true}")
+    private boolean bloomFiltersEnabled;
+
+    @Value("${excel-sql.index.bloom-bits-per-key:10}")
+    private int bloomBitsPerKey;
+
+    /**
+     * 索引定义缓存，key为工作簿文件绝对路径
+     */
+    private final Map<String, List<IndexDefinition>> definitions = new ConcurrentHashMap<>();
+
+    @Override
+    public synchronized IndexDefinition createIndex(ExcelSheet sheet, String workbookPath, IndexDefinition definition)
+            throws IOException {
+        File workbookFile = new File(workbookPath).getAbsoluteFile();
+        for (IndexDefinition existing : listIndexes(workbookPath, definition.getSheetName())) {
+            if (existing.getName().equalsIgnoreCase(definition.getName())) {
+                throw new IllegalArgumentException("索引已存在: " + definition.getName());
+            }
+        }
+
+        if (IndexDefinition.TYPE_NGRAM.equals(definition.getIndexType())) {
+            if (definition.getColumns().size() != 1 || definition.isUnique()) {
+                throw new IllegalArgumentException("三元组索引只能建在一列上，且不能是唯一索引");
+            }
+        } else {
+            definition.setIndexType(definition.getColumns().size() > 1
+                    ? IndexDefinition.TYPE_COMPOSITE : IndexDefinition.TYPE_SECONDARY);
+        }
+        definition.setCreateTime(System.currentTimeMillis());
+        definition.setWorkbookSize(workbookFile.length());
+        definition.setWorkbookModified(workbookFile.lastModified());
+        definition.setFilePath(indexFile(workbookFile, definition.getSheetName(), definition.getName()).getPath());
+
+        IndexData data = buildIndexData(sheet, definition);
+        if (definition.isUnique() && data.hashIndex.hasDuplicates()) {
+            throw new IllegalArgumentException("唯一索引的列存在重复值: " + String.join(",", definition.getColumns()));
+        }
+        definition.setKeyCount(data.keyCount());
+
+        writeIndexFile(definition, data);
+        data.attach(sheet);
+        definitions.remove(workbookFile.getPath());
+        log.info("创建索引 {} ON {}({})，{} 个键", definition.getName(), definition.getSheetName(),
+                String.join(",", definition.getColumns()), definition.getKeyCount());
+        return definition;
+    }
+
+    @Override
+    public synchronized boolean dropIndex(String workbookPath, String sheetName, String indexName) {
+        List<IndexDefinition> matched = new ArrayList<>();
+        for (IndexDefinition definition : listIndexes(workbookPath, sheetName)) {
+            if (definition.getName().equalsIgnoreCase(indexName)) {
+                matched.add(definition);
+            }
+        }
+        if (matched.isEmpty()) {
+            return false;
+        }
+        if (matched.size() > 1) {
+            throw new IllegalArgumentException("多个工作表有名为 " + indexName + " 的索引，请使用 DROP INDEX 索引名 ON 工作表名");
+        }
+
+        IndexDefinition definition = matched.get(0);
+        try {
+            Files.deleteIfExists(new File(definition.getFilePath()).toPath());
+        } catch (IOException e) {
+            log.error("删除索引文件失败: {}", definition.getFilePath(), e);
+            return false;
+        }
+        definitions.remove(new File(workbookPath).getAbsolutePath());
+        log.info("删除索引 {} ON {}", definition.getName(), definition.getSheetName());
+        return true;
+    }
+
+    @Override
+    public List<IndexDefinition> listIndexes(String workbookPath, String sheetName) {
+        File workbookFile = new File(workbookPath).getAbsoluteFile();
+        List<IndexDefinition> all = definitions.computeIfAbsent(workbookFile.getPath(), k -> scan(workbookFile));
+        if (sheetName == null) {
+            return all;
+        }
+
+        List<IndexDefinition> result = new ArrayList<>();
+        for (IndexDefinition definition : all) {
+            if (definition.getSheetName().equals(sheetName)) {
+                result.add(definition);
+            }
+        }
+        return result;
+    }
+
+    @Override
+    public void checkUnique(ExcelSheet sheet, String workbookPath, SheetChanges changes, Set<Integer> rowNums) {
+        ColumnarTable table = sheet.getColumnarTable();
+        for (IndexDefinition definition : listIndexes(workbookPath, sheet.getName())) {
+            if (!definition.isUnique()) {
+                continue;
+            }
+            if (table == null) {
+                throw new IllegalStateException("工作表数据未加载: " + sheet.getName());
+            }
+            if (definition.getColumns().stream().anyMatch(column -> table.ordinal(column) < 0)) {
+                // 索引列已不在工作表中，加载数据时索引同样不可用
+                continue;
+            }
+            String key = String.join(",", definition.getColumns());
+            HashIndex index = sheet.getSecondaryIndexes() != null ? sheet.getSecondaryIndexes().get(key) : null;
+            if (index == null) {
+                index = buildHashIndex(table, definition);
+            }
+
+            // 键相同的其他行是本条语句写入的行时，以该行修改后的键为准
+            Map<Object, Integer> written = new HashMap<>();
+            for (int rowNum : rowNums) {
+                Object value = writtenKey(table, definition, sheet.getRowPosition(rowNum), changes.getWrites().get(rowNum));
+                if (value == null) {
+                    continue;
+                }
+                boolean duplicate = written.putIfAbsent(value, rowNum) != null;
+                int[] positions = index.positions(value);
+                if (positions != null) {
+                    for (int position : positions) {
+                        int existing = table.getRowNum(position);
+                        if (!rowNums.contains(existing) && !changes.getDeletes().contains(existing)) {
+                            duplicate = true;
+                        }
+                    }
+                }
+                if (duplicate) {
+                    throw new IllegalArgumentException("违反唯一索引 " + definition.getName() + ": 列 (" + key
+                            + ") 的值 " + value + " 重复");
+                }
+            }
+        }
+    }
+
+    /**
+     * 计算写入的行修改后的索引键，未写入的列取当前数据中的值；与 {@link HashIndex} 的键一致，多列索引中任一列为空时返回null
+     *
+     * @param position 行在当前数据中的行位置，插入的行为-1
+     * @param cells 写入的单元格
+     */
+    private Object writtenKey(ColumnarTable table, IndexDefinition definition, int position, Map<String, Object> cells) {
+        Object[] values = new Object[definition.getColumns().size()];
+        for (int i = 0; i < values.length; i++) {
+            String column = definition.getColumns().get(i);
+            Object value;
+            if (cells != null && cells.containsKey(column)) {
+                value = cells.get(column);
+            } else {
+                value = position >= 0 ? table.get(table.ordinal(column), position) : null;
+            }
+            if (value == null) {
+                return null;
+            }
+            values[i] = HashIndex.key(value);
+        }
+        return values.length == 1 ? values[0] : Arrays.asList(values);
+    }
+
+    @Override
+    public void attachIndexes(ExcelSheet sheet, String workbookPath, long fileSize, long lastModified) {
+        for (IndexDefinition definition : listIndexes(workbookPath, sheet.getName())) {
+            try {
+                if (definition.getWorkbookSize() == fileSize && definition.getWorkbookModified() == lastModified
+                        && readIndexFile(definition, sheet)) {
+                    log.debug("加载索引文件: {}", definition.getFilePath());
+                    continue;
+                }
+                rebuildIndex(sheet, workbookPath, definition, fileSize, lastModified);
+            } catch (Exception e) {
+                // 索引不可用时查询改为扫描，不影响数据加载
+                log.warn("加载索引 {} ON {} 失败: {}", definition.getName(), definition.getSheetName(), e.getMessage());
+            }
+        }
+    }
+
+    @Override
+    public void attachBloomFilters(ExcelSheet sheet, String workbookPath, long fileSize, long lastModified) {
+        ZoneMap zoneMap = sheet.getZoneMap();
+        ColumnarTable table = sheet.getColumnarTable();
+        if (!bloomFiltersEnabled || zoneMap == null || table == null) {
+            return;
+        }
+
+        File file = bloomFile(new File(workbookPath).getAbsoluteFile(), sheet.getName());
+        List<BlockBloomFilter> filters = null;
+        if (file.exists()) {
+            try {
+                filters = readBloomFile(file, fileSize, lastModified, zoneMap.getBlockRows());
+            } catch (IOException e) {
+                log.warn("读取区块布隆过滤器文件失败: {}", file.getPath(), e);
+            }
+        }
+
+        if (filters == null) {
+            long startTime = System.currentTimeMillis();
+            filters = new ArrayList<>();
+            for (int ordinal = 0; ordinal < table.getColumnNames().size(); ordinal++) {
+                BlockBloomFilter filter = BlockBloomFilter.build(table, ordinal, zoneMap.getBlockRows(), bloomBitsPerKey);
+                if (filter != null) {
+                    filters.add(filter);
+                }
+            }
+            try {
+                writeBloomFile(file, sheet.getName(), fileSize, lastModified, zoneMap.getBlockRows(), filters);
+            } catch (IOException e) {
+                // 写入失败不影响本次使用，下次加载时重新构建
+                log.warn("写入区块布隆过滤器文件失败: {}", file.getPath(), e);
+            }
+            log.debug("构建区块布隆过滤器: {}#{}，{} 列，耗时 {} 毫秒", workbookPath, sheet.getName(), filters.size(),
+                    System.currentTimeMillis() - startTime);
+        }
+        for (BlockBloomFilter filter : filters) {
+            sheet.putBloomFilter(filter);
+        }
+    }
+
+    @Override
+    public synchronized void dropIndexes(String workbookPath, String sheetName) {
+        for (IndexDefinition definition : listIndexes(workbookPath, sheetName)) {
+            try {
+                Files.deleteIfExists(new File(definition.getFilePath()).toPath());
+            } catch (IOException e) {
+                log.error("删除索引文件失败: {}", definition.getFilePath(), e);
+            }
+        }
+        definitions.remove(new File(workbookPath).getAbsolutePath());
+
+        File workbookFile = new File(workbookPath).getAbsoluteFile();
+        File[] bloomFiles;
+        if (sheetName != null) {
+            bloomFiles = new File[] {bloomFile(workbookFile, sheetName)};
+        } else {
+            String prefix = workbookFile.getName() + ".";
+            bloomFiles = workbookFile.getParentFile() != null
+                    ? workbookFile.getParentFile().listFiles((dir, name) -> name.startsWith(prefix)
+                            && name.endsWith(BLOOM_FILE_EXTENSION))
+                    : null;
+        }
+        if (bloomFiles != null) {
+            for (File file : bloomFiles) {
+                try {
+                    Files.deleteIfExists(file.toPath());
+                } catch (IOException e) {
+                    log.error("删除区块布隆过滤器文件失败: {}", file.getPath(), e);
+                }
+            }
+        }
+    }
+
+    /**
+     * 工作簿在索引生成后被修改过，由已加载的数据重建索引并重新写入索引文件
+     */
+    private synchronized void rebuildIndex(ExcelSheet sheet, String workbookPath, IndexDefinition definition,
+                                           long fileSize, long lastModified) throws IOException {
+        IndexData data = buildIndexData(sheet, definition);
+        boolean unique = definition.isUnique();
+        if (unique && data.hashIndex.hasDuplicates()) {
+            // 工作簿在程序之外被修改，唯一性已经不成立，改为普通索引，SHOW INDEXES如实显示
+            log.warn("唯一索引 {} ON {} 的列出现重复值，改为普通索引", definition.getName(), definition.getSheetName());
+            unique = false;
+        }
+
+        IndexDefinition rebuilt = definition.toBuilder()
+                .unique(unique)
+                .workbookSize(fileSize)
+                .workbookModified(lastModified)
+                .keyCount(data.keyCount())
+                .build();
+        writeIndexFile(rebuilt, data);
+        data.attach(sheet);
+        definitions.remove(new File(workbookPath).getAbsolutePath());
+        log.info("工作簿已修改，重建索引 {} ON {}", definition.getName(), definition.getSheetName());
+    }
+
+    /**
+     * 一个索引定义对应的索引数据：三元组索引只有ngramIndex，其他索引有hashIndex和可能为null的sortedIndex
+     */
+    private static class IndexData {
+        private HashIndex hashIndex;
+        private SortedIndex sortedIndex;
+        private NgramIndex ngramIndex;
+
+        int keyCount() {
+            return ngramIndex != null ? ngramIndex.getGramCount() : hashIndex.getKeyCount();
+        }
+
+        void attach(ExcelSheet sheet) {
+            if (hashIndex != null) {
+                sheet.putSecondaryIndex(hashIndex);
+            }
+            if (sortedIndex != null) {
+                sheet.putSortedIndex(sortedIndex);
+            }
+            if (ngramIndex != null) {
+                sheet.putNgramIndex(ngramIndex);
+            }
+        }
+    }
+
+    private IndexData buildIndexData(ExcelSheet sheet, IndexDefinition definition) {
+        ColumnarTable table = sheet.getColumnarTable();
+        if (table == null) {
+            throw new IllegalStateException("工作表数据未加载: " + sheet.getName());
+        }
+        IndexData data = new IndexData();
+        if (IndexDefinition.TYPE_NGRAM.equals(definition.getIndexType())) {
+            int ordinal = table.ordinal(definition.getColumns().get(0));
+            if (ordinal < 0) {
+                throw new IllegalArgumentException("列不存在: " + definition.getColumns().get(0));
+            }
+            data.ngramIndex = NgramIndex.build(table, ordinal);
+        } else {
+            data.hashIndex = buildHashIndex(table, definition);
+            data.sortedIndex = buildSortedIndex(table, definition);
+        }
+        return data;
+    }
+
+    private HashIndex buildHashIndex(ColumnarTable table, IndexDefinition definition) {
+        int[] ordinals = new int[definition.getColumns().size()];
+        for (int i = 0; i < ordinals.length; i++) {
+            ordinals[i] = table.ordinal(definition.getColumns().get(i));
+            if (ordinals[i] < 0) {
+                throw new IllegalArgumentException("列不存在: " + definition.getColumns().get(i));
+            }
+        }
+        return HashIndex.build(table, ordinals);
+    }
+
+    /**
+     * 单列索引同时构建有序索引，列不是数值列或字符串列时返回null
+     */
+    private SortedIndex buildSortedIndex(ColumnarTable table, IndexDefinition definition) {
+        if (definition.getColumns().size() != 1) {
+            return null;
+        }
+        return SortedIndex.build(table, table.ordinal(definition.getColumns().get(0)));
+    }
+
+    /**
+     * 先写入临时文件再替换，读取方不会看到写了一半的索引文件
+     */
+    private void writeIndexFile(IndexDefinition definition, IndexData data) throws IOException {
+        File file = new File(definition.getFilePath());
+        File tempFile = new File(file.getPath() + ".tmp");
+        try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(new FileOutputStream(tempFile)))) {
+            out.writeInt(MAGIC);
+            out.writeInt(VERSION);
+            out.writeUTF(definition.getSheetName());
+            out.writeUTF(definition.getName());
+            out.writeUTF(definition.getIndexType());
+            out.writeBoolean(definition.isUnique());
+            out.writeInt(definition.getColumns().size());
+            for (String column : definition.getColumns()) {
+                out.writeUTF(column);
+            }
+            out.writeLong(definition.getWorkbookSize());
+            out.writeLong(definition.getWorkbookModified());
+            out.writeInt(definition.getKeyCount());
+            out.writeLong(definition.getCreateTime());
+
+            if (data.ngramIndex != null) {
+                out.writeBoolean(true);
+                data.ngramIndex.write(out);
+            } else {
+                // 日期以外的对象值无法写入，只保存索引定义，加载时重建
+                boolean persistHash = data.hashIndex.isPersistable();
+                out.writeBoolean(persistHash);
+                if (persistHash) {
+                    data.hashIndex.write(out);
+                }
+                out.writeBoolean(data.sortedIndex != null);
+                if (data.sortedIndex != null) {
+                    data.sortedIndex.write(out);
+                }
+            }
+        } catch (IOException e) {
+            Files.deleteIfExists(tempFile.toPath());
+            throw e;
+        }
+        Files.move(tempFile.toPath(), file.toPath(), StandardCopyOption.REPLACE_EXISTING,
+                StandardCopyOption.ATOMIC_MOVE);
+    }
+
+    /**
+     * 读取索引文件中的索引数据并放入工作表
+     *
+     * @return 索引文件中没有索引数据时返回false，需要重建
+     */
+    private boolean readIndexFile(IndexDefinition definition, ExcelSheet sheet) throws IOException {
+        try (DataInputStream in = new DataInputStream(new BufferedInputStream(
+                new FileInputStream(definition.getFilePath())))) {
+            IndexDefinition header = readHeader(in, definition.getFilePath());
+            if (!in.readBoolean()) {
+                return false;
+            }
+            IndexData data = new IndexData();
+            if (IndexDefinition.TYPE_NGRAM.equals(header.getIndexType())) {
+                data.ngramIndex = NgramIndex.read(in);
+            } else {
+                data.hashIndex = HashIndex.read(in);
+                data.sortedIndex = in.readBoolean() ? SortedIndex.read(in) : null;
+            }
+            data.attach(sheet);
+            return true;
+        }
+    }
+
+    /**
+     * 读取工作簿目录下所有属于该工作簿的索引文件头
+     */
+    private List<IndexDefinition> scan(File workbookFile) {
+        List<IndexDefinition> result = new ArrayList<>();
+        String prefix = workbookFile.getName() + ".";
+        File[] files = workbookFile.getParentFile() != null
+                ? workbookFile.getParentFile().listFiles((dir, name) -> name.startsWith(prefix)
+                        && name.endsWith(FILE_EXTENSION))
+                : null;
+        if (files == null) {
+            return result;
+        }
+
+        for (File file : files) {
+            try (DataInputStream in = new DataInputStream(new BufferedInputStream(new FileInputStream(file)))) {
+                result.add(readHeader(in, file.getPath()));
+            } catch (IOException e) {
+                log.warn("读取索引文件失败: {}", file.getPath(), e);
+            }
+        }
+        result.sort(Comparator.comparing(IndexDefinition::getSheetName).thenComparing(IndexDefinition::getName));
+        return result;
+    }
+
+    private static IndexDefinition readHeader(DataInputStream in, String filePath) throws IOException {
+        if (in.readInt() != MAGIC) {
+            throw new IOException("不是索引文件: " + filePath);
+        }
+        int version = in.readInt();
+        if (version != VERSION) {
+            throw new IOException("不支持的索引文件版本: " + version);
+        }
+
+        IndexDefinition definition = new IndexDefinition();
+        definition.setSheetName(in.readUTF());
+        definition.setName(in.readUTF());
+        definition.setIndexType(in.readUTF());
+        definition.setUnique(in.readBoolean());
+        int columnCount = in.readInt();
+        List<String> columns = new ArrayList<>(columnCount);
+        for (int i = 0; i < columnCount; i++) {
+            columns.add(in.readUTF());
+        }
+        definition.setColumns(columns);
+        definition.setWorkbookSize(in.readLong());
+        definition.setWorkbookModified(in.readLong());
+        definition.setKeyCount(in.readInt());
+        definition.setCreateTime(in.readLong());
+        definition.setFilePath(filePath);
+        return definition;
+    }
+
+    /**
+     * 读取区块布隆过滤器文件
+     *
+     * @return 过滤器，文件与工作簿或区块行数不一致时返回null
+     */
+    private List<BlockBloomFilter> readBloomFile(File file, long fileSize, long lastModified, int blockRows)
+            throws IOException {
+        try (DataInputStream in = new DataInputStream(new BufferedInputStream(new FileInputStream(file)))) {
+            if (in.readInt() != BLOOM_MAGIC || in.readInt() != VERSION) {
+                throw new IOException("不是区块布隆过滤器文件: " + file.getPath());
+            }
+            in.readUTF();
+            if (in.readLong() != fileSize || in.readLong() != lastModified || in.readInt() != blockRows
+                    || in.readInt() != bloomBitsPerKey) {
+                return null;
+            }
+            int count = in.readInt();
+            List<BlockBloomFilter> filters = new ArrayList<>(count);
+            for (int i = 0; i < count; i++) {
+                filters.add(BlockBloomFilter.read(in));
+            }
+            return filters;
+        }
+    }
+
+    /**
+     * 先写入临时文件再替换，读取方不会看到写了一半的过滤器文件
+     */
+    private void writeBloomFile(File file, String sheetName, long fileSize, long lastModified, int blockRows,
+                                List<BlockBloomFilter> filters) throws IOException {
+        File tempFile = new File(file.getPath() + ".tmp");
+        try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(new FileOutputStream(tempFile)))) {
+            out.writeInt(BLOOM_MAGIC);
+            out.writeInt(VERSION);
+            out.writeUTF(sheetName);
+            out.writeLong(fileSize);
+            out.writeLong(lastModified);
+            out.writeInt(blockRows);
+            out.writeInt(bloomBitsPerKey);
+            out.writeInt(filters.size());
+            for (BlockBloomFilter filter : filters) {
+                filter.write(out);
+            }
+        } catch (IOException e) {
+            Files.deleteIfExists(tempFile.toPath());
+            throw e;
+        }
+        Files.move(tempFile.toPath(), file.toPath(), StandardCopyOption.REPLACE_EXISTING,
+                StandardCopyOption.ATOMIC_MOVE);
+    }
+
+    /**
+     * 索引文件路径，工作表名中文件名不允许的字符替换为下划线，真实名称记录在文件头中
+     */
+    private static File indexFile(File workbookFile, String sheetName, String indexName) {
+        return new File(workbookFile.getParentFile(),
+                workbookFile.getName() + "." + safeSheetName(sheetName) + "." + indexName + FILE_EXTENSION);
+    }
+
+    /**
+     * 区块布隆过滤器文件路径
+     */
+    private static File bloomFile(File workbookFile, String sheetName) {
+        return new File(workbookFile.getParentFile(),
+                workbookFile.getName() + "." + safeSheetName(sheetName) + BLOOM_FILE_EXTENSION);
+    }
+
+    private static String safeSheetName(String sheetName) {
+        return sheetName.replaceAll("[^\\w.\\-\\u4e00-\\u9fa5]", "_");
+    }
+}
@@ -5,6 +5,7 @@ import lombok.Data;
 import lombok.Builder;
 import lombok.NoArgsConstructor;
 import lombok.AllArgsConstructor;
+import net.sf.jsqlparser.expression.Expression;
 
 import java.util.List;
 import java.util.Map;
@@ -33,6 +34,11 @@ public class ParsedSql {
      */
     private List<String> targetTables;
     
+    /**
+     * FROM表所在的工作簿（工作簿.工作表 形式），为null时使用当前工作簿
+     */
+    private String fromWorkbook;
+    
     /**
      * 选择的列（SELECT子句中的列名）
      */
@@ -53,6 +59,11 @@ public class ParsedSql {
      */
     private String whereCondition;
     
+    /**
+     * WHERE条件表达式树，执行时编译为行过滤条件
+     */
+    private transient Expression whereExpression;
+    
     /**
      * GROUP BY子句
      */
@@ -83,6 +94,16 @@ public class ParsedSql {
      */
     private List<JoinClause> joinClauses;
     
+    /**
+     * UNION的各个SELECT，本对象的ORDER BY、LIMIT、OFFSET作用于合并后的结果
+     */
+    private List<ParsedSql> unionQueries;
+    
+    /**
+     * 是否去重合并（UNION），否则为UNION ALL
+     */
+    private boolean unionDistinct;
+    
     /**
      * 聚合函数
      */
@@ -98,6 +119,26 @@ public class ParsedSql {
      */
     private Map<String, Object> updateValues;
     
+    /**
+     * 索引名（CREATE INDEX、DROP INDEX语句）
+     */
+    private String indexName;
+    
+    /**
+     * 索引列（CREATE INDEX语句）
+     */
+    private List<String> indexColumns;
+    
+    /**
+     * 是否唯一索引（CREATE UNIQUE INDEX语句）
+     */
+    private boolean uniqueIndex;
+    
+    /**
+     * 索引方法（CREATE INDEX ... USING 语句），大写，未指定时为null
+     */
+    private String indexMethod;
+    
     /**
      * 是否包含子查询
      */
@@ -150,6 +191,11 @@ public class ParsedSql {
          */
         private String joinType;
         
+        /**
+         * 右表所在的工作簿，为null时与FROM表相同
+         */
+        private String rightWorkbook;
+        
         /**
          * 右表名
          */
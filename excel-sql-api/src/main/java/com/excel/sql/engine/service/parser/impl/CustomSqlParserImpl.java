@@ -18,7 +18,8 @@ import java.util.regex.Pattern;
 
 /**
  * 自定义SQL解析器实现
- * 用于处理特殊的Excel DDL语句，如CREATE WORKBOOK, CREATE SHEET, USE WORKBOOK等
+ * 用于处理特殊的Excel DDL语句，如CREATE WORKBOOK, CREATE SHEET, USE WORKBOOK等，
+ * 以及CREATE INDEX, DROP INDEX, SHOW INDEXES索引语句
  */
 @Slf4j
 @Service
@@ -48,6 +49,25 @@ public class CustomSqlParserImpl implements SqlParser {
     private static final Pattern DROP_SHEET_PATTERN = 
             Pattern.compile("^\\s*DROP\\s+SHEET\\s+([\\w.-]+)\\s*;?\\s*$", Pattern.CASE_INSENSITIVE);
     
+    // CREATE [UNIQUE] INDEX 索引名 ON [工作簿.]工作表(列[, 列]) [USING 索引方法]
+    private static final Pattern CREATE_INDEX_PATTERN = 
+            Pattern.compile("^\\s*CREATE\\s+(UNIQUE\\s+)?INDEX\\s+(\\w+)\\s+ON\\s+([\\w.-]+)\\s*\\(([^)]+)\\)"
+                    + "(?:\\s*USING\\s+(\\w+))?\\s*;?\\s*$",
+                    Pattern.CASE_INSENSITIVE);
+    
+    // DROP INDEX 索引名 [ON [工作簿.]工作表]
+    private static final Pattern DROP_INDEX_PATTERN = 
+            Pattern.compile("^\\s*DROP\\s+INDEX\\s+(\\w+)(?:\\s+ON\\s+([\\w.-]+))?\\s*;?\\s*$", Pattern.CASE_INSENSITIVE);
+    
+    // SHOW INDEXES|INDEX [FROM|IN [工作簿.]工作表]
+    private static final Pattern SHOW_INDEXES_PATTERN = 
+            Pattern.compile("^\\s*SHOW\\s+(?:INDEXES|INDEX)(?:\\s+(?:FROM|IN)\\s+([\\w.-]+))?\\s*;?\\s*$",
+                    Pattern.CASE_INSENSITIVE);
+    
+    // COMMIT | FLUSH
+    private static final Pattern FLUSH_PATTERN = 
+            Pattern.compile("^\\s*(?:COMMIT|FLUSH)\\s*;?\\s*$", Pattern.CASE_INSENSITIVE);
+    
     @Override
     public ParsedSql parse(String sql) {
         // 尝试解析自定义SQL语句
@@ -75,6 +95,14 @@ public class CustomSqlParserImpl implements SqlParser {
                     return parseDropWorkbook(sql, builder);
                 case DROP_SHEET:
                     return parseDropSheet(sql, builder);
+                case CREATE_INDEX:
+                    return parseCreateIndex(sql, builder);
+                case DROP_INDEX:
+                    return parseDropIndex(sql, builder);
+                case SHOW_INDEXES:
+                    return parseShowIndexes(sql, builder);
+                case FLUSH:
+                    return builder.targetTables(List.of()).build();
                 default:
                     return jsqlParser.parse(sql);
             }
@@ -113,6 +141,17 @@ public class CustomSqlParserImpl implements SqlParser {
                 case DROP_SHEET:
                     validateDropSheet(sql);
                     break;
+                case CREATE_INDEX:
+                    validateCreateIndex(sql);
+                    break;
+                case DROP_INDEX:
+                    validateDropIndex(sql);
+                    break;
+                case SHOW_INDEXES:
+                    validateShowIndexes(sql);
+                    break;
+                case FLUSH:
+                    break;
                 default:
                     return jsqlParser.validate(sql);
             }
@@ -140,6 +179,14 @@ public class CustomSqlParserImpl implements SqlParser {
             return SqlQueryResult.SqlType.DROP_WORKBOOK;
         } else if (DROP_SHEET_PATTERN.matcher(trimmedSql).matches()) {
             return SqlQueryResult.SqlType.DROP_SHEET;
+        } else if (CREATE_INDEX_PATTERN.matcher(trimmedSql).matches()) {
+            return SqlQueryResult.SqlType.CREATE_INDEX;
+        } else if (DROP_INDEX_PATTERN.matcher(trimmedSql).matches()) {
+            return SqlQueryResult.SqlType.DROP_INDEX;
+        } else if (SHOW_INDEXES_PATTERN.matcher(trimmedSql).matches()) {
+            return SqlQueryResult.SqlType.SHOW_INDEXES;
+        } else if (FLUSH_PATTERN.matcher(trimmedSql).matches()) {
+            return SqlQueryResult.SqlType.FLUSH;
         }
         
         // 尝试使用JSqlParser判断类型
@@ -249,6 +296,98 @@ public class CustomSqlParserImpl implements SqlParser {
                 .build();
     }
     
+    /**
+     * 解析CREATE INDEX语句
+     */
+    private ParsedSql parseCreateIndex(String sql, ParsedSql.ParsedSqlBuilder builder) {
+        Matcher matcher = CREATE_INDEX_PATTERN.matcher(sql);
+        if (matcher.find()) {
+            List<String> columns = new ArrayList<>();
+            for (String column : matcher.group(4).split(",")) {
+                String name = unquoteIdentifier(column.trim());
+                if (name.isEmpty()) {
+                    return builder
+                            .success(false)
+                            .errorMessage("无效的CREATE INDEX语句：索引列不能为空")
+                            .build();
+                }
+                columns.add(name);
+            }
+            
+            return applyTable(builder, matcher.group(3))
+                    .indexName(matcher.group(2))
+                    .indexColumns(columns)
+                    .uniqueIndex(matcher.group(1) != null)
+                    .indexMethod(matcher.group(5) != null ? matcher.group(5).toUpperCase() : null)
+                    .build();
+        }
+        
+        return builder
+                .success(false)
+                .errorMessage("无效的CREATE INDEX语句")
+                .build();
+    }
+    
+    /**
+     * 解析DROP INDEX语句
+     */
+    private ParsedSql parseDropIndex(String sql, ParsedSql.ParsedSqlBuilder builder) {
+        Matcher matcher = DROP_INDEX_PATTERN.matcher(sql);
+        if (matcher.find()) {
+            return applyTable(builder, matcher.group(2))
+                    .indexName(matcher.group(1))
+                    .build();
+        }
+        
+        return builder
+                .success(false)
+                .errorMessage("无效的DROP INDEX语句")
+                .build();
+    }
+    
+    /**
+     * 解析SHOW INDEXES语句
+     */
+    private ParsedSql parseShowIndexes(String sql, ParsedSql.ParsedSqlBuilder builder) {
+        Matcher matcher = SHOW_INDEXES_PATTERN.matcher(sql);
+        if (matcher.find()) {
+            return applyTable(builder, matcher.group(1)).build();
+        }
+        
+        return builder
+                .success(false)
+                .errorMessage("无效的SHOW INDEXES语句")
+                .build();
+    }
+    
+    /**
+     * 设置索引语句的工作表，"工作簿.工作表"形式时同时设置工作簿
+     * 没有指定工作表时targetTables为空列表
+     */
+    private ParsedSql.ParsedSqlBuilder applyTable(ParsedSql.ParsedSqlBuilder builder, String table) {
+        if (table == null) {
+            return builder.targetTables(List.of());
+        }
+        int dot = table.indexOf('.');
+        if (dot > 0 && dot < table.length() - 1) {
+            return builder
+                    .fromWorkbook(table.substring(0, dot))
+                    .targetTables(List.of(table.substring(dot + 1)));
+        }
+        return builder.targetTables(List.of(table));
+    }
+    
+    /**
+     * 去掉列名两侧的反引号或双引号
+     */
+    private String unquoteIdentifier(String name) {
+        if (name.length() >= 2 && (name.startsWith("`") && name.endsWith("`")
+                || name.startsWith("\"") && name.endsWith("\""))) {
+            return name.substring(1, name.length() - 1);
+        }
+        return name;
+    }
+    
     /**
      * 验证CREATE WORKBOOK语句
      */
@@ -299,6 +438,36 @@ public class CustomSqlParserImpl implements SqlParser {
         }
     }
     
+    /**
+     * 验证CREATE INDEX语句
+     */
+    private void validateCreateIndex(String sql) throws Exception {
+        Matcher matcher = CREATE_INDEX_PATTERN.matcher(sql);
+        if (!matcher.find()) {
+            throw new Exception("无效的CREATE INDEX语句");
+        }
+    }
+    
+    /**
+     * 验证DROP INDEX语句
+     */
+    private void validateDropIndex(String sql) throws Exception {
+        Matcher matcher = DROP_INDEX_PATTERN.matcher(sql);
+        if (!matcher.find()) {
+            throw new Exception("无效的DROP INDEX语句");
+        }
+    }
+    
+    /**
+     * 验证SHOW INDEXES语句
+     */
+    private void validateShowIndexes(String sql) throws Exception {
+        Matcher matcher = SHOW_INDEXES_PATTERN.matcher(sql);
+        if (!matcher.find()) {
+            throw new Exception("无效的SHOW INDEXES语句");
+        }
+    }
+    
     /**
      * 解析选项字符串，格式为 key=value, key=value
      * 特殊处理 columns 选项，确保不会被逗号分隔
@@ -129,16 +129,67 @@ public class JSqlParserImpl implements SqlParser {
      * 解析SELECT语句
      */
     private ParsedSql parseSelectStatement(Select select, ParsedSql.ParsedSqlBuilder builder) {
-        PlainSelect plainSelect = (PlainSelect) select.getSelectBody();
+        SelectBody selectBody = select.getSelectBody();
+        if (selectBody instanceof SetOperationList) {
+            return parseSetOperation((SetOperationList) selectBody, builder);
+        }
+        return parsePlainSelect((PlainSelect) selectBody, builder);
+    }
+    
+    /**
+     * 解析UNION [ALL]，每个SELECT分别解析，末尾的ORDER BY、LIMIT、OFFSET作用于合并结果
+     */
+    private ParsedSql parseSetOperation(SetOperationList setOperationList, ParsedSql.ParsedSqlBuilder builder) {
+        boolean distinct = false;
+        for (SetOperation operation : setOperationList.getOperations()) {
+            if (!(operation instanceof UnionOp)) {
+                throw new IllegalArgumentException("不支持的集合运算: " + operation);
+            }
+            if (!((UnionOp) operation).isAll()) {
+                distinct = true;
+            }
+        }
+        
+        List<ParsedSql> unionQueries = new ArrayList<>();
+        List<String> targetTables = new ArrayList<>();
+        for (SelectBody body : setOperationList.getSelects()) {
+            if (!(body instanceof PlainSelect)) {
+                throw new IllegalArgumentException("UNION中不支持嵌套的集合运算: " + body);
+            }
+            ParsedSql branch = parsePlainSelect((PlainSelect) body, ParsedSql.builder()
+                    .originalSql(body.toString())
+                    .sqlType(SqlQueryResult.SqlType.SELECT)
+                    .success(true));
+            unionQueries.add(branch);
+            targetTables.addAll(branch.getTargetTables());
+        }
         
-        // 解析目标表
+        Limit limit = setOperationList.getLimit();
+        return builder
+                .targetTables(targetTables)
+                .fromWorkbook(unionQueries.get(0).getFromWorkbook())
+                .unionQueries(unionQueries)
+                .unionDistinct(distinct)
+                .orderByClauses(parseOrderBy(setOperationList.getOrderByElements()))
+                .limit(parseLimit(limit))
+                .offset(parseOffset(limit, setOperationList.getOffset()))
+                .build();
+    }
+    
+    /**
+     * 解析单个SELECT
+     */
+    private ParsedSql parsePlainSelect(PlainSelect plainSelect, ParsedSql.ParsedSqlBuilder builder) {
+        // 解析目标表，表名可以带工作簿前缀（工作簿.工作表）
         List<String> targetTables = new ArrayList<>();
         Map<String, String> tableAliases = new HashMap<>();
+        String fromWorkbook = null;
         
         FromItem fromItem = plainSelect.getFromItem();
         if (fromItem instanceof Table) {
             Table table = (Table) fromItem;
             targetTables.add(table.getName());
+            fromWorkbook = unquoteName(table.getSchemaName());
             
             if (table.getAlias() != null) {
                 tableAliases.put(table.getName(), table.getAlias().getName());
@@ -157,11 +208,13 @@ public class JSqlParserImpl implements SqlParser {
                     String rightTableAlias = null;
                     if (rightTable.getAlias() != null) {
                         rightTableAlias = rightTable.getAlias().getName();
-                        tableAliases.put(rightTable.getName(), rightTableAlias);
+                        // 不同工作簿中的同名工作表不覆盖FROM表的别名
+                        tableAliases.putIfAbsent(rightTable.getName(), rightTableAlias);
                     }
                     
                     ParsedSql.JoinClause joinClause = ParsedSql.JoinClause.builder()
                             .joinType(getJoinType(join))
+                            .rightWorkbook(unquoteName(rightTable.getSchemaName()))
                             .rightTable(rightTable.getName())
                             .rightTableAlias(rightTableAlias)
                             .onCondition(join.getOnExpression() != null ? join.getOnExpression().toString() : null)
@@ -172,6 +225,9 @@ public class JSqlParserImpl implements SqlParser {
             }
         }
         
+        // 有JOIN时列引用保留表名（或表别名），以区分不同表中的同名列
+        final boolean qualifyColumns = !joinClauses.isEmpty();
+        
         // 解析选择的列
         final List<String> selectedColumns = new ArrayList<>();
         final Map<String, String> columnAliases = new HashMap<>();
@@ -197,7 +253,7 @@ public class JSqlParserImpl implements SqlParser {
                         
                         if (expression instanceof Column) {
                             Column column = (Column) expression;
-                            String columnName = column.getColumnName();
+                            String columnName = qualifyColumns ? column.getFullyQualifiedName() : column.getColumnName();
                             selectedColumns.add(columnName);
                             
                             if (item.getAlias() != null) {
@@ -234,7 +290,7 @@ public class JSqlParserImpl implements SqlParser {
                                 Expression paramExpr = parameters.getExpressions().get(0);
                                 if (paramExpr instanceof Column) {
                                     Column paramColumn = (Column) paramExpr;
-                                    columnName = paramColumn.getColumnName();
+                                    columnName = qualifyColumns ? paramColumn.getFullyQualifiedName() : paramColumn.getColumnName();
                                 } else {
                                     columnName = paramExpr.toString();
                                 }
@@ -295,45 +351,21 @@ public class JSqlParserImpl implements SqlParser {
         }
         
         // 解析ORDER BY
-        List<ParsedSql.OrderByClause> orderByClauses = new ArrayList<>();
-        try {
-            if (plainSelect.getOrderByElements() != null) {
-                for (OrderByElement orderByElement : plainSelect.getOrderByElements()) {
-                    ParsedSql.OrderByClause orderByClause = ParsedSql.OrderByClause.builder()
-                            .column(orderByElement.getExpression().toString())
-                            .descending(!orderByElement.isAsc())
-                            .build();
-                    orderByClauses.add(orderByClause);
-                }
-            }
-        } catch (Exception e) {
-            log.warn("解析ORDER BY子句异常: {}", e.getMessage());
-        }
+        List<ParsedSql.OrderByClause> orderByClauses = parseOrderBy(plainSelect.getOrderByElements());
         
         // 解析LIMIT和OFFSET
-        Integer limit = null;
-        Integer offset = null;
-        try {
-            if (plainSelect.getLimit() != null) {
-                if (plainSelect.getLimit().getRowCount() != null) {
-                    limit = Integer.parseInt(plainSelect.getLimit().getRowCount().toString());
-                }
-                
-                if (plainSelect.getLimit().getOffset() != null) {
-                    offset = Integer.parseInt(plainSelect.getLimit().getOffset().toString());
-                }
-            }
-        } catch (Exception e) {
-            log.warn("解析LIMIT/OFFSET子句异常: {}", e.getMessage());
-        }
+        Integer limit = parseLimit(plainSelect.getLimit());
+        Integer offset = parseOffset(plainSelect.getLimit(), plainSelect.getOffset());
         
         // 构建解析结果
         return builder
                 .targetTables(targetTables)
+                .fromWorkbook(fromWorkbook)
                 .tableAliases(tableAliases)
                 .selectedColumns(selectedColumns)
                 .columnAliases(columnAliases)
                 .whereCondition(whereCondition)
+                .whereExpression(plainSelect.getWhere())
                 .groupByColumns(groupByColumns)
                 .havingCondition(havingCondition)
                 .orderByClauses(orderByClauses)
@@ -344,6 +376,72 @@ public class JSqlParserImpl implements SqlParser {
                 .build();
     }
     
+    /**
+     * 解析ORDER BY子句
+     */
+    private List<ParsedSql.OrderByClause> parseOrderBy(List<OrderByElement> orderByElements) {
+        List<ParsedSql.OrderByClause> orderByClauses = new ArrayList<>();
+        try {
+            if (orderByElements != null) {
+                for (OrderByElement orderByElement : orderByElements) {
+                    ParsedSql.OrderByClause orderByClause = ParsedSql.OrderByClause.builder()
+                            .column(orderByElement.getExpression().toString())
+                            .descending(!orderByElement.isAsc())
+                            .build();
+                    orderByClauses.add(orderByClause);
+                }
+            }
+        } catch (Exception e) {
+            log.warn("解析ORDER BY子句异常: {}", e.getMessage());
+        }
+        return orderByClauses;
+    }
+    
+    /**
+     * 解析LIMIT子句
+     */
+    private Integer parseLimit(Limit limit) {
+        try {
+            if (limit != null && limit.getRowCount() != null) {
+                return Integer.parseInt(limit.getRowCount().toString());
+            }
+        } catch (Exception e) {
+            log.warn("解析LIMIT子句异常: {}", e.getMessage());
+        }
+        return null;
+    }
+    
+    /**
+     * 解析OFFSET，支持 LIMIT m, n 和 LIMIT n OFFSET m 两种形式
+     */
+    private Integer parseOffset(Limit limit, Offset offset) {
+        try {
+            if (limit != null && limit.getOffset() != null) {
+                return Integer.parseInt(limit.getOffset().toString());
+            }
+            if (offset != null) {
+                return Integer.parseInt(offset.getOffset().toString());
+            }
+        } catch (Exception e) {
+            log.warn("解析OFFSET子句异常: {}", e.getMessage());
+        }
+        return null;
+    }
+    
+    /**
+     * 去掉工作簿名两侧的引号或反引号
+     */
+    private String unquoteName(String name) {
+        if (name != null && name.length() >= 2) {
+            char first = name.charAt(0);
+            char last = name.charAt(name.length() - 1);
+            if ((first == '"' && last == '"') || (first == '`' && last == '`')) {
+                return name.substring(1, name.length() - 1);
+            }
+        }
+        return name;
+    }
+    
     /**
      * 解析INSERT语句
      */
@@ -606,6 +704,7 @@ public class JSqlParserImpl implements SqlParser {
                 .targetTables(targetTables)
                 .selectedColumns(columns)
                 .whereCondition(whereCondition)
+                .whereExpression(update.getWhere())
                 .updateValues(updateValues)
                 .build();
     }
@@ -627,6 +726,7 @@ public class JSqlParserImpl implements SqlParser {
         return builder
                 .targetTables(targetTables)
                 .whereCondition(whereCondition)
+                .whereExpression(delete.getWhere())
                 .build();
     }
     
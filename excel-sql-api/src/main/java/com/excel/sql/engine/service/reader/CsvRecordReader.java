@@ -0,0 +1,377 @@
+package com.excel.sql.engine.service.reader;
+
+import com.excel.sql.engine.exception.QueryCancelledException;
+import com.excel.sql.engine.service.executor.cancel.CancellationToken;
+import com.excel.sql.engine.service.executor.parallel.PartitionedExecutor;
+import com.opencsv.CSVReader;
+import com.opencsv.CSVReaderBuilder;
+import com.opencsv.RFC4180Parser;
+import com.opencsv.RFC4180ParserBuilder;
+import com.opencsv.exceptions.CsvValidationException;
+import lombok.extern.slf4j.Slf4j;
+
+import java.io.BufferedReader;
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+
+/**
+ * CSV记录读取器
+ * 将内存映射的文件按换行符对齐切分为块，多个块在分区并行执行器的线程池中并行解析，按文件顺序返回记录。
+ * 同时在途的块数有上限，内存占用与文件大小无关。解析任务绑定创建读取器时的取消令牌，查询取消后停止读取。
+ * 如果某个块中出现引号未闭合的行（跨行字段），从该块开始退回到顺序解析。
+ * 文件按UTF-8解码。
+ */
+@Slf4j
+public class CsvRecordReader implements AutoCloseable {
+
+    /**
+     * 每个块的字节数
+     */
+    private static volatile int chunkSize = 8 * 1024 * 1024;
+
+    /**
+     * 同时解析的块数
+     */
+    private static volatile int parallelism = Runtime.getRuntime().availableProcessors();
+
+    /**
+     * 解析块的执行器，未设置时在读取线程中解析
+     */
+    private static volatile PartitionedExecutor executor;
+
+    private final CancellationToken token;
+
+    private final FileChannel channel;
+    private final long fileSize;
+    private final Deque<ChunkTask> pending = new ArrayDeque<>();
+
+    /**
+     * 下一个待切分块的起始位置
+     */
+    private long nextChunkStart;
+
+    private List<String[]> currentRecords;
+    private int currentPosition;
+
+    /**
+     * 出现跨行记录后使用的顺序读取器
+     */
+    private CSVReader sequentialReader;
+
+    private boolean closed;
+
+    /**
+     * 打开CSV文件
+     *
+     * @param file CSV文件
+     * @param skipLines 开头跳过的物理行数（表头等）
+     * @throws IOException IO异常
+     */
+    public CsvRecordReader(File file, int skipLines) throws IOException {
+        this.token = CancellationToken.current();
+        this.channel = FileChannel.open(file.toPath(), StandardOpenOption.READ);
+        this.fileSize = channel.size();
+        try {
+            this.nextChunkStart = skipLines(bomLength(), skipLines);
+        } catch (IOException e) {
+            channel.close();
+            throw e;
+        }
+    }
+
+    /**
+     * 设置块大小和并行度
+     *
+     * @param chunkSizeBytes 每个块的字节数
+     * @param threads 同时解析的块数，小于等于0时使用CPU核数
+     */
+    public static void configure(int chunkSizeBytes, int threads) {
+        chunkSize = Math.max(64 * 1024, chunkSizeBytes);
+        parallelism = threads > 0 ? threads : Runtime.getRuntime().availableProcessors();
+    }
+
+    /**
+     * 设置解析块的执行器
+     *
+     * @param partitionedExecutor 分区并行执行器
+     */
+    public static void useExecutor(PartitionedExecutor partitionedExecutor) {
+        executor = partitionedExecutor;
+    }
+
+    /**
+     * 创建RFC 4180解析器，反斜杠不作为转义字符
+     *
+     * @return CSV解析器
+     */
+    public static RFC4180Parser newParser() {
+        return new RFC4180ParserBuilder().build();
+    }
+
+    /**
+     * 读取下一条记录
+     *
+     * @return 记录字段，如果没有更多数据则返回null
+     * @throws IOException IO异常或解析异常
+     */
+    public String[] next() throws IOException {
+        while (!closed) {
+            token.checkpoint();
+            if (sequentialReader != null) {
+                return readSequential();
+            }
+
+            if (currentRecords != null && currentPosition < currentRecords.size()) {
+                return currentRecords.get(currentPosition++);
+            }
+
+            fillPending();
+            ChunkTask task = pending.poll();
+            if (task == null) {
+                return null;
+            }
+
+            ChunkResult result = await(task);
+            if (result.multiLine) {
+                // 块内有跨行字段，块边界可能落在字段中间，改为从该块开始顺序解析
+                log.debug("CSV块 [{}, {}) 含跨行字段，改为顺序解析", task.start, task.end);
+                cancelPending();
+                startSequential(task.start);
+                continue;
+            }
+
+            currentRecords = result.records;
+            currentPosition = 0;
+            fillPending();
+        }
+        return null;
+    }
+
+    @Override
+    public void close() {
+        if (closed) {
+            return;
+        }
+        closed = true;
+        cancelPending();
+        try {
+            if (sequentialReader != null) {
+                sequentialReader.close();
+            }
+            channel.close();
+        } catch (IOException e) {
+            log.warn("关闭CSV文件失败: {}", e.getMessage());
+        }
+    }
+
+    /**
+     * 保持在途块数达到并行度
+     */
+    private void fillPending() throws IOException {
+        while (pending.size() < parallelism && nextChunkStart < fileSize) {
+            long start = nextChunkStart;
+            long end = alignToLineEnd(Math.min(fileSize, start + chunkSize));
+            nextChunkStart = end;
+
+            MappedByteBuffer buffer = channel.map(FileChannel.MapMode.READ_ONLY, start, end - start);
+            pending.add(new ChunkTask(start, end, submit(buffer)));
+        }
+    }
+
+    /**
+     * 提交块的解析任务，任务绑定读取器的取消令牌
+     */
+    private CompletableFuture<ChunkResult> submit(MappedByteBuffer buffer) {
+        PartitionedExecutor chunkExecutor = executor;
+        if (chunkExecutor == null) {
+            return CompletableFuture.completedFuture(token.callWith(() -> parseChunk(buffer)));
+        }
+        return token.callWith(() -> chunkExecutor.supplyAsync(() -> parseChunk(buffer)));
+    }
+
+    /**
+     * 将位置向后对齐到下一个换行符之后
+     */
+    private long alignToLineEnd(long position) throws IOException {
+        if (position >= fileSize) {
+            return fileSize;
+        }
+
+        java.nio.ByteBuffer probe = java.nio.ByteBuffer.allocate(8192);
+        long current = position;
+        while (current < fileSize) {
+            probe.clear();
+            int read = channel.read(probe, current);
+            if (read <= 0) {
+                break;
+            }
+            for (int i = 0; i < read; i++) {
+                if (probe.get(i) == '\n') {
+                    return current + i + 1;
+                }
+            }
+            current += read;
+        }
+        return fileSize;
+    }
+
+    /**
+     * 解析一个按行对齐的块
+     */
+    private static ChunkResult parseChunk(MappedByteBuffer buffer) {
+        RFC4180Parser parser = newParser();
+        List<String[]> records = new ArrayList<>();
+        CancellationToken token = CancellationToken.current();
+        byte[] line = new byte[256];
+        int limit = buffer.limit();
+        int lineStart = 0;
+        int quotes = 0;
+
+        try {
+            for (int i = 0; i <= limit; i++) {
+                if (i < limit) {
+                    byte b = buffer.get(i);
+                    if (b == '"') {
+                        quotes++;
+                    }
+                    if (b != '\n') {
+                        continue;
+                    }
+                }
+
+                int lineEnd = i;
+                if (quotes % 2 != 0) {
+                    // 引号未闭合，说明字段跨行
+                    return ChunkResult.MULTI_LINE;
+                }
+                quotes = 0;
+                if (lineEnd > lineStart && buffer.get(lineEnd - 1) == '\r') {
+                    lineEnd--;
+                }
+                int length = lineEnd - lineStart;
+                if (length > 0) {
+                    if (line.length < length) {
+                        line = new byte[Math.max(length, line.length * 2)];
+                    }
+                    buffer.get(lineStart, line, 0, length);
+                    records.add(parser.parseLine(new String(line, 0, length, StandardCharsets.UTF_8)));
+                    if ((records.size() & 4095) == 0) {
+                        token.checkpoint();
+                    }
+                }
+                lineStart = i + 1;
+            }
+        } catch (IOException e) {
+            // 解析失败通常也是由跨行字段导致的，交给顺序解析处理
+            return ChunkResult.MULTI_LINE;
+        }
+
+        return new ChunkResult(records, false);
+    }
+
+    private ChunkResult await(ChunkTask task) throws IOException {
+        try {
+            return task.future.get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IOException("CSV解析被中断", e);
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof QueryCancelledException) {
+                throw (QueryCancelledException) e.getCause();
+            }
+            throw new IOException("CSV解析失败: " + e.getCause().getMessage(), e.getCause());
+        }
+    }
+
+    private void cancelPending() {
+        for (ChunkTask task : pending) {
+            task.future.cancel(false);
+        }
+        pending.clear();
+    }
+
+    private void startSequential(long position) throws IOException {
+        channel.position(position);
+        BufferedReader reader = new BufferedReader(
+                new InputStreamReader(Channels.newInputStream(channel), StandardCharsets.UTF_8), 64 * 1024);
+        sequentialReader = new CSVReaderBuilder(reader).withCSVParser(newParser()).build();
+        currentRecords = null;
+    }
+
+    private String[] readSequential() throws IOException {
+        try {
+            String[] record;
+            do {
+                record = sequentialReader.readNext();
+            } while (record != null && record.length == 1 && record[0].isEmpty());
+            return record;
+        } catch (CsvValidationException e) {
+            throw new IOException("CSV解析失败: " + e.getMessage(), e);
+        }
+    }
+
+    /**
+     * UTF-8 BOM长度
+     */
+    private long bomLength() throws IOException {
+        if (fileSize < 3) {
+            return 0;
+        }
+        java.nio.ByteBuffer head = java.nio.ByteBuffer.allocate(3);
+        channel.read(head, 0);
+        return head.get(0) == (byte) 0xEF && head.get(1) == (byte) 0xBB && head.get(2) == (byte) 0xBF ? 3 : 0;
+    }
+
+    /**
+     * 从指定位置跳过若干物理行
+     */
+    private long skipLines(long position, int lines) throws IOException {
+        long current = position;
+        for (int i = 0; i < lines && current < fileSize; i++) {
+            current = alignToLineEnd(current);
+        }
+        return current;
+    }
+
+    /**
+     * 已提交解析的块
+     */
+    private static class ChunkTask {
+        private final long start;
+        private final long end;
+        private final CompletableFuture<ChunkResult> future;
+
+        ChunkTask(long start, long end, CompletableFuture<ChunkResult> future) {
+            this.start = start;
+            this.end = end;
+            this.future = future;
+        }
+    }
+
+    /**
+     * 块解析结果
+     */
+    private static class ChunkResult {
+        private static final ChunkResult MULTI_LINE = new ChunkResult(null, true);
+
+        private final List<String[]> records;
+        private final boolean multiLine;
+
+        ChunkResult(List<String[]> records, boolean multiLine) {
+            this.records = records;
+            this.multiLine = multiLine;
+        }
+    }
+}
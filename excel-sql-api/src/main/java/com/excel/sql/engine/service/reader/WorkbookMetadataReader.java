@@ -0,0 +1,34 @@
+package com.excel.sql.engine.service.reader;
+
+import com.excel.sql.engine.model.excel.ExcelFileType;
+import com.excel.sql.engine.model.excel.ExcelSheet;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.List;
+
+/**
+ * 工作簿元数据读取器接口
+ * 只读取工作表名称、行数和表头列定义，不加载数据行
+ */
+public interface WorkbookMetadataReader {
+
+    /**
+     * 是否支持指定的文件类型
+     *
+     * @param fileType 文件类型
+     * @return 是否支持
+     */
+    boolean supports(ExcelFileType fileType);
+
+    /**
+     * 读取工作簿中所有工作表的元数据
+     *
+     * @param file 工作簿文件
+     * @param headerRowIndex 表头行索引
+     * @param dataStartRowIndex 数据开始行索引
+     * @return 按工作簿顺序排列的工作表列表（包含列定义）
+     * @throws IOException IO异常或文件格式错误
+     */
+    List<ExcelSheet> readSheets(File file, int headerRowIndex, int dataStartRowIndex) throws IOException;
+}
@@ -0,0 +1,152 @@
+package com.excel.sql.engine.service.reader.impl;
+
+import com.excel.sql.engine.config.ExcelConfig;
+import com.excel.sql.engine.model.excel.ExcelColumn;
+import com.excel.sql.engine.model.excel.ExcelDataType;
+import com.excel.sql.engine.model.excel.ExcelFileType;
+import com.excel.sql.engine.model.excel.ExcelSheet;
+import com.excel.sql.engine.service.reader.CsvRecordReader;
+import com.excel.sql.engine.service.reader.WorkbookMetadataReader;
+import com.opencsv.CSVReader;
+import com.opencsv.CSVReaderBuilder;
+import com.opencsv.exceptions.CsvValidationException;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Service;
+
+import java.io.BufferedReader;
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * CSV元数据读取器
+ * CSV文件作为只有一个工作表的工作簿，工作表名与文件名相同。
+ * 列类型根据开头若干行的样本推断，不扫描整个文件。
+ */
+@Slf4j
+@Service
+@RequiredArgsConstructor
+public class CsvMetadataReaderImpl implements WorkbookMetadataReader {
+
+    private final ExcelConfig excelConfig;
+
+    @Override
+    public boolean supports(ExcelFileType fileType) {
+        return fileType == ExcelFileType.CSV;
+    }
+
+    @Override
+    public List<ExcelSheet> readSheets(File file, int headerRowIndex, int dataStartRowIndex) throws IOException {
+        int sampleRows = excelConfig.getReader().getCsvSampleRows();
+        String[] header = null;
+        List<String[]> samples = new ArrayList<>();
+
+        try (BufferedReader reader = Files.newBufferedReader(file.toPath(), StandardCharsets.UTF_8);
+             CSVReader csvReader = new CSVReaderBuilder(reader).withCSVParser(CsvRecordReader.newParser()).build()) {
+            int line = 0;
+            String[] record;
+            while ((record = csvReader.readNext()) != null && samples.size() < sampleRows) {
+                if (line == headerRowIndex) {
+                    header = record;
+                } else if (line >= dataStartRowIndex) {
+                    samples.add(record);
+                }
+                line++;
+            }
+        } catch (CsvValidationException e) {
+            throw new IOException("读取CSV文件失败: " + e.getMessage(), e);
+        }
+
+        List<ExcelColumn> columns = new ArrayList<>();
+        if (header != null) {
+            for (int i = 0; i < header.length; i++) {
+                String columnName = i == 0 ? stripBom(header[i]) : header[i];
+
+                // 如果列名为空，使用列索引作为列名
+                if (columnName == null || columnName.trim().isEmpty()) {
+                    columnName = "Column" + (i + 1);
+                }
+
+                columns.add(ExcelColumn.builder()
+                        .name(columnName.trim())
+                        .index(i)
+                        .dataType(inferColumnType(samples, i))
+                        .build());
+            }
+        } else {
+            log.warn("CSV文件 {} 没有找到表头行 (索引: {})", file.getName(), headerRowIndex);
+        }
+
+        String fileName = file.getName();
+        String sheetName = fileName.contains(".") ? fileName.substring(0, fileName.lastIndexOf('.')) : fileName;
+
+        // CSV不统计总行数，避免加载元数据时扫描整个文件
+        ExcelSheet sheet = ExcelSheet.builder()
+                .name(sheetName)
+                .sheetIndex(0)
+                .headerRowIndex(headerRowIndex)
+                .dataStartRowIndex(dataStartRowIndex)
+                .columns(columns)
+                .build();
+
+        log.info("CSV文件 {} 元数据读取完成，列数: {}, 样本行数: {}", fileName, columns.size(), samples.size());
+        return Collections.singletonList(sheet);
+    }
+
+    /**
+     * 根据样本推断列类型
+     * 全部为整数时为INTEGER，整数和小数混合时为DECIMAL，全部为true/false时为BOOLEAN，其余为STRING
+     */
+    private ExcelDataType inferColumnType(List<String[]> samples, int columnIndex) {
+        ExcelDataType result = null;
+        for (String[] record : samples) {
+            if (columnIndex >= record.length || record[columnIndex].isEmpty()) {
+                continue;
+            }
+
+            ExcelDataType type = inferValueType(record[columnIndex].trim());
+            if (result == null || result == type) {
+                result = type;
+            } else if (isNumeric(result) && isNumeric(type)) {
+                result = ExcelDataType.DECIMAL;
+            } else {
+                return ExcelDataType.STRING;
+            }
+        }
+        return result != null ? result : ExcelDataType.STRING;
+    }
+
+    private ExcelDataType inferValueType(String value) {
+        if ("true".equalsIgnoreCase(value) || "false".equalsIgnoreCase(value)) {
+            return ExcelDataType.BOOLEAN;
+        }
+        try {
+            Long.parseLong(value);
+            return ExcelDataType.INTEGER;
+        } catch (NumberFormatException ignored) {
+            // 不是整数，继续检查小数
+        }
+        try {
+            double number = Double.parseDouble(value);
+            if (!Double.isNaN(number) && !Double.isInfinite(number)) {
+                return ExcelDataType.DECIMAL;
+            }
+        } catch (NumberFormatException ignored) {
+            // 不是数字
+        }
+        return ExcelDataType.STRING;
+    }
+
+    private boolean isNumeric(ExcelDataType type) {
+        return type == ExcelDataType.INTEGER || type == ExcelDataType.DECIMAL;
+    }
+
+    private String stripBom(String value) {
+        return value != null && value.startsWith("\uFEFF") ? value.substring(1) : value;
+    }
+}
@@ -0,0 +1,407 @@
+package com.excel.sql.engine.service.reader.impl;
+
+import com.excel.sql.engine.model.excel.ExcelColumn;
+import com.excel.sql.engine.model.excel.ExcelDataType;
+import com.excel.sql.engine.model.excel.ExcelFileType;
+import com.excel.sql.engine.model.excel.ExcelSheet;
+import com.excel.sql.engine.service.reader.WorkbookMetadataReader;
+import lombok.extern.slf4j.Slf4j;
+import org.apache.poi.openxml4j.exceptions.OpenXML4JException;
+import org.apache.poi.openxml4j.opc.OPCPackage;
+import org.apache.poi.openxml4j.opc.PackageAccess;
+import org.apache.poi.util.XMLHelper;
+import org.apache.poi.xssf.eventusermodel.XSSFReader;
+import org.springframework.stereotype.Service;
+import org.xml.sax.Attributes;
+import org.xml.sax.InputSource;
+import org.xml.sax.SAXException;
+import org.xml.sax.XMLReader;
+import org.xml.sax.helpers.DefaultHandler;
+
+import javax.xml.parsers.ParserConfigurationException;
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+
+/**
+ * XLSX元数据读取器
+ * 基于XSSFReader和SAX事件模型，只解析workbook.xml、每个工作表的dimension元素和表头行，
+ * 读到表头之后的第一行即停止解析，耗时与数据量无关
+ */
+@Slf4j
+@Service
+public class XlsxMetadataReaderImpl implements WorkbookMetadataReader {
+
+    @Override
+    public boolean supports(ExcelFileType fileType) {
+        return fileType == ExcelFileType.XLSX;
+    }
+
+    @Override
+    public List<ExcelSheet> readSheets(File file, int headerRowIndex, int dataStartRowIndex) throws IOException {
+        long startTime = System.currentTimeMillis();
+        OPCPackage pkg = null;
+        try {
+            pkg = OPCPackage.open(file, PackageAccess.READ);
+            XSSFReader reader = new XSSFReader(pkg);
+
+            // 工作表迭代器按workbook.xml中的顺序返回工作表
+            XSSFReader.SheetIterator iterator = (XSSFReader.SheetIterator) reader.getSheetsData();
+            List<String> sheetNames = new ArrayList<>();
+            List<SheetHeaderHandler> handlers = new ArrayList<>();
+            while (iterator.hasNext()) {
+                try (InputStream sheetStream = iterator.next()) {
+                    SheetHeaderHandler handler = new SheetHeaderHandler(headerRowIndex);
+                    parse(sheetStream, handler);
+                    sheetNames.add(iterator.getSheetName());
+                    handlers.add(handler);
+                }
+            }
+
+            // 只解析表头引用到的共享字符串
+            Set<Integer> sharedStringIndexes = new HashSet<>();
+            for (SheetHeaderHandler handler : handlers) {
+                handler.collectSharedStringIndexes(sharedStringIndexes);
+            }
+            Map<Integer, String> sharedStrings = readSharedStrings(reader, sharedStringIndexes);
+
+            List<ExcelSheet> sheets = new ArrayList<>(handlers.size());
+            for (int i = 0; i < handlers.size(); i++) {
+                SheetHeaderHandler handler = handlers.get(i);
+                ExcelSheet sheet = ExcelSheet.builder()
+                        .name(sheetNames.get(i))
+                        .sheetIndex(i)
+                        .headerRowIndex(headerRowIndex)
+                        .dataStartRowIndex(dataStartRowIndex)
+                        .totalRows(handler.getTotalRows())
+                        .columns(handler.buildColumns(sharedStrings))
+                        .build();
+                sheets.add(sheet);
+                log.info("工作表 {} 元数据读取完成，总行数: {}, 列数: {}",
+                        sheet.getName(), sheet.getTotalRows(), sheet.getColumns().size());
+            }
+
+            log.info("流式读取工作簿元数据完成: {}, 工作表数: {}, 耗时: {}ms",
+                    file.getName(), sheets.size(), System.currentTimeMillis() - startTime);
+            return sheets;
+        } catch (OpenXML4JException | SAXException | ParserConfigurationException | ClassCastException e) {
+            throw new IOException("读取工作簿元数据失败: " + e.getMessage(), e);
+        } finally {
+            if (pkg != null) {
+                // 只读打开的包不需要保存，直接丢弃
+                pkg.revert();
+            }
+        }
+    }
+
+    /**
+     * 读取指定下标的共享字符串，读到最大下标后停止
+     */
+    private Map<Integer, String> readSharedStrings(XSSFReader reader, Set<Integer> indexes)
+            throws IOException, OpenXML4JException, SAXException, ParserConfigurationException {
+        Map<Integer, String> result = new HashMap<>();
+        if (indexes.isEmpty()) {
+            return result;
+        }
+
+        try (InputStream sstStream = reader.getSharedStringsData()) {
+            if (sstStream == null) {
+                return result;
+            }
+            parse(sstStream, new SharedStringsHandler(indexes, result));
+        }
+        return result;
+    }
+
+    private void parse(InputStream stream, DefaultHandler handler)
+            throws IOException, SAXException, ParserConfigurationException {
+        XMLReader xmlReader = XMLHelper.newXMLReader();
+        xmlReader.setContentHandler(handler);
+        try {
+            xmlReader.parse(new InputSource(stream));
+        } catch (StopParsingException ignored) {
+            // 已读取到所需内容，提前结束解析
+        }
+    }
+
+    /**
+     * 将单元格引用（如AB12）的列部分转换为从0开始的列索引
+     */
+    private static int columnIndex(String cellRef) {
+        int column = 0;
+        for (int i = 0; i < cellRef.length(); i++) {
+            char ch = cellRef.charAt(i);
+            if (ch < 'A' || ch > 'Z') {
+                break;
+            }
+            column = column * 26 + (ch - 'A' + 1);
+        }
+        return column - 1;
+    }
+
+    /**
+     * 将单元格引用（如AB12）的行部分转换为从1开始的行号
+     */
+    private static int rowNumber(String cellRef) {
+        int i = 0;
+        while (i < cellRef.length() && !Character.isDigit(cellRef.charAt(i))) {
+            i++;
+        }
+        return i < cellRef.length() ? Integer.parseInt(cellRef.substring(i)) : -1;
+    }
+
+    /**
+     * 用于提前结束SAX解析，只用于控制流程，不填充异常栈
+     */
+    private static class StopParsingException extends SAXException {
+        private static final long serialVersionUID = 1L;
+
+        StopParsingException() {
+            super("stop");
+        }
+
+        @Override
+        public synchronized Throwable fillInStackTrace() {
+            return this;
+        }
+    }
+
+    /**
+     * 表头单元格原始值
+     */
+    private static class HeaderCell {
+        private final String type;
+        private final String value;
+
+        HeaderCell(String type, String value) {
+            this.type = type;
+            this.value = value;
+        }
+    }
+
+    /**
+     * 工作表解析处理器，读取dimension和表头行
+     */
+    private static class SheetHeaderHandler extends DefaultHandler {
+        private final int headerRowIndex;
+        private final TreeMap<Integer, HeaderCell> headerCells = new TreeMap<>();
+
+        /**
+         * dimension中的最后一行（从1开始），-1表示没有可信的dimension
+         */
+        private int dimensionLastRow = -1;
+
+        /**
+         * 已解析到的行数
+         */
+        private int rowsSeen;
+
+        private int currentRow = -1;
+        private int currentColumn = -1;
+        private boolean inHeaderCell;
+        private boolean inValue;
+        private boolean inPhonetic;
+        private String cellType;
+        private final StringBuilder value = new StringBuilder();
+
+        SheetHeaderHandler(int headerRowIndex) {
+            this.headerRowIndex = headerRowIndex;
+        }
+
+        @Override
+        public void startElement(String uri, String localName, String qName, Attributes attributes) throws SAXException {
+            switch (localName) {
+                case "dimension":
+                    String ref = attributes.getValue("ref");
+                    // 单个单元格的dimension（如A1）通常是写入方未计算范围，不可信
+                    if (ref != null && ref.indexOf(':') > 0) {
+                        dimensionLastRow = rowNumber(ref.substring(ref.indexOf(':') + 1));
+                    }
+                    break;
+                case "row":
+                    String r = attributes.getValue("r");
+                    currentRow = r != null ? Integer.parseInt(r) - 1 : currentRow + 1;
+                    currentColumn = -1;
+                    rowsSeen = Math.max(rowsSeen, currentRow + 1);
+                    if (currentRow > headerRowIndex && dimensionLastRow > 0) {
+                        throw new StopParsingException();
+                    }
+                    break;
+                case "c":
+                    String cellRef = attributes.getValue("r");
+                    currentColumn = cellRef != null ? columnIndex(cellRef) : currentColumn + 1;
+                    inHeaderCell = currentRow == headerRowIndex;
+                    cellType = attributes.getValue("t");
+                    value.setLength(0);
+                    break;
+                case "v":
+                case "t":
+                    inValue = inHeaderCell && !inPhonetic;
+                    break;
+                case "rPh":
+                    inPhonetic = true;
+                    break;
+                default:
+                    break;
+            }
+        }
+
+        @Override
+        public void endElement(String uri, String localName, String qName) {
+            switch (localName) {
+                case "v":
+                case "t":
+                    inValue = false;
+                    break;
+                case "rPh":
+                    inPhonetic = false;
+                    break;
+                case "c":
+                    if (inHeaderCell) {
+                        headerCells.put(currentColumn, new HeaderCell(cellType, value.toString()));
+                        inHeaderCell = false;
+                    }
+                    break;
+                default:
+                    break;
+            }
+        }
+
+        @Override
+        public void characters(char[] ch, int start, int length) {
+            if (inValue) {
+                value.append(ch, start, length);
+            }
+        }
+
+        int getTotalRows() {
+            return Math.max(dimensionLastRow, rowsSeen);
+        }
+
+        void collectSharedStringIndexes(Set<Integer> indexes) {
+            for (HeaderCell cell : headerCells.values()) {
+                if ("s".equals(cell.type) && !cell.value.isEmpty()) {
+                    indexes.add(Integer.parseInt(cell.value.trim()));
+                }
+            }
+        }
+
+        List<ExcelColumn> buildColumns(Map<Integer, String> sharedStrings) {
+            List<ExcelColumn> columns = new ArrayList<>();
+            for (Map.Entry<Integer, HeaderCell> entry : headerCells.entrySet()) {
+                int index = entry.getKey();
+                String columnName = formatValue(entry.getValue(), sharedStrings);
+
+                // 如果列名为空，使用列索引作为列名
+                if (columnName == null || columnName.trim().isEmpty()) {
+                    columnName = "Column" + (index + 1);
+                }
+
+                columns.add(ExcelColumn.builder()
+                        .name(columnName)
+                        .index(index)
+                        .dataType(ExcelDataType.AUTO)
+                        .build());
+            }
+            return columns;
+        }
+
+        private String formatValue(HeaderCell cell, Map<Integer, String> sharedStrings) {
+            if (cell.value.isEmpty()) {
+                return null;
+            }
+            if (cell.type == null || "n".equals(cell.type)) {
+                try {
+                    double number = Double.parseDouble(cell.value);
+                    if (number == Math.rint(number) && Math.abs(number) < 1e15) {
+                        return String.valueOf((long) number);
+                    }
+                } catch (NumberFormatException ignored) {
+                    // 保留原始值
+                }
+                return cell.value;
+            }
+            switch (cell.type) {
+                case "s":
+                    return sharedStrings.get(Integer.parseInt(cell.value.trim()));
+                case "b":
+                    return "1".equals(cell.value) ? "TRUE" : "FALSE";
+                default:
+                    return cell.value;
+            }
+        }
+    }
+
+    /**
+     * 共享字符串解析处理器，只保留需要的下标
+     */
+    private static class SharedStringsHandler extends DefaultHandler {
+        private final Set<Integer> indexes;
+        private final Map<Integer, String> result;
+        private final int maxIndex;
+        private final StringBuilder value = new StringBuilder();
+        private int currentIndex = -1;
+        private boolean inText;
+        private boolean inPhonetic;
+
+        SharedStringsHandler(Set<Integer> indexes, Map<Integer, String> result) {
+            this.indexes = indexes;
+            this.result = result;
+            this.maxIndex = indexes.stream().mapToInt(Integer::intValue).max().orElse(-1);
+        }
+
+        @Override
+        public void startElement(String uri, String localName, String qName, Attributes attributes) {
+            switch (localName) {
+                case "si":
+                    currentIndex++;
+                    value.setLength(0);
+                    break;
+                case "t":
+                    inText = !inPhonetic && indexes.contains(currentIndex);
+                    break;
+                case "rPh":
+                    inPhonetic = true;
+                    break;
+                default:
+                    break;
+            }
+        }
+
+        @Override
+        public void endElement(String uri, String localName, String qName) throws SAXException {
+            switch (localName) {
+                case "t":
+                    inText = false;
+                    break;
+                case "rPh":
+                    inPhonetic = false;
+                    break;
+                case "si":
+                    if (indexes.contains(currentIndex)) {
+                        result.put(currentIndex, value.toString());
+                    }
+                    if (currentIndex >= maxIndex) {
+                        throw new StopParsingException();
+                    }
+                    break;
+                default:
+                    break;
+            }
+        }
+
+        @Override
+        public void characters(char[] ch, int start, int length) {
+            if (inText) {
+                value.append(ch, start, length);
+            }
+        }
+    }
+}
@@ -0,0 +1,129 @@
+package com.excel.sql.engine.service.write;
+
+import org.apache.poi.ss.usermodel.CellCopyPolicy;
+import org.apache.poi.ss.usermodel.Row;
+import org.apache.poi.ss.usermodel.Sheet;
+import org.apache.poi.ss.usermodel.Workbook;
+import org.apache.poi.xssf.usermodel.XSSFRow;
+
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * 一条修改语句的行撤销日志
+ * 语句在已有待写回修改的工作簿上执行时，修改或删除一行之前先把该行复制到临时工作表中，并记录新建的行和工作表；
+ * 语句失败时据此把工作簿恢复到语句执行前的状态，之前语句的修改保持不变。
+ * 在新打开的工作簿上执行时不记录，语句失败后直接丢弃整个工作簿。
+ */
+public class RowUndoLog {
+
+    private static final CellCopyPolicy COPY_POLICY = new CellCopyPolicy.Builder().mergedRegions(false).build();
+
+    private final Workbook workbook;
+    private final boolean enabled;
+
+    /**
+     * 修改前的行，key为工作表名称，value为行号到修改前该行是否存在的映射
+     */
+    private final Map<String, Map<Integer, Boolean>> rows = new LinkedHashMap<>();
+
+    /**
+     * 保存行副本的临时工作表，key为原工作表名称，行副本与原行的行号相同
+     */
+    private final Map<String, Sheet> copies = new HashMap<>();
+
+    /**
+     * 语句新建的工作表名称
+     */
+    private final Set<String> createdSheets = new LinkedHashSet<>();
+
+    /**
+     * @param workbook 语句修改的POI工作簿
+     * @param enabled 是否记录，工作簿中没有之前语句的修改时不需要记录
+     */
+    public RowUndoLog(Workbook workbook, boolean enabled) {
+        this.workbook = workbook;
+        this.enabled = enabled;
+    }
+
+    /**
+     * 在修改、删除或新建一行之前调用，保存该行修改前的状态；同一行只保存第一次调用时的状态
+     *
+     * @param sheet POI工作表
+     * @param rowNum Excel行号
+     */
+    public void saveRow(Sheet sheet, int rowNum) {
+        if (!enabled || createdSheets.contains(sheet.getSheetName())) {
+            return;
+        }
+        Map<Integer, Boolean> saved = rows.computeIfAbsent(sheet.getSheetName(), name -> new HashMap<>());
+        if (saved.containsKey(rowNum)) {
+            return;
+        }
+        Row row = sheet.getRow(rowNum);
+        if (row != null) {
+            Sheet copy = copies.computeIfAbsent(sheet.getSheetName(), name -> workbook.createSheet());
+            ((XSSFRow) copy.createRow(rowNum)).copyRowFrom(row, COPY_POLICY);
+        }
+        saved.put(rowNum, row != null);
+    }
+
+    /**
+     * 记录语句新建的工作表，撤销时整个删除
+     *
+     * @param sheet 新建的POI工作表
+     */
+    public void sheetCreated(Sheet sheet) {
+        if (enabled) {
+            createdSheets.add(sheet.getSheetName());
+        }
+    }
+
+    /**
+     * 把保存的行恢复到修改前的状态，删除新建的行和工作表，之后删除临时工作表
+     */
+    public void rollback() {
+        for (Map.Entry<String, Map<Integer, Boolean>> entry : rows.entrySet()) {
+            Sheet sheet = workbook.getSheet(entry.getKey());
+            if (sheet == null) {
+                continue;
+            }
+            Sheet copy = copies.get(entry.getKey());
+            for (Map.Entry<Integer, Boolean> saved : entry.getValue().entrySet()) {
+                Row current = sheet.getRow(saved.getKey());
+                if (current != null) {
+                    sheet.removeRow(current);
+                }
+                if (saved.getValue()) {
+                    ((XSSFRow) sheet.createRow(saved.getKey())).copyRowFrom(copy.getRow(saved.getKey()), COPY_POLICY);
+                }
+            }
+        }
+        for (String sheetName : createdSheets) {
+            removeSheet(sheetName);
+        }
+        commit();
+    }
+
+    /**
+     * 语句成功后删除临时工作表，临时工作表不能写回文件
+     */
+    public void commit() {
+        for (Sheet copy : copies.values()) {
+            removeSheet(copy.getSheetName());
+        }
+        copies.clear();
+        rows.clear();
+        createdSheets.clear();
+    }
+
+    private void removeSheet(String sheetName) {
+        int index = workbook.getSheetIndex(sheetName);
+        if (index >= 0) {
+            workbook.removeSheetAt(index);
+        }
+    }
+}
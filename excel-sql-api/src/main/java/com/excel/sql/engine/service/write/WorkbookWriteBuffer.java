@@ -0,0 +1,79 @@
+package com.excel.sql.engine.service.write;
+
+import com.excel.sql.engine.model.excel.ExcelSheet;
+import com.excel.sql.engine.model.excel.SheetChanges;
+import org.apache.poi.ss.usermodel.Workbook;
+
+import java.util.function.Function;
+
+/**
+ * 工作簿写缓冲接口
+ * INSERT、UPDATE、DELETE在工作簿文件的内存副本上修改，多条语句的修改合并后一次写回文件，
+ * 不再每条语句都重写整个文件。待写回的变更行数达到上限、最早的修改超过写回间隔、
+ * 查询读取该工作簿之前或执行COMMIT/FLUSH时写回，写回后更新缓存的工作表数据。
+ */
+public interface WorkbookWriteBuffer {
+
+    /**
+     * 在工作簿的内存副本上执行一次修改，没有待写回的修改时从文件打开；同一工作簿的修改和写回串行执行
+     * 修改失败时按行撤销日志撤销本次已应用的部分，之前已返回成功的修改继续等待写回；没有之前的修改时直接丢弃工作簿
+     *
+     * @param workbookPath 工作簿文件路径
+     * @param workbookName 工作簿名称，写回后清除该名称的查询缓存
+     * @param modification 修改
+     * @param <T> 修改的返回值类型
+     * @return 修改的返回值
+     * @throws Exception 打开工作簿或修改失败，后台写回丢弃了该工作簿之前的修改，或未启用写缓冲时写回失败
+     */
+    <T> T modify(String workbookPath, String workbookName, Modification<T> modification) throws Exception;
+
+    /**
+     * 获取包含待写回修改的工作表数据：在缓存的工作表数据上叠加该工作表待写回的行变更，不写回文件也不重新解析；
+     * 没有待写回的修改时就是缓存的数据。变更无法增量叠加时先写回该工作簿再读取
+     * 返回的工作表可能在多个查询之间共享，调用方不能修改其中的行
+     *
+     * @param sheet 工作表元数据
+     * @param workbookPath 工作簿文件路径
+     * @return 已加载数据的工作表，加载失败时返回null
+     * @throws IllegalStateException 需要写回但写回失败
+     */
+    ExcelSheet getCurrentSheet(ExcelSheet sheet, String workbookPath);
+
+    /**
+     * 写回工作簿的待写回修改
+     *
+     * @param workbookPath 工作簿文件路径
+     * @return 写回的变更行数，没有待写回的修改时返回0
+     * @throws IllegalStateException 写回失败，启用写缓冲时待写回的修改保留并稍后重试；文件在打开后被删除或外部改动，
+     *                               待写回的修改已丢弃；或之前的后台写回因此丢弃了该工作簿的修改
+     */
+    int flush(String workbookPath);
+
+    /**
+     * 写回所有工作簿的待写回修改
+     *
+     * @return 写回的变更行数
+     * @throws IllegalStateException 有工作簿写回失败，其余工作簿仍会写回
+     */
+    int flushAll();
+
+    /**
+     * 工作簿的一次修改
+     *
+     * @param <T> 返回值类型
+     */
+    @FunctionalInterface
+    interface Modification<T> {
+
+        /**
+         * 修改工作簿，修改单元格或删除行时记录到对应工作表的行变更中
+         *
+         * @param workbook 包含待写回修改的POI工作簿
+         * @param changes 按工作表名称获取写回前累计的行变更
+         * @param undo 行撤销日志，修改、删除或新建行以及新建工作表之前记录
+         * @return 返回值
+         * @throws Exception 修改失败
+         */
+        T apply(Workbook workbook, Function<String, SheetChanges> changes, RowUndoLog undo) throws Exception;
+    }
+}
@@ -0,0 +1,437 @@
+package com.excel.sql.engine.service.write.impl;
+
+import com.excel.sql.engine.config.ExcelConfig;
+import com.excel.sql.engine.model.excel.ExcelSheet;
+import com.excel.sql.engine.model.excel.SheetChanges;
+import com.excel.sql.engine.service.CacheService;
+import com.excel.sql.engine.service.cache.SheetDataCache;
+import com.excel.sql.engine.service.cache.WorkbookCatalog;
+import com.excel.sql.engine.service.write.RowUndoLog;
+import com.excel.sql.engine.service.write.WorkbookWriteBuffer;
+import lombok.extern.slf4j.Slf4j;
+import org.apache.poi.ss.usermodel.Workbook;
+import org.apache.poi.xssf.usermodel.XSSFWorkbook;
+import org.springframework.stereotype.Service;
+
+import javax.annotation.PreDestroy;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Function;
+
+/**
+ * 工作簿写缓冲实现类
+ * 每个工作簿文件最多一个打开的POI工作簿保存待写回的修改，同一文件的修改和写回按文件加锁串行执行；
+ * 后台线程写回超过写回间隔的修改。写回时先写入临时文件再替换原文件，读取方不会读到写了一半的文件，
+ * 之后按累计的行变更增量更新缓存的工作表数据，并清除工作簿元数据和查询缓存。
+ */
+@Slf4j
+@Service
+public class WorkbookWriteBufferImpl implements WorkbookWriteBuffer {
+
+    private final CacheService cacheService;
+    private final WorkbookCatalog workbookCatalog;
+    private final SheetDataCache sheetDataCache;
+    private final boolean bufferEnabled;
+    private final int maxPendingRows;
+    private final long flushIntervalMs;
+
+    /**
+     * 每个工作簿文件的锁，key为文件绝对路径；没有待写回的修改时移除
+     */
+    private final Map<String, Object> locks = new ConcurrentHashMap<>();
+
+    /**
+     * 后台写回时因文件被外部改动而丢弃的修改，key为文件绝对路径，value为错误信息；
+     * 在该工作簿的下一条语句或写回时报告给调用方
+     */
+    private final Map<String, String> failures = new ConcurrentHashMap<>();
+
+    /**
+     * 待写回的工作簿，key为文件绝对路径，只在对应文件的锁内修改
+     */
+    private final Map<String, PendingWorkbook> pending = new ConcurrentHashMap<>();
+
+    private final ScheduledExecutorService scheduler;
+
+    public WorkbookWriteBufferImpl(ExcelConfig excelConfig, CacheService cacheService,
+                                   WorkbookCatalog workbookCatalog, SheetDataCache sheetDataCache) {
+        this.cacheService = cacheService;
+        this.workbookCatalog = workbookCatalog;
+        this.sheetDataCache = sheetDataCache;
+        this.bufferEnabled = excelConfig.getWrite().isBufferEnabled();
+        this.maxPendingRows = Math.max(1, excelConfig.getWrite().getMaxPendingRows());
+        this.flushIntervalMs = excelConfig.getWrite().getFlushIntervalMs();
+        if (bufferEnabled && flushIntervalMs > 0) {
+            this.scheduler = Executors.newSingleThreadScheduledExecutor(runnable -> {
+                Thread thread = new Thread(runnable, "excel-sql-write-flush");
+                thread.setDaemon(true);
+                return thread;
+            });
+            long period = Math.max(10, flushIntervalMs / 2);
+            scheduler.scheduleWithFixedDelay(this::flushExpired, period, period, TimeUnit.MILLISECONDS);
+        } else {
+            this.scheduler = null;
+        }
+        log.info("工作簿写缓冲：{}，变更行数上限 {}，写回间隔 {} 毫秒",
+                bufferEnabled ? "启用" : "关闭", maxPendingRows, flushIntervalMs);
+    }
+
+    /**
+     * 一个工作簿文件的待写回修改
+     */
+    private static class PendingWorkbook {
+        private final String workbookPath;
+        private final Workbook workbook;
+        private final long fileSize;
+        private final long lastModified;
+        private final long openedAt = System.currentTimeMillis();
+        private final Map<String, SheetChanges> changes = new LinkedHashMap<>();
+        private final Set<String> workbookNames = new LinkedHashSet<>();
+
+        PendingWorkbook(String workbookPath, Workbook workbook, long fileSize, long lastModified) {
+            this.workbookPath = workbookPath;
+            this.workbook = workbook;
+            this.fileSize = fileSize;
+            this.lastModified = lastModified;
+        }
+
+        /**
+         * 工作表的行变更，以打开时的文件状态为修改前的状态
+         */
+        SheetChanges changes(String sheetName) {
+            return changes.computeIfAbsent(sheetName, name -> new SheetChanges(name, fileSize, lastModified));
+        }
+
+        int pendingRows() {
+            int rows = 0;
+            for (SheetChanges sheetChanges : changes.values()) {
+                rows += sheetChanges.size();
+            }
+            return rows;
+        }
+    }
+
+    @Override
+    public <T> T modify(String workbookPath, String workbookName, Modification<T> modification) throws Exception {
+        String key = new File(workbookPath).getAbsolutePath();
+        return locked(key, () -> {
+            reportFailure(key);
+            PendingWorkbook buffered = pending.get(key);
+            boolean opened = buffered == null;
+            if (opened) {
+                buffered = open(workbookPath);
+            }
+
+            // 工作簿中已有之前语句的修改时记录撤销日志和本次语句修改前的行变更，失败时只撤销本次语句
+            RowUndoLog undo = new RowUndoLog(buffered.workbook, !opened);
+            Map<String, SheetChanges> savedChanges = new HashMap<>();
+            PendingWorkbook target = buffered;
+            Function<String, SheetChanges> changes = opened ? buffered::changes : sheetName -> {
+                if (!savedChanges.containsKey(sheetName)) {
+                    SheetChanges current = target.changes.get(sheetName);
+                    savedChanges.put(sheetName, current != null ? current.copy() : null);
+                }
+                return target.changes(sheetName);
+            };
+
+            T result;
+            try {
+                result = modification.apply(buffered.workbook, changes, undo);
+                undo.commit();
+            } catch (Exception e) {
+                // 处理器可能已修改工作簿元数据中加载的行，使其失效后重新加载
+                workbookCatalog.invalidate(buffered.workbookPath);
+                if (opened) {
+                    close(buffered);
+                } else {
+                    rollback(key, buffered, undo, savedChanges, e);
+                }
+                throw e;
+            }
+
+            if (workbookName != null) {
+                buffered.workbookNames.add(workbookName);
+            }
+            if (opened) {
+                pending.put(key, buffered);
+            }
+            if (!bufferEnabled || buffered.pendingRows() >= maxPendingRows) {
+                try {
+                    flushLocked(key);
+                } catch (IllegalStateException e) {
+                    // 写回失败但修改仍在等待写回时，本次修改已经生效，稍后重试写回
+                    if (!pending.containsKey(key)) {
+                        throw e;
+                    }
+                    log.warn("达到变更行数上限后写回失败，稍后重试: {}", e.getMessage());
+                }
+            }
+            return result;
+        });
+    }
+
+    /**
+     * 撤销失败语句已应用的部分，之前已返回成功的修改继续等待写回；无法撤销时工作簿状态未知，丢弃所有待写回的修改
+     */
+    private void rollback(String key, PendingWorkbook buffered, RowUndoLog undo,
+                          Map<String, SheetChanges> savedChanges, Exception failure) {
+        try {
+            undo.rollback();
+            for (Map.Entry<String, SheetChanges> entry : savedChanges.entrySet()) {
+                if (entry.getValue() != null) {
+                    buffered.changes.put(entry.getKey(), entry.getValue());
+                } else {
+                    buffered.changes.remove(entry.getKey());
+                }
+            }
+        } catch (RuntimeException e) {
+            log.error("撤销失败的修改异常，丢弃 {} 行未写回的修改: {}", buffered.pendingRows(), buffered.workbookPath, e);
+            discard(key, buffered);
+            failure.addSuppressed(e);
+        }
+    }
+
+    @Override
+    public ExcelSheet getCurrentSheet(ExcelSheet sheet, String workbookPath) {
+        String key = new File(workbookPath).getAbsolutePath();
+        return locked(key, () -> {
+            reportFailure(key);
+            PendingWorkbook buffered = pending.get(key);
+            SheetChanges changes = buffered != null ? buffered.changes.get(sheet.getName()) : null;
+            ExcelSheet loaded = sheetDataCache.getLoadedSheet(sheet, workbookPath);
+            if (changes == null || changes.isEmpty()) {
+                return loaded;
+            }
+            // 缓存的数据与待写回修改都基于打开时的文件状态才能叠加
+            File file = new File(key);
+            if (loaded != null && file.length() == buffered.fileSize && file.lastModified() == buffered.lastModified) {
+                ExcelSheet current = loaded.applyChanges(changes);
+                if (current != null) {
+                    return current;
+                }
+            }
+            flushLocked(key);
+            return sheetDataCache.getLoadedSheet(sheet, workbookPath);
+        });
+    }
+
+    @Override
+    public int flush(String workbookPath) {
+        String key = new File(workbookPath).getAbsolutePath();
+        if (!pending.containsKey(key) && !failures.containsKey(key)) {
+            return 0;
+        }
+        return locked(key, () -> {
+            reportFailure(key);
+            return flushLocked(key);
+        });
+    }
+
+    @Override
+    public int flushAll() {
+        int rows = 0;
+        IllegalStateException failure = null;
+        Set<String> keys = new LinkedHashSet<>(pending.keySet());
+        keys.addAll(failures.keySet());
+        for (String key : keys) {
+            try {
+                rows += flush(key);
+            } catch (IllegalStateException e) {
+                failure = e;
+            }
+        }
+        if (failure != null) {
+            throw failure;
+        }
+        return rows;
+    }
+
+    /**
+     * 后台写回超过写回间隔的修改
+     */
+    private void flushExpired() {
+        long expireBefore = System.currentTimeMillis() - flushIntervalMs;
+        for (Map.Entry<String, PendingWorkbook> entry : new ArrayList<>(pending.entrySet())) {
+            if (entry.getValue().openedAt <= expireBefore) {
+                try {
+                    flush(entry.getKey());
+                } catch (Exception e) {
+                    log.error("后台写回工作簿失败: {}", e.getMessage(), e);
+                    // 修改已被丢弃时没有调用方能收到异常，留到该工作簿的下一条语句或写回时报告
+                    if (!pending.containsKey(entry.getKey())) {
+                        failures.put(entry.getKey(), e.getMessage());
+                    }
+                }
+            }
+        }
+    }
+
+    /**
+     * 在文件的锁内执行，之后没有待写回的修改时移除该文件的锁；
+     * 拿到锁后发现锁已被移除时重新获取，同一文件始终只有一个有效的锁
+     */
+    private <T, E extends Exception> T locked(String key, LockedAction<T, E> action) throws E {
+        while (true) {
+            Object lock = locks.computeIfAbsent(key, k -> new Object());
+            synchronized (lock) {
+                if (locks.get(key) != lock) {
+                    continue;
+                }
+                try {
+                    return action.run();
+                } finally {
+                    if (!pending.containsKey(key)) {
+                        locks.remove(key, lock);
+                    }
+                }
+            }
+        }
+    }
+
+    @FunctionalInterface
+    private interface LockedAction<T, E extends Exception> {
+        T run() throws E;
+    }
+
+    /**
+     * 报告后台写回时丢弃修改的错误，只报告一次
+     */
+    private void reportFailure(String key) {
+        String failure = failures.remove(key);
+        if (failure != null) {
+            throw new IllegalStateException(failure);
+        }
+    }
+
+    /**
+     * 从文件打开工作簿，记录打开时的文件状态
+     */
+    private PendingWorkbook open(String workbookPath) throws IOException {
+        File file = new File(workbookPath);
+        if (!file.exists()) {
+            throw new IllegalStateException("工作簿文件不存在: " + workbookPath);
+        }
+        long fileSize = file.length();
+        long lastModified = file.lastModified();
+        try (FileInputStream fis = new FileInputStream(file)) {
+            return new PendingWorkbook(workbookPath, new XSSFWorkbook(fis), fileSize, lastModified);
+        }
+    }
+
+    /**
+     * 在文件的锁内写回并关闭工作簿，之后更新缓存；失败时抛出IllegalStateException
+     * 文件在打开后被删除或被外部改动时写回会覆盖外部的改动，丢弃待写回的修改并使缓存失效；
+     * 写入失败时启用了写缓冲则保留待写回的修改，由后台或下一次写回重试，否则丢弃
+     *
+     * @return 写回的变更行数
+     */
+    private int flushLocked(String key) {
+        PendingWorkbook buffered = pending.get(key);
+        if (buffered == null) {
+            return 0;
+        }
+        File file = new File(key);
+        int rows = buffered.pendingRows();
+        if (!file.exists() || file.length() != buffered.fileSize || file.lastModified() != buffered.lastModified) {
+            log.error("工作簿文件在修改期间被删除或改动，丢弃 {} 行未写回的修改: {}", rows, buffered.workbookPath);
+            discard(key, buffered);
+            throw new IllegalStateException("工作簿文件在修改期间被删除或改动，丢弃未写回的修改: "
+                    + buffered.workbookPath);
+        }
+
+        long startTime = System.currentTimeMillis();
+        try {
+            write(buffered.workbook, file);
+        } catch (IOException e) {
+            if (bufferEnabled) {
+                log.error("写回工作簿失败，保留 {} 行待写回的修改稍后重试: {}", rows, buffered.workbookPath, e);
+            } else {
+                log.error("写回工作簿失败，丢弃 {} 行未写回的修改: {}", rows, buffered.workbookPath, e);
+                discard(key, buffered);
+            }
+            throw new IllegalStateException("写回工作簿失败: " + e.getMessage(), e);
+        }
+        log.info("成功将 {} 行修改写入文件: {}，耗时 {} 毫秒", rows, file.getAbsolutePath(),
+                System.currentTimeMillis() - startTime);
+        pending.remove(key);
+        clearCaches(buffered, true);
+        close(buffered);
+        return rows;
+    }
+
+    /**
+     * 丢弃待写回的修改并使缓存失效
+     */
+    private void discard(String key, PendingWorkbook buffered) {
+        pending.remove(key);
+        clearCaches(buffered, false);
+        close(buffered);
+    }
+
+    /**
+     * 先写入临时文件再替换原文件
+     */
+    private void write(Workbook workbook, File file) throws IOException {
+        File tempFile = new File(file.getPath() + ".tmp");
+        try {
+            try (FileOutputStream fos = new FileOutputStream(tempFile)) {
+                workbook.write(fos);
+            }
+            Files.move(tempFile.toPath(), file.toPath(), StandardCopyOption.REPLACE_EXISTING,
+                    StandardCopyOption.ATOMIC_MOVE);
+        } catch (IOException e) {
+            Files.deleteIfExists(tempFile.toPath());
+            throw e;
+        }
+    }
+
+    /**
+     * 清除工作簿元数据和查询缓存；写回成功时增量更新缓存的工作表数据，否则使其失效
+     */
+    private void clearCaches(PendingWorkbook buffered, boolean written) {
+        cacheService.clearFilePathCache(buffered.workbookPath);
+        workbookCatalog.invalidate(buffered.workbookPath);
+        if (written && !buffered.changes.isEmpty()) {
+            sheetDataCache.applyChanges(buffered.workbookPath, buffered.changes.values());
+        } else {
+            sheetDataCache.invalidate(buffered.workbookPath);
+        }
+        for (String workbookName : buffered.workbookNames) {
+            cacheService.clearWorkbookCache(workbookName);
+        }
+    }
+
+    private void close(PendingWorkbook buffered) {
+        try {
+            buffered.workbook.close();
+        } catch (IOException e) {
+            log.warn("关闭工作簿异常: {}", e.getMessage());
+        }
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        if (scheduler != null) {
+            scheduler.shutdownNow();
+        }
+        try {
+            flushAll();
+        } catch (IllegalStateException e) {
+            log.error("关闭时写回工作簿失败: {}", e.getMessage());
+        }
+    }
+}
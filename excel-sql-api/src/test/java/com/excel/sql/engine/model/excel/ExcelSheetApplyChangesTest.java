@@ -0,0 +1,359 @@
+package com.excel.sql.engine.model.excel;
+
+import com.excel.sql.engine.model.excel.columnar.ColumnarTable;
+import com.excel.sql.engine.model.excel.index.BlockBloomFilter;
+import com.excel.sql.engine.model.excel.index.HashIndex;
+import com.excel.sql.engine.model.excel.index.NgramIndex;
+import com.excel.sql.engine.model.excel.index.SortedIndex;
+import com.excel.sql.engine.model.excel.index.ZoneMap;
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Date;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.TreeMap;
+import java.util.function.BiConsumer;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+
+/**
+ * 增量应用行变更的测试：多批插入、更新、删除之后，增量维护的数据和索引与由相同数据重新构建的结果一致
+ */
+class ExcelSheetApplyChangesTest {
+
+    private static final List<String> COLUMNS = Arrays.asList("id", "name", "amount", "tag", "created");
+    private static final String[] TAGS = {"red", "green", "blue"};
+    private static final long DAY = 24L * 60 * 60 * 1000;
+    private static final int BLOCK_ROWS = 8;
+    private static final int BITS_PER_KEY = 10;
+    private static final int BATCHES = 40;
+
+    @Test
+    void columnarDataMatchesReload() {
+        runBatches((expected, actual) -> {
+            ColumnarTable expectedTable = expected.getColumnarTable();
+            ColumnarTable actualTable = actual.getColumnarTable();
+            assertEquals(expectedTable.size(), actualTable.size());
+            assertEquals(expectedTable.size(), actual.getRows().size());
+            for (int position = 0; position < expectedTable.size(); position++) {
+                assertEquals(expectedTable.getRowNum(position), actualTable.getRowNum(position));
+                assertEquals(expectedTable.getRowNum(position), actual.getRows().get(position).getRowNum());
+                assertEquals(position, actual.getRowPosition(expectedTable.getRowNum(position)));
+                for (int ordinal = 0; ordinal < COLUMNS.size(); ordinal++) {
+                    assertEquals(expectedTable.get(ordinal, position), actualTable.get(ordinal, position));
+                }
+            }
+        });
+    }
+
+    @Test
+    void hashIndexApplyMatchesBuild() {
+        runBatches((expected, actual) -> {
+            for (String key : Arrays.asList("id", "name", "tag,id")) {
+                HashIndex expectedIndex = expected.getSecondaryIndexes().get(key);
+                HashIndex actualIndex = actual.getSecondaryIndexes().get(key);
+                assertNotNull(actualIndex, key);
+                assertEquals(expectedIndex.getKeyCount(), actualIndex.getKeyCount(), key);
+                ColumnarTable table = expected.getColumnarTable();
+                for (int position = 0; position < table.size(); position++) {
+                    Object indexKey = indexKey(table, expectedIndex.getColumnNames(), position);
+                    if (indexKey != null) {
+                        assertNotNull(actualIndex.positions(indexKey), key);
+                    }
+                    assertArrayEquals(expectedIndex.positions(indexKey), actualIndex.positions(indexKey), key);
+                }
+            }
+        });
+    }
+
+    @Test
+    void sortedIndexApplyMatchesBuild() {
+        runBatches((expected, actual) -> {
+            for (String column : Arrays.asList("id", "name", "amount", "created")) {
+                SortedIndex expectedIndex = expected.getSortedIndexes().get(column);
+                SortedIndex actualIndex = actual.getSortedIndexes().get(column);
+                assertNotNull(actualIndex, column);
+                assertEquals(expectedIndex.size(), actualIndex.size(), column);
+                assertEquals(sortedPositions(expectedIndex, false), sortedPositions(actualIndex, false), column);
+                assertEquals(sortedPositions(expectedIndex, true), sortedPositions(actualIndex, true), column);
+            }
+        });
+    }
+
+    @Test
+    void ngramIndexApplyMatchesBuild() {
+        runBatches((expected, actual) -> {
+            NgramIndex expectedIndex = expected.getNgramIndexes().get("name");
+            NgramIndex actualIndex = actual.getNgramIndexes().get("name");
+            assertNotNull(actualIndex);
+            assertEquals(expectedIndex.getGramCount(), actualIndex.getGramCount());
+            ColumnarTable table = expected.getColumnarTable();
+            int ordinal = table.ordinal("name");
+            for (int position = 0; position < table.size(); position++) {
+                Object value = table.get(ordinal, position);
+                if (value != null) {
+                    List<String> fragments = Collections.singletonList(((String) value).substring(1));
+                    assertArrayEquals(expectedIndex.candidates(fragments), actualIndex.candidates(fragments));
+                }
+            }
+        });
+    }
+
+    @Test
+    void bloomFilterApplyMatchesBuild() {
+        runBatches((expected, actual) -> {
+            for (String column : Arrays.asList("id", "name")) {
+                BlockBloomFilter expectedFilter = expected.getBloomFilters().get(column);
+                BlockBloomFilter actualFilter = actual.getBloomFilters().get(column);
+                assertNotNull(expectedFilter, column);
+                assertNotNull(actualFilter, column);
+                assertArrayEquals(serialize(expectedFilter), serialize(actualFilter), column);
+            }
+        });
+    }
+
+    @Test
+    void zoneMapApplyMatchesBuild() {
+        runBatches((expected, actual) -> {
+            ZoneMap expectedZones = expected.getZoneMap();
+            ZoneMap actualZones = actual.getZoneMap();
+            assertEquals(expectedZones.getBlockCount(), actualZones.getBlockCount());
+            assertEquals(expectedZones.getRowCount(), actualZones.getRowCount());
+            ColumnarTable table = expected.getColumnarTable();
+            for (int ordinal = 0; ordinal < COLUMNS.size(); ordinal++) {
+                assertEquals(expectedZones.isNumeric(ordinal), actualZones.isNumeric(ordinal));
+                assertEquals(expectedZones.isDate(ordinal), actualZones.isDate(ordinal));
+                assertEquals(expectedZones.isText(ordinal), actualZones.isText(ordinal));
+                for (int block = 0; block < expectedZones.getBlockCount(); block++) {
+                    assertEquals(expectedZones.nullCount(ordinal, block), actualZones.nullCount(ordinal, block));
+                    if (expectedZones.nullCount(ordinal, block) == expectedZones.blockSize(block)) {
+                        continue;
+                    }
+                    // 用列中的每个值作为边界比较区块的最小值和最大值
+                    for (int position = 0; position < table.size(); position++) {
+                        Object bound = zoneBound(table.get(ordinal, position));
+                        if (bound != null) {
+                            assertEquals(Integer.signum(expectedZones.compareMin(ordinal, block, bound)),
+                                    Integer.signum(actualZones.compareMin(ordinal, block, bound)));
+                            assertEquals(Integer.signum(expectedZones.compareMax(ordinal, block, bound)),
+                                    Integer.signum(actualZones.compareMax(ordinal, block, bound)));
+                        }
+                    }
+                }
+            }
+        });
+    }
+
+    @Test
+    void applyChangesLeavesOriginalSheetUnchanged() {
+        Random random = new Random(7);
+        TreeMap<Integer, Object[]> data = initialData(random);
+        ExcelSheet sheet = loadedSheet(data);
+        List<Object> before = snapshot(sheet.getColumnarTable());
+        HashIndex idIndex = sheet.getSecondaryIndexes().get("id");
+
+        SheetChanges changes = new SheetChanges("data", 0, 0);
+        randomBatch(random, data, changes);
+        assertNotNull(sheet.applyChanges(changes));
+
+        assertEquals(before, snapshot(sheet.getColumnarTable()));
+        assertEquals(before.size() / (COLUMNS.size() + 1), sheet.getRows().size());
+        assertSame(idIndex, sheet.getSecondaryIndexes().get("id"));
+    }
+
+    @Test
+    void returnsNullWhenDeletedRowIsWrittenAgain() {
+        ExcelSheet sheet = loadedSheet(initialData(new Random(1)));
+        SheetChanges changes = new SheetChanges("data", 0, 0);
+        changes.delete(3);
+        changes.write(3, "name", "again");
+        assertNull(sheet.applyChanges(changes));
+    }
+
+    @Test
+    void returnsNullWhenInsertedRowIsNotAtEnd() {
+        TreeMap<Integer, Object[]> data = initialData(new Random(2));
+        data.remove(5);
+        ExcelSheet sheet = loadedSheet(data);
+        SheetChanges changes = new SheetChanges("data", 0, 0);
+        changes.write(5, "name", "middle");
+        assertNull(sheet.applyChanges(changes));
+    }
+
+    /**
+     * 在同一份数据上依次应用多批随机变更，每批之后与由相同数据重新构建的工作表比较
+     */
+    private void runBatches(BiConsumer<ExcelSheet, ExcelSheet> comparison) {
+        Random random = new Random(20240601);
+        TreeMap<Integer, Object[]> data = initialData(random);
+        ExcelSheet sheet = loadedSheet(data);
+        for (int batch = 0; batch < BATCHES; batch++) {
+            SheetChanges changes = new SheetChanges("data", 0, 0);
+            randomBatch(random, data, changes);
+            ExcelSheet updated = sheet.applyChanges(changes);
+            assertNotNull(updated, "batch " + batch);
+            comparison.accept(loadedSheet(data), updated);
+            sheet = updated;
+        }
+    }
+
+    private static TreeMap<Integer, Object[]> initialData(Random random) {
+        TreeMap<Integer, Object[]> data = new TreeMap<>();
+        for (int rowNum = 1; rowNum <= 60; rowNum++) {
+            data.put(rowNum, randomRow(random));
+        }
+        return data;
+    }
+
+    /**
+     * 生成一批变更：删除几行、更新几行的部分列、在末尾插入几行，同时应用到期望的数据上
+     */
+    private static void randomBatch(Random random, TreeMap<Integer, Object[]> data, SheetChanges changes) {
+        // 插入的行号大于修改前的所有行号，不会与删除的行重复
+        int lastRowNum = data.isEmpty() ? 0 : data.lastKey();
+        List<Integer> rowNums = new ArrayList<>(data.keySet());
+        Collections.shuffle(rowNums, random);
+        int deletes = Math.min(rowNums.size(), random.nextInt(4));
+        for (int rowNum : rowNums.subList(0, deletes)) {
+            data.remove(rowNum);
+            changes.delete(rowNum);
+        }
+
+        int updates = Math.min(rowNums.size() - deletes, random.nextInt(7));
+        for (int rowNum : rowNums.subList(deletes, deletes + updates)) {
+            Object[] values = data.get(rowNum);
+            Object[] replacement = randomRow(random);
+            int columns = 1 + random.nextInt(3);
+            for (int i = 0; i < columns; i++) {
+                int ordinal = random.nextInt(COLUMNS.size());
+                values[ordinal] = replacement[ordinal];
+                changes.write(rowNum, COLUMNS.get(ordinal), replacement[ordinal]);
+            }
+        }
+
+        int inserts = random.nextInt(6);
+        for (int i = 0; i < inserts; i++) {
+            // 插入的行号可以不连续
+            int rowNum = lastRowNum + 1 + random.nextInt(2);
+            Object[] values = randomRow(random);
+            data.put(rowNum, values);
+            for (int ordinal = 0; ordinal < COLUMNS.size(); ordinal++) {
+                changes.write(rowNum, COLUMNS.get(ordinal), values[ordinal]);
+            }
+            lastRowNum = rowNum;
+        }
+    }
+
+    private static Object[] randomRow(Random random) {
+        return new Object[] {
+                (long) random.nextInt(100000),
+                "name-" + random.nextInt(5000),
+                random.nextInt(10) == 0 ? null : random.nextInt(100000) / 100.0,
+                random.nextInt(8) == 0 ? null : TAGS[random.nextInt(TAGS.length)],
+                new Date(1_700_000_000_000L + random.nextInt(365) * DAY)
+        };
+    }
+
+    /**
+     * 由数据构建已加载的工作表，创建与测试相关的全部索引
+     */
+    private static ExcelSheet loadedSheet(TreeMap<Integer, Object[]> data) {
+        List<ExcelColumn> columns = new ArrayList<>();
+        for (int i = 0; i < COLUMNS.size(); i++) {
+            columns.add(ExcelColumn.builder().name(COLUMNS.get(i)).index(i).columnIndex(i).build());
+        }
+        ExcelSheet sheet = ExcelSheet.builder().name("data").columns(columns).build();
+
+        ColumnarTable table = new ColumnarTable(COLUMNS);
+        for (Map.Entry<Integer, Object[]> entry : data.entrySet()) {
+            int position = table.appendRow(entry.getKey());
+            for (int ordinal = 0; ordinal < COLUMNS.size(); ordinal++) {
+                table.set(ordinal, position, entry.getValue()[ordinal]);
+            }
+        }
+        table.trim();
+        List<ExcelRow> rows = new ArrayList<>(table.size());
+        for (int position = 0; position < table.size(); position++) {
+            rows.add(new ExcelRow(table, position, sheet));
+        }
+        sheet.setColumnarTable(table);
+        sheet.setRows(rows);
+        sheet.setZoneMap(ZoneMap.build(table, BLOCK_ROWS));
+        sheet.setDataLoaded(true);
+
+        sheet.putSecondaryIndex(HashIndex.build(table, table.ordinal("id")));
+        sheet.putSecondaryIndex(HashIndex.build(table, table.ordinal("name")));
+        sheet.putSecondaryIndex(HashIndex.build(table, new int[] {table.ordinal("tag"), table.ordinal("id")}));
+        for (String column : Arrays.asList("id", "name", "amount", "created")) {
+            sheet.putSortedIndex(SortedIndex.build(table, table.ordinal(column)));
+        }
+        sheet.putNgramIndex(NgramIndex.build(table, table.ordinal("name")));
+        for (String column : Arrays.asList("id", "name")) {
+            sheet.putBloomFilter(BlockBloomFilter.build(table, table.ordinal(column), BLOCK_ROWS, BITS_PER_KEY));
+        }
+        return sheet;
+    }
+
+    private static Object indexKey(ColumnarTable table, List<String> columns, int position) {
+        if (columns.size() == 1) {
+            return HashIndex.key(table.get(table.ordinal(columns.get(0)), position));
+        }
+        List<Object> key = new ArrayList<>();
+        for (String column : columns) {
+            Object value = table.get(table.ordinal(column), position);
+            if (value == null) {
+                return null;
+            }
+            key.add(HashIndex.key(value));
+        }
+        return key;
+    }
+
+    private static List<Integer> sortedPositions(SortedIndex index, boolean descending) {
+        List<Integer> positions = new ArrayList<>();
+        index.forEachPosition(0, index.size(), descending, true, positions::add);
+        return positions;
+    }
+
+    private static Object zoneBound(Object value) {
+        if (value instanceof Date) {
+            return (double) ((Date) value).getTime();
+        }
+        if (value instanceof Number) {
+            return ((Number) value).doubleValue();
+        }
+        return value;
+    }
+
+    private static byte[] serialize(BlockBloomFilter filter) {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        try (DataOutputStream out = new DataOutputStream(bytes)) {
+            filter.write(out);
+        } catch (IOException e) {
+            throw new IllegalStateException(e);
+        }
+        return bytes.toByteArray();
+    }
+
+    private static List<Object> snapshot(ColumnarTable table) {
+        List<Object> values = new ArrayList<>();
+        for (int position = 0; position < table.size(); position++) {
+            values.add(table.getRowNum(position));
+            for (int ordinal = 0; ordinal < COLUMNS.size(); ordinal++) {
+                values.add(table.get(ordinal, position));
+            }
+        }
+        return values;
+    }
+}
@@ -0,0 +1,155 @@
+package com.excel.sql.engine.service.executor.sort;
+
+import com.excel.sql.engine.model.excel.ExcelColumn;
+import com.excel.sql.engine.model.excel.ExcelRow;
+import com.excel.sql.engine.model.excel.ExcelSheet;
+import com.excel.sql.engine.model.excel.columnar.ColumnarTable;
+import com.excel.sql.engine.service.parser.ParsedSql;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Date;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Random;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * 外部归并排序的测试：溢写多个有序段后归并的顺序与内存中的稳定排序一致，关闭后删除临时文件
+ */
+class ExternalSorterTest {
+
+    private static final List<String> COLUMNS = Arrays.asList("id", "category", "amount", "created", "flag");
+
+    @TempDir
+    Path tempDir;
+
+    @Test
+    void spilledRunsMergeInStableSortOrder() throws IOException {
+        ExcelSheet sheet = sheet();
+        List<ExcelRow> rows = rows(sheet, 1000);
+        RowComparator comparator = comparator(sheet, "category", false, "amount", true);
+
+        List<ExcelRow> expected = new ArrayList<>(rows);
+        expected.sort(comparator);
+
+        try (ExternalSorter sorter = new ExternalSorter(comparator, sheet, 64, tempDir)) {
+            for (ExcelRow row : rows) {
+                sorter.add(row);
+            }
+            assertEquals(1000 / 64, sorter.getRunCount());
+
+            assertSameRows(expected, sorter.sortedIterator());
+            // 最后不满一个缓存的行也溢写为有序段参与归并
+            assertEquals(1000 / 64 + 1, sorter.getRunCount());
+            assertEquals(sorter.getRunCount(), fileCount());
+        }
+        assertEquals(0, fileCount());
+    }
+
+    @Test
+    void sortsInMemoryWithoutSpilling() throws IOException {
+        ExcelSheet sheet = sheet();
+        List<ExcelRow> rows = rows(sheet, 200);
+        RowComparator comparator = comparator(sheet, "created", true, "id", false);
+
+        List<ExcelRow> expected = new ArrayList<>(rows);
+        expected.sort(comparator);
+
+        try (ExternalSorter sorter = new ExternalSorter(comparator, sheet, 1000, tempDir)) {
+            for (ExcelRow row : rows) {
+                sorter.add(row);
+            }
+            assertSameRows(expected, sorter.sortedIterator());
+            assertEquals(0, sorter.getRunCount());
+        }
+        assertEquals(0, fileCount());
+    }
+
+    @Test
+    void closeDeletesRunsWhenMergeIsAbandoned() throws IOException {
+        ExcelSheet sheet = sheet();
+        try (ExternalSorter sorter = new ExternalSorter(comparator(sheet, "id", false), sheet, 10, tempDir)) {
+            for (ExcelRow row : rows(sheet, 95)) {
+                sorter.add(row);
+            }
+            Iterator<ExcelRow> sorted = sorter.sortedIterator();
+            // 只读取一部分，模拟取够 LIMIT 行后停止归并
+            for (int i = 0; i < 5; i++) {
+                sorted.next();
+            }
+            assertTrue(fileCount() > 0);
+        }
+        assertEquals(0, fileCount());
+    }
+
+    private static ExcelSheet sheet() {
+        List<ExcelColumn> columns = new ArrayList<>();
+        for (int i = 0; i < COLUMNS.size(); i++) {
+            columns.add(ExcelColumn.builder().name(COLUMNS.get(i)).index(i).columnIndex(i).build());
+        }
+        return ExcelSheet.builder().name("data").columns(columns).build();
+    }
+
+    /**
+     * 生成列式存储的行，排序列有大量重复值和空值，用于检查稳定性和空值的顺序
+     */
+    private static List<ExcelRow> rows(ExcelSheet sheet, int count) {
+        Random random = new Random(count);
+        ColumnarTable table = new ColumnarTable(COLUMNS);
+        for (int i = 0; i < count; i++) {
+            int position = table.appendRow(i + 1);
+            table.set(0, position, (long) i);
+            table.set(1, position, random.nextInt(10) == 0 ? null : "category-" + random.nextInt(5));
+            table.set(2, position, random.nextInt(10) == 0 ? null : random.nextInt(20) / 4.0);
+            table.set(3, position, new Date(1_700_000_000_000L + random.nextInt(30) * 86_400_000L));
+            table.set(4, position, random.nextBoolean());
+        }
+        table.trim();
+        List<ExcelRow> rows = new ArrayList<>(count);
+        for (int position = 0; position < table.size(); position++) {
+            rows.add(new ExcelRow(table, position, sheet));
+        }
+        return rows;
+    }
+
+    private static RowComparator comparator(ExcelSheet sheet, Object... columns) {
+        List<ParsedSql.OrderByClause> clauses = new ArrayList<>();
+        for (int i = 0; i < columns.length; i += 2) {
+            clauses.add(new ParsedSql.OrderByClause((String) columns[i], (Boolean) columns[i + 1]));
+        }
+        return new RowComparator(clauses, Collections.emptyMap(), sheet.getColumnNames());
+    }
+
+    /**
+     * 比较行号和全部列的值，溢写后读回的值类型与原值相同
+     */
+    private static void assertSameRows(List<ExcelRow> expected, Iterator<ExcelRow> actual) {
+        for (ExcelRow row : expected) {
+            assertTrue(actual.hasNext());
+            ExcelRow next = actual.next();
+            assertEquals(row.getRowNum(), next.getRowNum());
+            for (int ordinal = 0; ordinal < COLUMNS.size(); ordinal++) {
+                assertEquals(row.getCellValue(ordinal, COLUMNS.get(ordinal)),
+                        next.getCellValue(ordinal, COLUMNS.get(ordinal)), COLUMNS.get(ordinal));
+            }
+        }
+        assertFalse(actual.hasNext());
+    }
+
+    private long fileCount() throws IOException {
+        try (Stream<Path> files = Files.list(tempDir)) {
+            return files.count();
+        }
+    }
+}
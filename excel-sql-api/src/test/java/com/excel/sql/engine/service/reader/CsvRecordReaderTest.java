@@ -0,0 +1,203 @@
+package com.excel.sql.engine.service.reader;
+
+import com.excel.sql.engine.config.ExcelConfig;
+import com.excel.sql.engine.exception.QueryCancelledException;
+import com.excel.sql.engine.service.executor.cancel.CancellationToken;
+import com.excel.sql.engine.service.executor.parallel.impl.PartitionedExecutorImpl;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * CSV记录读取器的测试：多个块按文件顺序返回记录，跨行字段退回顺序解析，读取时响应查询取消。
+ * 每个用例分别在读取线程和分区并行执行器中解析块。
+ */
+class CsvRecordReaderTest {
+
+    private static final int CHUNK_SIZE = 64 * 1024;
+    private static final String HEADER = "id,text,amount\n";
+
+    @TempDir
+    Path tempDir;
+
+    private PartitionedExecutorImpl executor;
+
+    @AfterEach
+    void reset() {
+        CsvRecordReader.useExecutor(null);
+        CsvRecordReader.configure(8 * 1024 * 1024, 0);
+        if (executor != null) {
+            executor.shutdown();
+        }
+    }
+
+    @Test
+    void readsRecordsAcrossManyChunksInOrder() throws IOException {
+        StringBuilder content = new StringBuilder(HEADER);
+        List<String[]> expected = new ArrayList<>();
+        for (int i = 0; i < 30000; i++) {
+            String[] record = {String.valueOf(i), "text " + i, String.valueOf(i * 0.5)};
+            // 部分字段带引号和逗号，部分行以CRLF结尾
+            if (i % 7 == 0) {
+                record[1] = "a, \"quoted\" " + i;
+                content.append(i).append(",\"a, \"\"quoted\"\" ").append(i).append("\",").append(record[2]);
+            } else {
+                content.append(String.join(",", record));
+            }
+            content.append(i % 3 == 0 ? "\r\n" : "\n");
+            expected.add(record);
+        }
+        File file = write(content.toString());
+
+        for (boolean parallel : new boolean[] {false, true}) {
+            useChunks(parallel);
+            assertRecords(expected, readAll(file, 1));
+        }
+    }
+
+    @Test
+    void quotedNewlineAcrossChunkBoundaryFallsBackToSequential() throws IOException {
+        StringBuilder content = new StringBuilder(HEADER);
+        List<String[]> expected = new ArrayList<>();
+        // 块从表头之后开始，第一个块在 CHUNK_SIZE 字节之后的第一个换行符处结束
+        int boundary = HEADER.length() + CHUNK_SIZE;
+        boolean spanned = false;
+        for (int i = 0; i < 20000; i++) {
+            if (!spanned && content.length() > boundary - 100) {
+                String prefix = i + ",\"start";
+                char[] padding = new char[Math.max(0, boundary + 5 - content.length() - prefix.length())];
+                Arrays.fill(padding, 'x');
+                String text = "start" + new String(padding) + "\nend";
+                content.append(prefix).append(padding).append("\nend\",1\n");
+                expected.add(new String[] {String.valueOf(i), text, "1"});
+                spanned = true;
+                continue;
+            }
+            String[] record = {String.valueOf(i), "text " + i, String.valueOf(i)};
+            content.append(String.join(",", record)).append('\n');
+            expected.add(record);
+        }
+        File file = write(content.toString());
+        // 字段内的换行符位于块边界之后，第一个块在字段中间结束
+        assertTrue(content.indexOf("\nend\"") > boundary);
+
+        for (boolean parallel : new boolean[] {false, true}) {
+            useChunks(parallel);
+            assertRecords(expected, readAll(file, 1));
+        }
+    }
+
+    @Test
+    void multiLineFieldInsideChunkFallsBackToSequential() throws IOException {
+        StringBuilder content = new StringBuilder(HEADER);
+        List<String[]> expected = new ArrayList<>();
+        for (int i = 0; i < 20000; i++) {
+            String[] record = {String.valueOf(i), i == 15000 ? "multi\nline" : "v" + i, "2"};
+            if (i == 15000) {
+                content.append(i).append(",\"multi\nline\",2\n");
+            } else {
+                content.append(String.join(",", record)).append('\n');
+            }
+            expected.add(record);
+        }
+        File file = write(content.toString());
+
+        for (boolean parallel : new boolean[] {false, true}) {
+            useChunks(parallel);
+            assertRecords(expected, readAll(file, 1));
+        }
+    }
+
+    @Test
+    void skipsBomAndHeaderLines() throws IOException {
+        File file = tempDir.resolve("bom.csv").toFile();
+        byte[] body = "title\nid,name\n1,中文\n\n2,b\n".getBytes(StandardCharsets.UTF_8);
+        byte[] content = new byte[body.length + 3];
+        content[0] = (byte) 0xEF;
+        content[1] = (byte) 0xBB;
+        content[2] = (byte) 0xBF;
+        System.arraycopy(body, 0, content, 3, body.length);
+        Files.write(file.toPath(), content);
+
+        assertRecords(Arrays.asList(new String[] {"1", "中文"}, new String[] {"2", "b"}), readAll(file, 2));
+        assertRecords(Arrays.asList(new String[] {"id", "name"}, new String[] {"1", "中文"}, new String[] {"2", "b"}),
+                readAll(file, 1));
+    }
+
+    @Test
+    void stopsReadingWhenQueryIsCancelled() throws IOException {
+        StringBuilder content = new StringBuilder(HEADER);
+        for (int i = 0; i < 30000; i++) {
+            content.append(i).append(",text,").append(i).append('\n');
+        }
+        File file = write(content.toString());
+
+        for (boolean parallel : new boolean[] {false, true}) {
+            useChunks(parallel);
+            CancellationToken token = CancellationToken.withTimeout(0);
+            assertThrows(QueryCancelledException.class, () -> token.callWith(() -> {
+                try (CsvRecordReader reader = new CsvRecordReader(file, 1)) {
+                    assertNotNull(reader.next());
+                    token.cancel();
+                    while (reader.next() != null) {
+                        // 取消后下一次读取应当抛出异常
+                    }
+                    return null;
+                } catch (IOException e) {
+                    throw new UncheckedIOException(e);
+                }
+            }));
+        }
+    }
+
+    /**
+     * 使用最小的块大小，使测试文件被切分为多个块
+     */
+    private void useChunks(boolean parallel) {
+        CsvRecordReader.configure(CHUNK_SIZE, 4);
+        if (parallel && executor == null) {
+            // 执行器创建时会设置为读取器的执行器
+            executor = new PartitionedExecutorImpl(new ExcelConfig());
+        }
+        CsvRecordReader.useExecutor(parallel ? executor : null);
+    }
+
+    private File write(String content) throws IOException {
+        File file = tempDir.resolve("data.csv").toFile();
+        Files.write(file.toPath(), content.getBytes(StandardCharsets.UTF_8));
+        return file;
+    }
+
+    private static List<String[]> readAll(File file, int skipLines) throws IOException {
+        List<String[]> records = new ArrayList<>();
+        try (CsvRecordReader reader = new CsvRecordReader(file, skipLines)) {
+            String[] record;
+            while ((record = reader.next()) != null) {
+                records.add(record);
+            }
+        }
+        return records;
+    }
+
+    private static void assertRecords(List<String[]> expected, List<String[]> actual) {
+        assertEquals(expected.size(), actual.size());
+        for (int i = 0; i < expected.size(); i++) {
+            assertEquals(Arrays.asList(expected.get(i)), Arrays.asList(actual.get(i)), "record " + i);
+        }
+    }
+}
@@ -0,0 +1,125 @@
+package com.excel.sql.engine.service.write;
+
+import org.apache.poi.ss.usermodel.Cell;
+import org.apache.poi.ss.usermodel.Row;
+import org.apache.poi.ss.usermodel.Sheet;
+import org.apache.poi.ss.usermodel.Workbook;
+import org.apache.poi.xssf.usermodel.XSSFWorkbook;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+
+/**
+ * 行撤销日志的测试：回滚恢复语句执行前的行和工作表，提交和回滚后不留下临时工作表
+ */
+class RowUndoLogTest {
+
+    @Test
+    void rollbackRestoresModifiedDeletedAndCreatedRows() throws IOException {
+        try (Workbook workbook = workbook()) {
+            Sheet sheet = workbook.getSheet("data");
+            List<String> before = dump(sheet);
+            RowUndoLog undoLog = new RowUndoLog(workbook, true);
+
+            // 修改第1行，同一行第二次保存不覆盖修改前的副本
+            undoLog.saveRow(sheet, 1);
+            sheet.getRow(1).getCell(1).setCellValue("changed");
+            undoLog.saveRow(sheet, 1);
+            sheet.getRow(1).createCell(3).setCellValue(99);
+            // 删除第2行
+            undoLog.saveRow(sheet, 2);
+            sheet.removeRow(sheet.getRow(2));
+            // 在末尾新建一行
+            undoLog.saveRow(sheet, 4);
+            sheet.createRow(4).createCell(0).setCellValue(5);
+
+            undoLog.rollback();
+
+            assertEquals(before, dump(sheet));
+            assertNull(sheet.getRow(4));
+            assertEquals(1, workbook.getNumberOfSheets());
+        }
+    }
+
+    @Test
+    void rollbackRemovesCreatedSheet() throws IOException {
+        try (Workbook workbook = workbook()) {
+            RowUndoLog undoLog = new RowUndoLog(workbook, true);
+            Sheet created = workbook.createSheet("created");
+            undoLog.sheetCreated(created);
+            // 新建工作表中的行不需要保存
+            undoLog.saveRow(created, 0);
+            created.createRow(0).createCell(0).setCellValue("header");
+
+            undoLog.rollback();
+
+            assertEquals(1, workbook.getNumberOfSheets());
+            assertNull(workbook.getSheet("created"));
+        }
+    }
+
+    @Test
+    void commitKeepsChangesAndRemovesCopies() throws IOException {
+        try (Workbook workbook = workbook()) {
+            Sheet sheet = workbook.getSheet("data");
+            RowUndoLog undoLog = new RowUndoLog(workbook, true);
+            undoLog.saveRow(sheet, 1);
+            sheet.getRow(1).getCell(1).setCellValue("changed");
+            assertEquals(2, workbook.getNumberOfSheets());
+
+            undoLog.commit();
+
+            assertEquals(1, workbook.getNumberOfSheets());
+            assertEquals("changed", sheet.getRow(1).getCell(1).getStringCellValue());
+        }
+    }
+
+    @Test
+    void disabledLogRecordsNothing() throws IOException {
+        try (Workbook workbook = workbook()) {
+            Sheet sheet = workbook.getSheet("data");
+            RowUndoLog undoLog = new RowUndoLog(workbook, false);
+            undoLog.saveRow(sheet, 1);
+            sheet.getRow(1).getCell(1).setCellValue("changed");
+            assertEquals(1, workbook.getNumberOfSheets());
+
+            undoLog.rollback();
+
+            assertEquals("changed", sheet.getRow(1).getCell(1).getStringCellValue());
+        }
+    }
+
+    private static Workbook workbook() {
+        Workbook workbook = new XSSFWorkbook();
+        Sheet sheet = workbook.createSheet("data");
+        Row header = sheet.createRow(0);
+        header.createCell(0).setCellValue("id");
+        header.createCell(1).setCellValue("name");
+        header.createCell(2).setCellValue("amount");
+        for (int rowNum = 1; rowNum <= 3; rowNum++) {
+            Row row = sheet.createRow(rowNum);
+            row.createCell(0).setCellValue(rowNum);
+            row.createCell(1).setCellValue("name-" + rowNum);
+            row.createCell(2).setCellValue(rowNum * 1.5);
+        }
+        return workbook;
+    }
+
+    /**
+     * 按行号顺序列出工作表的全部单元格，用于比较修改前后的内容
+     */
+    private static List<String> dump(Sheet sheet) {
+        List<String> cells = new ArrayList<>();
+        for (Row row : sheet) {
+            for (Cell cell : row) {
+                cells.add(row.getRowNum() + ":" + cell.getColumnIndex() + "=" + cell);
+            }
+        }
+        return cells;
+    }
+}